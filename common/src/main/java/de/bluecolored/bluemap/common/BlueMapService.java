@@ -38,6 +38,7 @@
 import de.bluecolored.bluemap.core.storage.Storage;
 import de.bluecolored.bluemap.core.util.FileHelper;
 import de.bluecolored.bluemap.core.util.Key;
+import de.bluecolored.bluemap.core.util.MemoryBudget;
 import de.bluecolored.bluemap.core.world.World;
 import de.bluecolored.bluemap.core.world.WorldLoader;
 import org.jetbrains.annotations.Nullable;
@@ -50,6 +51,7 @@
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 /**
@@ -59,6 +61,7 @@ public class BlueMapService implements Closeable {
 
     private final BlueMapConfiguration config;
     private final WebFilesManager webFilesManager;
+    private final UnaryOperator<World> worldDecorator;
 
     private MinecraftVersion minecraftVersion;
     private ResourcePack resourcePack;
@@ -67,19 +70,30 @@ public class BlueMapService implements Closeable {
     private final Map<String, Storage> storages;
 
 
+    public BlueMapService(BlueMapConfiguration configuration) {
+        this(configuration, null);
+    }
+
     public BlueMapService(BlueMapConfiguration configuration, @Nullable ResourcePack preloadedResourcePack) {
-        this(configuration);
-        this.resourcePack = preloadedResourcePack;
+        this(configuration, preloadedResourcePack, UnaryOperator.identity());
     }
 
-    public BlueMapService(BlueMapConfiguration configuration) {
+    /**
+     * @param worldDecorator a function that is applied to every world once it is loaded,
+     *                       e.g. to wrap it with a world that is backed by live server data
+     */
+    public BlueMapService(BlueMapConfiguration configuration, @Nullable ResourcePack preloadedResourcePack, UnaryOperator<World> worldDecorator) {
         this.config = configuration;
         this.webFilesManager = new WebFilesManager(config.getWebappConfig().getWebroot());
+        this.resourcePack = preloadedResourcePack;
+        this.worldDecorator = worldDecorator;
 
         this.worlds = new ConcurrentHashMap<>();
         this.maps = new ConcurrentHashMap<>();
         this.storages = new ConcurrentHashMap<>();
 
+        MemoryBudget.global().setBudget(config.getCoreConfig().resolveCacheMemoryBudget());
+
         StateDumper.global().register(this);
     }
 
@@ -212,6 +226,7 @@ private synchronized void loadMap(String id, MapConfig mapConfig) throws Configu
                 List<Path> worldPacks = worldLoader.worldDataPacks(worldFolder, dimension);
                 DataPack dataPack = loadDataPack(worldPacks);
                 world = worldLoader.loadWorld(worldFolder, dimension, mapConfig.getDimensionType(), dataPack); // TODO: the dimension-type is not reflected in the world-id (-> separate world configs?)
+                world = worldDecorator.apply(world);
                 worlds.put(worldId, world);
             } catch (IOException ex) {
                 throw new ConfigurationException("Failed to load world " + worldId + "!", ex);
@@ -32,6 +32,8 @@
 import de.bluecolored.bluemap.common.plugin.Plugin;
 import de.bluecolored.bluemap.common.rendermanager.MapUpdatePreparationTask;
 import de.bluecolored.bluemap.common.rendermanager.MapUpdateTask;
+import de.bluecolored.bluemap.common.rendermanager.MultiMapRegionUpdateTask;
+import de.bluecolored.bluemap.common.rendermanager.MultiMapUpdateTask;
 import de.bluecolored.bluemap.common.rendermanager.WorldRegionUpdateTask;
 import de.bluecolored.bluemap.core.map.BmMap;
 import lombok.NonNull;
@@ -141,6 +143,9 @@ private synchronized void freeze() {
             if (task instanceof WorldRegionUpdateTask)
                 return ((WorldRegionUpdateTask) task).getMap().equals(map);
 
+            if (task instanceof MultiMapUpdateTask || task instanceof MultiMapRegionUpdateTask)
+                return task.affectsMap(map);
+
             return false;
         });
     }
@@ -29,6 +29,7 @@
 import de.bluecolored.bluemap.common.BlueMapService;
 import de.bluecolored.bluemap.common.plugin.Plugin;
 import de.bluecolored.bluemap.core.world.World;
+import de.bluecolored.bluemap.core.world.mca.LiveChunkWorld;
 import de.bluecolored.bluemap.core.world.mca.MCAWorld;
 import org.jetbrains.annotations.Nullable;
 
@@ -61,7 +62,9 @@ public String getId() {
     @Deprecated
     public Path getSaveFolder() {
         World world = unpack(this.world);
-        if (world instanceof MCAWorld) {
+        if (world instanceof LiveChunkWorld) {
+            return ((LiveChunkWorld) world).getDimensionFolder();
+        } else if (world instanceof MCAWorld) {
             return ((MCAWorld) world).getDimensionFolder();
         } else {
             throw new UnsupportedOperationException("This world-type has no save-folder.");
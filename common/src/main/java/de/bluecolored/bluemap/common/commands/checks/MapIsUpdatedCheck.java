@@ -25,7 +25,6 @@
 package de.bluecolored.bluemap.common.commands.checks;
 
 import de.bluecolored.bluemap.common.plugin.Plugin;
-import de.bluecolored.bluemap.common.rendermanager.MapRenderTask;
 import de.bluecolored.bluemap.core.map.BmMap;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -46,10 +45,7 @@ public class MapIsUpdatedCheck implements Check {
     @Override
     public CheckResult getResult() {
         return plugin.getRenderManager().getScheduledRenderTasks().stream()
-                .noneMatch(task ->
-                        task instanceof MapRenderTask mapTask &&
-                        mapTask.getMap().equals(map)
-                ) ? CheckResult.OK : CheckResult.BAD;
+                .noneMatch(task -> task.affectsMap(map)) ? CheckResult.OK : CheckResult.BAD;
     }
 
     @Override
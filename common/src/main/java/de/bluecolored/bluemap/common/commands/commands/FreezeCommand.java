@@ -28,7 +28,6 @@
 import de.bluecolored.bluecommands.annotations.Command;
 import de.bluecolored.bluemap.common.commands.Permission;
 import de.bluecolored.bluemap.common.plugin.Plugin;
-import de.bluecolored.bluemap.common.rendermanager.MapRenderTask;
 import de.bluecolored.bluemap.common.serverinterface.CommandSource;
 import de.bluecolored.bluemap.core.map.BmMap;
 import lombok.RequiredArgsConstructor;
@@ -46,10 +45,7 @@ public class FreezeCommand {
     public void freeze(CommandSource source, @Argument("map") BmMap map) {
         plugin.getPluginState().getMapState(map).setUpdateEnabled(false);
         plugin.stopWatchingMap(map);
-        plugin.getRenderManager().removeRenderTasksIf(task ->
-                task instanceof MapRenderTask mrt &&
-                        mrt.getMap().equals(map)
-        );
+        plugin.getRenderManager().removeRenderTasksIf(task -> task.affectsMap(map));
         source.sendMessage(format("""
                 % Map % is now % and will no longer automatically update
                 Any currently scheduled updates for this map have been cancelled
@@ -72,7 +72,7 @@ private Component element(BmMap map) {
 
         long pendingCount = plugin.getRenderManager().getScheduledRenderTasks().stream()
                 .skip(1)
-                .filter(task -> task instanceof MapRenderTask mapTask && mapTask.getMap().equals(map))
+                .filter(task -> task.affectsMap(map))
                 .count();
         if (pendingCount > 0) {
             icon = ICON_PENDING;
@@ -82,11 +82,13 @@ private Component element(BmMap map) {
         }
 
         RenderTask task = plugin.getRenderManager().getCurrentRenderTask();
-        if (task instanceof MapRenderTask mapTask && mapTask.getMap().equals(map)) {
+        if (task != null && task.affectsMap(map)) {
             icon = ICON_IN_PROGRESS;
             String format = switch (task) {
                 case MapUpdateTask ignored -> "is currently being updated: %";
                 case WorldRegionUpdateTask ignored -> "is currently being updated: %";
+                case MultiMapUpdateTask ignored -> "is currently being updated: %";
+                case MultiMapRegionUpdateTask ignored -> "is currently being updated: %";
                 case MapPurgeTask ignored -> "is currently being purged: %";
                 default -> "has a running task: %";
             };
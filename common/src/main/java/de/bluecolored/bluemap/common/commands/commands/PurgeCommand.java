@@ -55,10 +55,7 @@ public boolean purge(CommandSource source, @Argument("map") BmMap map) {
 
             // delete map
             MapPurgeTask purgeTask = new MapPurgeTask(map);
-            plugin.getRenderManager().removeRenderTasksIf(task ->
-                    task instanceof MapRenderTask mrt &&
-                            mrt.getMap().equals(map)
-            );
+            plugin.getRenderManager().removeRenderTasksIf(task -> task.affectsMap(map));
             plugin.getRenderManager().scheduleRenderTaskNext(purgeTask);
 
             List<Component> lines = new LinkedList<>();
@@ -30,6 +30,7 @@
 import de.bluecolored.bluemap.common.plugin.Plugin;
 import de.bluecolored.bluemap.common.rendermanager.*;
 import de.bluecolored.bluemap.core.map.BmMap;
+import de.bluecolored.bluemap.core.util.MemoryBudget;
 import lombok.RequiredArgsConstructor;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.JoinConfiguration;
@@ -67,6 +68,7 @@ private class Status {
 
         private final boolean isRunning, isPaused, isProcessing;
         private final int workerThreadCount, pausePlayerCount;
+        private final long cacheMemoryUsage, cacheMemoryBudget;
 
         public Status() {
             BlueMapService blueMapService = plugin.getBlueMap();
@@ -85,12 +87,16 @@ public Status() {
 
             this.workerThreadCount = renderManager.getWorkerThreadCount();
             this.pausePlayerCount = blueMapService.getConfig().getPluginConfig().getPlayerRenderLimit();
+
+            this.cacheMemoryUsage = MemoryBudget.global().getUsage();
+            this.cacheMemoryBudget = MemoryBudget.global().getBudget();
         }
 
         public Component status() {
             return paragraph("Status",
                     lines(
                             renderThreads(),
+                            cacheMemory(),
                             isProcessing ? activeTask() : null,
                             mapSummary(isProcessing)
                     )
@@ -144,6 +150,13 @@ private Component renderThreads() {
             );
         }
 
+        private Component cacheMemory() {
+            return details(BASE_COLOR, format("cache-memory: % of %",
+                    text(cacheMemoryUsage / (1024 * 1024) + " MiB").color(HIGHLIGHT_COLOR),
+                    text(cacheMemoryBudget / (1024 * 1024) + " MiB").color(HIGHLIGHT_COLOR)
+            ));
+        }
+
         private @Nullable Component activeTask() {
             if (currentTask == null) return null;
 
@@ -199,11 +212,11 @@ private Component mapSummary(boolean excludeInProgress) {
 
             // find pending updates
             for (RenderTask renderTask : renderQueue) {
-                if (renderTask instanceof MapRenderTask mapTask) {
-                    mapsPending.add(mapTask.getMap());
-                    mapsUpdated.remove(mapTask.getMap());
+                for (BmMap map : maps.values()) {
+                    if (renderTask.affectsMap(map)) mapsPending.add(map);
                 }
             }
+            mapsUpdated.removeAll(mapsPending);
 
             // find frozen maps
             for (BmMap map : mapsUpdated) {
@@ -215,10 +228,13 @@ private Component mapSummary(boolean excludeInProgress) {
 
             // exclude currently in progress
             if (excludeInProgress) {
-                if (currentTask instanceof MapRenderTask mapTask) {
-                    mapsPending.remove(mapTask.getMap());
-                    mapsUpdated.remove(mapTask.getMap());
-                    mapsFrozen.remove(mapTask.getMap());
+                if (currentTask != null) {
+                    for (BmMap map : maps.values()) {
+                        if (!currentTask.affectsMap(map)) continue;
+                        mapsPending.remove(map);
+                        mapsUpdated.remove(map);
+                        mapsFrozen.remove(map);
+                    }
                 }
             }
 
@@ -44,6 +44,10 @@ public class CoreConfig {
     private int updateCooldown = 60;
     private int fullUpdateInterval = 1440;
 
+    private boolean renderMapsTogether = false;
+
+    private int cacheMemoryBudget = 0;
+
     private boolean metrics = true;
 
     private Path data = Path.of("bluemap");
@@ -64,6 +68,14 @@ public int resolveRenderThreadCount() {
         return Math.max(Runtime.getRuntime().availableProcessors() + renderThreadCount, 1);
     }
 
+    /**
+     * Returns the memory-budget for BlueMap's caches in bytes
+     */
+    public long resolveCacheMemoryBudget() {
+        if (cacheMemoryBudget > 0) return cacheMemoryBudget * 1024L * 1024L;
+        return Runtime.getRuntime().maxMemory() / 4;
+    }
+
     @ConfigSerializable
     @Getter
     public static class LogConfig {
@@ -87,8 +87,11 @@ public class MapConfig implements MapSettings {
     private boolean enableFlatView = true;
     private boolean enableFreeFlightView = true;
     private boolean enableHires = true;
+    private boolean compactHiresFormat = false;
+    private boolean mergeHiresFaces = false;
 
     private boolean checkForRemovedRegions = true;
+    private int renderStateCacheSize = 128;
 
     private String storage = "file";
 
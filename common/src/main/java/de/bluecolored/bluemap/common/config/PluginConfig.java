@@ -53,4 +53,8 @@ public class PluginConfig {
 
     private int playerRenderLimit = -1;
 
+    private double renderThrottleTickTime = 0;
+
+    private boolean liveChunkSnapshots = false;
+
 }
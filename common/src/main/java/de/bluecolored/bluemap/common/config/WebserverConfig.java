@@ -45,6 +45,8 @@ public class WebserverConfig {
 
     private boolean sseEnabled = true;
 
+    private boolean metricsEnabled = false;
+
     private LogConfig log = new LogConfig();
 
     public InetAddress resolveIp() throws UnknownHostException {
@@ -40,6 +40,7 @@ public class FileConfig extends StorageConfig {
     private Path root = Path.of("bluemap", "web", "maps");
     private String compression = Compression.GZIP.getKey().getFormatted();
     private boolean atomic = true;
+    private boolean deduplicateHiresTiles = false;
 
     public Compression getCompression() throws ConfigurationException {
         return parseKey(Compression.REGISTRY, compression, "compression");
@@ -47,7 +48,7 @@ public Compression getCompression() throws ConfigurationException {
 
     @Override
     public FileStorage createStorage() throws ConfigurationException {
-        return new FileStorage(root, getCompression(), atomic);
+        return new FileStorage(root, getCompression(), atomic, false, deduplicateHiresTiles);
     }
 
 }
@@ -64,6 +64,7 @@ public class SQLConfig extends StorageConfig {
     private int maxConnections = -1;
 
     private String compression = Compression.GZIP.getKey().getFormatted();
+    private boolean deduplicateHiresTiles = false;
 
     @Getter(AccessLevel.NONE)
     private transient URL driverJarURL = null;
@@ -125,7 +126,7 @@ public SQLStorage createStorage() throws ConfigurationException {
             database = new Database(getConnectionUrl(), getConnectionProperties(), getMaxConnections());
         }
         CommandSet commandSet = getDialect().createCommandSet(database);
-        return new SQLStorage(commandSet, getCompression());
+        return new SQLStorage(commandSet, getCompression(), deduplicateHiresTiles);
     }
 
     private @Nullable Driver createDriver() throws ConfigurationException {
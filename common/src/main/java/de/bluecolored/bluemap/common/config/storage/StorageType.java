@@ -34,10 +34,12 @@ public interface StorageType extends Keyed {
 
     StorageType FILE = new Impl(Key.bluemap("file"), FileConfig.class);
     StorageType SQL = new Impl(Key.bluemap("sql"), SQLConfig.class);
+    StorageType ARCHIVE = new Impl(Key.bluemap("archive"), ArchiveConfig.class);
 
     Registry<StorageType> REGISTRY = new Registry<>(
             FILE,
-            SQL
+            SQL,
+            ARCHIVE
     );
 
     Class<? extends StorageConfig> getConfigType();
@@ -24,146 +24,79 @@
  */
 package de.bluecolored.bluemap.common.plugin;
 
-import com.flowpowered.math.vector.Vector2i;
-import com.github.benmanes.caffeine.cache.Cache;
-import de.bluecolored.bluemap.common.rendermanager.MapUpdatePreparationTask;
-import de.bluecolored.bluemap.common.rendermanager.RenderManager;
-import de.bluecolored.bluemap.common.rendermanager.WorldRegionUpdateTask;
 import de.bluecolored.bluemap.core.logger.Logger;
 import de.bluecolored.bluemap.core.map.BmMap;
-import de.bluecolored.bluemap.core.util.Caches;
-import de.bluecolored.bluemap.core.util.WatchService;
+import lombok.Getter;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.function.Consumer;
 
-public class MapUpdateService extends Thread {
-
-    private static final AtomicInteger NEXT_ID = new AtomicInteger(0);
+/**
+ * Keeps a map up to date: Schedules full map-updates in the configured interval and receives region-updates
+ * from the {@link WorldUpdateService} of the map's world.
+ */
+public class MapUpdateService {
 
     private static @Nullable Timer timer;
 
-    private final BmMap map;
-    private final RenderManager renderManager;
+    @Getter private final BmMap map;
+    @Getter private final WorldUpdateService worldUpdateService;
     private final Instant lastFullUpdate;
     private final Duration fullUpdateInterval;
-    private final Duration regionUpdateCooldown;
-    private final WatchService<Vector2i> watchService;
-
-    private volatile boolean closed;
 
-    private final Map<Vector2i, TimerTask> scheduledUpdates;
-    private final Cache<Vector2i, Long> lastUpdateTimes;
+    private @Nullable TimerTask fullUpdateTask;
+    private boolean closed;
 
     private final Consumer<String> verboseLog;
 
     public MapUpdateService(
-            RenderManager renderManager,
             BmMap map,
+            WorldUpdateService worldUpdateService,
             Instant lastFullUpdate,
             Duration fullUpdateInterval,
-            Duration regionUpdateCooldown,
             boolean verbose
-    ) throws IOException {
-        super("BlueMap-MapUpdateService-" + NEXT_ID.getAndIncrement());
-        this.renderManager = renderManager;
+    ) {
         this.map = map;
+        this.worldUpdateService = worldUpdateService;
         this.lastFullUpdate = lastFullUpdate;
         this.fullUpdateInterval = fullUpdateInterval;
-        this.regionUpdateCooldown = regionUpdateCooldown;
         this.closed = false;
-        this.scheduledUpdates = new HashMap<>();
-        this.lastUpdateTimes = Caches.with()
-                .expireAfterWrite(regionUpdateCooldown)
-                .build();
-        this.watchService = map.getWorld().createRegionWatchService();
         this.verboseLog = verbose ? Logger.global::logInfo : Logger.global::logDebug;
     }
 
-    @Override
-    public void run() {
+    public synchronized void start() {
+        if (closed || fullUpdateTask != null) return;
+
         verboseLog.accept("Started watching map '" + map.getId() + "' for updates...");
+        worldUpdateService.addMap(map);
 
         Duration delay = Instant.now().until(lastFullUpdate.plus(fullUpdateInterval));
         if (delay.isNegative()) delay = Duration.ZERO;
-        synchronized (MapUpdateService.class) {
-            if (timer == null) timer = new Timer("BlueMap-MapUpdateService-Timer", true);
-            timer.scheduleAtFixedRate(new TimerTask() {
-                @Override
-                public void run() {
-                    verboseLog.accept("Start updating map '" + map.getId() + "'...");
-                    renderManager.scheduleRenderTaskNext(MapUpdatePreparationTask.updateMap(map, renderManager));
-                }
-            }, delay.toMillis(), fullUpdateInterval.toMillis());
-        }
-
-        try {
-            while (!closed)
-                this.watchService.take().forEach(this::updateRegion);
-        } catch (WatchService.ClosedException ignore) {
-        } catch (IOException e) {
-            Logger.global.logError("Exception trying to watch map '" + map.getId() + "' for updates.", e);
-        } catch (InterruptedException iex) {
-            Thread.currentThread().interrupt();
-        } finally {
-            verboseLog.accept("Stopped watching map '" + map.getId() + "' for updates.");
-            if (!closed) {
-                Logger.global.logWarning("Region-file watch-service for map '" + map.getId() +
-                        "' stopped unexpectedly! (This map might not update automatically from now on)");
-            }
-        }
-    }
-
-    private synchronized void updateRegion(Vector2i regionPos) {
-        if (closed) return;
-
-        // we only want to start the render when there were no changes on a file for at least 5 seconds
-        TimerTask task = scheduledUpdates.remove(regionPos);
-        if (task != null) task.cancel();
-
-        task = new TimerTask() {
+        fullUpdateTask = new TimerTask() {
             @Override
             public void run() {
-                synchronized (MapUpdateService.this) {
-                    WorldRegionUpdateTask task = new WorldRegionUpdateTask(map, regionPos);
-                    scheduledUpdates.remove(regionPos);
-                    renderManager.scheduleRenderTask(task);
-                    lastUpdateTimes.put(regionPos, System.currentTimeMillis());
-
-                    verboseLog.accept("Scheduled update for region-file: " + regionPos + " (Map: " + map.getId() + ")");
-                }
+                verboseLog.accept("Start updating map '" + map.getId() + "'...");
+                worldUpdateService.updateMap(map);
             }
         };
 
-        Long lastUpdateTime = lastUpdateTimes.getIfPresent(regionPos);
-        if (lastUpdateTime == null) lastUpdateTime = 0L;
-        long timeSinceLastUpdate = System.currentTimeMillis() - lastUpdateTime;
-        long delay = Math.max(regionUpdateCooldown.toMillis() - timeSinceLastUpdate, 5000);
-        scheduledUpdates.put(regionPos, task);
-
         synchronized (MapUpdateService.class) {
             if (timer == null) timer = new Timer("BlueMap-MapUpdateService-Timer", true);
-            timer.schedule(task, delay);
+            timer.scheduleAtFixedRate(fullUpdateTask, delay.toMillis(), fullUpdateInterval.toMillis());
         }
     }
 
     public synchronized void close() {
+        if (closed) return;
         this.closed = true;
-        this.interrupt();
 
-        this.scheduledUpdates.values().forEach(TimerTask::cancel);
-        this.scheduledUpdates.clear();
-
-        try {
-            this.watchService.close();
-        } catch (Exception ex) {
-            Logger.global.logError("Exception while trying to close WatchService!", ex);
-        }
+        if (fullUpdateTask != null) fullUpdateTask.cancel();
+        worldUpdateService.removeMap(map);
+        verboseLog.accept("Stopped watching map '" + map.getId() + "' for updates.");
     }
 
 }
@@ -25,6 +25,7 @@
 package de.bluecolored.bluemap.common.plugin;
 
 import com.flowpowered.math.vector.Vector2i;
+import com.github.benmanes.caffeine.cache.Cache;
 import de.bluecolored.bluemap.common.BlueMapConfiguration;
 import de.bluecolored.bluemap.common.BlueMapService;
 import de.bluecolored.bluemap.common.InterruptableReentrantLock;
@@ -39,6 +40,7 @@
 import de.bluecolored.bluemap.common.metrics.Metrics;
 import de.bluecolored.bluemap.common.plugin.skins.PlayerSkinUpdater;
 import de.bluecolored.bluemap.common.rendermanager.MapUpdatePreparationTask;
+import de.bluecolored.bluemap.common.rendermanager.MultiMapUpdatePreparationTask;
 import de.bluecolored.bluemap.common.rendermanager.RenderManager;
 import de.bluecolored.bluemap.common.rendermanager.RenderTask;
 import de.bluecolored.bluemap.common.rendermanager.TileUpdateStrategy;
@@ -54,15 +56,19 @@
 import de.bluecolored.bluemap.core.logger.Logger;
 import de.bluecolored.bluemap.core.map.BmMap;
 import de.bluecolored.bluemap.core.map.hires.ArrayTileModel;
+import de.bluecolored.bluemap.core.metrics.BlueMapMetrics;
 import de.bluecolored.bluemap.core.resources.MinecraftVersion;
 import de.bluecolored.bluemap.core.resources.pack.resourcepack.ResourcePack;
 import de.bluecolored.bluemap.core.storage.Storage;
+import de.bluecolored.bluemap.core.util.Caches;
 import de.bluecolored.bluemap.core.util.FileHelper;
 import de.bluecolored.bluemap.core.util.Key;
 import de.bluecolored.bluemap.core.util.Tristate;
 import de.bluecolored.bluemap.core.util.nbt.LenientListAdapter;
 import de.bluecolored.bluemap.core.util.nbt.RegistryAdapter;
 import de.bluecolored.bluemap.core.world.World;
+import de.bluecolored.bluemap.core.world.mca.LiveChunkWorld;
+import de.bluecolored.bluemap.core.world.mca.MCAWorld;
 import de.bluecolored.bluenbt.BlueNBT;
 import de.bluecolored.bluenbt.TypeToken;
 import lombok.AccessLevel;
@@ -82,8 +88,11 @@
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Getter
 public class Plugin implements ServerEventListener {
@@ -110,6 +119,8 @@ public class Plugin implements ServerEventListener {
 
     private Timer timer;
     private Map<String, MapUpdateService> mapUpdateServices;
+    private Map<String, WorldUpdateService> worldUpdateServices;
+    private final Cache<ServerWorld, String> worldIds = Caches.with().weakKeys().build();
     private PlayerSkinUpdater skinUpdater;
     private PluginLivePlayerInfoTransformer livePlayerInfoTransformer;
 
@@ -183,7 +194,11 @@ private void load(@Nullable ResourcePack preloadedResourcePack) throws IOExcepti
                 }
 
                 //create bluemap-service
-                blueMap = new BlueMapService(configManager, preloadedResourcePack);
+                blueMap = new BlueMapService(
+                        configManager,
+                        preloadedResourcePack,
+                        pluginConfig.isLiveChunkSnapshots() ? this::withLiveChunks : UnaryOperator.identity()
+                );
 
                 //try load resources
                 try {
@@ -219,6 +234,10 @@ private void load(@Nullable ResourcePack preloadedResourcePack) throws IOExcepti
                     // default route
                     webRequestHandler.register(".*", new FileRequestHandler(webroot));
 
+                    // metrics route
+                    if (webserverConfig.isMetricsEnabled())
+                        webRequestHandler.register("metrics", new MetricsRequestHandler(BlueMapMetrics.registry()));
+
                     // map route
                     for (var mapConfigEntry : configManager.getMapConfigs().entrySet()) {
                         String id = mapConfigEntry.getKey();
@@ -345,20 +364,22 @@ public void run() {
                     timer.schedule(savePlayersTask, TimeUnit.SECONDS.toMillis(writePlayersInterval), TimeUnit.SECONDS.toMillis(writePlayersInterval));
                 }
 
-                //periodically restart the file-watchers
-                TimerTask fileWatcherRestartTask = new TimerTask() {
-                    @Override
-                    public void run() {
-                        mapUpdateServices.values().forEach(MapUpdateService::close);
-                        mapUpdateServices.clear();
-                        initMapUpdateTasks();
-                    }
-                };
-                timer.schedule(fileWatcherRestartTask, TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1));
+                //periodically restart the file-watchers (not needed if the server notifies us about chunk-saves)
+                if (!serverInterface.isChunkSaveEventSupported()) {
+                    TimerTask fileWatcherRestartTask = new TimerTask() {
+                        @Override
+                        public void run() {
+                            stopWatchingAllMaps();
+                            initMapUpdateTasks();
+                        }
+                    };
+                    timer.schedule(fileWatcherRestartTask, TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1));
+                }
 
                 //update all (non frozen) maps
                 Duration fullUpdateInterval = coreConfig.getFullUpdateInterval();
                 if (fullUpdateInterval.isPositive()) {
+                    boolean renderMapsTogether = coreConfig.isRenderMapsTogether();
                     renderManager.scheduleRenderTasksNext(maps.values().stream()
                             .filter(map -> pluginState.getMapState(map).isUpdateEnabled())
                             .filter(map -> {
@@ -368,7 +389,15 @@ public void run() {
                             })
                             .sorted(Comparator.comparing(bmMap -> bmMap.getMapSettings().getSorting()))
                             .peek(map -> pluginState.getMapState(map).setLastFullUpdate(Instant.now()))
-                            .map(map -> MapUpdatePreparationTask.updateMap(map, renderManager))
+                            .collect(Collectors.groupingBy(
+                                    map -> renderMapsTogether ? map.getWorld().getId() : map.getId(),
+                                    LinkedHashMap::new,
+                                    Collectors.toList()
+                            ))
+                            .values().stream()
+                            .map(mapGroup -> mapGroup.size() == 1 ?
+                                    MapUpdatePreparationTask.updateMap(mapGroup.getFirst(), renderManager) :
+                                    MultiMapUpdatePreparationTask.updateMaps(mapGroup, renderManager))
                             .toArray(RenderTask[]::new));
                 }
 
@@ -388,6 +417,16 @@ public void run() {
                     }
                 }
 
+                //throttle render-threads based on the server tick-time
+                if (pluginConfig.getRenderThrottleTickTime() > 0) {
+                    if (serverInterface.getAverageTickTime().isPresent()) {
+                        RenderThrottle renderThrottle = new RenderThrottle(serverInterface, renderManager, pluginConfig.getRenderThrottleTickTime());
+                        timer.scheduleAtFixedRate(renderThrottle, TimeUnit.SECONDS.toMillis(1), TimeUnit.SECONDS.toMillis(1));
+                    } else {
+                        Logger.global.logWarning("render-throttle-tick-time is set, but this server-implementation does not provide the tick-time! Render-threads will not be throttled.");
+                    }
+                }
+
                 //metrics
                 MinecraftVersion minecraftVersion = blueMap.getOrLoadMinecraftVersion();
                 TimerTask metricsTask = new TimerTask() {
@@ -400,7 +439,8 @@ public void run() {
                 timer.scheduleAtFixedRate(metricsTask, TimeUnit.MINUTES.toMillis(1), TimeUnit.MINUTES.toMillis(30));
 
                 //watch map-changes
-                this.mapUpdateServices = new HashMap<>();
+                this.mapUpdateServices = new ConcurrentHashMap<>();
+                this.worldUpdateServices = new ConcurrentHashMap<>();
                 initMapUpdateTasks();
 
                 //register listener
@@ -453,11 +493,9 @@ public void unload(boolean keepWebserver) {
                 timer = null;
 
                 //stop file-watchers
-                if (mapUpdateServices != null) {
-                    mapUpdateServices.values().forEach(MapUpdateService::close);
-                    mapUpdateServices.clear();
-                }
+                if (mapUpdateServices != null) stopWatchingAllMaps();
                 mapUpdateServices = null;
+                worldUpdateServices = null;
 
                 //save
                 save();
@@ -644,12 +682,26 @@ public synchronized void startWatchingMap(BmMap map) {
         if (blueMap == null) return;
 
         try {
+            WorldUpdateService worldUpdateService = worldUpdateServices.get(map.getWorld().getId());
+            if (worldUpdateService == null) {
+                worldUpdateService = new WorldUpdateService(
+                        renderManager,
+                        map.getWorld(),
+                        blueMap.getConfig().getCoreConfig().getUpdateCooldown(),
+                        !serverInterface.isChunkSaveEventSupported(),
+                        blueMap.getConfig().getCoreConfig().isRenderMapsTogether(),
+                        false
+                );
+                worldUpdateService.start();
+                worldUpdateServices.put(map.getWorld().getId(), worldUpdateService);
+                updateLiveChunkWorlds();
+            }
+
             MapUpdateService watcher = new MapUpdateService(
-                    renderManager,
                     map,
+                    worldUpdateService,
                     pluginState.getMapState(map).getLastFullUpdate(),
                     blueMap.getConfig().getCoreConfig().getFullUpdateInterval(),
-                    blueMap.getConfig().getCoreConfig().getUpdateCooldown(),
                     false
             );
             watcher.start();
@@ -667,7 +719,36 @@ public synchronized void stopWatchingMap(BmMap map) {
         MapUpdateService watcher = mapUpdateServices.remove(map.getId());
         if (watcher != null) {
             watcher.close();
+
+            // stop watching the world if no other map needs it
+            WorldUpdateService worldUpdateService = watcher.getWorldUpdateService();
+            if (!worldUpdateService.hasMaps()) {
+                worldUpdateServices.remove(worldUpdateService.getWorld().getId(), worldUpdateService);
+                worldUpdateService.close();
+                updateLiveChunkWorlds();
+            }
+        }
+    }
+
+    private synchronized void stopWatchingAllMaps() {
+        mapUpdateServices.values().forEach(MapUpdateService::close);
+        mapUpdateServices.clear();
+        worldUpdateServices.values().forEach(WorldUpdateService::close);
+        worldUpdateServices.clear();
+        updateLiveChunkWorlds();
+    }
+
+    /**
+     * Tells the server-interface which worlds are rendered from live chunk-snapshots, so block-changes in all other
+     * worlds are not forwarded at all.
+     */
+    private synchronized void updateLiveChunkWorlds() {
+        List<ServerWorld> liveChunkWorlds = new ArrayList<>();
+        for (WorldUpdateService worldUpdateService : worldUpdateServices.values()) {
+            if (worldUpdateService.getWorld() instanceof LiveChunkWorld)
+                serverInterface.getServerWorld(worldUpdateService.getWorld()).ifPresent(liveChunkWorlds::add);
         }
+        serverInterface.setLiveChunkWorlds(liveChunkWorlds);
     }
 
     public boolean flushWorldUpdates(World world) throws IOException {
@@ -686,6 +767,31 @@ public void onPlayerLeave(UUID playerUuid) {
         checkPausedByPlayerCountSoon();
     }
 
+    @Override
+    public void onChunkSaved(ServerWorld serverWorld, int chunkX, int chunkZ) {
+        updateChunk(serverWorld, chunkX, chunkZ, false);
+    }
+
+    @Override
+    public void onChunkChanged(ServerWorld serverWorld, int chunkX, int chunkZ) {
+        updateChunk(serverWorld, chunkX, chunkZ, true);
+    }
+
+    private void updateChunk(ServerWorld serverWorld, int chunkX, int chunkZ, boolean unsaved) {
+        Map<String, WorldUpdateService> worldUpdateServices = this.worldUpdateServices;
+        if (worldUpdateServices == null) return;
+
+        // chunk-changes can be reported for every block-change, so the world-id is cached
+        String worldId = worldIds.get(serverWorld, w -> World.id(w.getWorldFolder(), w.getDimension()));
+        WorldUpdateService worldUpdateService = worldUpdateServices.get(worldId);
+        if (worldUpdateService == null) return;
+
+        // unsaved changes can only be rendered if the world is reading chunks from the server's memory
+        if (unsaved && !(worldUpdateService.getWorld() instanceof LiveChunkWorld)) return;
+
+        worldUpdateService.updateChunk(chunkX, chunkZ);
+    }
+
     private void checkPausedByPlayerCountSoon() {
         // check is done a second later to make sure the player has actually joined/left and is no longer on the list
         try {
@@ -717,6 +823,14 @@ public boolean checkPausedByPlayerCount() {
         }
     }
 
+    private World withLiveChunks(World world) {
+        if (!(world instanceof MCAWorld mcaWorld)) return world;
+        return serverInterface.getServerWorld(world)
+                .flatMap(ServerWorld::getChunkSnapshotProvider)
+                .<World>map(snapshotProvider -> new LiveChunkWorld(mcaWorld, snapshotProvider))
+                .orElse(world);
+    }
+
     public @Nullable World getWorld(ServerWorld serverWorld) {
         String id = World.id(serverWorld.getWorldFolder(), serverWorld.getDimension());
         return getBlueMap().getWorlds().get(id);
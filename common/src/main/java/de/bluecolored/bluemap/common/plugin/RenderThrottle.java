@@ -0,0 +1,133 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.common.plugin;
+
+import de.bluecolored.bluemap.common.rendermanager.RenderManager;
+import de.bluecolored.bluemap.common.serverinterface.Server;
+import de.bluecolored.bluemap.core.logger.Logger;
+
+import java.util.OptionalDouble;
+import java.util.TimerTask;
+
+/**
+ * Periodically samples the servers tick-time and scales the active render-threads and their duty-cycle
+ * of a {@link RenderManager} to keep the tick-time below a target.<br>
+ * Throttling is decreased multiplicatively and increased additively (AIMD), so rendering backs off fast
+ * when the server is lagging and only slowly regains speed once the server has recovered.
+ */
+public class RenderThrottle extends TimerTask {
+
+    private static final double MIN_DUTY_CYCLE = 0.05;
+    private static final double DUTY_CYCLE_STEP = 0.1;
+    private static final double RECOVER_THRESHOLD = 0.8;
+
+    // minecraft averages the tick-time over the last 100 ticks, so we give it some time to reflect a change
+    private static final long ADJUST_COOLDOWN_MILLIS = 5000;
+
+    private final Server server;
+    private final RenderManager renderManager;
+    private final double targetTickTime;
+
+    private long lastAdjustment = 0;
+
+    public RenderThrottle(Server server, RenderManager renderManager, double targetTickTime) {
+        this.server = server;
+        this.renderManager = renderManager;
+        this.targetTickTime = targetTickTime;
+    }
+
+    @Override
+    public void run() {
+        if (!renderManager.isRunning()) return;
+
+        OptionalDouble tickTime = server.getAverageTickTime();
+        if (tickTime.isEmpty()) {
+            reset();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastAdjustment < ADJUST_COOLDOWN_MILLIS) return;
+
+        boolean adjusted;
+        if (tickTime.getAsDouble() > targetTickTime) adjusted = throttle();
+        else if (tickTime.getAsDouble() < targetTickTime * RECOVER_THRESHOLD) adjusted = recover();
+        else adjusted = false;
+
+        if (adjusted) {
+            lastAdjustment = now;
+            Logger.global.logDebug("Tick-time is %.1fms, render-threads adjusted to %d active threads with a duty-cycle of %.0f%%"
+                    .formatted(tickTime.getAsDouble(), getActiveWorkers(), renderManager.getDutyCycle() * 100));
+        }
+    }
+
+    @Override
+    public boolean cancel() {
+        reset();
+        return super.cancel();
+    }
+
+    private boolean throttle() {
+        int activeWorkers = getActiveWorkers();
+        if (activeWorkers > 1) {
+            renderManager.setActiveWorkerLimit(activeWorkers / 2);
+            return true;
+        }
+
+        double dutyCycle = renderManager.getDutyCycle();
+        if (dutyCycle > MIN_DUTY_CYCLE) {
+            renderManager.setDutyCycle(Math.max(dutyCycle / 2, MIN_DUTY_CYCLE));
+            return true;
+        }
+
+        return false;
+    }
+
+    private boolean recover() {
+        double dutyCycle = renderManager.getDutyCycle();
+        if (dutyCycle < 1) {
+            renderManager.setDutyCycle(Math.min(dutyCycle + DUTY_CYCLE_STEP, 1));
+            return true;
+        }
+
+        int activeWorkers = getActiveWorkers();
+        if (activeWorkers < renderManager.getWorkerThreadCount()) {
+            renderManager.setActiveWorkerLimit(activeWorkers + 1);
+            return true;
+        }
+
+        return false;
+    }
+
+    private void reset() {
+        renderManager.setActiveWorkerLimit(Integer.MAX_VALUE);
+        renderManager.setDutyCycle(1);
+    }
+
+    private int getActiveWorkers() {
+        return Math.min(renderManager.getActiveWorkerLimit(), renderManager.getWorkerThreadCount());
+    }
+
+}
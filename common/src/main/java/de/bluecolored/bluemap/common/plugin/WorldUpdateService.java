@@ -0,0 +1,301 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.common.plugin;
+
+import com.flowpowered.math.vector.Vector2i;
+import com.github.benmanes.caffeine.cache.Cache;
+import de.bluecolored.bluemap.common.rendermanager.*;
+import de.bluecolored.bluemap.core.logger.Logger;
+import de.bluecolored.bluemap.core.map.BmMap;
+import de.bluecolored.bluemap.core.util.Caches;
+import de.bluecolored.bluemap.core.util.Grid;
+import de.bluecolored.bluemap.core.util.WatchService;
+import de.bluecolored.bluemap.core.world.World;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Watches a {@link World} for changes and schedules region-updates for all maps rendering this world.<br>
+ * All maps of one world share a single region-file watcher and the same debounce-timers, and updates for the same
+ * region are scheduled for all maps back to back, so they can be rendered while the chunks are still cached.
+ */
+public class WorldUpdateService extends Thread {
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger(0);
+    private static final long FULL_UPDATE_BATCH_DELAY = 10000;
+
+    private static @Nullable Timer timer;
+
+    @Getter private final World world;
+    private final RenderManager renderManager;
+    private final Duration regionUpdateCooldown;
+    private final boolean renderMapsTogether;
+    private final @Nullable WatchService<Vector2i> watchService;
+
+    private volatile boolean closed;
+
+    private final Set<BmMap> maps;
+    private final Map<Vector2i, TimerTask> scheduledUpdates;
+    private final Map<Vector2i, Set<Vector2i>> changedChunks;
+    private final Cache<Vector2i, Long> lastUpdateTimes;
+    private final Set<BmMap> pendingFullUpdates;
+    private @Nullable TimerTask scheduledFullUpdate;
+
+    private final Consumer<String> verboseLog;
+
+    /**
+     * @param watchRegionFiles if this is false, no region-files are watched and updates will only be scheduled through
+     *                         {@link #updateChunk(int, int)} (e.g. when the server provides chunk-save events)
+     * @param renderMapsTogether if this is true, the maps of this world are updated together in lock-step
+     *                           using {@link MultiMapRegionUpdateTask}s, so chunks only need to be loaded once for all maps
+     */
+    public WorldUpdateService(
+            RenderManager renderManager,
+            World world,
+            Duration regionUpdateCooldown,
+            boolean watchRegionFiles,
+            boolean renderMapsTogether,
+            boolean verbose
+    ) throws IOException {
+        super("BlueMap-WorldUpdateService-" + NEXT_ID.getAndIncrement());
+        this.renderManager = renderManager;
+        this.world = world;
+        this.regionUpdateCooldown = regionUpdateCooldown;
+        this.renderMapsTogether = renderMapsTogether;
+        this.closed = false;
+        this.maps = new LinkedHashSet<>();
+        this.scheduledUpdates = new HashMap<>();
+        this.changedChunks = new HashMap<>();
+        this.lastUpdateTimes = Caches.with()
+                .expireAfterWrite(regionUpdateCooldown)
+                .build();
+        this.pendingFullUpdates = new LinkedHashSet<>();
+        this.watchService = watchRegionFiles ? world.createRegionWatchService() : null;
+        this.verboseLog = verbose ? Logger.global::logInfo : Logger.global::logDebug;
+    }
+
+    @Override
+    public void run() {
+        if (watchService == null) return;
+
+        verboseLog.accept("Started watching world '" + world.getId() + "' for updates...");
+
+        try {
+            while (!closed)
+                this.watchService.take().forEach(this::updateRegion);
+        } catch (WatchService.ClosedException ignore) {
+        } catch (IOException e) {
+            Logger.global.logError("Exception trying to watch world '" + world.getId() + "' for updates.", e);
+        } catch (InterruptedException iex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            verboseLog.accept("Stopped watching world '" + world.getId() + "' for updates.");
+            if (!closed) {
+                Logger.global.logWarning("Region-file watch-service for world '" + world.getId() +
+                        "' stopped unexpectedly! (The maps of this world might not update automatically from now on)");
+            }
+        }
+    }
+
+    /**
+     * Adds a map that will receive region-updates for this world from now on
+     */
+    public synchronized void addMap(BmMap map) {
+        if (!map.getWorld().equals(world))
+            throw new IllegalArgumentException("Map '" + map.getId() + "' is not rendering world '" + world.getId() + "'!");
+        maps.add(map);
+    }
+
+    /**
+     * Removes a map so it no longer receives region-updates
+     */
+    public synchronized void removeMap(BmMap map) {
+        maps.remove(map);
+    }
+
+    public synchronized boolean hasMaps() {
+        return !maps.isEmpty();
+    }
+
+    /**
+     * Schedules a full update of the given map.<br>
+     * If maps are rendered together, full updates of all maps requested shortly after each other are combined.
+     */
+    public synchronized void updateMap(BmMap map) {
+        if (closed) return;
+
+        if (!renderMapsTogether) {
+            renderManager.scheduleRenderTaskNext(MapUpdatePreparationTask.updateMap(map, renderManager));
+            return;
+        }
+
+        pendingFullUpdates.add(map);
+        if (scheduledFullUpdate != null) return;
+
+        scheduledFullUpdate = new TimerTask() {
+            @Override
+            public void run() {
+                synchronized (WorldUpdateService.this) {
+                    scheduledFullUpdate = null;
+
+                    // only update maps that still belong to this service
+                    pendingFullUpdates.retainAll(maps);
+                    if (pendingFullUpdates.size() == 1) {
+                        BmMap map = pendingFullUpdates.iterator().next();
+                        renderManager.scheduleRenderTaskNext(MapUpdatePreparationTask.updateMap(map, renderManager));
+                    } else if (pendingFullUpdates.size() > 1) {
+                        renderManager.scheduleRenderTaskNext(MultiMapUpdatePreparationTask.updateMaps(pendingFullUpdates, renderManager));
+                    }
+                    pendingFullUpdates.clear();
+                }
+            }
+        };
+
+        synchronized (WorldUpdateService.class) {
+            if (timer == null) timer = new Timer("BlueMap-WorldUpdateService-Timer", true);
+            timer.schedule(scheduledFullUpdate, FULL_UPDATE_BATCH_DELAY);
+        }
+    }
+
+    /**
+     * Schedules an update for all tiles containing the given chunk on all maps of this world.<br>
+     * <i>This is called for every block-change on some platforms, so it returns quickly if the chunk is already pending.</i>
+     */
+    public synchronized void updateChunk(int chunkX, int chunkZ) {
+        if (closed) return;
+
+        Grid chunkGrid = world.getChunkGrid();
+        Grid regionGrid = world.getRegionGrid();
+        Vector2i regionPos = new Vector2i(
+                chunkGrid.getCellMinX(chunkX, regionGrid),
+                chunkGrid.getCellMinY(chunkZ, regionGrid)
+        );
+
+        // if there is a pending update for the whole region, it already covers this chunk
+        boolean regionPending = scheduledUpdates.containsKey(regionPos);
+        Set<Vector2i> pendingChunks = changedChunks.get(regionPos);
+        if (regionPending && pendingChunks == null) return;
+
+        if (pendingChunks == null) {
+            pendingChunks = new HashSet<>();
+            changedChunks.put(regionPos, pendingChunks);
+        }
+
+        // the chunk is already pending, no need to restart the timer
+        if (!pendingChunks.add(new Vector2i(chunkX, chunkZ)) && regionPending) return;
+
+        scheduleUpdate(regionPos);
+    }
+
+    private synchronized void updateRegion(Vector2i regionPos) {
+        if (closed) return;
+
+        // the whole region will be updated
+        changedChunks.remove(regionPos);
+
+        scheduleUpdate(regionPos);
+    }
+
+    private synchronized void scheduleUpdate(Vector2i regionPos) {
+        // we only want to start the render when there were no changes on a file for at least 5 seconds
+        TimerTask task = scheduledUpdates.remove(regionPos);
+        if (task != null) task.cancel();
+
+        task = new TimerTask() {
+            @Override
+            public void run() {
+                synchronized (WorldUpdateService.this) {
+                    Set<Vector2i> chunks = changedChunks.remove(regionPos);
+                    scheduledUpdates.remove(regionPos);
+                    lastUpdateTimes.put(regionPos, System.currentTimeMillis());
+                    if (maps.isEmpty()) return;
+
+                    if (renderMapsTogether && maps.size() > 1) {
+                        // one task rendering all maps in lock-step
+                        renderManager.scheduleRenderTask(chunks != null ?
+                                new MultiMapRegionUpdateTask(maps, regionPos, chunks) :
+                                new MultiMapRegionUpdateTask(maps, regionPos, TileUpdateStrategy.FORCE_NONE));
+                    } else {
+                        // schedule the updates of all maps together, so they are rendered back to back
+                        // the tasks share the chunk-hashes, so the region is only read and invalidated once
+                        RenderTask[] tasks = WorldRegionUpdateTask
+                                .forMaps(maps, regionPos, TileUpdateStrategy.FORCE_NONE, chunks)
+                                .toArray(RenderTask[]::new);
+                        renderManager.scheduleRenderTasks(tasks);
+                    }
+
+                    String mapIds = maps.stream()
+                            .map(BmMap::getId)
+                            .collect(Collectors.joining(", "));
+                    if (chunks != null) {
+                        verboseLog.accept("Scheduled update for " + chunks.size() + " chunks in region: " + regionPos + " (Maps: " + mapIds + ")");
+                    } else {
+                        verboseLog.accept("Scheduled update for region-file: " + regionPos + " (Maps: " + mapIds + ")");
+                    }
+                }
+            }
+        };
+
+        Long lastUpdateTime = lastUpdateTimes.getIfPresent(regionPos);
+        if (lastUpdateTime == null) lastUpdateTime = 0L;
+        long timeSinceLastUpdate = System.currentTimeMillis() - lastUpdateTime;
+        long delay = Math.max(regionUpdateCooldown.toMillis() - timeSinceLastUpdate, 5000);
+        scheduledUpdates.put(regionPos, task);
+
+        synchronized (WorldUpdateService.class) {
+            if (timer == null) timer = new Timer("BlueMap-WorldUpdateService-Timer", true);
+            timer.schedule(task, delay);
+        }
+    }
+
+    public synchronized void close() {
+        this.closed = true;
+        this.interrupt();
+
+        this.scheduledUpdates.values().forEach(TimerTask::cancel);
+        this.scheduledUpdates.clear();
+        this.changedChunks.clear();
+        this.maps.clear();
+
+        if (this.scheduledFullUpdate != null) this.scheduledFullUpdate.cancel();
+        this.scheduledFullUpdate = null;
+        this.pendingFullUpdates.clear();
+
+        if (this.watchService == null) return;
+        try {
+            this.watchService.close();
+        } catch (Exception ex) {
+            Logger.global.logError("Exception while trying to close WatchService!", ex);
+        }
+    }
+
+}
@@ -24,6 +24,7 @@
  */
 package de.bluecolored.bluemap.common.rendermanager;
 
+import de.bluecolored.bluemap.core.map.BmMap;
 import lombok.Getter;
 
 import java.util.*;
@@ -101,6 +102,14 @@ public boolean contains(RenderTask task) {
         return false;
     }
 
+    @Override
+    public boolean affectsMap(BmMap map) {
+        for (RenderTask task : tasks) {
+            if (task.affectsMap(map)) return true;
+        }
+        return false;
+    }
+
     @Override
     public Optional<String> getDetail() {
         if (this.currentTaskIndex >= this.tasks.size()) return Optional.empty();
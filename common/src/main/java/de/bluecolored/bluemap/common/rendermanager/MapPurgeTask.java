@@ -36,33 +36,27 @@ public final class MapPurgeTask implements MapRenderTask, SerializableRenderTask
 
     @Getter private final BmMap map;
 
-    private volatile double progress;
-    private volatile boolean hasMoreWork;
-    private volatile boolean cancelled;
+    private final ParallelStorageDeletion deletion;
+    private boolean lowresDiscarded;
 
     public MapPurgeTask(BmMap map) {
         this.map = Objects.requireNonNull(map);
-        this.progress = 0d;
-        this.hasMoreWork = true;
-        this.cancelled = false;
+        this.deletion = new ParallelStorageDeletion(map.getStorage());
+        this.lowresDiscarded = false;
     }
 
     @Override
     public void doWork() throws Exception {
         synchronized (this) {
-            if (!this.hasMoreWork) return;
-            this.hasMoreWork = false;
+            if (!lowresDiscarded) {
+                // discard any pending lowres changes
+                this.map.getLowresTileManager().discard();
+                lowresDiscarded = true;
+            }
         }
-        if (this.cancelled) return;
 
-        // discard any pending lowres changes
-        this.map.getLowresTileManager().discard();
-
-        // purge the map
-        map.getStorage().delete(progress -> {
-            this.progress = progress;
-            return !this.cancelled;
-        });
+        // purge the map, the deletion-steps are shared between all render-threads
+        if (!deletion.doWork()) return;
 
         map.resetTextureGallery();
         map.getMapTileState().reset();
@@ -72,18 +66,18 @@ public void doWork() throws Exception {
 
     @Override
     public boolean hasMoreWork() {
-        return this.hasMoreWork && !this.cancelled;
+        return deletion.hasMoreWork();
     }
 
     @Override
     @DebugDump
     public double estimateProgress() {
-        return this.progress;
+        return deletion.estimateProgress();
     }
 
     @Override
     public void cancel() {
-        this.cancelled = true;
+        deletion.cancel();
     }
 
     @Override
@@ -30,4 +30,9 @@ public interface MapRenderTask extends RenderTask {
 
     BmMap getMap();
 
+    @Override
+    default boolean affectsMap(BmMap map) {
+        return getMap().equals(map);
+    }
+
 }
@@ -74,7 +74,7 @@ public void doWork() {
         if (cancelled) return;
 
         // do work
-        Collection<Vector2i> regions = findRegions();
+        Collection<Vector2i> regions = findRegions(map, center, radius);
         if (regions.isEmpty()) return;
 
         Collection<RenderTask> tasks = createTasks(regions);
@@ -105,7 +105,11 @@ private Collection<RenderTask> createTasks(Collection<Vector2i> regions) {
         ArrayList<WorldRegionUpdateTask> regionTasks = new ArrayList<>(regions.size());
         regions.forEach(region -> regionTasks.add(new WorldRegionUpdateTask(map, region, force)));
 
-        regionTasks.sort(WorldRegionUpdateTask.regionLastUpdatedComparator(WorldRegionUpdateTask.defaultComparator(Vector2i.ZERO)));
+        Vector2i regionMin = regions.stream().reduce(Vector2i::min).orElse(Vector2i.ZERO);
+        Vector2i regionMax = regions.stream().reduce(Vector2i::max).orElse(Vector2i.ZERO);
+        regionTasks.sort(WorldRegionUpdateTask.regionLastUpdatedComparator(
+                WorldRegionUpdateTask.localityComparator(regionMin, regionMax, Vector2i.ZERO)
+        ));
 
         // save map before and after the whole update
         ArrayList<RenderTask> tasks = new ArrayList<>(regionTasks.size() + 2);
@@ -116,7 +120,7 @@ private Collection<RenderTask> createTasks(Collection<Vector2i> regions) {
         return tasks;
     }
 
-    private Collection<Vector2i> findRegions() {
+    static Collection<Vector2i> findRegions(BmMap map, @Nullable Vector2i center, @Nullable Integer radius) {
         World world = map.getWorld();
         Grid regionGrid = world.getRegionGrid();
 
@@ -0,0 +1,187 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.common.rendermanager;
+
+import com.flowpowered.math.vector.Vector2i;
+import de.bluecolored.bluemap.common.debug.DebugDump;
+import de.bluecolored.bluemap.common.rendermanager.serialization.SerializableRenderTask;
+import de.bluecolored.bluemap.core.map.BmMap;
+import de.bluecolored.bluemap.core.world.World;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Updates one region for multiple maps of the same world in lock-step.<br>
+ * The {@link WorldRegionUpdateTask}s of all maps are processed alternately tile by tile, so each map renders the same
+ * tile right after the other and all maps can use the same cached chunks, instead of loading them again for each map.
+ */
+public final class MultiMapRegionUpdateTask implements RenderTask, SerializableRenderTask<MultiMapRegionUpdateTask, MultiMapRegionUpdateTask.Serialized> {
+
+    @Getter private final List<BmMap> maps;
+    @Getter private final Vector2i regionPos;
+    @Getter private final TileUpdateStrategy force;
+    @Getter private final List<WorldRegionUpdateTask> tasks;
+
+    private int nextTaskIndex;
+    private boolean initialized;
+
+    public MultiMapRegionUpdateTask(Collection<BmMap> maps, Vector2i regionPos, TileUpdateStrategy force) {
+        this(maps, regionPos, force, null);
+    }
+
+    /**
+     * Creates a task that only updates the tiles containing one of the given chunks on all maps.
+     */
+    public MultiMapRegionUpdateTask(Collection<BmMap> maps, Vector2i regionPos, Collection<Vector2i> changedChunks) {
+        this(maps, regionPos, TileUpdateStrategy.FORCE_NONE, Objects.requireNonNull(changedChunks));
+    }
+
+    private MultiMapRegionUpdateTask(Collection<BmMap> maps, Vector2i regionPos, TileUpdateStrategy force, @Nullable Collection<Vector2i> changedChunks) {
+        if (maps.isEmpty()) throw new IllegalArgumentException("maps can not be empty!");
+
+        World world = maps.iterator().next().getWorld();
+        for (BmMap map : maps) {
+            if (!map.getWorld().equals(world))
+                throw new IllegalArgumentException("All maps need to render the same world!");
+        }
+
+        this.maps = List.copyOf(maps);
+        this.regionPos = regionPos;
+        this.force = force;
+        this.tasks = WorldRegionUpdateTask.forMaps(this.maps, regionPos, force, changedChunks);
+
+        this.nextTaskIndex = 0;
+        this.initialized = false;
+    }
+
+    @Override
+    public void doWork() throws Exception {
+        WorldRegionUpdateTask task = null;
+
+        synchronized (this) {
+            if (!initialized) {
+                initialized = true;
+
+                // the tasks share their chunk-hashes, so the region-header is only read once
+                tasks.forEach(WorldRegionUpdateTask::init);
+            }
+
+            // alternate between the maps, so they all work on the same tile at the same time
+            for (int i = 0; i < tasks.size() && task == null; i++) {
+                WorldRegionUpdateTask next = tasks.get(nextTaskIndex);
+                nextTaskIndex = (nextTaskIndex + 1) % tasks.size();
+                if (next.hasMoreWork()) task = next;
+            }
+        }
+
+        if (task != null) task.doWork();
+    }
+
+    @Override
+    @DebugDump
+    public boolean hasMoreWork() {
+        for (WorldRegionUpdateTask task : tasks) {
+            if (task.hasMoreWork()) return true;
+        }
+        return false;
+    }
+
+    @Override
+    @DebugDump
+    public double estimateProgress() {
+        double progress = 0;
+        for (WorldRegionUpdateTask task : tasks)
+            progress += task.hasMoreWork() ? task.estimateProgress() : 1;
+        return progress / tasks.size();
+    }
+
+    @Override
+    public void cancel() {
+        for (WorldRegionUpdateTask task : tasks) task.cancel();
+    }
+
+    @Override
+    public boolean affectsMap(BmMap map) {
+        return maps.contains(map);
+    }
+
+    @Override
+    public String getDescription() {
+        return "updating region %s for %d maps".formatted(regionPos, maps.size());
+    }
+
+    @Override
+    public boolean contains(RenderTask task) {
+        if (this.equals(task)) return true;
+
+        if (task instanceof MultiMapRegionUpdateTask multiMapTask)
+            return multiMapTask.tasks.stream().allMatch(this::contains);
+
+        for (WorldRegionUpdateTask subTask : tasks) {
+            if (subTask.contains(task)) return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MultiMapRegionUpdateTask that = (MultiMapRegionUpdateTask) o;
+        return tasks.equals(that.tasks);
+    }
+
+    @Override
+    public int hashCode() {
+        return regionPos.hashCode();
+    }
+
+    @Override
+    public Serialized serialize() {
+        @Nullable Collection<Vector2i> changedChunks = tasks.getFirst().getChangedChunks();
+        return new Serialized(maps, regionPos, force, changedChunks != null ? List.copyOf(changedChunks) : null);
+    }
+
+    @AllArgsConstructor
+    public static class Serialized implements SerializableRenderTask.Serialized<MultiMapRegionUpdateTask> {
+
+        private List<BmMap> maps;
+        private Vector2i regionPos;
+        private TileUpdateStrategy force;
+        private @Nullable List<Vector2i> changedChunks;
+
+        public MultiMapRegionUpdateTask deserialize() {
+            return new MultiMapRegionUpdateTask(maps, regionPos, force, changedChunks);
+        }
+
+    }
+
+}
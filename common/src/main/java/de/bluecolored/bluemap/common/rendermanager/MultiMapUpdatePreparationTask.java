@@ -0,0 +1,152 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.common.rendermanager;
+
+import com.flowpowered.math.vector.Vector2i;
+import de.bluecolored.bluemap.core.map.BmMap;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Prepares a combined update of multiple maps of the same world.<br>
+ * Regions that are rendered by more than one map are updated with a {@link MultiMapRegionUpdateTask},
+ * so the chunks of those regions only need to be loaded once for all maps.
+ */
+public class MultiMapUpdatePreparationTask implements RenderTask {
+
+    private final List<BmMap> maps;
+    private final TileUpdateStrategy force;
+    private final Consumer<MultiMapUpdateTask> taskConsumer;
+
+    private volatile boolean hasMoreWork, cancelled;
+
+    @Builder
+    protected MultiMapUpdatePreparationTask(
+            @NonNull @Singular Collection<BmMap> maps,
+            TileUpdateStrategy force,
+            @NonNull Consumer<MultiMapUpdateTask> taskConsumer
+    ) {
+        this.maps = List.copyOf(maps);
+        this.force = force != null ? force : TileUpdateStrategy.FORCE_NONE;
+        this.taskConsumer = taskConsumer;
+        this.hasMoreWork = true;
+    }
+
+    @Override
+    public void doWork() {
+        synchronized (this) {
+            if (!hasMoreWork) return;
+            hasMoreWork = false;
+        }
+        if (cancelled) return;
+
+        // do work
+        Map<Vector2i, List<BmMap>> regions = new HashMap<>();
+        for (BmMap map : maps) {
+            for (Vector2i region : MapUpdatePreparationTask.findRegions(map, null, null))
+                regions.computeIfAbsent(region, r -> new ArrayList<>(maps.size())).add(map);
+            if (cancelled) return;
+        }
+        if (regions.isEmpty()) return;
+
+        Collection<RenderTask> tasks = createTasks(regions);
+        MultiMapUpdateTask multiMapUpdateTask = new MultiMapUpdateTask(maps, tasks);
+
+        if (cancelled) return;
+
+        // return created task
+        taskConsumer.accept(multiMapUpdateTask);
+    }
+
+    @Override
+    public boolean hasMoreWork() {
+        return hasMoreWork && !cancelled;
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public boolean affectsMap(BmMap map) {
+        return maps.contains(map);
+    }
+
+    @Override
+    public String getDescription() {
+        return "preparing update of %d maps".formatted(maps.size());
+    }
+
+    private Collection<RenderTask> createTasks(Map<Vector2i, List<BmMap>> regions) {
+        Vector2i regionMin = regions.keySet().stream().reduce(Vector2i::min).orElse(Vector2i.ZERO);
+        Vector2i regionMax = regions.keySet().stream().reduce(Vector2i::max).orElse(Vector2i.ZERO);
+        ToLongFunction<Vector2i> localityOrder = WorldRegionUpdateTask.localityOrder(regionMin, regionMax, Vector2i.ZERO);
+
+        List<Map.Entry<Vector2i, List<BmMap>>> regionEntries = new ArrayList<>(regions.entrySet());
+        regionEntries.sort(Comparator
+                .<Map.Entry<Vector2i, List<BmMap>>>comparingLong(entry -> regionLastUpdated(entry.getKey(), entry.getValue()))
+                .thenComparingLong(entry -> localityOrder.applyAsLong(entry.getKey()))
+        );
+
+        // save maps before and after the whole update
+        ArrayList<RenderTask> tasks = new ArrayList<>(regionEntries.size() + maps.size() * 2);
+        maps.forEach(map -> tasks.add(new MapSaveTask(map)));
+        for (Map.Entry<Vector2i, List<BmMap>> entry : regionEntries) {
+            Vector2i region = entry.getKey();
+            List<BmMap> regionMaps = entry.getValue();
+            tasks.add(regionMaps.size() == 1 ?
+                    new WorldRegionUpdateTask(regionMaps.getFirst(), region, force) :
+                    new MultiMapRegionUpdateTask(regionMaps, region, force)
+            );
+        }
+        maps.forEach(map -> tasks.add(new MapSaveTask(map)));
+
+        return tasks;
+    }
+
+    /**
+     * Returns the oldest last-update time of the region on any of the maps
+     */
+    private static long regionLastUpdated(Vector2i region, Collection<BmMap> maps) {
+        long lastUpdated = Long.MAX_VALUE;
+        for (BmMap map : maps)
+            lastUpdated = Math.min(lastUpdated, map.getMapRegionState().get(region.getX(), region.getY()));
+        return lastUpdated;
+    }
+
+    public static MultiMapUpdatePreparationTask updateMaps(Collection<BmMap> maps, RenderManager renderManager) {
+        return builder()
+                .maps(maps)
+                .taskConsumer(renderManager::scheduleRenderTask)
+                .build();
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.common.rendermanager;
+
+import de.bluecolored.bluemap.common.rendermanager.serialization.SerializableRenderTask;
+import de.bluecolored.bluemap.core.map.BmMap;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class MultiMapUpdateTask extends CombinedRenderTask implements SerializableRenderTask<MultiMapUpdateTask, MultiMapUpdateTask.Serialized> {
+
+    @Getter private final List<BmMap> maps;
+
+    MultiMapUpdateTask(Collection<BmMap> maps, Collection<RenderTask> tasks) {
+        this(maps, tasks, 0);
+    }
+
+    private MultiMapUpdateTask(Collection<BmMap> maps, Collection<RenderTask> tasks, int currentTaskIndex) {
+        super("updating maps %s".formatted(maps.stream()
+                .map(map -> "'" + map.getId() + "'")
+                .collect(Collectors.joining(", "))
+        ), tasks, currentTaskIndex);
+        this.maps = List.copyOf(maps);
+    }
+
+    @Override
+    public boolean affectsMap(BmMap map) {
+        return maps.contains(map);
+    }
+
+    @Override
+    public Serialized serialize() {
+        return new Serialized(maps, getTasks(), getCurrentTaskIndex());
+    }
+
+    @AllArgsConstructor
+    public static class Serialized implements SerializableRenderTask.Serialized<MultiMapUpdateTask> {
+
+        private List<BmMap> maps;
+        private List<RenderTask> tasks;
+        private int currentTaskIndex;
+
+        public MultiMapUpdateTask deserialize() {
+            return new MultiMapUpdateTask(maps, tasks, currentTaskIndex);
+        }
+
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.common.rendermanager;
+
+import de.bluecolored.bluemap.core.storage.MapStorage;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Deletes a {@link MapStorage} in the steps provided by {@link MapStorage#splitDeletion()},
+ * so multiple render-threads can work on the deletion at the same time.
+ */
+class ParallelStorageDeletion {
+
+    private final MapStorage storage;
+
+    private final Deque<MapStorage.DeletionStep> steps = new ArrayDeque<>();
+    private int stepCount, startedSteps, completedSteps;
+    private volatile double finalDeletionProgress;
+    private boolean initialized, finishing, finished;
+    private volatile boolean cancelled;
+
+    public ParallelStorageDeletion(MapStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Does the next piece of work for this deletion.
+     * @return true if this call finished the deletion (also if it has been cancelled after it started)
+     */
+    public boolean doWork() throws IOException {
+        MapStorage.DeletionStep step;
+
+        synchronized (this) {
+            if (!hasMoreWork()) return false;
+
+            if (!initialized) {
+                steps.addAll(storage.splitDeletion());
+                stepCount = steps.size();
+                initialized = true;
+                return false;
+            }
+
+            // once cancelled, the remaining steps are skipped, but the deletion is still finished
+            step = cancelled ? null : steps.poll();
+            if (step == null) finishing = true;
+            else startedSteps++;
+        }
+
+        // delete one step
+        if (step != null) {
+            try {
+                step.delete();
+            } finally {
+                synchronized (this) {
+                    completedSteps++;
+                }
+            }
+            return false;
+        }
+
+        // all steps are done, delete everything that is left
+        // (storages that can not split their deletion are deleted completely here, one batch after another)
+        if (!cancelled)
+            storage.delete(progress -> {
+                finalDeletionProgress = progress;
+                return !cancelled;
+            });
+
+        synchronized (this) {
+            finished = true;
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if there is work that can be started right now.
+     * This can temporarily be false while the last steps are still being deleted.
+     */
+    public synchronized boolean hasMoreWork() {
+        if (finished || finishing) return false;
+        if (!initialized) return !cancelled;
+        if (!cancelled && !steps.isEmpty()) return true;
+        return completedSteps >= startedSteps;
+    }
+
+    public synchronized double estimateProgress() {
+        if (finished) return 1;
+        return (completedSteps + finalDeletionProgress) / (stepCount + 1);
+    }
+
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.common.rendermanager;
+
+import com.flowpowered.math.vector.Vector2i;
+import de.bluecolored.bluemap.core.util.Grid;
+import de.bluecolored.bluemap.core.world.Chunk;
+import de.bluecolored.bluemap.core.world.ChunkConsumer;
+import de.bluecolored.bluemap.core.world.Region;
+import de.bluecolored.bluemap.core.world.World;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * The chunk-hashes (timestamps) of one region, shared by all {@link WorldRegionUpdateTask}s that update this region
+ * in the same pass.<br>
+ * The region-header is only read and the cached chunks of the region are only invalidated once, by whichever task
+ * initializes first. All other tasks reuse the hashes and the (then warm) chunk-cache.
+ */
+final class RegionChunkHashes {
+
+    private final World world;
+    private final Vector2i regionPos;
+    private final @Nullable Set<Vector2i> changedChunks;
+
+    private int @Nullable [] hashes;
+
+    RegionChunkHashes(World world, Vector2i regionPos, @Nullable Set<Vector2i> changedChunks) {
+        this.world = world;
+        this.regionPos = regionPos;
+        this.changedChunks = changedChunks;
+    }
+
+    /**
+     * Returns the chunk-hashes of the region, indexed by <code>z * chunksSizeX + x</code> relative to the region's
+     * minimum chunk. The first call reads the region-header and invalidates the cached chunks that are updated.<br>
+     * The returned array is shared and must not be modified.
+     */
+    synchronized int[] load() throws IOException {
+        if (hashes != null) return hashes;
+
+        Grid regionGrid = world.getRegionGrid();
+        Grid chunkGrid = world.getChunkGrid();
+        Vector2i chunkMin = regionGrid.getCellMin(regionPos, chunkGrid);
+        Vector2i chunksSize = regionGrid.getCellMax(regionPos, chunkGrid).sub(chunkMin).add(1, 1);
+
+        int[] loaded = new int[chunksSize.getX() * chunksSize.getY()];
+        Region<Chunk> region = world.getRegion(regionPos.getX(), regionPos.getY());
+        ChunkConsumer.ListOnly<Chunk> chunkHashConsumer = (x, z, timestamp) -> {
+            loaded[(z - chunkMin.getY()) * chunksSize.getX() + (x - chunkMin.getX())] = timestamp;
+            if (changedChunks == null)
+                world.invalidateChunkCache(x, z);
+        };
+
+        if (changedChunks != null) {
+            // only the changed chunks are updated, so we only need to read their hashes
+            region.listChunks(changedChunks, chunkHashConsumer);
+
+            // changed chunks might not be saved to the region-file yet, so they are invalidated even if they are not listed
+            for (Vector2i chunk : changedChunks)
+                world.invalidateChunkCache(chunk.getX(), chunk.getY());
+        } else {
+            region.iterateAllChunks(chunkHashConsumer);
+        }
+
+        hashes = loaded;
+        return hashes;
+    }
+
+}
@@ -28,11 +28,13 @@
 
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 public class RenderManager {
     private static final AtomicInteger nextRenderManagerIndex = new AtomicInteger(0);
+    private static final long MAX_DUTY_CYCLE_PAUSE_NANOS = TimeUnit.SECONDS.toNanos(10);
 
     private final int id;
     private volatile boolean running;
@@ -43,6 +45,9 @@ public class RenderManager {
     private final Collection<WorkerThread> workerThreads;
     private final AtomicInteger busyCount;
 
+    private volatile int activeWorkerLimit;
+    private volatile double dutyCycle;
+
     private ProgressTracker progressTracker;
     private volatile boolean newTask;
 
@@ -57,6 +62,9 @@ public RenderManager() {
         this.workerThreads = new ConcurrentLinkedDeque<>();
         this.busyCount = new AtomicInteger(0);
 
+        this.activeWorkerLimit = Integer.MAX_VALUE;
+        this.dutyCycle = 1;
+
         this.lastTimeBusy = -1;
 
         this.progressTracker = null;
@@ -86,7 +94,7 @@ public void start(int threadCount, int threadPriority) throws IllegalStateExcept
             this.running = true;
 
             for (int i = 0; i < threadCount; i++) {
-                WorkerThread worker = new WorkerThread(threadPriority);
+                WorkerThread worker = new WorkerThread(threadPriority, i);
                 this.workerThreads.add(worker);
                 worker.start();
             }
@@ -282,6 +290,31 @@ public int getWorkerThreadCount() {
         return workerThreads.size();
     }
 
+    /**
+     * Limits the amount of worker-threads that are actively rendering.
+     * Workers exceeding this limit are idling until the limit is raised again.
+     */
+    public void setActiveWorkerLimit(int activeWorkerLimit) {
+        this.activeWorkerLimit = Math.max(activeWorkerLimit, 1);
+    }
+
+    public int getActiveWorkerLimit() {
+        return activeWorkerLimit;
+    }
+
+    /**
+     * Sets the fraction of time (between 0 exclusive and 1 inclusive) each worker-thread spends working.
+     * After each piece of work a worker pauses long enough to match this duty-cycle.
+     */
+    public void setDutyCycle(double dutyCycle) {
+        if (!(dutyCycle > 0)) throw new IllegalArgumentException("dutyCycle has to be greater than 0!");
+        this.dutyCycle = Math.min(dutyCycle, 1);
+    }
+
+    public double getDutyCycle() {
+        return dutyCycle;
+    }
+
     public long getLastTimeBusy() {
         return lastTimeBusy;
     }
@@ -337,6 +370,7 @@ private void doWork() throws Exception {
             this.lastTimeBusy = System.currentTimeMillis();
         }
 
+        long workStart = System.nanoTime();
         try {
             task.doWork();
         } finally {
@@ -346,14 +380,23 @@ private void doWork() throws Exception {
                 this.renderTasks.notifyAll();
             }
         }
+
+        // pause outside the lock to match the duty-cycle
+        double dutyCycle = this.dutyCycle;
+        if (dutyCycle < 1) {
+            long pause = (long) ((System.nanoTime() - workStart) * (1 - dutyCycle) / dutyCycle);
+            TimeUnit.NANOSECONDS.sleep(Math.min(pause, MAX_DUTY_CYCLE_PAUSE_NANOS));
+        }
     }
 
     public class WorkerThread extends Thread {
 
         private final int id;
+        private final int slot;
 
-        private WorkerThread(int threadPriority) {
+        private WorkerThread(int threadPriority, int slot) {
             this.id = RenderManager.this.nextWorkerThreadIndex.getAndIncrement();
+            this.slot = slot;
             this.setName("BlueMap-RenderThread-" + RenderManager.this.id + "-" + this.id);
             this.setPriority(Math.clamp(threadPriority, Thread.MIN_PRIORITY, Thread.MAX_PRIORITY));
         }
@@ -364,6 +407,12 @@ public void run() {
             try {
                 while (RenderManager.this.running) {
                     try {
+                        if (this.slot >= RenderManager.this.activeWorkerLimit) {
+                            // this worker is currently throttled
+                            Thread.sleep(1000);
+                            continue;
+                        }
+
                         RenderManager.this.doWork();
                     } catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
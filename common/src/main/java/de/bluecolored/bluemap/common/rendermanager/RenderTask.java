@@ -24,6 +24,8 @@
  */
 package de.bluecolored.bluemap.common.rendermanager;
 
+import de.bluecolored.bluemap.core.map.BmMap;
+
 import java.util.Optional;
 
 public interface RenderTask {
@@ -55,6 +57,13 @@ default boolean contains(RenderTask task) {
         return equals(task);
     }
 
+    /**
+     * Checks if this task is rendering or otherwise modifying the given map
+     */
+    default boolean affectsMap(BmMap map) {
+        return false;
+    }
+
     String getDescription();
 
     default Optional<String> getDetail() {
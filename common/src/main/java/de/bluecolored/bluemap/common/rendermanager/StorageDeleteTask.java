@@ -34,47 +34,34 @@ public class StorageDeleteTask implements RenderTask {
     private final MapStorage storage;
     private final String mapId;
 
-    private volatile double progress;
-    private volatile boolean hasMoreWork;
-    private volatile boolean cancelled;
+    private final ParallelStorageDeletion deletion;
 
     public StorageDeleteTask(MapStorage storage, String mapId) {
         this.storage = Objects.requireNonNull(storage);
         this.mapId = Objects.requireNonNull(mapId);
-        this.progress = 0d;
-        this.hasMoreWork = true;
-        this.cancelled = false;
+        this.deletion = new ParallelStorageDeletion(storage);
     }
 
     @Override
     public void doWork() throws Exception {
-        synchronized (this) {
-            if (!this.hasMoreWork) return;
-            this.hasMoreWork = false;
-        }
-        if (this.cancelled) return;
-
-        // purge the map
-        storage.delete(progress -> {
-            this.progress = progress;
-            return !this.cancelled;
-        });
+        // purge the map, the deletion-steps are shared between all render-threads
+        deletion.doWork();
     }
 
     @Override
     public boolean hasMoreWork() {
-        return this.hasMoreWork && !this.cancelled;
+        return deletion.hasMoreWork();
     }
 
     @Override
     @DebugDump
     public double estimateProgress() {
-        return this.progress;
+        return deletion.estimateProgress();
     }
 
     @Override
     public void cancel() {
-        this.cancelled = true;
+        deletion.cancel();
     }
 
     @Override
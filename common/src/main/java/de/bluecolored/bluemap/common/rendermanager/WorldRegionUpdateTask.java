@@ -25,34 +25,42 @@
 package de.bluecolored.bluemap.common.rendermanager;
 
 import com.flowpowered.math.vector.Vector2i;
-import com.flowpowered.math.vector.Vector2l;
 import de.bluecolored.bluemap.common.debug.DebugDump;
 import de.bluecolored.bluemap.common.rendermanager.serialization.SerializableRenderTask;
 import de.bluecolored.bluemap.core.logger.Logger;
 import de.bluecolored.bluemap.core.map.BmMap;
 import de.bluecolored.bluemap.core.map.renderstate.TileActionResolver.ActionAndNextState;
 import de.bluecolored.bluemap.core.map.renderstate.TileActionResolver.BoundsSituation;
-import de.bluecolored.bluemap.core.map.renderstate.TileInfoRegion;
 import de.bluecolored.bluemap.core.map.renderstate.TileState;
 import de.bluecolored.bluemap.core.util.Grid;
+import de.bluecolored.bluemap.core.util.math.HilbertCurve;
 import de.bluecolored.bluemap.core.world.Chunk;
-import de.bluecolored.bluemap.core.world.ChunkConsumer;
+import de.bluecolored.bluemap.core.world.ChunkStatus;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
-import java.util.Comparator;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
 
 import static de.bluecolored.bluemap.core.map.renderstate.TileActionResolver.Action.DELETE;
 import static de.bluecolored.bluemap.core.map.renderstate.TileActionResolver.Action.RENDER;
 
 public final class WorldRegionUpdateTask implements MapRenderTask, SerializableRenderTask<WorldRegionUpdateTask, WorldRegionUpdateTask.Serialized> {
 
+    // how far (in blocks) rendering a tile reads beyond its borders (block-neighborhood and biome-blending)
+    private static final int TILE_BORDER_BLOCKS = 2;
+
+    // one in this many work-units of a task prefetches a neighbor-region instead of rendering a tile
+    private static final int PREFETCH_INTERVAL = 4;
+
     @Getter private final BmMap map;
     @Getter private final Vector2i regionPos;
     @Getter private final TileUpdateStrategy force;
+    @Getter private final @Nullable Set<Vector2i> changedChunks;
+    private final RegionChunkHashes regionChunkHashes;
 
     private Grid regionGrid, chunkGrid, tileGrid;
     private Vector2i chunkMin, chunkMax, chunksSize;
@@ -60,10 +68,15 @@ public final class WorldRegionUpdateTask implements MapRenderTask, SerializableR
 
     private int[] chunkHashes;
     private ActionAndNextState[] tileActions;
+    private BitSet forcedTiles;
+    private int[] tileOrder;
+    private final Deque<Vector2i> prefetchRegions = new ArrayDeque<>();
+    private final Map<Vector2i, Set<Vector2i>> prefetchChunks = new HashMap<>();
 
-    private volatile int nextTileX, nextTileZ;
+    private volatile int nextTile;
+    private int workCount;
     private volatile int atWork;
-    private volatile boolean completed, cancelled;
+    private volatile boolean initialized, completed, cancelled;
 
     public WorldRegionUpdateTask(BmMap map, Vector2i regionPos) {
         this(map, regionPos, false);
@@ -74,19 +87,68 @@ public WorldRegionUpdateTask(BmMap map, Vector2i regionPos, boolean force) {
     }
 
     public WorldRegionUpdateTask(BmMap map, Vector2i regionPos, TileUpdateStrategy force) {
+        this(map, regionPos, force, null);
+    }
+
+    /**
+     * Creates a task that only updates the tiles containing one of the given chunks.
+     * Those tiles will be rendered without checking the chunk-timestamps, since we already know the chunks have changed.
+     */
+    public WorldRegionUpdateTask(BmMap map, Vector2i regionPos, Collection<Vector2i> changedChunks) {
+        this(map, regionPos, TileUpdateStrategy.FORCE_NONE, Objects.requireNonNull(changedChunks));
+    }
+
+    WorldRegionUpdateTask(BmMap map, Vector2i regionPos, TileUpdateStrategy force, @Nullable Collection<Vector2i> changedChunks) {
+        this(map, regionPos, force, changedChunks != null ? Set.copyOf(changedChunks) : null, null);
+    }
+
+    private WorldRegionUpdateTask(
+            BmMap map, Vector2i regionPos, TileUpdateStrategy force,
+            @Nullable Set<Vector2i> changedChunks, @Nullable RegionChunkHashes regionChunkHashes
+    ) {
         this.map = map;
         this.regionPos = regionPos;
         this.force = force;
+        this.changedChunks = changedChunks;
+        this.regionChunkHashes = regionChunkHashes != null ?
+                regionChunkHashes :
+                new RegionChunkHashes(map.getWorld(), regionPos, changedChunks);
 
-        this.nextTileX = 0;
-        this.nextTileZ = 0;
+        this.nextTile = 0;
 
         this.atWork = 0;
+        this.initialized = false;
         this.completed = false;
         this.cancelled = false;
     }
 
-    private synchronized void init() {
+    /**
+     * Creates one task for each of the given maps (which all need to render the same world) that update the same
+     * region in the same pass.<br>
+     * The tasks share the chunk-hashes of the region, so the region-header is only read and the chunk-cache is only
+     * invalidated once for all of them.
+     * @param changedChunks the chunks that changed, or <code>null</code> to update the whole region
+     */
+    public static List<WorldRegionUpdateTask> forMaps(
+            Collection<BmMap> maps, Vector2i regionPos, TileUpdateStrategy force,
+            @Nullable Collection<Vector2i> changedChunks
+    ) {
+        if (maps.isEmpty()) return List.of();
+
+        Set<Vector2i> chunks = changedChunks != null ? Set.copyOf(changedChunks) : null;
+        RegionChunkHashes regionChunkHashes = new RegionChunkHashes(maps.iterator().next().getWorld(), regionPos, chunks);
+        return maps.stream()
+                .map(map -> new WorldRegionUpdateTask(map, regionPos, force, chunks, regionChunkHashes))
+                .toList();
+    }
+
+    /**
+     * Prepares this task by determining the actions for all tiles of the region.
+     * This is done automatically on the first call of {@link #doWork()} if it has not been called before.
+     */
+    synchronized void init() {
+        if (initialized) return;
+        initialized = true;
 
         // calculate bounds
         this.regionGrid = map.getWorld().getRegionGrid();
@@ -99,21 +161,13 @@ private synchronized void init() {
         this.tileMax = regionGrid.getCellMax(regionPos, tileGrid);
         this.tileSize = tileMax.sub(tileMin).add(1, 1);
 
-        // load chunk-hash array
-        int chunkMaxCount = chunksSize.getX() * chunksSize.getY();
+        // load chunk-hash array (shared with the other tasks of the same pass)
         try {
-            chunkHashes = new int[chunkMaxCount];
-            map.getWorld().getRegion(regionPos.getX(), regionPos.getY())
-                    .iterateAllChunks( (ChunkConsumer.ListOnly<Chunk>) (x, z, timestamp) -> {
-                        chunkHashes[chunkIndex(
-                                x - chunkMin.getX(),
-                                z - chunkMin.getY()
-                        )] = timestamp;
-                        map.getWorld().invalidateChunkCache(x, z);
-                    });
+            chunkHashes = regionChunkHashes.load();
         } catch (IOException ex) {
             Logger.global.logError("Failed to load chunks for region " + regionPos, ex);
             cancel();
+            return;
         }
 
         // check tile actions
@@ -121,14 +175,22 @@ private synchronized void init() {
         int tileRenderCount = 0;
         int tileDeleteCount = 0;
         tileActions = new ActionAndNextState[tileMaxCount];
+        forcedTiles = new BitSet(tileMaxCount);
         for (int x = 0; x < tileSize.getX(); x++) {
             for (int z = 0; z < tileSize.getY(); z++) {
                 Vector2i tile = new Vector2i(tileMin.getX() + x, tileMin.getY() + z);
-                TileState tileState = map.getMapTileState().get(tile.getX(), tile.getY()).getState();
+
+                // tiles without changed chunks are skipped entirely (action stays null)
+                if (changedChunks != null && !checkTileContainsChangedChunk(tile))
+                    continue;
+
+                TileState tileState = map.getMapTileState().getState(tile.getX(), tile.getY());
 
                 int tileIndex = tileIndex(x, z);
+                boolean forced = force.test(tileState);
+                if (forced) forcedTiles.set(tileIndex);
                 tileActions[tileIndex] = tileState.findActionAndNextState(
-                        force.test(tileState) || checkChunksHaveChanges(tile),
+                        changedChunks != null || forced || checkChunksHaveChanges(tile),
                         checkTileBounds(tile)
                 );
 
@@ -139,9 +201,14 @@ private synchronized void init() {
             }
         }
 
+        this.tileOrder = createTileOrder();
+
         if (tileRenderCount >= tileMaxCount * 0.75)
             map.getWorld().preloadRegionChunks(regionPos.getX(), regionPos.getY());
 
+        if (tileRenderCount > 0)
+            prefetchNeighborChunks();
+
         if (tileRenderCount + tileDeleteCount == 0)
             completed = true;
 
@@ -151,32 +218,37 @@ private synchronized void init() {
     public void doWork() {
         if (cancelled || completed) return;
 
-        int tileX, tileZ;
+        int tileIndex = -1;
+        Vector2i prefetchRegion;
+        Set<Vector2i> prefetchFilter = null;
 
         synchronized (this) {
             if (cancelled || completed) return;
 
-            tileX = nextTileX;
-            tileZ = nextTileZ;
-
-            if (tileX == 0 && tileZ == 0) {
+            if (!initialized) {
                 init();
                 if (cancelled || completed) return;
             }
 
-            nextTileX = tileX + 1;
-            if (nextTileX >= tileSize.getX()) {
-                nextTileZ = tileZ + 1;
-                nextTileX = 0;
-            }
-            if (nextTileZ >= tileSize.getY()) {
-                completed = true;
+            // every few work-units, a neighbor-region is prefetched instead of rendering a tile
+            prefetchRegion = (workCount++ % PREFETCH_INTERVAL == 0) ? prefetchRegions.poll() : null;
+            if (prefetchRegion != null) {
+                prefetchFilter = prefetchChunks.get(prefetchRegion);
+            } else {
+                tileIndex = tileOrder[nextTile++];
+                if (nextTile >= tileOrder.length) {
+                    completed = true;
+                }
             }
 
             this.atWork++;
         }
 
-        processTile(tileX, tileZ);
+        if (prefetchRegion != null) {
+            map.getWorld().preloadRegionChunks(prefetchRegion.getX(), prefetchRegion.getY(), prefetchFilter::contains);
+        } else {
+            processTile(tileIndex % tileSize.getX(), tileIndex / tileSize.getX());
+        }
 
         synchronized (this) {
             this.atWork--;
@@ -188,8 +260,10 @@ public void doWork() {
     }
 
     private void processTile(int x, int z) {
-        Vector2i tile = new Vector2i(tileMin.getX() + x, tileMin.getY() + z);
         ActionAndNextState action = tileActions[tileIndex(x, z)];
+        if (action == null) return;
+
+        Vector2i tile = new Vector2i(tileMin.getX() + x, tileMin.getY() + z);
         TileState resultState = TileState.RENDER_ERROR;
 
         try {
@@ -205,7 +279,7 @@ private void processTile(int x, int z) {
                         yield failedState;
                     }
 
-                    map.renderTile(tile);
+                    map.renderTile(tile, forcedTiles.get(tileIndex(x, z)));
                     yield action.state();
                 }
 
@@ -223,10 +297,11 @@ private void processTile(int x, int z) {
         } finally {
 
             // mark tile with new state
-            map.getMapTileState().set(tile.getX(), tile.getY(), new TileInfoRegion.TileInfo(
+            map.getMapTileState().set(
+                    tile.getX(), tile.getY(),
                     (int) (System.currentTimeMillis() / 1000),
                     resultState
-            ));
+            );
 
         }
 
@@ -238,6 +313,7 @@ private synchronized void complete() {
         if (chunkHashes != null) {
             for (int x = 0; x < chunksSize.getX(); x++) {
                 for (int z = 0; z < chunksSize.getY(); z++) {
+                    if (!isChunkIncluded(chunkMin.getX() + x, chunkMin.getY() + z)) continue;
                     int hash = chunkHashes[chunkIndex(x, z)];
                     map.getMapChunkState().set(chunkMin.getX() + x, chunkMin.getY() + z, hash);
                 }
@@ -254,6 +330,9 @@ private synchronized void complete() {
 
         // clear tile-actions
         tileActions = null;
+        forcedTiles = null;
+        prefetchRegions.clear();
+        prefetchChunks.clear();
 
         // save map (at most, every 15 seconds)
         map.save(TimeUnit.SECONDS.toMillis(15));
@@ -268,8 +347,8 @@ public synchronized boolean hasMoreWork() {
     @Override
     @DebugDump
     public double estimateProgress() {
-        if (tileSize == null) return 0;
-        return Math.min((double) (nextTileZ * tileSize.getX() + nextTileX) / (tileSize.getX() * tileSize.getY()), 1);
+        if (tileOrder == null || tileOrder.length == 0) return 0;
+        return Math.min((double) nextTile / tileOrder.length, 1);
     }
 
     @Override
@@ -279,15 +358,31 @@ public void cancel() {
 
     @Override
     public String getDescription() {
+        if (changedChunks != null)
+            return "updating %d chunks in region %s".formatted(changedChunks.size(), regionPos);
         return "updating region %s".formatted(regionPos);
     }
 
+    @Override
+    public boolean contains(RenderTask task) {
+        if (this.equals(task)) return true;
+        if (task instanceof MultiMapRegionUpdateTask multiMapTask)
+            return multiMapTask.getTasks().stream().allMatch(this::contains);
+        if (!(task instanceof WorldRegionUpdateTask that)) return false;
+        if (that.changedChunks == null) return false;
+        if (!map.getId().equals(that.map.getId()) || !regionPos.equals(that.regionPos)) return false;
+
+        // a full region-update also updates all tiles with changed chunks
+        return this.changedChunks == null || this.changedChunks.containsAll(that.changedChunks);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         WorldRegionUpdateTask that = (WorldRegionUpdateTask) o;
-        return force == that.force && map.getId().equals(that.map.getId()) && regionPos.equals(that.regionPos);
+        return force == that.force && map.getId().equals(that.map.getId()) && regionPos.equals(that.regionPos) &&
+                Objects.equals(changedChunks, that.changedChunks);
     }
 
     @Override
@@ -303,6 +398,95 @@ private int tileIndex(int x, int z) {
         return z * tileSize.getX() + x;
     }
 
+    /**
+     * Loads the chunks of the neighboring regions that the rendered tiles on the region-borders will read, in the background.
+     * This loads them with one pass over each neighbor-region instead of one chunk at a time while rendering.
+     */
+    private void prefetchNeighborChunks() {
+        Map<Vector2i, Set<Vector2i>> neighborChunks = new HashMap<>();
+
+        for (int x = 0; x < tileSize.getX(); x++) {
+            for (int z = 0; z < tileSize.getY(); z++) {
+                ActionAndNextState action = tileActions[tileIndex(x, z)];
+                if (action == null || action.action() != RENDER) continue;
+
+                int tileX = tileMin.getX() + x, tileZ = tileMin.getY() + z;
+                int     minX = chunkGrid.getCellX(tileGrid.getCellMinX(tileX) - TILE_BORDER_BLOCKS),
+                        maxX = chunkGrid.getCellX(tileGrid.getCellMaxX(tileX) + TILE_BORDER_BLOCKS),
+                        minZ = chunkGrid.getCellY(tileGrid.getCellMinY(tileZ) - TILE_BORDER_BLOCKS),
+                        maxZ = chunkGrid.getCellY(tileGrid.getCellMaxY(tileZ) + TILE_BORDER_BLOCKS);
+
+                // tiles that only read chunks of this region don't need anything from the neighbors
+                if (
+                        minX >= chunkMin.getX() && maxX <= chunkMax.getX() &&
+                        minZ >= chunkMin.getY() && maxZ <= chunkMax.getY()
+                ) continue;
+
+                for (int chunkX = minX; chunkX <= maxX; chunkX++) {
+                    for (int chunkZ = minZ; chunkZ <= maxZ; chunkZ++) {
+                        Vector2i chunkRegion = new Vector2i(
+                                regionGrid.getCellX(chunkGrid.getCellMinX(chunkX)),
+                                regionGrid.getCellY(chunkGrid.getCellMinY(chunkZ))
+                        );
+                        if (chunkRegion.equals(regionPos)) continue;
+
+                        neighborChunks.computeIfAbsent(chunkRegion, r -> new HashSet<>())
+                                .add(new Vector2i(chunkX, chunkZ));
+                    }
+                }
+            }
+        }
+
+        // the prefetching is done by the render-threads working on this task, so it is limited and throttled like rendering.
+        // prefetches that are still pending once all tiles are taken are dropped, since they would no longer help
+        prefetchChunks.putAll(neighborChunks);
+        prefetchRegions.addAll(neighborChunks.keySet());
+    }
+
+    /**
+     * Creates the order in which the tiles with an action are processed.
+     * The tiles are ordered along a hilbert-curve, so that tiles that are processed at the same time or one after another
+     * are next to each other and share most of the chunks they need.
+     */
+    private int[] createTileOrder() {
+        int order = HilbertCurve.order(Math.max(tileSize.getX(), tileSize.getY()));
+
+        long[] sortKeys = new long[tileActions.length];
+        int count = 0;
+        for (int x = 0; x < tileSize.getX(); x++) {
+            for (int z = 0; z < tileSize.getY(); z++) {
+                int tileIndex = tileIndex(x, z);
+                if (tileActions[tileIndex] == null) continue;
+                sortKeys[count++] = HilbertCurve.index(x, z, order) << 32 | tileIndex;
+            }
+        }
+        Arrays.sort(sortKeys, 0, count);
+
+        int[] tileOrder = new int[count];
+        for (int i = 0; i < count; i++)
+            tileOrder[i] = (int) sortKeys[i];
+        return tileOrder;
+    }
+
+    private boolean isChunkIncluded(int chunkX, int chunkZ) {
+        return changedChunks == null || changedChunks.contains(new Vector2i(chunkX, chunkZ));
+    }
+
+    private boolean checkTileContainsChangedChunk(Vector2i tile) {
+        int     minX = tileGrid.getCellMinX(tile.getX(), chunkGrid),
+                maxX = tileGrid.getCellMaxX(tile.getX(), chunkGrid),
+                minZ = tileGrid.getCellMinY(tile.getY(), chunkGrid),
+                maxZ = tileGrid.getCellMaxY(tile.getY(), chunkGrid);
+
+        for (int chunkX = minX; chunkX <= maxX; chunkX++) {
+            for (int chunkZ = minZ; chunkZ <= maxZ; chunkZ++) {
+                if (changedChunks.contains(new Vector2i(chunkX, chunkZ))) return true;
+            }
+        }
+
+        return false;
+    }
+
     private boolean checkChunksHaveChanges(Vector2i tile) {
         int     minX = tileGrid.getCellMinX(tile.getX(), chunkGrid),
                 maxX = tileGrid.getCellMaxX(tile.getX(), chunkGrid),
@@ -346,6 +530,11 @@ private BoundsSituation checkTileBounds(Vector2i tile) {
         int minInhabitedTimeRadius = map.getMapSettings().getMinInhabitedTimeRadius();
         boolean requireLight = !map.getMapSettings().isIgnoreMissingLightData();
 
+        // a tile that was rendered before will most likely be rendered again, so its chunks are loaded completely
+        // right away (they are needed for rendering anyway) instead of reading and decompressing them twice
+        TileState previousState = map.getMapTileState().getState(tile.getX(), tile.getY());
+        boolean loadChunks = previousState == TileState.RENDERED || previousState == TileState.RENDERED_EDGE;
+
         int     minX = tileGrid.getCellMinX(tile.getX(), chunkGrid),
                 maxX = tileGrid.getCellMaxX(tile.getX(), chunkGrid),
                 minZ = tileGrid.getCellMinY(tile.getY(), chunkGrid),
@@ -353,7 +542,9 @@ private BoundsSituation checkTileBounds(Vector2i tile) {
 
         for (int chunkX = minX; chunkX <= maxX; chunkX++) {
             for (int chunkZ = minZ; chunkZ <= maxZ; chunkZ++) {
-                Chunk chunk = map.getWorld().getChunk(chunkX, chunkZ);
+                ChunkStatus chunk = loadChunks ?
+                        map.getWorld().getChunk(chunkX, chunkZ) :
+                        map.getWorld().getChunkStatus(chunkX, chunkZ);
                 if (chunk == Chunk.ERRORED_CHUNK) return TileState.CHUNK_ERROR;
                 if (requireLight) {
                     if (!chunk.isGenerated()) return TileState.NOT_GENERATED;
@@ -371,7 +562,7 @@ private BoundsSituation checkTileBounds(Vector2i tile) {
             inhabitedRadiusCheck:
             for (int chunkX = minX - minInhabitedTimeRadius; chunkX <= maxX + minInhabitedTimeRadius; chunkX++) {
                 for (int chunkZ = minZ - minInhabitedTimeRadius; chunkZ <= maxZ + minInhabitedTimeRadius; chunkZ++) {
-                    Chunk chunk = map.getWorld().getChunk(chunkX, chunkZ);
+                    ChunkStatus chunk = map.getWorld().getChunkStatus(chunkX, chunkZ);
                     if (chunk.getInhabitedTime() >= minInhabitedTime) {
                         chunksAreInhabited = true;
                         break inhabitedRadiusCheck;
@@ -398,25 +589,39 @@ private static long regionLastUpdated(WorldRegionUpdateTask task) {
         return task.map.getMapRegionState().get(regionPos.getX(), regionPos.getY());
     }
 
-    public static Comparator<WorldRegionUpdateTask> defaultComparator(final Vector2i centerRegion) {
-        return (task1, task2) -> {
-            // use long to compare to avoid overflow (comparison uses distanceSquared)
-            Vector2l task1Rel = new Vector2l(task1.regionPos.getX() - centerRegion.getX(), task1.regionPos.getY() - centerRegion.getY());
-            Vector2l task2Rel = new Vector2l(task2.regionPos.getX() - centerRegion.getX(), task2.regionPos.getY() - centerRegion.getY());
-            return compareVec2L(task1Rel, task2Rel);
-        };
+    /**
+     * Orders the tasks along a hilbert-curve over the given region-bounds,
+     * so that consecutive tasks are next to each other and can share the chunks at their borders.
+     * @see #localityOrder(Vector2i, Vector2i, Vector2i)
+     */
+    public static Comparator<WorldRegionUpdateTask> localityComparator(Vector2i regionMin, Vector2i regionMax, Vector2i centerRegion) {
+        ToLongFunction<Vector2i> localityOrder = localityOrder(regionMin, regionMax, centerRegion);
+        return Comparator.comparingLong(task -> localityOrder.applyAsLong(task.regionPos));
     }
 
     /**
-     * Comparison method that doesn't overflow that easily
+     * Returns the position of each region along a hilbert-curve over the given region-bounds.<br>
+     * The walk along the curve is rotated to start at the region closest to the center-region,
+     * so a first render still starts at the center and not at a corner of the bounds.
      */
-    private static int compareVec2L(Vector2l v1, Vector2l v2) {
-        return Long.signum(v1.lengthSquared() - v2.lengthSquared());
+    public static ToLongFunction<Vector2i> localityOrder(Vector2i regionMin, Vector2i regionMax, Vector2i centerRegion) {
+        Vector2i size = regionMax.sub(regionMin).add(1, 1);
+        int order = HilbertCurve.order(Math.max(size.getX(), size.getY()));
+        long curveLength = 1L << (order * 2);
+
+        Vector2i start = centerRegion.max(regionMin).min(regionMax);
+        long startIndex = HilbertCurve.index(start.getX() - regionMin.getX(), start.getY() - regionMin.getY(), order);
+
+        return region -> Math.floorMod(HilbertCurve.index(
+                region.getX() - regionMin.getX(),
+                region.getY() - regionMin.getY(),
+                order
+        ) - startIndex, curveLength);
     }
 
     @Override
     public Serialized serialize() {
-        return new Serialized(map, regionPos, force);
+        return new Serialized(map, regionPos, force, changedChunks != null ? List.copyOf(changedChunks) : null);
     }
 
     @AllArgsConstructor
@@ -425,9 +630,10 @@ public static class Serialized implements SerializableRenderTask.Serialized<Worl
         private BmMap map;
         private Vector2i regionPos;
         private TileUpdateStrategy force;
+        private @Nullable List<Vector2i> changedChunks;
 
         public WorldRegionUpdateTask deserialize() {
-            return new WorldRegionUpdateTask(map, regionPos, force);
+            return new WorldRegionUpdateTask(map, regionPos, force, changedChunks);
         }
 
     }
@@ -40,6 +40,8 @@ public class RenderTaskAdapter implements TypeAdapter<RenderTask> {
     private SerializableRenderTaskAdapter<MapSaveTask, ?> mapSaveTaskAdapter;
     private SerializableRenderTaskAdapter<MapUpdateTask, ?> mapUpdateTaskAdapter;
     private SerializableRenderTaskAdapter<WorldRegionUpdateTask, ?> worldRegionRenderTaskAdapter;
+    private SerializableRenderTaskAdapter<MultiMapUpdateTask, ?> multiMapUpdateTaskAdapter;
+    private SerializableRenderTaskAdapter<MultiMapRegionUpdateTask, ?> multiMapRegionUpdateTaskAdapter;
 
     private Registry<SerializableRenderTaskAdapter<?, ?>> taskAdaperRegistry;
 
@@ -50,7 +52,9 @@ public void init(BlueNBT blueNBT) {
                 this.mapPurgeTaskAdapter = new SerializableRenderTaskAdapter<>(Key.bluemap("map-purge"), blueNBT, MapPurgeTask.Serialized.class),
                 this.mapSaveTaskAdapter = new SerializableRenderTaskAdapter<>(Key.bluemap("map-save"), blueNBT, MapSaveTask.Serialized.class),
                 this.mapUpdateTaskAdapter = new SerializableRenderTaskAdapter<>(Key.bluemap("map-update"), blueNBT, MapUpdateTask.Serialized.class),
-                this.worldRegionRenderTaskAdapter = new SerializableRenderTaskAdapter<>(Key.bluemap("region-update"), blueNBT, WorldRegionUpdateTask.Serialized.class)
+                this.worldRegionRenderTaskAdapter = new SerializableRenderTaskAdapter<>(Key.bluemap("region-update"), blueNBT, WorldRegionUpdateTask.Serialized.class),
+                this.multiMapUpdateTaskAdapter = new SerializableRenderTaskAdapter<>(Key.bluemap("multi-map-update"), blueNBT, MultiMapUpdateTask.Serialized.class),
+                this.multiMapRegionUpdateTaskAdapter = new SerializableRenderTaskAdapter<>(Key.bluemap("multi-map-region-update"), blueNBT, MultiMapRegionUpdateTask.Serialized.class)
         );
     }
 
@@ -61,6 +65,8 @@ public void write(RenderTask value, NBTWriter writer) throws IOException {
             case MapSaveTask task -> writeWith(task, mapSaveTaskAdapter, writer);
             case MapUpdateTask task -> writeWith(task, mapUpdateTaskAdapter, writer);
             case WorldRegionUpdateTask task -> writeWith(task, worldRegionRenderTaskAdapter, writer);
+            case MultiMapUpdateTask task -> writeWith(task, multiMapUpdateTaskAdapter, writer);
+            case MultiMapRegionUpdateTask task -> writeWith(task, multiMapRegionUpdateTaskAdapter, writer);
             default -> writeUnknown(writer);
         }
     }
@@ -29,6 +29,7 @@
 import de.bluecolored.bluemap.core.util.Caches;
 import de.bluecolored.bluemap.core.util.Tristate;
 import de.bluecolored.bluemap.core.world.World;
+import de.bluecolored.bluemap.core.world.mca.LiveChunkWorld;
 import de.bluecolored.bluemap.core.world.mca.MCAWorld;
 import org.jetbrains.annotations.Nullable;
 
@@ -36,6 +37,7 @@
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalDouble;
 import java.util.UUID;
 
 public interface Server {
@@ -68,11 +70,36 @@ default Tristate isMetricsEnabled() {
         return Tristate.UNDEFINED;
     }
 
+    /**
+     * Returns true if this implementation calls {@link ServerEventListener#onChunkSaved(ServerWorld, int, int)}
+     * for every chunk that gets saved, so watching the region-files for changes is not needed.
+     */
+    @DebugDump
+    default boolean isChunkSaveEventSupported() {
+        return false;
+    }
+
+    /**
+     * Sets the worlds that are currently rendered from live chunk-snapshots.<br>
+     * {@link ServerEventListener#onChunkChanged(ServerWorld, int, int)} only has an effect for those worlds, so
+     * implementations that fire it should skip any work for block-changes in all other worlds.
+     */
+    default void setLiveChunkWorlds(Collection<ServerWorld> worlds) {}
+
+    /**
+     * Returns the average time in milliseconds the server recently needed to process one tick (MSPT),
+     * or an empty optional if this implementation can not measure it.
+     */
+    default OptionalDouble getAverageTickTime() {
+        return OptionalDouble.empty();
+    }
+
     /**
      * Returns the correct {@link ServerWorld} for a {@link World} if there is any.
      */
     default Optional<ServerWorld> getServerWorld(World world) {
         return SERVER_WORLD_CACHE.get(world, w -> {
+            if (w instanceof LiveChunkWorld liveChunkWorld) w = liveChunkWorld.getWorld();
             if (w instanceof MCAWorld mcaWorld) {
                 return getLoadedServerWorlds().stream()
                         .filter(serverWorld ->
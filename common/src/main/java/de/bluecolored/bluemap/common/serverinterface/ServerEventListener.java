@@ -32,4 +32,18 @@ public interface ServerEventListener {
 
     default void onPlayerLeave(UUID playerUuid) {};
 
+    /**
+     * Called when the server has saved a chunk to the world-files.<br>
+     * <i>This might be called on any thread and very frequently (e.g. for every chunk during an auto-save),
+     * so implementations should return quickly.</i>
+     */
+    default void onChunkSaved(ServerWorld world, int chunkX, int chunkZ) {};
+
+    /**
+     * Called when a chunk has been changed on the server, these changes might not be saved to the world-files yet.<br>
+     * This only needs to be called for the worlds set by {@link Server#setLiveChunkWorlds(java.util.Collection)}.<br>
+     * <i>This might be called on any thread and very frequently, so implementations should return quickly.</i>
+     */
+    default void onChunkChanged(ServerWorld world, int chunkX, int chunkZ) {};
+
 }
@@ -0,0 +1,122 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.common.serverinterface;
+
+import de.bluecolored.bluemap.core.world.mca.ChunkSnapshotProvider;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@link ChunkSnapshotProvider} for servers where loaded chunks can only be copied on the server-thread.<br>
+ * All chunks of a requested area are copied in a single server-thread task, the (more expensive) serialization
+ * of the copies happens afterwards on the requesting thread.
+ * @param <C> the type of the server-side chunk-copies
+ */
+public abstract class ServerThreadChunkSnapshotProvider<C> implements ChunkSnapshotProvider {
+
+    private static final long SERVER_THREAD_TIMEOUT_SECONDS = 5;
+
+    @Override
+    public void getChunkSnapshots(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ, SnapshotConsumer consumer) throws IOException {
+        Executor serverThread = getServerThread();
+        if (serverThread == null) return;
+
+        // quick check without blocking the server-thread
+        List<ChunkCopy<C>> loadedChunks = new ArrayList<>();
+        for (int x = minChunkX; x <= maxChunkX; x++) {
+            for (int z = minChunkZ; z <= maxChunkZ; z++) {
+                if (isChunkLoaded(x, z)) loadedChunks.add(new ChunkCopy<>(x, z, null));
+            }
+        }
+        if (loadedChunks.isEmpty()) return;
+
+        // copying the chunk-data has to happen on the server-thread
+        var taskResult = CompletableFuture.supplyAsync(() -> {
+            List<ChunkCopy<C>> copies = new ArrayList<>(loadedChunks.size());
+            for (ChunkCopy<C> chunk : loadedChunks) {
+                C copy = copyChunk(chunk.x(), chunk.z());
+                if (copy != null) copies.add(new ChunkCopy<>(chunk.x(), chunk.z(), copy));
+            }
+            return copies;
+        }, serverThread);
+
+        List<ChunkCopy<C>> copies;
+        try {
+            copies = taskResult.get(SERVER_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (TimeoutException e) {
+            taskResult.cancel(false);
+            return;
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        for (ChunkCopy<C> copy : copies) {
+            bytes.reset();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                writeChunk(copy.data(), out);
+            }
+            consumer.accept(copy.x(), copy.z(), bytes.toByteArray());
+        }
+    }
+
+    /**
+     * Returns the executor running tasks on the server-thread, or <code>null</code> if the world is no longer available
+     */
+    protected abstract @Nullable Executor getServerThread();
+
+    /**
+     * Checks if the chunk is currently loaded.<br>
+     * <i>This is called from the requesting thread and must not block or modify anything on the server.</i>
+     */
+    protected abstract boolean isChunkLoaded(int chunkX, int chunkZ);
+
+    /**
+     * Creates a copy of the chunk if it is loaded and has changes that are not yet saved, or returns <code>null</code> otherwise.<br>
+     * <i>This is called on the server-thread.</i>
+     */
+    protected abstract @Nullable C copyChunk(int chunkX, int chunkZ);
+
+    /**
+     * Writes the copied chunk as <b>uncompressed</b> nbt-data, in the same format it would be written into a region-file
+     */
+    protected abstract void writeChunk(C chunk, DataOutputStream out) throws IOException;
+
+    private record ChunkCopy<C>(int x, int z, @Nullable C data) {}
+
+}
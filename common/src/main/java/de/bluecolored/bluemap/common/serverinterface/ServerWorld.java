@@ -26,6 +26,7 @@
 
 import de.bluecolored.bluemap.common.debug.DebugDump;
 import de.bluecolored.bluemap.core.util.Key;
+import de.bluecolored.bluemap.core.world.mca.ChunkSnapshotProvider;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -54,4 +55,12 @@ default boolean persistWorldChanges() throws IOException {
         return false;
     }
 
+    /**
+     * Returns a {@link ChunkSnapshotProvider} that provides snapshots of the chunks that are currently loaded in this world,
+     * or an empty optional if this is not supported by the implementation.
+     */
+    default Optional<ChunkSnapshotProvider> getChunkSnapshotProvider() {
+        return Optional.empty();
+    }
+
 }
@@ -26,6 +26,7 @@
 
 import de.bluecolored.bluemap.common.web.http.*;
 import de.bluecolored.bluemap.core.logger.Logger;
+import de.bluecolored.bluemap.core.metrics.BlueMapMetrics;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NonNull;
@@ -69,13 +70,17 @@ public HttpResponse handle(HttpRequest request) {
         String version = request.getVersion();
 
         // run request
+        long start = System.nanoTime();
         HttpResponse response = delegate.handle(request);
+        long time = System.nanoTime() - start;
 
         // gather format parameters from response
         HttpStatusCode status = response.getStatusCode();
         int statusCode = status.getCode();
         String statusMessage = status.getMessage();
 
+        BlueMapMetrics.HTTP_REQUEST_TIME.labels(String.valueOf(statusCode)).observeNanos(time);
+
         // format log message
         String log = String.format(this.format,
                 source,
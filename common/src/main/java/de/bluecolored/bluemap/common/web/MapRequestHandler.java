@@ -38,6 +38,7 @@
 public class MapRequestHandler extends RoutingRequestHandler {
 
     private final SseConnectionManager sseConnections = new SseConnectionManager();
+    private final MapStorageRequestHandler storageRequestHandler;
 
     public MapRequestHandler(
             BmMap map,
@@ -47,6 +48,13 @@ public MapRequestHandler(
     ) {
         this(map.getStorage(), livePlayersDataSupplier, liveMarkerDataSupplier, useSSE);
 
+        // the map is rendered in this process, so tile-updates are known and missing tiles can be indexed
+        // (tiles written by other processes are picked up by the periodic revalidation of the index)
+        TileExistenceIndex tileExistenceIndex = new TileExistenceIndex(map.getStorage(), map.getMapSettings().getLodCount());
+        map.getHiresModelManager().addTileUpdateListener(tile -> tileExistenceIndex.add(tile, 0));
+        map.getLowresTileManager().addTileUpdateListener(tileExistenceIndex::add);
+        storageRequestHandler.setTileExistenceIndex(tileExistenceIndex);
+
         if (useSSE) {
             map.getHiresModelManager().addTileUpdateListener(tile -> onTileUpdate(tile, 0));
             map.getLowresTileManager().addTileUpdateListener(this::onTileUpdate);
@@ -63,7 +71,8 @@ public MapRequestHandler(
             @Nullable Supplier<String> liveMarkerDataSupplier,
             boolean useSSE
     ) {
-        register(".*", new MapStorageRequestHandler(mapStorage));
+        this.storageRequestHandler = new MapStorageRequestHandler(mapStorage);
+        register(".*", storageRequestHandler);
 
         if (useSSE) {
             register("live/sse", "", _ -> {
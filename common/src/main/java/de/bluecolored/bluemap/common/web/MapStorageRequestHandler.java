@@ -24,12 +24,17 @@
  */
 package de.bluecolored.bluemap.common.web;
 
+import com.flowpowered.math.vector.Vector2i;
 import de.bluecolored.bluemap.api.ContentTypeRegistry;
+import de.bluecolored.bluemap.common.web.http.HttpHeader;
 import de.bluecolored.bluemap.common.web.http.HttpRequest;
 import de.bluecolored.bluemap.common.web.http.HttpRequestHandler;
 import de.bluecolored.bluemap.common.web.http.HttpResponse;
 import de.bluecolored.bluemap.common.web.http.HttpStatusCode;
 import de.bluecolored.bluemap.core.logger.Logger;
+import de.bluecolored.bluemap.core.metrics.BlueMapMetrics;
+import de.bluecolored.bluemap.core.metrics.Histogram;
+import de.bluecolored.bluemap.core.storage.DeduplicatingGridStorage;
 import de.bluecolored.bluemap.core.storage.GridStorage;
 import de.bluecolored.bluemap.core.storage.MapStorage;
 import de.bluecolored.bluemap.core.storage.compression.CompressedInputStream;
@@ -38,6 +43,7 @@
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -53,9 +59,16 @@
 public class MapStorageRequestHandler implements HttpRequestHandler {
 
     private static final Pattern TILE_PATTERN = Pattern.compile("tiles/([\\d/]+)/x(-?[\\d/]+)z(-?[\\d/]+).*");
+    private static final Histogram.Child HIRES_READ_TIMER = BlueMapMetrics.STORAGE_READ_TIME.labels("hires");
+    private static final Histogram.Child LOWRES_READ_TIMER = BlueMapMetrics.STORAGE_READ_TIME.labels("lowres");
 
     private @NonNull MapStorage mapStorage;
 
+    /**
+     * If set, requests for tiles that are known to not exist are answered without accessing the storage
+     */
+    private @Nullable TileExistenceIndex tileExistenceIndex;
+
     @Override
     public HttpResponse handle(HttpRequest request) {
         String path = request.getPath();
@@ -80,11 +93,31 @@ public HttpResponse handle(HttpRequest request) {
                 int x = Integer.parseInt(tileMatcher.group(2).replace("/", ""));
                 int z = Integer.parseInt(tileMatcher.group(3).replace("/", ""));
 
+                if (tileExistenceIndex != null && !tileExistenceIndex.mayExist(lod, x, z))
+                    return new HttpResponse(HttpStatusCode.NO_CONTENT);
+
                 GridStorage gridStorage = lod == 0 ? mapStorage.hiresTiles() : mapStorage.lowresTiles(lod);
+                long start = System.nanoTime();
                 CompressedInputStream in = gridStorage.read(x, z);
+                (lod == 0 ? HIRES_READ_TIMER : LOWRES_READ_TIMER).observeNanos(System.nanoTime() - start);
                 if (in == null) return new HttpResponse(HttpStatusCode.NO_CONTENT);
 
+                // the tile might have been written by another process
+                if (tileExistenceIndex != null) tileExistenceIndex.add(new Vector2i(x, z), lod);
+
+                // deduplicated tiles are identified by the hash of their content
+                String eTag = null;
+                if (in instanceof DeduplicatingGridStorage.SharedItemInputStream sharedItem) {
+                    eTag = "W/\"" + sharedItem.getHash() + "\"";
+                    HttpHeader etagHeader = request.getHeader("If-None-Match");
+                    if (etagHeader != null && etagHeader.getValues().contains(eTag)) {
+                        in.close();
+                        return new HttpResponse(HttpStatusCode.NOT_MODIFIED);
+                    }
+                }
+
                 HttpResponse response = new HttpResponse(HttpStatusCode.OK);
+                if (eTag != null) response.addHeader("ETag", eTag);
                 response.addHeader("Cache-Control", "public");
                 response.addHeader("Cache-Control", "max-age=" + TimeUnit.DAYS.toSeconds(1));
 
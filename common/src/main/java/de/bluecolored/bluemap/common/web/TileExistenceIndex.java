@@ -0,0 +1,152 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.common.web;
+
+import com.flowpowered.math.vector.Vector2i;
+import com.github.benmanes.caffeine.cache.Cache;
+import de.bluecolored.bluemap.core.BlueMap;
+import de.bluecolored.bluemap.core.logger.Logger;
+import de.bluecolored.bluemap.core.storage.GridStorage;
+import de.bluecolored.bluemap.core.storage.MapStorage;
+import de.bluecolored.bluemap.core.util.Caches;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * An in-memory index of all existing tiles of a map, used to answer requests for missing tiles
+ * without accessing the storage.<br>
+ * The index of each lod is built asynchronously from {@link GridStorage#stream()} on first use and needs to be kept
+ * up to date by calling {@link #add(Vector2i, int)} for every written tile.
+ * Deleted tiles are never removed from the index, which is safe since an existing entry only means the storage is
+ * asked for the tile.<br>
+ * Tiles can also be written by another process (e.g. a CLI-render into the same storage), so a tile that is missing in
+ * the index is still looked up in the storage once every {@value #REVALIDATION_INTERVAL_SECONDS} seconds.
+ * If it is found there, it needs to be added with {@link #add(Vector2i, int)}.
+ */
+public class TileExistenceIndex {
+
+    private static final int SHIFT = 5;
+    private static final int REGION_MASK = (1 << SHIFT) - 1;
+    private static final int WORDS_PER_REGION = (1 << SHIFT) * (1 << SHIFT) / Long.SIZE;
+    private static final long REVALIDATION_INTERVAL_SECONDS = 30;
+
+    private final MapStorage mapStorage;
+    private final int lodCount;
+    private final Map<Integer, LodIndex> lodIndices = new ConcurrentHashMap<>();
+
+    /**
+     * @param lodCount the number of lowres-lods of the map, requests for any other lod are not indexed
+     */
+    public TileExistenceIndex(MapStorage mapStorage, int lodCount) {
+        this.mapStorage = mapStorage;
+        this.lodCount = lodCount;
+    }
+
+    /**
+     * Returns false if the tile is known to not exist, true if it exists, if the index is not ready (yet)
+     * or if the missing tile should be revalidated on the storage.
+     */
+    public boolean mayExist(int lod, int x, int z) {
+        if (lod < 0 || lod > lodCount) return true;
+        return lodIndex(lod).mayExist(x, z);
+    }
+
+    /**
+     * Marks the tile as existing
+     */
+    public void add(Vector2i tile, int lod) {
+        if (lod < 0 || lod > lodCount) return;
+        lodIndex(lod).add(tile.getX(), tile.getY());
+    }
+
+    private LodIndex lodIndex(int lod) {
+        return lodIndices.computeIfAbsent(lod, this::createLodIndex);
+    }
+
+    private LodIndex createLodIndex(int lod) {
+        LodIndex index = new LodIndex();
+        CompletableFuture.runAsync(() -> {
+            GridStorage storage = lod == 0 ? mapStorage.hiresTiles() : mapStorage.lowresTiles(lod);
+            try (Stream<GridStorage.Cell> cells = storage.stream()) {
+                cells.forEach(cell -> index.add(cell.getX(), cell.getZ()));
+                index.ready = true;
+            } catch (IOException | RuntimeException ex) {
+                Logger.global.logWarning("Failed to build the tile-existence-index for lod " + lod + ": " + ex);
+            }
+        }, BlueMap.THREAD_POOL);
+        return index;
+    }
+
+    private static class LodIndex {
+
+        private final Map<Long, AtomicLongArray> regions = new ConcurrentHashMap<>();
+        private final Cache<Long, Boolean> revalidatedTiles = Caches.with()
+                .maximumSize(100000)
+                .expireAfterWrite(REVALIDATION_INTERVAL_SECONDS, TimeUnit.SECONDS)
+                .build();
+        private volatile boolean ready = false;
+
+        boolean mayExist(int x, int z) {
+            if (!ready) return true;
+
+            AtomicLongArray region = regions.get(regionKey(x, z));
+            if (region != null) {
+                int bit = bitIndex(x, z);
+                if ((region.get(bit >> 6) & (1L << bit)) != 0) return true;
+            }
+
+            // the first request for a missing tile in each interval is still looked up in the storage
+            return revalidatedTiles.asMap().putIfAbsent(tileKey(x, z), Boolean.TRUE) == null;
+        }
+
+        void add(int x, int z) {
+            AtomicLongArray region = regions.computeIfAbsent(regionKey(x, z), k -> new AtomicLongArray(WORDS_PER_REGION));
+
+            int bit = bitIndex(x, z);
+            long mask = 1L << bit;
+            region.getAndUpdate(bit >> 6, word -> word | mask);
+        }
+
+        private static long regionKey(int x, int z) {
+            return (long) (x >> SHIFT) << 32 | ((z >> SHIFT) & 0xFFFFFFFFL);
+        }
+
+        private static long tileKey(int x, int z) {
+            return (long) x << 32 | (z & 0xFFFFFFFFL);
+        }
+
+        private static int bitIndex(int x, int z) {
+            return (z & REGION_MASK) << SHIFT | (x & REGION_MASK);
+        }
+
+    }
+
+}
@@ -55,8 +55,21 @@ public void run() {
                 HttpRequest request = requestIn.read();
                 if (request == null) continue;
 
+                HttpRequestEvent event = new HttpRequestEvent();
+                event.begin();
+                String method = request.getMethod();
+                String path = request.getPath();
+
                 try (HttpResponse response = requestHandler.handle(request)) {
                     responseOut.write(response);
+
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.method = method;
+                        event.path = path;
+                        event.status = response.getStatusCode().getCode();
+                        event.commit();
+                    }
                 }
             }
         } catch (EOFException | SocketTimeoutException ignore) {
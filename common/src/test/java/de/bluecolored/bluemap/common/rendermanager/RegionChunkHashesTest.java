@@ -0,0 +1,169 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.common.rendermanager;
+
+import com.flowpowered.math.vector.Vector2i;
+import de.bluecolored.bluemap.core.util.Grid;
+import de.bluecolored.bluemap.core.world.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegionChunkHashesTest {
+
+    @Test
+    public void testLoadFailure() throws IOException {
+        TestWorld world = new TestWorld();
+        world.failing = true;
+
+        RegionChunkHashes hashes = new RegionChunkHashes(world, new Vector2i(0, 0), null);
+        assertThrows(IOException.class, hashes::load);
+
+        // a failed load must not leave partially filled hashes behind, the next load reads the region again
+        world.failing = false;
+        int[] loaded = hashes.load();
+        assertEquals(32 * 32, loaded.length);
+        assertEquals(100, loaded[0]);
+        assertEquals(101, loaded[1]);
+        assertEquals(2, world.regionReads);
+    }
+
+    @Test
+    public void testLoadOnce() throws IOException {
+        TestWorld world = new TestWorld();
+
+        RegionChunkHashes hashes = new RegionChunkHashes(world, new Vector2i(0, 0), null);
+        int[] first = hashes.load();
+        assertSame(first, hashes.load());
+        assertEquals(1, world.regionReads);
+        assertEquals(List.of(new Vector2i(0, 0), new Vector2i(1, 0)), world.invalidated);
+    }
+
+    @Test
+    public void testLoadChangedChunks() throws IOException {
+        TestWorld world = new TestWorld();
+
+        RegionChunkHashes hashes = new RegionChunkHashes(world, new Vector2i(0, 0), Set.of(new Vector2i(1, 0), new Vector2i(5, 5)));
+        int[] loaded = hashes.load();
+        assertEquals(0, loaded[0]);
+        assertEquals(101, loaded[1]);
+
+        // changed chunks are invalidated even if they are not in the region-file yet
+        assertTrue(world.invalidated.contains(new Vector2i(5, 5)));
+        assertFalse(world.invalidated.contains(new Vector2i(0, 0)));
+    }
+
+    /**
+     * A world with one region, containing the chunks (0, 0) and (1, 0) with the timestamps 100 and 101
+     */
+    private static class TestWorld implements World {
+
+        private boolean failing;
+        private int regionReads;
+        private final List<Vector2i> invalidated = new ArrayList<>();
+
+        @Override
+        public Region<Chunk> getRegion(int x, int z) {
+            return new Region<>() {
+                @Override
+                public void iterateAllChunks(ChunkConsumer<Chunk> consumer) throws IOException {
+                    regionReads++;
+                    if (consumer.filter(0, 0, 100)) consumer.accept(0, 0, Chunk.EMPTY_CHUNK);
+                    if (failing) throw new IOException("test");
+                    if (consumer.filter(1, 0, 101)) consumer.accept(1, 0, Chunk.EMPTY_CHUNK);
+                }
+
+                @Override
+                public Chunk emptyChunk() {
+                    return Chunk.EMPTY_CHUNK;
+                }
+
+                @Override
+                public boolean exists() {
+                    return true;
+                }
+            };
+        }
+
+        @Override
+        public void invalidateChunkCache(int x, int z) {
+            invalidated.add(new Vector2i(x, z));
+        }
+
+        @Override
+        public String getId() {
+            return "test";
+        }
+
+        @Override
+        public DimensionType getDimensionType() {
+            return DimensionType.OVERWORLD;
+        }
+
+        @Override
+        public Grid getChunkGrid() {
+            return new Grid(16);
+        }
+
+        @Override
+        public Grid getRegionGrid() {
+            return new Grid(512);
+        }
+
+        @Override
+        public Chunk getChunkAtBlock(int x, int z) {
+            return Chunk.EMPTY_CHUNK;
+        }
+
+        @Override
+        public Chunk getChunk(int x, int z) {
+            return Chunk.EMPTY_CHUNK;
+        }
+
+        @Override
+        public Collection<Vector2i> listRegions() {
+            return List.of(new Vector2i(0, 0));
+        }
+
+        @Override
+        public void preloadRegionChunks(int x, int z, Predicate<Vector2i> chunkFilter) {}
+
+        @Override
+        public void invalidateChunkCache() {}
+
+        @Override
+        public void iterateEntities(int minX, int minZ, int maxX, int maxZ, Consumer<Entity> entityConsumer) {}
+
+    }
+
+}
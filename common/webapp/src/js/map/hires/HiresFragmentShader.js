@@ -52,11 +52,25 @@ varying float vSunlight;
 varying float vBlocklight;
 //varying float vDistance;
 
+vec4 sampleTexture(vec2 uv, float frameIndex) {
+	vec2 frameUv = vec2(uv.x, animationFrameHeight * (uv.y + frameIndex));
+	#if __VERSION__ >= 300
+		// use the gradients of the unwrapped uvs, so the mip-level doesn't jump where a merged face repeats its texture
+		vec2 scale = vec2(1.0, animationFrameHeight);
+		return textureGrad(textureImage, frameUv, dFdx(vUv) * scale, dFdy(vUv) * scale);
+	#else
+		return texture(textureImage, frameUv);
+	#endif
+}
+
 void main() {
 
-	vec4 color = texture(textureImage, vec2(vUv.x, animationFrameHeight * (vUv.y + animationFrameIndex)));
+	// merged faces have uvs beyond 1, repeating the texture once per block: wrap (n, n+1] into (0, 1]
+	vec2 uv = vUv - max(ceil(vUv) - 1.0, 0.0);
+
+	vec4 color = sampleTexture(uv, animationFrameIndex);
 	if (animationInterpolation > 0.0) {
-		color = mix(color, texture(textureImage, vec2(vUv.x, animationFrameHeight * (vUv.y + animationInterpolationFrameIndex))), animationInterpolation);
+		color = mix(color, sampleTexture(uv, animationInterpolationFrameIndex), animationInterpolation);
 	}
 	
 	if (color.a <= 0.01) discard;
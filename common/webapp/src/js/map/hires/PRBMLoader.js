@@ -31,6 +31,7 @@ import {
     DefaultLoadingManager,
     BufferGeometry,
     BufferAttribute,
+    DataUtils,
     FloatType
 } from "three"
 
@@ -63,7 +64,7 @@ let InvertedEncodingTypes = [
     null,
     Int8Array,
     Int16Array,
-    null,
+    Uint16Array, // half-float (16-bit), not part of PRWM
     Int32Array,
     Uint8Array,
     Uint16Array,
@@ -71,6 +72,9 @@ let InvertedEncodingTypes = [
     Uint32Array
 ];
 
+const ENCODING_HALF_FLOAT = 5;
+const SCOPE_FACE = 1;
+
 // define the method to use on a DataView, corresponding the TypedArray type
 let getMethods = {
     Uint16Array: 'getUint16',
@@ -138,7 +142,7 @@ function decodePrwm( buffer, offset ) {
 
     if ( version === 0 ) {
         throw new Error( 'PRWM decoder: Invalid format version: 0' );
-    } else if ( version !== 1 ) {
+    } else if ( version !== 1 && version !== 2 ) {
         throw new Error( 'PRWM decoder: Unsupported format version: ' + version );
     }
 
@@ -152,7 +156,14 @@ function decodePrwm( buffer, offset ) {
 
     /** PARSING **/
 
-    let pos = 8;
+    let pos = 8,
+        bounds = null;
+
+    // version 2: the positions are quantized to a world-aligned grid (origin and size of the quantized range)
+    if ( version === 2 ) {
+        bounds = copyFromBuffer( buffer, Float32Array, pos + offset, 6, bigEndian );
+        pos += 24;
+    }
 
     let attributes = {},
         attributeName,
@@ -162,6 +173,8 @@ function decodePrwm( buffer, offset ) {
         encodingType,
         normalized,
         arrayType,
+        scope,
+        count,
         values,
         indices,
         groups,
@@ -192,12 +205,33 @@ function decodePrwm( buffer, offset ) {
 
         pos ++;
 
+        // version 2: attributes can have one value per face instead of per vertex
+        scope = 0;
+        if ( version === 2 ) {
+            scope = array[ pos ];
+            pos ++;
+        }
+        count = scope === SCOPE_FACE ? valuesNumber / 3 : valuesNumber;
+
         // padding to next multiple of 4
         pos = Math.ceil( pos / 4 ) * 4;
 
-        values = copyFromBuffer( buffer, arrayType, pos + offset, cardinality * valuesNumber, bigEndian );
+        values = copyFromBuffer( buffer, arrayType, pos + offset, cardinality * count, bigEndian );
+
+        pos += arrayType.BYTES_PER_ELEMENT * cardinality * count;
 
-        pos += arrayType.BYTES_PER_ELEMENT * cardinality * valuesNumber;
+        if ( encodingType === ENCODING_HALF_FLOAT ) {
+            values = decodeHalfFloats( values );
+        }
+
+        if ( scope === SCOPE_FACE ) {
+            values = expandFaceValues( values, cardinality );
+        }
+
+        if ( bounds !== null && attributeName === 'position' ) {
+            values = dequantizePositions( values, bounds );
+            normalized = 0;
+        }
 
         attributes[ attributeName ] = {
             type: attributeType,
@@ -244,6 +278,48 @@ function decodePrwm( buffer, offset ) {
     };
 }
 
+function decodeHalfFloats( values ) {
+    let result = new Float32Array( values.length ),
+        i = 0;
+
+    for ( ; i < values.length; i ++ ) {
+        result[ i ] = DataUtils.fromHalfFloat( values[ i ] );
+    }
+
+    return result;
+}
+
+function expandFaceValues( values, cardinality ) {
+    let result = new values.constructor( values.length * 3 ),
+        faceCount = values.length / cardinality,
+        f, v, c, source, target;
+
+    for ( f = 0; f < faceCount; f ++ ) {
+        source = f * cardinality;
+        for ( v = 0; v < 3; v ++ ) {
+            target = ( f * 3 + v ) * cardinality;
+            for ( c = 0; c < cardinality; c ++ ) {
+                result[ target + c ] = values[ source + c ];
+            }
+        }
+    }
+
+    return result;
+}
+
+function dequantizePositions( values, bounds ) {
+    let result = new Float32Array( values.length ),
+        i = 0,
+        axis;
+
+    for ( ; i < values.length; i ++ ) {
+        axis = i % 3;
+        result[ i ] = values[ i ] / 0xFFFF * bounds[ axis + 3 ] + bounds[ axis ];
+    }
+
+    return result;
+}
+
 function read4ByteInt(array, pos) {
     return array[pos] |
         array[pos + 1] << 8 |
@@ -1,5 +1,6 @@
 plugins {
     bluemap.java
+    alias ( libs.plugins.jmh )
 }
 
 dependencies {
@@ -14,6 +15,14 @@ dependencies {
     api ( libs.lz4 )
 }
 
+// benchmarks in src/jmh, run with: ./gradlew :core:jmh -PjmhIncludes=<benchmark-regex>
+jmh {
+    includes = providers.gradleProperty("jmhIncludes").map { listOf(it) }.orElse(listOf())
+    warmupIterations = 3
+    iterations = 5
+    fork = 1
+}
+
 tasks.register("zipResourceExtensions", type = Zip::class) {
     from(fileTree("src/main/resourceExtensions"))
     archiveFileName = "resourceExtensions.zip"
@@ -0,0 +1,93 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.map.hires;
+
+import de.bluecolored.bluemap.core.util.MergeSort;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the counting-sort of {@link ArrayTileModel#sort()} with the comparator-based merge-sort it replaced.<br>
+ * Each invocation restores the unsorted material-indices first, since sorting an already sorted model returns early.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ArrayTileModelSortBenchmark {
+
+    @Param({ "1000", "20000", "200000" })
+    private int faces;
+
+    @Param({ "8", "64", "1024" })
+    private int materials;
+
+    private ArrayTileModel model;
+    private int[] unsortedMaterialIndex;
+    private int[] order, orderSupport;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(0);
+
+        model = new ArrayTileModel(faces);
+        model.add(faces);
+        for (int i = 0; i < faces * ArrayTileModel.FI_POSITION; i++) model.position[i] = random.nextFloat();
+        for (int i = 0; i < faces * ArrayTileModel.FI_UV; i++) model.uv[i] = random.nextFloat();
+        for (int i = 0; i < faces * ArrayTileModel.FI_AO; i++) model.ao[i] = random.nextFloat();
+        for (int i = 0; i < faces * ArrayTileModel.FI_COLOR; i++) model.color[i] = random.nextFloat();
+
+        unsortedMaterialIndex = new int[faces];
+        for (int i = 0; i < faces; i++) unsortedMaterialIndex[i] = random.nextInt(materials);
+
+        order = new int[faces];
+        orderSupport = new int[faces];
+    }
+
+    @Benchmark
+    public ArrayTileModel countingSort() {
+        System.arraycopy(unsortedMaterialIndex, 0, model.materialIndex, 0, faces);
+        model.sort();
+        return model;
+    }
+
+    /**
+     * Only computes the order with the previous comparator-based merge-sort, the faces are not moved.
+     * This is a lower bound for the previous implementation, which additionally swapped every face into place.
+     */
+    @Benchmark
+    public int[] mergeSortOrder() {
+        int[] materialIndex = model.materialIndex;
+        System.arraycopy(unsortedMaterialIndex, 0, materialIndex, 0, faces);
+        for (int i = 0; i < faces; i++) {
+            order[i] = i;
+            orderSupport[i] = i;
+        }
+        MergeSort.mergeSortInt(order, 0, faces, (i1, i2) -> Integer.compare(materialIndex[i1], materialIndex[i2]), orderSupport);
+        return order;
+    }
+
+}
@@ -36,6 +36,9 @@
 import de.bluecolored.bluemap.core.map.renderstate.MapChunkState;
 import de.bluecolored.bluemap.core.map.renderstate.MapRegionState;
 import de.bluecolored.bluemap.core.map.renderstate.MapTileState;
+import de.bluecolored.bluemap.core.metrics.BlueMapMetrics;
+import de.bluecolored.bluemap.core.metrics.Counter;
+import de.bluecolored.bluemap.core.metrics.Histogram;
 import de.bluecolored.bluemap.core.resources.adapter.ResourcesGson;
 import de.bluecolored.bluemap.core.resources.pack.resourcepack.ResourcePack;
 import de.bluecolored.bluemap.core.storage.MapStorage;
@@ -53,6 +56,7 @@
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Predicate;
 
 @Getter
@@ -83,8 +87,10 @@ public class BmMap {
 
     @Setter private Predicate<Vector2i> tileFilter;
 
-    @Getter(AccessLevel.NONE) private long renderTimeSumNanos;
-    @Getter(AccessLevel.NONE) private long tilesRendered;
+    @Getter(AccessLevel.NONE) private final LongAdder renderTimeSumNanos;
+    @Getter(AccessLevel.NONE) private final LongAdder tilesRendered;
+    @Getter(AccessLevel.NONE) private final Counter.Child tilesRenderedMetric;
+    @Getter(AccessLevel.NONE) private final Histogram.Child tileRenderTimeMetric;
     @Getter(AccessLevel.NONE) private long lastSaveTime;
 
     public BmMap(String id, String name, World world, MapStorage storage, ResourcePack resourcePack, MapSettings settings) throws IOException, InterruptedException {
@@ -96,9 +102,9 @@ public BmMap(String id, String name, World world, MapStorage storage, ResourcePa
         this.mapSettings = Objects.requireNonNull(settings);
 
         Logger.global.logDebug("Loading render-state for map '" + id + "'");
-        this.mapTileState = new MapTileState(storage.tileState());
-        this.mapChunkState = new MapChunkState(storage.chunkState());
-        this.mapRegionState = new MapRegionState(storage.regionState());
+        this.mapTileState = new MapTileState(storage.tileState(), settings.getRenderStateCacheSize());
+        this.mapChunkState = new MapChunkState(storage.chunkState(), settings.getRenderStateCacheSize());
+        this.mapRegionState = new MapRegionState(storage.regionState(), settings.getRenderStateCacheSize());
 
         if (Thread.interrupted()) throw new InterruptedException();
 
@@ -127,29 +133,51 @@ public BmMap(String id, String name, World world, MapStorage storage, ResourcePa
 
         this.markerSets = new ConcurrentHashMap<>();
 
-        this.renderTimeSumNanos = 0;
-        this.tilesRendered = 0;
+        this.renderTimeSumNanos = new LongAdder();
+        this.tilesRendered = new LongAdder();
+        this.tilesRenderedMetric = BlueMapMetrics.TILES_RENDERED.labels(id);
+        this.tileRenderTimeMetric = BlueMapMetrics.TILE_RENDER_TIME.labels(id);
         this.lastSaveTime = -1;
 
         saveMapSettings();
     }
 
     public void renderTile(Vector2i tile) {
+        renderTile(tile, false);
+    }
+
+    /**
+     * Renders the given tile.<br>
+     * Unless the render is forced, the tile is only saved if its output changed since the last render.
+     * Forced renders always save the tile, so they can repair tiles that are missing or corrupted in the storage.
+     */
+    public void renderTile(Vector2i tile, boolean force) {
         if (!tileFilter.test(tile)) return;
 
         long start = System.nanoTime();
 
-        hiresModelManager.render(tile, lowresTileManager, mapSettings.isSaveHiresLayer());
+        // a previous fingerprint of 0 (unknown) never matches, so the tile is always saved
+        long previousFingerprint = force ? 0 : mapTileState.getOutputFingerprint(tile.getX(), tile.getY());
+        long fingerprint = hiresModelManager.render(
+                tile,
+                lowresTileManager,
+                mapSettings.isSaveHiresLayer(),
+                previousFingerprint
+        );
+        mapTileState.setOutputFingerprint(tile.getX(), tile.getY(), fingerprint);
 
         long end = System.nanoTime();
         long delta = end - start;
 
-        renderTimeSumNanos += delta;
-        tilesRendered ++;
+        renderTimeSumNanos.add(delta);
+        tilesRendered.increment();
+        tilesRenderedMetric.inc();
+        tileRenderTimeMetric.observeNanos(delta);
     }
 
     public void unrenderTile(Vector2i tile) {
         hiresModelManager.unrender(tile, lowresTileManager);
+        mapTileState.setOutputFingerprint(tile.getX(), tile.getY(), 0);
     }
 
     public synchronized boolean save(long minTimeSinceLastSave) {
@@ -236,7 +264,7 @@ public synchronized void savePlayerState() {
     }
 
     public long getAverageNanosPerTile() {
-        return renderTimeSumNanos / tilesRendered;
+        return renderTimeSumNanos.sum() / tilesRendered.sum();
     }
 
     @Override
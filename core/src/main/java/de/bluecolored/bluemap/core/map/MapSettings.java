@@ -62,6 +62,11 @@ public interface MapSettings extends RenderSettings {
 
     boolean isCheckForRemovedRegions();
 
+    /**
+     * The amount of render-state cells of each type that are kept in memory
+     */
+    int getRenderStateCacheSize();
+
     @Override
     default boolean isSaveHiresLayer() {
         return isEnableHires();
@@ -32,6 +32,7 @@
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
 
 public class ArrayTileModel implements TileModel {
     private static final float GROW_MULTIPLIER = 1.5f;
@@ -40,6 +41,12 @@ public class ArrayTileModel implements TileModel {
     private static final float SHRINK_MULTIPLIER = 1 / GROW_MULTIPLIER;
     private static final Duration SHRINK_TIME = Duration.ofMinutes(1);
 
+    // material-index ranges larger than this are not counting-sorted, to keep the counts-array small
+    private static final int MAX_COUNTING_SORT_RANGE = 1 << 16;
+
+    // scratch-buffers for sorting, shared by all models sorted on the same thread
+    private static final ThreadLocal<SortBuffers> SORT_BUFFERS = ThreadLocal.withInitial(SortBuffers::new);
+
     private static final InstancePool<ArrayTileModel> INSTANCE_POOL = new InstancePool<>(
             () -> new ArrayTileModel(100),
             model -> {
@@ -72,7 +79,7 @@ else if (model.lastCapacityUse.plus(SHRINK_TIME).isBefore(now))
     float[] position;
     float[] color, uv, ao;
     byte[] sunlight, blocklight;
-    int[] materialIndex, materialIndexSort, materialIndexSortSupport;
+    int[] materialIndex;
 
     private transient Instant lastCapacityUse = Instant.now();
 
@@ -482,6 +489,20 @@ public ArrayTileModel clear() {
         return this;
     }
 
+    /**
+     * Copies all attributes of one face onto another face of this model.
+     */
+    void copyFace(int from, int to) {
+        System.arraycopy(position,      from * FI_POSITION,         position,       to * FI_POSITION,       FI_POSITION);
+        System.arraycopy(uv,            from * FI_UV,               uv,             to * FI_UV,             FI_UV);
+        System.arraycopy(ao,            from * FI_AO,               ao,             to * FI_AO,             FI_AO);
+
+        System.arraycopy(color,         from * FI_COLOR,            color,          to * FI_COLOR,          FI_COLOR);
+        System.arraycopy(sunlight,      from * FI_SUNLIGHT,         sunlight,       to * FI_SUNLIGHT,       FI_SUNLIGHT);
+        System.arraycopy(blocklight,    from * FI_BLOCKLIGHT,       blocklight,     to * FI_BLOCKLIGHT,     FI_BLOCKLIGHT);
+        System.arraycopy(materialIndex, from * FI_MATERIAL_INDEX,   materialIndex,  to * FI_MATERIAL_INDEX, FI_MATERIAL_INDEX);
+    }
+
     private void ensureCapacity(int count) {
         if (size + count > capacity){
             float[] _position = position;
@@ -521,101 +542,138 @@ private void setCapacity(int capacity) {
         sunlight =      new byte    [capacity * FI_SUNLIGHT];
         blocklight =    new byte    [capacity * FI_BLOCKLIGHT];
         materialIndex = new int     [capacity * FI_MATERIAL_INDEX];
-
-        materialIndexSort = new int[materialIndex.length];
-        materialIndexSortSupport = new int [materialIndex.length];
     }
 
+    /**
+     * Groups all faces by their material-index (stable, ascending) using a counting-sort.
+     */
     @Override
     public void sort() {
         if (size <= 1) return; // nothing to sort
 
-        // initialize material-index-sort
-        for (int i = 0; i < size; i++) {
-            materialIndexSort[i] = i;
-            materialIndexSortSupport[i] = i;
+        // find the range of material-indices and check if we are already sorted
+        int min = materialIndex[0], max = min, last = min, m, i;
+        boolean sorted = true;
+        for (i = 1; i < size; i++) {
+            m = materialIndex[i];
+            if (m < last) sorted = false;
+            if (m < min) min = m;
+            if (m > max) max = m;
+            last = m;
         }
+        if (sorted) return;
+
+        // calculate the target-index of each face
+        SortBuffers sortBuffers = SORT_BUFFERS.get();
+        sortBuffers.ensureCapacity(size);
+        int[] buffer = sortBuffers.buffer, target = sortBuffers.target;
+        if ((long) max - min < MAX_COUNTING_SORT_RANGE) {
+            int range = max - min + 1;
+
+            // count faces per material-index
+            int[] counts = sortBuffers.counts;
+            if (counts.length < range + 1)
+                counts = sortBuffers.counts = new int[range + 1];
+            else
+                Arrays.fill(counts, 0, range + 1, 0);
+
+            for (i = 0; i < size; i++)
+                counts[materialIndex[i] - min + 1]++;
+
+            // prefix-sum -> start-index of each material-index
+            for (i = 1; i <= range; i++)
+                counts[i] += counts[i - 1];
+
+            for (i = 0; i < size; i++)
+                target[i] = counts[materialIndex[i] - min]++;
+        } else {
+            // fallback for sparse material-indices, sort face-indices and invert the resulting order
+            for (i = 0; i < size; i++) {
+                buffer[i] = i;
+                target[i] = i;
+            }
 
-        // sort
-        MergeSort.mergeSortInt(materialIndexSort, 0, size, this::compareMaterialIndex, materialIndexSortSupport);
-
-        // move
-        int s, c;
-        for (int i = 0; i < size; i++) {
-            s = materialIndexSort[i]; c = 0;
-            while (s < i) {
-                s = materialIndexSort[s];
+            MergeSort.mergeSortInt(buffer, 0, size, this::compareMaterialIndex, target);
 
-                // should never happen, just making absolutely sure this can't get stuck in an endless loop
-                if (c++ > size) throw new IllegalStateException();
-            }
-            swap(i, s);
+            for (i = 0; i < size; i++)
+                target[buffer[i]] = i;
         }
+
+        // move all attributes through the scratch-buffer into their new position
+        permute(position, FI_POSITION, target, buffer);
+        permute(uv, FI_UV, target, buffer);
+        permute(ao, FI_AO, target, buffer);
+        permute(color, FI_COLOR, target, buffer);
+
+        //assuming FI_SUNLIGHT, FI_BLOCKLIGHT and FI_MATERIAL_INDEX = 1
+        permute(sunlight, target, buffer);
+        permute(blocklight, target, buffer);
+        for (i = 0; i < size; i++)
+            buffer[target[i]] = materialIndex[i];
+        System.arraycopy(buffer, 0, materialIndex, 0, size);
+
+        sortBuffers.trim();
     }
 
     private int compareMaterialIndex(int i1, int i2) {
         return Integer.compare(materialIndex[i1], materialIndex[i2]);
     }
 
-    private void swap(int face1, int face2) {
-        int i, if1, if2, vi;
-        float vf;
-        byte vb;
-
-        //swap positions
-        if1 = face1 * FI_POSITION;
-        if2 = face2 * FI_POSITION;
-        for (i = 0; i < FI_POSITION; i++){
-            vf = position[if1 + i];
-            position[if1 + i] = position[if2 + i];
-            position[if2 + i] = vf;
+    private void permute(float[] attribute, int stride, int[] targetFace, int[] buffer) {
+        int si, ti, i, j;
+        for (i = 0; i < size; i++) {
+            si = i * stride;
+            ti = targetFace[i] * stride;
+            for (j = 0; j < stride; j++)
+                buffer[ti + j] = Float.floatToRawIntBits(attribute[si + j]);
         }
 
-        //swap uv
-        if1 = face1 * FI_UV;
-        if2 = face2 * FI_UV;
-        for (i = 0; i < FI_UV; i++){
-            vf = uv[if1 + i];
-            uv[if1 + i] = uv[if2 + i];
-            uv[if2 + i] = vf;
-        }
+        int length = size * stride;
+        for (i = 0; i < length; i++)
+            attribute[i] = Float.intBitsToFloat(buffer[i]);
+    }
 
-        //swap ao
-        if1 = face1 * FI_AO;
-        if2 = face2 * FI_AO;
-        for (i = 0; i < FI_AO; i++){
-            vf = ao[if1 + i];
-            ao[if1 + i] = ao[if2 + i];
-            ao[if2 + i] = vf;
-        }
+    private void permute(byte[] attribute, int[] targetFace, int[] buffer) {
+        int i;
+        for (i = 0; i < size; i++)
+            buffer[targetFace[i]] = attribute[i];
+        for (i = 0; i < size; i++)
+            attribute[i] = (byte) buffer[i];
+    }
 
-        //swap color
-        if1 = face1 * FI_COLOR;
-        if2 = face2 * FI_COLOR;
-        for (i = 0; i < FI_COLOR; i++){
-            vf = color[if1 + i];
-            color[if1 + i] = color[if2 + i];
-            color[if2 + i] = vf;
-        }
+    public static InstancePool<ArrayTileModel> instancePool() {
+        return INSTANCE_POOL;
+    }
 
-        //swap sunlight (assuming FI_SUNLIGHT = 1)
-        vb = sunlight[face1];
-        sunlight[face1] = sunlight[face2];
-        sunlight[face2] = vb;
+    /**
+     * Scratch-buffers for {@link #sort()}, one buffer is reused for all attributes (sized for the largest one)
+     */
+    private static class SortBuffers {
 
-        //swap blocklight (assuming FI_BLOCKLIGHT = 1)
-        vb = blocklight[face1];
-        blocklight[face1] = blocklight[face2];
-        blocklight[face2] = vb;
+        private static final int MAX_RETAINED_FACES = 100000;
 
-        //swap material-index (assuming FI_MATERIAL_INDEX = 1)
-        vi = materialIndex[face1];
-        materialIndex[face1] = materialIndex[face2];
-        materialIndex[face2] = vi;
-    }
+        private int[] buffer = new int[0], target = new int[0], counts = new int[0];
+
+        void ensureCapacity(int faces) {
+            if (target.length >= faces) return;
+
+            int capacity = Math.max(faces, (int) (target.length * GROW_MULTIPLIER));
+            // FI_POSITION is the largest attribute
+            buffer = new int[capacity * FI_POSITION];
+            target = new int[capacity];
+        }
+
+        /**
+         * Drops the buffers if an unusually large model made them grow beyond {@link #MAX_RETAINED_FACES},
+         * so idle render-threads don't keep holding them
+         */
+        void trim() {
+            if (target.length > MAX_RETAINED_FACES) {
+                buffer = new int[0];
+                target = new int[0];
+            }
+        }
 
-    public static InstancePool<ArrayTileModel> instancePool() {
-        return INSTANCE_POOL;
     }
 
 }
@@ -0,0 +1,543 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.map.hires;
+
+import java.util.Arrays;
+
+/**
+ * Merges adjacent, coplanar and axis-aligned quads (two triangles each) of an {@link ArrayTileModel}
+ * that share the same material, color, light and ambient-occlusion into larger quads (greedy meshing).
+ * <p>
+ * Only quads that cover exactly one block-face and map exactly one full texture are merged.
+ * The uvs of a merged quad range beyond 0-1, so the shader repeats the texture once per block.
+ * <p>
+ * All state is kept in primitive tables that are reused for every model, so an instance should be reused
+ * (per thread) and is not thread-safe.
+ */
+class CoplanarFaceMerger {
+
+    private static final float UV_EPSILON = 0.0001f;
+
+    // the attributes that all quads of a group share (floats are stored as their int-bits)
+    private static final int
+            K_AXIS = 0,
+            K_FACING = 1,
+            K_PLANE = 2,
+            K_MATERIAL_INDEX = 3,
+            K_COLOR = 4, // r, g, b
+            K_SUNLIGHT = 7,
+            K_BLOCKLIGHT = 8,
+            K_AO = 9,
+            K_UV_MAPPING = 10,
+            KEY_SIZE = 11;
+
+    // fields of a merged quad
+    private static final int
+            M_GROUP = 0,
+            M_B = 1,
+            M_C = 2,
+            M_WIDTH = 3,
+            M_HEIGHT = 4,
+            MERGED_SIZE = 5;
+
+    // all mergeable quads: their group, cell and first face
+    private int quadCount;
+    private int[] quadGroups = new int[256], quadFaces = new int[256];
+    private long[] quadCells = new long[256];
+
+    // groups of quads with the same key, in order of their first appearance
+    private int groupCount;
+    private int[] groupKeys = new int[16 * KEY_SIZE];
+    private int[] groupTable = new int[32]; // open addressing: group + 1, or 0 if empty
+    private int[] groupEnds = new int[16];
+    private long[] groupedCells = new long[256]; // cells of all quads, grouped and sorted
+
+    // open addressing: (group, cell) -> first face + 1, or 0 if empty
+    private long[] cellKeys = new long[512];
+    private int[] cellGroups = new int[512], cellFaces = new int[512];
+    private boolean[] cellVisited = new boolean[512];
+    private int cellMask;
+
+    private int mergedCount;
+    private int[] merged = new int[64 * MERGED_SIZE];
+
+    private boolean[] removed = new boolean[0];
+
+    // key and corners of the last analyzed quad
+    private final int[] key = new int[KEY_SIZE];
+    private final float[] cornerU = new float[4], cornerV = new float[4];
+    private final boolean[] cornerSet = new boolean[4];
+    private int cellB, cellC;
+
+    // uvs of the corners of the last written quad
+    private final float[] mappedU = new float[4], mappedV = new float[4];
+
+    public void merge(ArrayTileModel model) {
+        int size = model.size;
+        if (size < 4) return; // less than two quads
+
+        collectQuads(model);
+        if (quadCount < 2) return;
+
+        groupCells();
+        buildCellTable();
+
+        if (removed.length < size) removed = new boolean[size];
+        else Arrays.fill(removed, 0, size, false);
+
+        mergedCount = 0;
+        for (int group = 0; group < groupCount; group++)
+            mergeGroup(group);
+        if (mergedCount == 0) return;
+
+        // remove all merged faces
+        int write = 0;
+        for (int face = 0; face < size; face++) {
+            if (removed[face]) continue;
+            if (face != write) model.copyFace(face, write);
+            write++;
+        }
+        model.reset(write);
+
+        // and add the merged quads instead
+        for (int i = 0; i < mergedCount; i++)
+            write(model, i * MERGED_SIZE);
+    }
+
+    private void collectQuads(ArrayTileModel model) {
+        quadCount = 0;
+        groupCount = 0;
+        Arrays.fill(groupTable, 0);
+
+        int face = 0;
+        while (face + 1 < model.size) {
+            if (!analyzeQuad(model, face)) {
+                face++;
+                continue;
+            }
+
+            if (quadCount == quadFaces.length) {
+                int capacity = quadCount * 2;
+                quadGroups = Arrays.copyOf(quadGroups, capacity);
+                quadFaces = Arrays.copyOf(quadFaces, capacity);
+                quadCells = Arrays.copyOf(quadCells, capacity);
+            }
+
+            quadGroups[quadCount] = group();
+            quadCells[quadCount] = cell(cellB, cellC);
+            quadFaces[quadCount] = face;
+            quadCount++;
+
+            face += 2;
+        }
+    }
+
+    /**
+     * Returns the group of the current {@link #key}, adding a new group if there is none yet.
+     */
+    private int group() {
+        int mask = groupTable.length - 1;
+        for (int slot = keyHash(key, 0) & mask;; slot = (slot + 1) & mask) {
+            int group = groupTable[slot] - 1;
+            if (group == -1) break;
+            if (Arrays.equals(groupKeys, group * KEY_SIZE, group * KEY_SIZE + KEY_SIZE, key, 0, KEY_SIZE))
+                return group;
+        }
+
+        int group = groupCount++;
+        if (groupCount * KEY_SIZE > groupKeys.length)
+            groupKeys = Arrays.copyOf(groupKeys, groupKeys.length * 2);
+        System.arraycopy(key, 0, groupKeys, group * KEY_SIZE, KEY_SIZE);
+
+        if (groupCount * 2 > groupTable.length) {
+            // keep the table at most half full
+            groupTable = new int[groupTable.length * 2];
+            for (int g = 0; g < groupCount; g++)
+                insertGroup(g);
+        } else {
+            insertGroup(group);
+        }
+
+        return group;
+    }
+
+    private void insertGroup(int group) {
+        int mask = groupTable.length - 1;
+        int slot = keyHash(groupKeys, group * KEY_SIZE) & mask;
+        while (groupTable[slot] != 0) slot = (slot + 1) & mask;
+        groupTable[slot] = group + 1;
+    }
+
+    /**
+     * Sorts the cells of all quads into {@link #groupedCells}, grouped by their group (counting-sort) and
+     * ascending within each group.
+     */
+    private void groupCells() {
+        if (groupEnds.length < groupCount) groupEnds = new int[Math.max(groupCount, groupEnds.length * 2)];
+        if (groupedCells.length < quadCount) groupedCells = new long[quadCells.length];
+
+        Arrays.fill(groupEnds, 0, groupCount, 0);
+        for (int q = 0; q < quadCount; q++)
+            groupEnds[quadGroups[q]]++;
+
+        // prefix-sum -> start of each group, which are moved to the end of each group while filling
+        int start = 0, count;
+        for (int group = 0; group < groupCount; group++) {
+            count = groupEnds[group];
+            groupEnds[group] = start;
+            start += count;
+        }
+        for (int q = 0; q < quadCount; q++)
+            groupedCells[groupEnds[quadGroups[q]]++] = quadCells[q];
+
+        for (int group = 0; group < groupCount; group++)
+            Arrays.sort(groupedCells, groupStart(group), groupEnds[group]);
+    }
+
+    private int groupStart(int group) {
+        return group == 0 ? 0 : groupEnds[group - 1];
+    }
+
+    private void buildCellTable() {
+        int capacity = 16;
+        while (capacity < quadCount * 2) capacity <<= 1;
+
+        if (cellFaces.length < capacity) {
+            cellKeys = new long[capacity];
+            cellGroups = new int[capacity];
+            cellFaces = new int[capacity];
+            cellVisited = new boolean[capacity];
+        } else {
+            Arrays.fill(cellFaces, 0, capacity, 0);
+            Arrays.fill(cellVisited, 0, capacity, false);
+        }
+        cellMask = capacity - 1;
+
+        // if two quads are on the same cell, only the first one can be merged
+        int slot;
+        for (int q = 0; q < quadCount; q++) {
+            slot = cellSlot(quadGroups[q], quadCells[q]);
+            if (cellFaces[slot] != 0) continue;
+            cellKeys[slot] = quadCells[q];
+            cellGroups[slot] = quadGroups[q];
+            cellFaces[slot] = quadFaces[q] + 1;
+        }
+    }
+
+    /**
+     * Returns the slot of the given cell in the cell-table, or the free slot it would be inserted in.
+     */
+    private int cellSlot(int group, long cell) {
+        long hash = (cell ^ (long) group * 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        int slot = (int) (hash ^ hash >>> 32) & cellMask;
+        while (cellFaces[slot] != 0 && (cellKeys[slot] != cell || cellGroups[slot] != group))
+            slot = (slot + 1) & cellMask;
+        return slot;
+    }
+
+    /**
+     * Checks if the two faces starting at the given face form a mergeable quad.
+     * If they do, the {@link #key} all quads it can be merged with share and the quads cell are stored.
+     */
+    private boolean analyzeQuad(ArrayTileModel model, int face) {
+        float[] position = model.position;
+        int pi = face * ArrayTileModel.FI_POSITION, v, a;
+
+        // find the axis that all six vertices are aligned on
+        int axis = -1;
+        for (a = 0; a < 3 && axis == -1; a++) {
+            axis = a;
+            for (v = 1; v < 6; v++) {
+                if (position[pi + v * 3 + a] != position[pi + a]) {
+                    axis = -1;
+                    break;
+                }
+            }
+        }
+        if (axis == -1) return false;
+        int axisB = (axis + 1) % 3, axisC = (axis + 2) % 3;
+
+        // the quad needs to cover exactly one block-face
+        float minB = Float.POSITIVE_INFINITY, minC = Float.POSITIVE_INFINITY;
+        for (v = 0; v < 6; v++) {
+            minB = Math.min(minB, position[pi + v * 3 + axisB]);
+            minC = Math.min(minC, position[pi + v * 3 + axisC]);
+        }
+        if (minB != Math.floor(minB) || minC != Math.floor(minC)) return false;
+        if (Math.abs(minB) > 0xFFFFFF || Math.abs(minC) > 0xFFFFFF) return false;
+
+        float[] uv = model.uv;
+        int uvi = face * ArrayTileModel.FI_UV;
+        int missing1 = 0b1111, missing2 = 0b1111, corner, bit;
+        float db, dc, u, uvV;
+        Arrays.fill(cornerSet, false);
+        for (v = 0; v < 6; v++) {
+            db = position[pi + v * 3 + axisB] - minB;
+            dc = position[pi + v * 3 + axisC] - minC;
+            if ((db != 0 && db != 1) || (dc != 0 && dc != 1)) return false;
+
+            corner = (int) db | (int) dc << 1;
+            bit = 1 << corner;
+            if (v < 3) {
+                if ((missing1 & bit) == 0) return false;
+                missing1 &= ~bit;
+            } else {
+                if ((missing2 & bit) == 0) return false;
+                missing2 &= ~bit;
+            }
+
+            u = uv[uvi + v * 2];
+            uvV = uv[uvi + v * 2 + 1];
+            if (cornerSet[corner]) {
+                if (Math.abs(cornerU[corner] - u) > UV_EPSILON || Math.abs(cornerV[corner] - uvV) > UV_EPSILON)
+                    return false;
+            } else {
+                cornerSet[corner] = true;
+                cornerU[corner] = u;
+                cornerV[corner] = uvV;
+            }
+        }
+
+        // the corner missing in each triangle needs to be opposite to the other, so both triangles cover the quad
+        if ((Integer.numberOfTrailingZeros(missing1) ^ Integer.numberOfTrailingZeros(missing2)) != 0b11) return false;
+
+        // both triangles need to face in the same direction
+        int facing = facing(position, pi, axisB, axisC);
+        if (facing == 0 || facing != facing(position, pi + 9, axisB, axisC)) return false;
+
+        // the uvs need to map the full texture, u along one axis and v along the other
+        int uMapping = uvMapping(cornerU), vMapping = uvMapping(cornerV);
+        if (uMapping == -1 || vMapping == -1) return false;
+        boolean uAlongB = (uMapping >> 1 & 0b11) != 1, uAlongC = (uMapping >> 3 & 0b11) != 1;
+        boolean vAlongB = (vMapping >> 1 & 0b11) != 1, vAlongC = (vMapping >> 3 & 0b11) != 1;
+        if (uAlongB == uAlongC || vAlongB == vAlongC || uAlongB == vAlongB) return false;
+
+        // all other attributes need to be the same for the whole quad
+        float[] color = model.color;
+        int ci = face * ArrayTileModel.FI_COLOR;
+        for (int i = 0; i < ArrayTileModel.FI_COLOR; i++)
+            if (color[ci + i] != color[ci + ArrayTileModel.FI_COLOR + i]) return false;
+
+        float[] ao = model.ao;
+        int aoi = face * ArrayTileModel.FI_AO;
+        for (int i = 1; i < ArrayTileModel.FI_AO * 2; i++)
+            if (ao[aoi + i] != ao[aoi]) return false;
+
+        if (model.sunlight[face] != model.sunlight[face + 1]) return false;
+        if (model.blocklight[face] != model.blocklight[face + 1]) return false;
+        if (model.materialIndex[face] != model.materialIndex[face + 1]) return false;
+
+        cellB = (int) minB;
+        cellC = (int) minC;
+
+        key[K_AXIS] = axis;
+        key[K_FACING] = facing;
+        key[K_PLANE] = Float.floatToIntBits(position[pi + axis]);
+        key[K_MATERIAL_INDEX] = model.materialIndex[face];
+        key[K_COLOR] = Float.floatToIntBits(color[ci]);
+        key[K_COLOR + 1] = Float.floatToIntBits(color[ci + 1]);
+        key[K_COLOR + 2] = Float.floatToIntBits(color[ci + 2]);
+        key[K_SUNLIGHT] = model.sunlight[face];
+        key[K_BLOCKLIGHT] = model.blocklight[face];
+        key[K_AO] = Float.floatToIntBits(ao[aoi]);
+        key[K_UV_MAPPING] = uMapping | vMapping << 8;
+        return true;
+    }
+
+    /**
+     * Greedily combines the quads of one group into rectangles,
+     * by first growing along the b-axis and then along the c-axis.
+     */
+    private void mergeGroup(int group) {
+        int start = groupStart(group), end = groupEnds[group];
+        if (end - start < 2) return;
+
+        int b, c, width, height, i, j, slot;
+        long cell;
+        for (int k = start; k < end; k++) {
+            cell = groupedCells[k];
+            if (cellVisited[cellSlot(group, cell)]) continue;
+            b = cellB(cell);
+            c = cellC(cell);
+
+            width = 1;
+            while (isFree(group, b + width, c)) width++;
+
+            height = 1;
+            grow: while (true) {
+                for (i = 0; i < width; i++)
+                    if (!isFree(group, b + i, c + height)) break grow;
+                height++;
+            }
+
+            for (i = 0; i < width; i++) {
+                for (j = 0; j < height; j++) {
+                    cellVisited[cellSlot(group, cell(b + i, c + j))] = true;
+                }
+            }
+
+            if (width * height < 2) continue;
+
+            for (i = 0; i < width; i++) {
+                for (j = 0; j < height; j++) {
+                    slot = cellSlot(group, cell(b + i, c + j));
+                    removed[cellFaces[slot] - 1] = true;
+                    removed[cellFaces[slot]] = true;
+                }
+            }
+
+            if ((mergedCount + 1) * MERGED_SIZE > merged.length)
+                merged = Arrays.copyOf(merged, merged.length * 2);
+            int mi = mergedCount++ * MERGED_SIZE;
+            merged[mi + M_GROUP] = group;
+            merged[mi + M_B] = b;
+            merged[mi + M_C] = c;
+            merged[mi + M_WIDTH] = width;
+            merged[mi + M_HEIGHT] = height;
+        }
+    }
+
+    private boolean isFree(int group, int b, int c) {
+        int slot = cellSlot(group, cell(b, c));
+        return cellFaces[slot] != 0 && !cellVisited[slot];
+    }
+
+    private void write(ArrayTileModel model, int mi) {
+        int ki = merged[mi + M_GROUP] * KEY_SIZE;
+        int width = merged[mi + M_WIDTH], height = merged[mi + M_HEIGHT];
+        int face = model.add(2);
+
+        float b0 = merged[mi + M_B], c0 = merged[mi + M_C], b1 = b0 + width, c1 = c0 + height;
+
+        // uvs of the corners (b0,c0), (b1,c0), (b0,c1), (b1,c1), shifted to start at 0
+        int uvMapping = groupKeys[ki + K_UV_MAPPING];
+        float[] u = mappedU, v = mappedV;
+        mapUvs(uvMapping & 0xFF, width, height, u);
+        mapUvs(uvMapping >> 8 & 0xFF, width, height, v);
+
+        if (groupKeys[ki + K_FACING] > 0) {
+            setVertex(model, face, 0, ki, b0, c0, u[0], v[0]);
+            setVertex(model, face, 1, ki, b1, c0, u[1], v[1]);
+            setVertex(model, face, 2, ki, b1, c1, u[3], v[3]);
+            setVertex(model, face + 1, 0, ki, b0, c0, u[0], v[0]);
+            setVertex(model, face + 1, 1, ki, b1, c1, u[3], v[3]);
+            setVertex(model, face + 1, 2, ki, b0, c1, u[2], v[2]);
+        } else {
+            setVertex(model, face, 0, ki, b0, c0, u[0], v[0]);
+            setVertex(model, face, 1, ki, b1, c1, u[3], v[3]);
+            setVertex(model, face, 2, ki, b1, c0, u[1], v[1]);
+            setVertex(model, face + 1, 0, ki, b0, c0, u[0], v[0]);
+            setVertex(model, face + 1, 1, ki, b0, c1, u[2], v[2]);
+            setVertex(model, face + 1, 2, ki, b1, c1, u[3], v[3]);
+        }
+
+        float ao = Float.intBitsToFloat(groupKeys[ki + K_AO]);
+        for (int f = face; f < face + 2; f++) {
+            model.setAOs(f, ao, ao, ao);
+            model.setColor(f,
+                    Float.intBitsToFloat(groupKeys[ki + K_COLOR]),
+                    Float.intBitsToFloat(groupKeys[ki + K_COLOR + 1]),
+                    Float.intBitsToFloat(groupKeys[ki + K_COLOR + 2])
+            );
+            model.setSunlight(f, groupKeys[ki + K_SUNLIGHT]);
+            model.setBlocklight(f, groupKeys[ki + K_BLOCKLIGHT]);
+            model.setMaterialIndex(f, groupKeys[ki + K_MATERIAL_INDEX]);
+        }
+    }
+
+    private void setVertex(ArrayTileModel model, int face, int vertex, int ki, float b, float c, float u, float v) {
+        int axis = groupKeys[ki + K_AXIS];
+        int pi = face * ArrayTileModel.FI_POSITION + vertex * 3;
+        model.position[pi + axis] = Float.intBitsToFloat(groupKeys[ki + K_PLANE]);
+        model.position[pi + (axis + 1) % 3] = b;
+        model.position[pi + (axis + 2) % 3] = c;
+
+        int uvi = face * ArrayTileModel.FI_UV + vertex * 2;
+        model.uv[uvi] = u;
+        model.uv[uvi + 1] = v;
+    }
+
+    /**
+     * Encodes how one uv-component is mapped onto the four corners of a single-block quad:
+     * bit 0 = value at corner (0,0), bits 1-2 = change along b + 1, bits 3-4 = change along c + 1.
+     * Returns -1 if the values can not be mapped that way.
+     */
+    private static int uvMapping(float[] values) {
+        int origin = Math.round(values[0]);
+        int alongB = Math.round(values[1] - values[0]);
+        int alongC = Math.round(values[2] - values[0]);
+
+        if (origin < 0 || origin > 1 || Math.abs(alongB) > 1 || Math.abs(alongC) > 1) return -1;
+        if (Math.abs(values[0] - origin) > UV_EPSILON) return -1;
+        if (Math.abs(values[1] - (origin + alongB)) > UV_EPSILON) return -1;
+        if (Math.abs(values[2] - (origin + alongC)) > UV_EPSILON) return -1;
+        if (Math.abs(values[3] - (origin + alongB + alongC)) > UV_EPSILON) return -1;
+
+        return origin | (alongB + 1) << 1 | (alongC + 1) << 3;
+    }
+
+    private static void mapUvs(int mapping, int width, int height, float[] target) {
+        int origin = mapping & 1;
+        int alongB = (mapping >> 1 & 0b11) - 1;
+        int alongC = (mapping >> 3 & 0b11) - 1;
+
+        float min = Float.POSITIVE_INFINITY;
+        for (int corner = 0; corner < 4; corner++) {
+            target[corner] = origin + alongB * width * (corner & 1) + alongC * height * (corner >> 1);
+            min = Math.min(min, target[corner]);
+        }
+
+        for (int corner = 0; corner < 4; corner++)
+            target[corner] -= min;
+    }
+
+    private static int facing(float[] position, int pi, int axisB, int axisC) {
+        float db1 = position[pi + 3 + axisB] - position[pi + axisB];
+        float dc1 = position[pi + 3 + axisC] - position[pi + axisC];
+        float db2 = position[pi + 6 + axisB] - position[pi + axisB];
+        float dc2 = position[pi + 6 + axisC] - position[pi + axisC];
+        return (int) Math.signum(db1 * dc2 - dc1 * db2);
+    }
+
+    private static int keyHash(int[] keys, int offset) {
+        int hash = 0;
+        for (int i = 0; i < KEY_SIZE; i++)
+            hash = hash * 31 + keys[offset + i];
+        return hash ^ hash >>> 16;
+    }
+
+    private static long cell(int b, int c) {
+        return (long) c << 32 | b & 0xFFFFFFFFL;
+    }
+
+    private static int cellB(long cell) {
+        return (int) cell;
+    }
+
+    private static int cellC(long cell) {
+        return (int) (cell >> 32);
+    }
+
+}
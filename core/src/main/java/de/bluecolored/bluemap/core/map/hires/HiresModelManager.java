@@ -29,6 +29,10 @@
 import de.bluecolored.bluemap.core.logger.Logger;
 import de.bluecolored.bluemap.core.map.TextureGallery;
 import de.bluecolored.bluemap.core.map.TileMetaConsumer;
+import de.bluecolored.bluemap.core.metrics.BlueMapMetrics;
+import de.bluecolored.bluemap.core.metrics.Histogram;
+import de.bluecolored.bluemap.core.metrics.event.RenderPassEvent;
+import de.bluecolored.bluemap.core.metrics.event.TileRenderEvent;
 import de.bluecolored.bluemap.core.resources.pack.resourcepack.ResourcePack;
 import de.bluecolored.bluemap.core.storage.GridStorage;
 import de.bluecolored.bluemap.core.util.Grid;
@@ -36,6 +40,7 @@
 import de.bluecolored.bluemap.core.world.World;
 import lombok.Getter;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Collection;
@@ -45,10 +50,21 @@
 
 public class HiresModelManager {
 
+    private static final Histogram.Child STORAGE_WRITE_TIMER = BlueMapMetrics.STORAGE_WRITE_TIME.labels("hires");
+
+    // per render-thread scratch-buffers, shared by all maps
+    private static final ThreadLocal<CoplanarFaceMerger> FACE_MERGER = ThreadLocal.withInitial(CoplanarFaceMerger::new);
+    private static final ThreadLocal<TileMetaBuffer> TILE_META_BUFFER = ThreadLocal.withInitial(TileMetaBuffer::new);
+    private static final ThreadLocal<OutputBuffer> OUTPUT_BUFFER = ThreadLocal.withInitial(OutputBuffer::new);
+
     private final World world;
     private final GridStorage storage;
-    private final ThreadLocal<Collection<RenderPass>> renderPasses;
+    private final ThreadLocal<List<RenderPass>> renderPasses;
+    private final List<String> renderPassNames;
+    private final List<Histogram.Child> renderPassTimers;
     private final List<Consumer<Vector2i>> tileUpdateListeners = new CopyOnWriteArrayList<>();
+    private final boolean compactFormat;
+    private final boolean mergeFaces;
 
     @Getter
     private final Grid tileGrid;
@@ -57,48 +73,130 @@ public HiresModelManager(World world, GridStorage storage, ResourcePack resource
         this.world = world;
         this.storage = storage;
         this.tileGrid = tileGrid;
+        this.compactFormat = renderSettings.isCompactHiresFormat();
+        this.mergeFaces = renderSettings.isMergeHiresFaces();
 
         Collection<RenderPassType> renderPassTypes = List.copyOf(RenderPassType.REGISTRY.values());
         this.renderPasses = ThreadLocal.withInitial(() -> renderPassTypes.stream()
                 .map(type -> type.create(resourcePack, textureGallery, renderSettings))
                 .toList()
         );
+        this.renderPassNames = renderPassTypes.stream()
+                .map(type -> type.getKey().getFormatted())
+                .toList();
+        this.renderPassTimers = renderPassNames.stream()
+                .map(BlueMapMetrics.RENDER_PASS_TIME::labels)
+                .toList();
     }
 
     /**
      * Renders the given world tile with the provided render-settings
      */
     public void render(Vector2i tile, TileMetaConsumer tileMetaConsumer, boolean save) {
+        render(tile, tileMetaConsumer, save, OutputFingerprint.UNKNOWN);
+    }
+
+    /**
+     * Renders the given world tile with the provided render-settings.<br>
+     * If the fingerprint of the rendered output matches the given previousFingerprint, the output is unchanged
+     * and the tile is not saved, the tileMetaConsumer (lowres) is not updated and no tile-update-listener is notified.
+     * @param previousFingerprint the fingerprint that was returned by the last render of this tile, or 0 if unknown
+     * @return the fingerprint of the rendered output, or 0 if the tile could not be saved
+     */
+    public long render(Vector2i tile, TileMetaConsumer tileMetaConsumer, boolean save, long previousFingerprint) {
+        TileRenderEvent event = new TileRenderEvent();
+        event.begin();
+        try {
+            return render(tile, tileMetaConsumer, save, previousFingerprint, event);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.world = world.getId();
+                event.tileX = tile.getX();
+                event.tileZ = tile.getY();
+                event.commit();
+            }
+        }
+    }
+
+    private long render(Vector2i tile, TileMetaConsumer tileMetaConsumer, boolean save, long previousFingerprint, TileRenderEvent event) {
         Vector3i modelMin = new Vector3i(tileGrid.getCellMinX(tile.getX()), Integer.MIN_VALUE, tileGrid.getCellMinY(tile.getY()));
         Vector3i modelMax = new Vector3i(tileGrid.getCellMaxX(tile.getX()), Integer.MAX_VALUE, tileGrid.getCellMaxY(tile.getY()));
         Vector3i modelAnchor = new Vector3i(modelMin.getX(), 0, modelMin.getZ());
 
+        TileMetaBuffer tileMeta = TILE_META_BUFFER.get().clear();
+
         if (save) {
             ArrayTileModel model = ArrayTileModel.instancePool().claimInstance();
             TileModelView modelView = new TileModelView(model);
 
             try {
-                for (RenderPass renderPass : renderPasses.get()) {
-                    renderPass.render(world, modelMin, modelMax, modelAnchor, modelView.initialize(), tileMetaConsumer);
-                }
+                renderPasses(tile, modelMin, modelMax, modelAnchor, modelView, tileMeta);
             } catch (MaxCapacityReachedException ex) {
                 Logger.global.noFloodWarning("max-capacity-reached",
                         "One or more map-tiles are too complex to be completed (@~ %s to %s): %s".formatted(modelMin, modelMax, ex));
             }
 
+            if (mergeFaces) FACE_MERGER.get().merge(model);
             model.sort();
-            save(model, tile);
 
-            ArrayTileModel.instancePool().recycleInstance(model);
+            OutputBuffer output = OUTPUT_BUFFER.get();
+            output.reset();
+            try {
+                try (PRBMWriter modelWriter = new PRBMWriter(output, compactFormat, !mergeFaces)) {
+                    modelWriter.write(model);
+                } catch (IOException e) {
+                    Logger.global.logError("Failed to write hires model: " + tile, e);
+                    output.reset();
+                } finally {
+                    ArrayTileModel.instancePool().recycleInstance(model);
+                }
+
+                long fingerprint = OutputFingerprint.finish(tileMeta.fingerprint(output.fingerprint()));
+                if (fingerprint == previousFingerprint) return fingerprint;
+
+                tileMeta.flush(tileMetaConsumer);
+                if (!save(output, tile)) return OutputFingerprint.UNKNOWN;
+                event.saved = true;
+                event.modelBytes = output.size();
+                return fingerprint;
+            } finally {
+                output.trim();
+            }
         } else {
             TileModelView modelView = new TileModelView(VoidTileModel.INSTANCE);
-            for (RenderPass renderPass : renderPasses.get()) {
-                renderPass.render(world, modelMin, modelMax, modelAnchor, modelView.initialize(), tileMetaConsumer);
-            }
+            renderPasses(tile, modelMin, modelMax, modelAnchor, modelView, tileMeta);
+
+            long fingerprint = OutputFingerprint.finish(tileMeta.fingerprint(0));
+            if (fingerprint == previousFingerprint) return fingerprint;
+
+            tileMeta.flush(tileMetaConsumer);
+            return fingerprint;
         }
 
     }
 
+    private void renderPasses(Vector2i tile, Vector3i modelMin, Vector3i modelMax, Vector3i modelAnchor, TileModelView modelView, TileMetaBuffer tileMeta) {
+        List<RenderPass> renderPasses = this.renderPasses.get();
+        for (int i = 0; i < renderPasses.size(); i++) {
+            RenderPassEvent event = new RenderPassEvent();
+            event.begin();
+            long start = System.nanoTime();
+            try {
+                renderPasses.get(i).render(world, modelMin, modelMax, modelAnchor, modelView.initialize(), tileMeta);
+            } finally {
+                renderPassTimers.get(i).observeNanos(System.nanoTime() - start);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.pass = renderPassNames.get(i);
+                    event.tileX = tile.getX();
+                    event.tileZ = tile.getY();
+                    event.commit();
+                }
+            }
+        }
+    }
+
     /**
      * Un-renders a tile.
      * The hires tile is deleted and the tileMetaConsumer (lowres) is updated with default values in the tiles area.
@@ -124,21 +222,48 @@ public void removeTileUpdateListener(Consumer<Vector2i> listener) {
         tileUpdateListeners.remove(listener);
     }
 
-    private void save(final ArrayTileModel model, Vector2i tile) {
-        try (
-                OutputStream out = storage.write(tile.getX(), tile.getY());
-                PRBMWriter modelWriter = new PRBMWriter(out)
-        ) {
-            modelWriter.write(model);
+    private boolean save(final OutputBuffer output, Vector2i tile) {
+        if (output.size() == 0) return false;
+
+        long start = System.nanoTime();
+        try (OutputStream out = storage.write(tile.getX(), tile.getY())) {
+            output.writeTo(out);
         } catch (IOException e){
             Logger.global.logError("Failed to save hires model: " + tile, e);
-            return;
+            return false;
         }
+        STORAGE_WRITE_TIMER.observeNanos(System.nanoTime() - start);
 
         // notify listeners that the tile changed
         for (Consumer<Vector2i> listener : this.tileUpdateListeners) {
             listener.accept(tile);
         }
+
+        return true;
+    }
+
+    private static class OutputBuffer extends ByteArrayOutputStream {
+
+        private static final int INITIAL_SIZE = 64 * 1024;
+        private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+        public OutputBuffer() {
+            super(INITIAL_SIZE);
+        }
+
+        /**
+         * Clears this buffer and drops its array if an unusually large tile made it grow beyond
+         * {@link #MAX_RETAINED_SIZE}, so idle render-threads don't keep holding it
+         */
+        public void trim() {
+            reset();
+            if (buf.length > MAX_RETAINED_SIZE) buf = new byte[INITIAL_SIZE];
+        }
+
+        public long fingerprint() {
+            return OutputFingerprint.mix(0, buf, count);
+        }
+
     }
 
 }
@@ -25,17 +25,31 @@
 package de.bluecolored.bluemap.core.map.hires;
 
 import de.bluecolored.bluemap.core.util.math.VectorM3f;
-import de.bluecolored.bluemap.core.util.stream.CountingOutputStream;
 
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 
+/**
+ * Writes {@link ArrayTileModel}s in the PRBM format (an adapted version of PRWM).
+ * <p>
+ * The compact format (version 2) differs from version 1 as follows:
+ * <ul>
+ *     <li>The 8-byte header is followed by the quantization-grid of the positions: 6 floats (origin x, y, z and size x, y, z)</li>
+ *     <li>Each attribute-info byte is followed by a scope byte: 0 = one value per vertex, 1 = one value per face</li>
+ *     <li>Positions are unsigned 16-bit integers, quantized to a world-aligned grid</li>
+ *     <li>UVs are 16-bit (half-precision) floats (attribute-encoding 5), unless merged faces need full precision</li>
+ *     <li>Normals, colors, sunlight and blocklight are stored once per face</li>
+ * </ul>
+ */
 @SuppressWarnings("unused")
 public class PRBMWriter implements Closeable {
 
     private static final int FORMAT_VERSION = 1;
+    private static final int FORMAT_VERSION_COMPACT = 2;
     private static final int HEADER_BITS = 0b0_0_0_00111; // indexed (no) _ indices-type (-) _ endianness (little) _ attribute-nr (7)
 
     private static final int ATTRIBUTE_TYPE_FLOAT = 0;
@@ -52,73 +66,117 @@ public class PRBMWriter implements Closeable {
     private static final int ATTRIBUTE_ENCODING_SIGNED_32BIT_FLOAT = 1;
     private static final int ATTRIBUTE_ENCODING_SIGNED_8BIT_INT = 3;
     private static final int ATTRIBUTE_ENCODING_SIGNED_16BIT_INT = 4;
+    private static final int ATTRIBUTE_ENCODING_SIGNED_16BIT_FLOAT = 5; // not part of PRWM, only used in the compact format
     private static final int ATTRIBUTE_ENCODING_SIGNED_32BIT_INT = 6;
     private static final int ATTRIBUTE_ENCODING_UNSIGNED_8BIT_INT = 7;
     private static final int ATTRIBUTE_ENCODING_UNSIGNED_16BIT_INT = 8;
     private static final int ATTRIBUTE_ENCODING_UNSIGNED_32BIT_INT = 10;
 
-    private final CountingOutputStream out;
+    private static final int ATTRIBUTE_SCOPE_VERTEX = 0;
+    private static final int ATTRIBUTE_SCOPE_FACE = 1;
+
+    private static final int QUANTIZATION_MAX = 0xFFFF;
+    private static final int QUANTIZATION_STEPS_PER_BLOCK = 64;
+
+    // all values are collected in a reusable buffer and then written to the stream in large chunks
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<ByteBuffer> THREAD_BUFFER = ThreadLocal.withInitial(() ->
+            ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN));
+
+    private final OutputStream out;
+    private final boolean compact;
+    private final boolean halfFloatUvs;
+    private final ByteBuffer buffer;
+    private long flushedBytes;
 
     public PRBMWriter(OutputStream out) {
-        this.out = new CountingOutputStream(out);
+        this(out, false);
+    }
+
+    /**
+     * @param compact whether the model should be written in the compact format (version 2)
+     */
+    public PRBMWriter(OutputStream out, boolean compact) {
+        this(out, compact, true);
+    }
+
+    /**
+     * @param compact whether the model should be written in the compact format (version 2)
+     * @param halfFloatUvs whether the compact format stores the uvs as half-floats, this should be false if the uvs
+     *                     can be larger than 1 (e.g. for merged faces), where half-floats lose too much precision
+     */
+    public PRBMWriter(OutputStream out, boolean compact, boolean halfFloatUvs) {
+        this.out = out;
+        this.compact = compact;
+        this.halfFloatUvs = halfFloatUvs;
+        this.buffer = THREAD_BUFFER.get().clear();
+        this.flushedBytes = 0;
     }
 
     public void write(ArrayTileModel model) throws IOException {
-        out.write(FORMAT_VERSION); // version - 1 byte
-        out.write(HEADER_BITS); // format info - 1 byte
+        ensureCapacity(8);
+        buffer.put((byte) (compact ? FORMAT_VERSION_COMPACT : FORMAT_VERSION)); // version - 1 byte
+        buffer.put((byte) HEADER_BITS); // format info - 1 byte
         write3byteValue(model.size * 3); // number of values - 3 bytes
         write3byteValue(0); // number of indices (0 for non-indexed) - 3 bytes
 
-        writePositionArray(model);
-        writeNormalArray(model);
-        writeColorArray(model);
-        writeUvArray(model);
-        writeAoArray(model);
-        writeBlocklightArray(model);
-        writeSunlightArray(model);
+        if (compact) {
+            float[] grid = calculateQuantizationGrid(model);
+            for (float value : grid) writeFloat(value);
+
+            writeQuantizedPositionArray(model, grid);
+            writeFaceNormalArray(model);
+            writeFaceColorArray(model);
+            if (halfFloatUvs) writeHalfFloatUvArray(model);
+            else writeUvArray(model);
+            writeAoArray(model);
+            writeFaceBlocklightArray(model);
+            writeFaceSunlightArray(model);
+        } else {
+            writePositionArray(model);
+            writeNormalArray(model);
+            writeColorArray(model);
+            writeUvArray(model);
+            writeAoArray(model);
+            writeBlocklightArray(model);
+            writeSunlightArray(model);
+        }
 
         writeMaterialGroups(model);
+
+        flushBuffer();
     }
 
     @Override
     public void close() throws IOException {
+        flushBuffer();
         out.close();
     }
 
     private void writePositionArray(ArrayTileModel model) throws IOException {
-        float[] position = model.position;
-
-        writeString("position");
-        out.write(
+        writeAttributeHeader("position",
                 ATTRIBUTE_TYPE_FLOAT |
                 ATTRIBUTE_NOT_NORMALIZED |
                 ATTRIBUTE_CARDINALITY_3D_VEC |
                 ATTRIBUTE_ENCODING_SIGNED_32BIT_FLOAT
         );
 
-        writePadding();
-
-        int posSize = model.size * ArrayTileModel.FI_POSITION;
-        for (int i = 0; i < posSize; i++) {
-            writeFloat(position[i]);
-        }
+        writeFloats(model.position, model.size * ArrayTileModel.FI_POSITION);
     }
 
     private void writeNormalArray(ArrayTileModel model) throws IOException {
         VectorM3f normal = new VectorM3f(0, 0, 0);
         float[] position = model.position;
 
-        writeString("normal");
-        out.write(
+        writeAttributeHeader("normal",
                 ATTRIBUTE_TYPE_FLOAT |
                 ATTRIBUTE_NORMALIZED |
                 ATTRIBUTE_CARDINALITY_3D_VEC |
                 ATTRIBUTE_ENCODING_SIGNED_8BIT_INT
         );
 
-        writePadding();
-
         int pi, i, j;
+        byte x, y, z;
         for (i = 0; i < model.size; i++) {
             pi = i * ArrayTileModel.FI_POSITION;
             calculateSurfaceNormal(
@@ -128,10 +186,13 @@ private void writeNormalArray(ArrayTileModel model) throws IOException {
                     normal
             );
 
+            x = normalizedSignedByte(normal.x);
+            y = normalizedSignedByte(normal.y);
+            z = normalizedSignedByte(normal.z);
+
+            ensureCapacity(9);
             for (j = 0; j < 3; j++) { // all 3 points
-                writeNormalizedSignedByteValue(normal.x);
-                writeNormalizedSignedByteValue(normal.y);
-                writeNormalizedSignedByteValue(normal.z);
+                buffer.put(x).put(y).put(z);
             }
         }
     }
@@ -139,104 +200,189 @@ private void writeNormalArray(ArrayTileModel model) throws IOException {
     private void writeColorArray(ArrayTileModel model) throws IOException {
         float[] color = model.color;
 
-        writeString("color");
-        out.write(
+        writeAttributeHeader("color",
                 ATTRIBUTE_TYPE_FLOAT |
                 ATTRIBUTE_NORMALIZED |
                 ATTRIBUTE_CARDINALITY_3D_VEC |
                 ATTRIBUTE_ENCODING_UNSIGNED_8BIT_INT
         );
 
-        writePadding();
-
         int colorSize = model.size * ArrayTileModel.FI_COLOR, i, j;
+        byte r, g, b;
         for (i = 0; i < colorSize; i += 3) {
+            r = normalizedUnsignedByte(color[i]);
+            g = normalizedUnsignedByte(color[i + 1]);
+            b = normalizedUnsignedByte(color[i + 2]);
+
+            ensureCapacity(9);
             for (j = 0; j < 3; j++) {
-                writeNormalizedUnsignedByteValue(color[i]);
-                writeNormalizedUnsignedByteValue(color[i + 1]);
-                writeNormalizedUnsignedByteValue(color[i + 2]);
+                buffer.put(r).put(g).put(b);
             }
         }
     }
 
     private void writeUvArray(ArrayTileModel model) throws IOException {
-        float[] uv = model.uv;
-
-        writeString("uv");
-        out.write(
+        writeAttributeHeader("uv",
                 ATTRIBUTE_TYPE_FLOAT |
                 ATTRIBUTE_NOT_NORMALIZED |
                 ATTRIBUTE_CARDINALITY_2D_VEC |
                 ATTRIBUTE_ENCODING_SIGNED_32BIT_FLOAT
         );
 
-        writePadding();
-
-        int uvSize = model.size * ArrayTileModel.FI_UV;
-        for (int i = 0; i < uvSize; i++) {
-            writeFloat(uv[i]);
-        }
+        writeFloats(model.uv, model.size * ArrayTileModel.FI_UV);
     }
 
     private void writeAoArray(ArrayTileModel model) throws IOException {
         float[] ao = model.ao;
 
-        writeString("ao");
-        out.write(
+        writeAttributeHeader("ao",
                 ATTRIBUTE_TYPE_FLOAT |
                 ATTRIBUTE_NORMALIZED |
                 ATTRIBUTE_CARDINALITY_SCALAR |
-                ATTRIBUTE_ENCODING_UNSIGNED_8BIT_INT
+                ATTRIBUTE_ENCODING_UNSIGNED_8BIT_INT,
+                ATTRIBUTE_SCOPE_VERTEX
         );
 
-        writePadding();
-
-        int uvSize = model.size * ArrayTileModel.FI_AO;
-        for (int i = 0; i < uvSize; i++) {
-            writeNormalizedUnsignedByteValue(ao[i]);
+        int aoSize = model.size * ArrayTileModel.FI_AO;
+        for (int i = 0; i < aoSize; i++) {
+            ensureCapacity(1);
+            buffer.put(normalizedUnsignedByte(ao[i]));
         }
     }
 
     private void writeBlocklightArray(ArrayTileModel model) throws IOException {
-        byte[] blocklight = model.blocklight;
+        writeAttributeHeader("blocklight",
+                ATTRIBUTE_TYPE_FLOAT |
+                ATTRIBUTE_NOT_NORMALIZED |
+                ATTRIBUTE_CARDINALITY_SCALAR |
+                ATTRIBUTE_ENCODING_SIGNED_8BIT_INT
+        );
 
-        writeString("blocklight");
-        out.write(
+        writeTripledBytes(model.blocklight, model.size * ArrayTileModel.FI_BLOCKLIGHT);
+    }
+
+    private void writeSunlightArray(ArrayTileModel model) throws IOException {
+        writeAttributeHeader("sunlight",
                 ATTRIBUTE_TYPE_FLOAT |
                 ATTRIBUTE_NOT_NORMALIZED |
                 ATTRIBUTE_CARDINALITY_SCALAR |
                 ATTRIBUTE_ENCODING_SIGNED_8BIT_INT
         );
 
-        writePadding();
+        writeTripledBytes(model.sunlight, model.size * ArrayTileModel.FI_SUNLIGHT);
+    }
 
-        int blSize = model.size * ArrayTileModel.FI_BLOCKLIGHT;
-        for (int i = 0; i < blSize; i++) {
-            out.write(blocklight[i]);
-            out.write(blocklight[i]);
-            out.write(blocklight[i]);
+    private void writeQuantizedPositionArray(ArrayTileModel model, float[] grid) throws IOException {
+        float[] position = model.position;
+
+        writeAttributeHeader("position",
+                ATTRIBUTE_TYPE_FLOAT |
+                ATTRIBUTE_NORMALIZED |
+                ATTRIBUTE_CARDINALITY_3D_VEC |
+                ATTRIBUTE_ENCODING_UNSIGNED_16BIT_INT,
+                ATTRIBUTE_SCOPE_VERTEX
+        );
+
+        float[] scale = new float[3];
+        for (int axis = 0; axis < 3; axis++)
+            scale[axis] = grid[axis + 3] > 0 ? QUANTIZATION_MAX / grid[axis + 3] : 0;
+
+        int posSize = model.size * ArrayTileModel.FI_POSITION, i, axis, quantized;
+        for (i = 0; i < posSize; i++) {
+            axis = i % 3;
+            quantized = Math.round((position[i] - grid[axis]) * scale[axis]);
+            ensureCapacity(2);
+            buffer.putShort((short) Math.clamp(quantized, 0, QUANTIZATION_MAX));
         }
     }
 
-    private void writeSunlightArray(ArrayTileModel model) throws IOException {
-        byte[] sunlight = model.sunlight;
+    private void writeFaceNormalArray(ArrayTileModel model) throws IOException {
+        VectorM3f normal = new VectorM3f(0, 0, 0);
+        float[] position = model.position;
+
+        writeAttributeHeader("normal",
+                ATTRIBUTE_TYPE_FLOAT |
+                ATTRIBUTE_NORMALIZED |
+                ATTRIBUTE_CARDINALITY_3D_VEC |
+                ATTRIBUTE_ENCODING_SIGNED_8BIT_INT,
+                ATTRIBUTE_SCOPE_FACE
+        );
+
+        int pi, i;
+        for (i = 0; i < model.size; i++) {
+            pi = i * ArrayTileModel.FI_POSITION;
+            calculateSurfaceNormal(
+                    position[pi], position[pi + 1], position[pi + 2],
+                    position[pi + 3], position[pi + 4], position[pi + 5],
+                    position[pi + 6], position[pi + 7], position[pi + 8],
+                    normal
+            );
+
+            ensureCapacity(3);
+            buffer.put(normalizedSignedByte(normal.x));
+            buffer.put(normalizedSignedByte(normal.y));
+            buffer.put(normalizedSignedByte(normal.z));
+        }
+    }
+
+    private void writeFaceColorArray(ArrayTileModel model) throws IOException {
+        float[] color = model.color;
+
+        writeAttributeHeader("color",
+                ATTRIBUTE_TYPE_FLOAT |
+                ATTRIBUTE_NORMALIZED |
+                ATTRIBUTE_CARDINALITY_3D_VEC |
+                ATTRIBUTE_ENCODING_UNSIGNED_8BIT_INT,
+                ATTRIBUTE_SCOPE_FACE
+        );
 
-        writeString("sunlight");
-        out.write(
+        int colorSize = model.size * ArrayTileModel.FI_COLOR;
+        for (int i = 0; i < colorSize; i++) {
+            ensureCapacity(1);
+            buffer.put(normalizedUnsignedByte(color[i]));
+        }
+    }
+
+    private void writeHalfFloatUvArray(ArrayTileModel model) throws IOException {
+        float[] uv = model.uv;
+
+        writeAttributeHeader("uv",
+                ATTRIBUTE_TYPE_FLOAT |
+                ATTRIBUTE_NOT_NORMALIZED |
+                ATTRIBUTE_CARDINALITY_2D_VEC |
+                ATTRIBUTE_ENCODING_SIGNED_16BIT_FLOAT,
+                ATTRIBUTE_SCOPE_VERTEX
+        );
+
+        int uvSize = model.size * ArrayTileModel.FI_UV;
+        for (int i = 0; i < uvSize; i++) {
+            ensureCapacity(2);
+            buffer.putShort(Float.floatToFloat16(uv[i]));
+        }
+    }
+
+    private void writeFaceBlocklightArray(ArrayTileModel model) throws IOException {
+        writeAttributeHeader("blocklight",
                 ATTRIBUTE_TYPE_FLOAT |
                 ATTRIBUTE_NOT_NORMALIZED |
                 ATTRIBUTE_CARDINALITY_SCALAR |
-                ATTRIBUTE_ENCODING_SIGNED_8BIT_INT
+                ATTRIBUTE_ENCODING_SIGNED_8BIT_INT,
+                ATTRIBUTE_SCOPE_FACE
         );
 
-        writePadding();
+        writeBytes(model.blocklight, model.size * ArrayTileModel.FI_BLOCKLIGHT);
+    }
 
-        int slSize = model.size * ArrayTileModel.FI_SUNLIGHT;
-        for (int i = 0; i < slSize; i++) {
-            out.write(sunlight[i]);
-            out.write(sunlight[i]);
-            out.write(sunlight[i]);
-        }
+    private void writeFaceSunlightArray(ArrayTileModel model) throws IOException {
+        writeAttributeHeader("sunlight",
+                ATTRIBUTE_TYPE_FLOAT |
+                ATTRIBUTE_NOT_NORMALIZED |
+                ATTRIBUTE_CARDINALITY_SCALAR |
+                ATTRIBUTE_ENCODING_SIGNED_8BIT_INT,
+                ATTRIBUTE_SCOPE_FACE
+        );
+
+        writeBytes(model.sunlight, model.size * ArrayTileModel.FI_SUNLIGHT);
     }
 
     private void writeMaterialGroups(ArrayTileModel model) throws IOException {
@@ -276,50 +422,159 @@ private void writeMaterialGroups(ArrayTileModel model) throws IOException {
 
     }
 
+    private void writeAttributeHeader(String name, int attributeInfo) throws IOException {
+        writeString(name);
+        ensureCapacity(1);
+        buffer.put((byte) attributeInfo);
+        writePadding();
+    }
+
+    /**
+     * Writes the attribute-header with the attribute-scope if the compact format is used.
+     * Attributes with a face-scope must only be written in the compact format.
+     */
+    private void writeAttributeHeader(String name, int attributeInfo, int scope) throws IOException {
+        if (!compact) {
+            writeAttributeHeader(name, attributeInfo);
+            return;
+        }
+
+        writeString(name);
+        ensureCapacity(2);
+        buffer.put((byte) attributeInfo);
+        buffer.put((byte) scope);
+        writePadding();
+    }
+
+    private void writeFloats(float[] values, int length) throws IOException {
+        int i = 0, count;
+        while (i < length) {
+            ensureCapacity(Float.BYTES);
+            count = Math.min(length - i, buffer.remaining() / Float.BYTES);
+
+            // bulk-copy as many values as fit into the buffer
+            buffer.asFloatBuffer().put(values, i, count);
+            buffer.position(buffer.position() + count * Float.BYTES);
+
+            i += count;
+        }
+    }
+
+    private void writeBytes(byte[] values, int length) throws IOException {
+        int i = 0, count;
+        while (i < length) {
+            ensureCapacity(1);
+            count = Math.min(length - i, buffer.remaining());
+            buffer.put(values, i, count);
+            i += count;
+        }
+    }
+
+    private void writeTripledBytes(byte[] values, int length) throws IOException {
+        byte value;
+        for (int i = 0; i < length; i++) {
+            value = values[i];
+            ensureCapacity(3);
+            buffer.put(value).put(value).put(value);
+        }
+    }
+
     private void writePadding() throws IOException {
-        int paddingBytes = (int) (-out.getCount() & 0x3);
+        int paddingBytes = (int) (-getCount() & 0x3);
+        ensureCapacity(paddingBytes);
         for (int i = 0; i < paddingBytes; i++) {
-            out.write(0);
+            buffer.put((byte) 0);
         }
     }
 
     private void write2byteValue(int value) throws IOException {
         if (value > 0xFFFF) throw new IOException("Value too high: " + value);
-        out.write(value & 0xFF);
-        out.write((value >> 8) & 0xFF);
+        ensureCapacity(2);
+        buffer.putShort((short) value);
     }
 
     private void write3byteValue(int value) throws IOException {
         if (value > 0xFFFFFF) throw new IOException("Value too high: " + value);
-        out.write(value & 0xFF);
-        out.write((value >> 8) & 0xFF);
-        out.write((value >> 16) & 0xFF);
+        ensureCapacity(3);
+        buffer.put((byte) (value & 0xFF));
+        buffer.put((byte) ((value >> 8) & 0xFF));
+        buffer.put((byte) ((value >> 16) & 0xFF));
     }
 
     private void write4byteValue(int value) throws IOException {
-        out.write(value & 0xFF);
-        out.write((value >> 8) & 0xFF);
-        out.write((value >> 16) & 0xFF);
-        out.write((value >> 24) & 0xFF);
+        ensureCapacity(4);
+        buffer.putInt(value);
     }
 
     private void writeFloat(float value) throws IOException {
-        write4byteValue(Float.floatToIntBits(value));
+        ensureCapacity(4);
+        buffer.putFloat(value);
     }
 
-    private void writeNormalizedSignedByteValue(float value) throws IOException {
-        byte normalized = (byte) (value * 0x80 - 0.5);
-        out.write(normalized & 0xFF);
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        ensureCapacity(bytes.length + 1);
+        buffer.put(bytes);
+        buffer.put((byte) 0);
     }
 
-    private void writeNormalizedUnsignedByteValue(float value) throws IOException {
-        int normalized = (int) (value * 0xFF);
-        out.write(normalized & 0xFF);
+    private byte normalizedSignedByte(float value) {
+        return (byte) (value * 0x80 - 0.5);
     }
 
-    private void writeString(String value) throws IOException {
-        out.write(value.getBytes(StandardCharsets.US_ASCII));
-        out.write(0);
+    private byte normalizedUnsignedByte(float value) {
+        return (byte) (int) (value * 0xFF);
+    }
+
+    private long getCount() {
+        return flushedBytes + buffer.position();
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        if (buffer.position() == 0) return;
+        out.write(buffer.array(), 0, buffer.position());
+        flushedBytes += buffer.position();
+        buffer.clear();
+    }
+
+    /**
+     * Calculates the grid the positions are quantized to, as "bounds" (origin x, y, z and size x, y, z) so that a
+     * quantized value q is at <code>origin + q / 0xFFFF * size</code>.<br>
+     * The grid is aligned to the world and has the same resolution for all tiles
+     * ({@link #QUANTIZATION_STEPS_PER_BLOCK}), so vertices on the border of neighboring tiles end up on the same
+     * position and there are no seams. Only if a model is too large for this resolution, it is halved (for that axis)
+     * until the model fits, which keeps all points of the finer grid that are also on the coarser grid.
+     */
+    private float[] calculateQuantizationGrid(ArrayTileModel model) {
+        float[] position = model.position;
+        int posSize = model.size * ArrayTileModel.FI_POSITION;
+        if (posSize == 0) return new float[6];
+
+        float[] min = { Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY };
+        float[] max = { Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY };
+        int axis;
+        for (int i = 0; i < posSize; i++) {
+            axis = i % 3;
+            if (position[i] < min[axis]) min[axis] = position[i];
+            if (position[i] > max[axis]) max[axis] = position[i];
+        }
+
+        // the model is anchored on a block-corner, so whole blocks are aligned to the world
+        float[] grid = new float[6];
+        for (axis = 0; axis < 3; axis++) {
+            float origin = (float) Math.floor(min[axis]);
+            int stepsPerBlock = QUANTIZATION_STEPS_PER_BLOCK;
+            while (stepsPerBlock > 1 && (max[axis] - origin) * stepsPerBlock > QUANTIZATION_MAX)
+                stepsPerBlock >>= 1;
+
+            grid[axis] = origin;
+            grid[axis + 3] = (float) QUANTIZATION_MAX / stepsPerBlock;
+        }
+        return grid;
     }
 
     private void calculateSurfaceNormal(
@@ -69,6 +69,20 @@ default boolean isIgnoreMissingLightData() {
         return false;
     }
 
+    /**
+     * Whether hires-tiles should be saved in the compact (quantized) PRBM format
+     */
+    default boolean isCompactHiresFormat() {
+        return false;
+    }
+
+    /**
+     * Whether adjacent coplanar block-faces with identical attributes should be merged into larger faces before saving
+     */
+    default boolean isMergeHiresFaces() {
+        return false;
+    }
+
     Mask getRenderMask();
 
     default boolean isInsideRenderBoundaries(int x, int z) {
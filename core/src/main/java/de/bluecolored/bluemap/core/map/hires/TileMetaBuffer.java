@@ -0,0 +1,103 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.map.hires;
+
+import de.bluecolored.bluemap.core.map.TileMetaConsumer;
+import de.bluecolored.bluemap.core.util.math.Color;
+
+import java.util.Arrays;
+
+/**
+ * A {@link TileMetaConsumer} that buffers all values, so they can be fingerprinted
+ * and only passed on to the actual {@link TileMetaConsumer} if they changed.
+ */
+class TileMetaBuffer implements TileMetaConsumer {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Color color = new Color();
+
+    private int size;
+    private int[] positions = new int[INITIAL_CAPACITY * 2];
+    private float[] colors = new float[INITIAL_CAPACITY * 4];
+    private boolean[] premultiplied = new boolean[INITIAL_CAPACITY];
+    private int[] heights = new int[INITIAL_CAPACITY];
+    private int[] blockLights = new int[INITIAL_CAPACITY];
+
+    public TileMetaBuffer clear() {
+        size = 0;
+        return this;
+    }
+
+    @Override
+    public void set(int x, int z, Color color, int height, int blockLight) {
+        if (size >= heights.length) grow();
+
+        positions[size * 2] = x;
+        positions[size * 2 + 1] = z;
+        colors[size * 4] = color.r;
+        colors[size * 4 + 1] = color.g;
+        colors[size * 4 + 2] = color.b;
+        colors[size * 4 + 3] = color.a;
+        premultiplied[size] = color.premultiplied;
+        heights[size] = height;
+        blockLights[size] = blockLight;
+
+        size++;
+    }
+
+    /**
+     * Passes all buffered values on to the given {@link TileMetaConsumer}
+     */
+    public void flush(TileMetaConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            color.set(colors[i * 4], colors[i * 4 + 1], colors[i * 4 + 2], colors[i * 4 + 3], premultiplied[i]);
+            consumer.set(positions[i * 2], positions[i * 2 + 1], color, heights[i], blockLights[i]);
+        }
+    }
+
+    public long fingerprint(long hash) {
+        for (int i = 0; i < size; i++) {
+            hash = OutputFingerprint.mix(hash, (long) positions[i * 2] << 32 | (positions[i * 2 + 1] & 0xFFFFFFFFL));
+            hash = OutputFingerprint.mix(hash, (long) Float.floatToIntBits(colors[i * 4]) << 32 |
+                    (Float.floatToIntBits(colors[i * 4 + 1]) & 0xFFFFFFFFL));
+            hash = OutputFingerprint.mix(hash, (long) Float.floatToIntBits(colors[i * 4 + 2]) << 32 |
+                    (Float.floatToIntBits(colors[i * 4 + 3]) & 0xFFFFFFFFL));
+            hash = OutputFingerprint.mix(hash, (long) heights[i] << 32 | (blockLights[i] & 0xFFFFFFFFL));
+            hash = OutputFingerprint.mix(hash, premultiplied[i] ? 1 : 0);
+        }
+        return OutputFingerprint.mix(hash, size);
+    }
+
+    private void grow() {
+        int capacity = heights.length * 2;
+        positions = Arrays.copyOf(positions, capacity * 2);
+        colors = Arrays.copyOf(colors, capacity * 4);
+        premultiplied = Arrays.copyOf(premultiplied, capacity);
+        heights = Arrays.copyOf(heights, capacity);
+        blockLights = Arrays.copyOf(blockLights, capacity);
+    }
+
+}
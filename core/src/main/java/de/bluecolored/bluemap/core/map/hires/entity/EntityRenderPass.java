@@ -33,6 +33,8 @@
 import de.bluecolored.bluemap.core.map.hires.TileModelView;
 import de.bluecolored.bluemap.core.map.hires.block.BlockStateModelRenderer;
 import de.bluecolored.bluemap.core.resources.pack.resourcepack.ResourcePack;
+import de.bluecolored.bluemap.core.resources.pack.resourcepack.entitystate.EntityState;
+import de.bluecolored.bluemap.core.util.Key;
 import de.bluecolored.bluemap.core.util.math.Color;
 import de.bluecolored.bluemap.core.world.Chunk;
 import de.bluecolored.bluemap.core.world.World;
@@ -53,6 +55,9 @@ public EntityRenderPass(ResourcePack resourcePack, TextureGallery textureGallery
 
     @Override
     public void render(World world, Vector3i modelMin, Vector3i modelMax, Vector3i modelAnchor, TileModelView model, TileMetaConsumer tileMetaConsumer) {
+        if (!world.hasEntities(modelMin.getX(), modelMin.getZ(), modelMax.getX(), modelMax.getZ(), this::isRenderable))
+            return;
+
         BlockNeighborhood block = new BlockNeighborhood(new Block(world, 0, 0, 0), resourcePack, renderSettings, world.getDimensionType());
         world.iterateEntities(modelMin.getX(), modelMin.getZ(), modelMax.getX(), modelMax.getZ(), entity -> {
             Vector3d pos = entity.getPos();
@@ -65,4 +70,10 @@ public void render(World world, Vector3i modelMin, Vector3i modelMax, Vector3i m
             );
         });
     }
+
+    private boolean isRenderable(Key entityType) {
+        EntityState state = resourcePack.getEntityStates().get(entityType);
+        return state != null && state.getParts().length > 0;
+    }
+
 }
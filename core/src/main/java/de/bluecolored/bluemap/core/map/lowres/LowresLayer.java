@@ -29,9 +29,13 @@
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import de.bluecolored.bluemap.core.BlueMap;
 import de.bluecolored.bluemap.core.logger.Logger;
+import de.bluecolored.bluemap.core.metrics.BlueMapMetrics;
+import de.bluecolored.bluemap.core.metrics.Histogram;
+import de.bluecolored.bluemap.core.metrics.event.LowresTileSaveEvent;
 import de.bluecolored.bluemap.core.storage.GridStorage;
 import de.bluecolored.bluemap.core.util.Caches;
 import de.bluecolored.bluemap.core.util.Grid;
+import de.bluecolored.bluemap.core.util.MemoryBudget;
 import de.bluecolored.bluemap.core.util.Vector2iCache;
 import de.bluecolored.bluemap.core.util.math.Color;
 import org.jetbrains.annotations.Nullable;
@@ -52,6 +56,8 @@ public class LowresLayer {
     private static final int DISCARD_THRESHOLD = MAX_PENDING / 2;
 
     private static final Vector2iCache VECTOR_2_I_CACHE = new Vector2iCache();
+    private static final MemoryBudget.Pool TILE_CACHE_BUDGET = MemoryBudget.global().pool("lowres-tiles", 0.25);
+    private static final Histogram.Child STORAGE_WRITE_TIMER = BlueMapMetrics.STORAGE_WRITE_TIME.labels("lowres");
 
     private final GridStorage storage;
 
@@ -84,11 +90,11 @@ public LowresLayer(
                 .weakValues()
                 .build(this::createTile);
 
-        this.tileCache = Caches.with()
-                .softValues()
-                .maximumSize(1000)
+        this.tileCache = TILE_CACHE_BUDGET.register(Caches.with()
+                .maximumWeight(TILE_CACHE_BUDGET.getMaximumWeight())
+                .<Vector2i, LowresTile>weigher((pos, tile) -> tile.estimateMemorySize())
                 .expireAfterAccess(1, TimeUnit.MINUTES)
-                .build(tileWeakInstanceCache::get);
+                .build(tileWeakInstanceCache::get));
 
         this.pendingChanges = new ConcurrentHashMap<>();
     }
@@ -135,12 +141,23 @@ private boolean saveTile(Vector2i tilePos, LowresTile tile) {
         }
 
         // save the tile
+        LowresTileSaveEvent event = new LowresTileSaveEvent();
+        event.begin();
+        long start = System.nanoTime();
         try (OutputStream out = storage.write(tilePos.getX(), tilePos.getY())) {
             tile.save(out);
         } catch (IOException e) {
             Logger.global.logError("Failed to save tile " + tilePos + " (lod: " + lod + ")", e);
             return false;
         }
+        STORAGE_WRITE_TIMER.observeNanos(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.lod = lod;
+            event.tileX = tilePos.getX();
+            event.tileZ = tilePos.getY();
+            event.commit();
+        }
 
         // notify listeners that the tile changed
         for (BiConsumer<Vector2i, Integer> listener : this.tileUpdateListeners) {
@@ -61,6 +61,13 @@ public LowresTile(Vector2i tileSize, InputStream in) throws IOException {
         }
     }
 
+    /**
+     * Estimates the amount of heap-memory (in bytes) that this tile occupies
+     */
+    public int estimateMemorySize() {
+        return 256 + texture.getWidth() * texture.getHeight() * 4;
+    }
+
     public void set(int x, int z, Color color, int height, int blockLight) {
         lock.readLock().lock();
         try {
@@ -25,6 +25,7 @@
 package de.bluecolored.bluemap.core.map.renderstate;
 
 import com.flowpowered.math.vector.Vector2i;
+import de.bluecolored.bluemap.core.BlueMap;
 import de.bluecolored.bluemap.core.logger.Logger;
 import de.bluecolored.bluemap.core.storage.GridStorage;
 import de.bluecolored.bluemap.core.storage.compression.CompressedInputStream;
@@ -35,11 +36,22 @@
 import de.bluecolored.bluenbt.TypeToken;
 import lombok.Getter;
 
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Stores render-state cells in a {@link GridStorage} and keeps the recently used cells in memory.<br>
+ * The cache is split into lock-stripes, so that threads accessing different cells don't block each other.
+ * A cell must only be accessed while holding the lock returned by {@link #lock(int, int)} for its position.<br>
+ * Evicted cells are serialized while holding that lock, but written to the storage asynchronously.
+ */
 abstract class CellStorage<T extends CellStorage.Cell> {
 
     private static final BlueNBT BLUE_NBT = new BlueNBT();
@@ -48,65 +60,103 @@
         BLUE_NBT.register(TypeToken.of(TileState[].class), new PalettedArrayAdapter<>(BLUE_NBT, TileState.class));
     }
 
-    private static final int CACHE_SIZE = 4;
+    private static final int STRIPES = 16;
+    private static final int MIN_STRIPE_CACHE_SIZE = 4;
+    public static final int DEFAULT_CACHE_SIZE = STRIPES * 8;
 
     @Getter private final GridStorage storage;
     private final Class<T> type;
-    private final LinkedHashMap<Vector2i, T> cells = new LinkedHashMap<>(
-            8,
-            0.75f,
-            true
-    ) {
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<Vector2i, T> eldest) {
-            if (this.size() <= CACHE_SIZE) return false;
-            saveCell(eldest.getKey(), eldest.getValue());
-            return true;
-        }
-    };
+    private final Stripe<T>[] stripes;
+
+    // serialized cells that have been evicted or saved, but are not yet written to the storage
+    private final Map<Long, byte[]> pendingWrites = new ConcurrentHashMap<>();
 
     public CellStorage(GridStorage storage, Class<T> type) {
+        this(storage, type, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param cacheSize the (approximate) amount of cells that are kept in memory,
+     *                  at least {@value MIN_STRIPE_CACHE_SIZE} cells per lock-stripe are always kept
+     */
+    @SuppressWarnings("unchecked")
+    public CellStorage(GridStorage storage, Class<T> type, int cacheSize) {
         this.storage = storage;
         this.type = type;
+
+        int stripeCacheSize = Math.max(MIN_STRIPE_CACHE_SIZE, Math.ceilDiv(cacheSize, STRIPES));
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++)
+            stripes[i] = new Stripe<>(this, stripeCacheSize);
     }
 
-    public synchronized void save() {
-        cells.forEach(this::saveCell);
+    public void save() {
+        for (Stripe<T> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.cells.forEach((key, cell) -> queueWrite(key, cell));
+            }
+        }
+
+        for (long key : pendingWrites.keySet())
+            writePending(key);
     }
 
-    public synchronized void reset() {
-        cells.clear();
+    public void reset() {
+        for (Stripe<T> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+        pendingWrites.clear();
     }
 
-    T cell(int x, int z) {
-        return cell(new Vector2i(x, z));
+    /**
+     * Returns the lock that needs to be held while accessing the cell at the given cell-position
+     */
+    final Object lock(int x, int z) {
+        return stripes[stripeIndex(x, z)];
     }
 
-    synchronized T cell(Vector2i pos) {
-        return cells.computeIfAbsent(pos, this::loadCell);
+    /**
+     * Returns the cell at the given cell-position, loading it if necessary.<br>
+     * The calling thread must hold the lock returned by {@link #lock(int, int)} for the same position.
+     */
+    final T cell(int x, int z) {
+        return stripes[stripeIndex(x, z)].cell(x, z);
     }
 
     void forEach(CellConsumer<T> consumer) throws IOException {
         storage.stream().forEach(sc -> {
-            Vector2i cellPos = new Vector2i(sc.getX(), sc.getZ());
-            consumer.accept(cellPos, cell(cellPos));
+            int x = sc.getX(), z = sc.getZ();
+            T cell;
+            synchronized (lock(x, z)) {
+                cell = cell(x, z);
+            }
+            consumer.accept(new Vector2i(x, z), cell);
         });
     }
 
-    private synchronized T loadCell(Vector2i pos) {
-        try (CompressedInputStream in = storage.read(pos.getX(), pos.getY())) {
-            if (in != null)
-                return BLUE_NBT.read(in.decompress(), type);
+    private T loadCell(int x, int z) {
+        try {
+            // the cell might have been evicted recently and not yet been written to the storage
+            byte[] pending = pendingWrites.get(key(x, z));
+            if (pending != null)
+                return BLUE_NBT.read(new ByteArrayInputStream(pending), type);
+
+            try (CompressedInputStream in = storage.read(x, z)) {
+                if (in != null)
+                    return BLUE_NBT.read(in.decompress(), type);
+            }
         } catch (IOException ex) {
-            Logger.global.logError("Failed to load render-state cell " + pos, ex);
+            Logger.global.logError("Failed to load render-state cell " + new Vector2i(x, z), ex);
         } catch (RuntimeException ex) { // E.g. NoSuchElementException thrown by BlueNBT if there is a format error
-            Logger.global.logError("Failed to load render-state cell " + pos, ex);
+            Logger.global.logError("Failed to load render-state cell " + new Vector2i(x, z), ex);
 
             // try to delete the possibly corrupted file for self-healing
             try {
-                storage.delete(pos.getX(), pos.getY());
+                storage.delete(x, z);
             } catch (IOException e) {
-                Logger.global.logError("Failed to delete render-state cell " + pos, e);
+                Logger.global.logError("Failed to delete render-state cell " + new Vector2i(x, z), e);
             }
         }
 
@@ -115,15 +165,61 @@ private synchronized T loadCell(Vector2i pos) {
 
     protected abstract T createNewCell();
 
-    private synchronized void saveCell(Vector2i pos, T cell) {
-        if (!cell.isModified()) return;
-        try (OutputStream in = storage.write(pos.getX(), pos.getY())) {
-            BLUE_NBT.write(cell, in, type);
+    /**
+     * Serializes the cell and adds it to the pending writes.<br>
+     * The calling thread must hold the lock returned by {@link #lock(int, int)} for the cell-position.
+     */
+    private boolean queueWrite(long key, T cell) {
+        if (!cell.isModified()) return false;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BLUE_NBT.write(cell, out, type);
+            pendingWrites.put(key, out.toByteArray());
+            return true;
         } catch (IOException ex) {
-            Logger.global.logError("Failed to save render-state cell " + pos, ex);
+            Logger.global.logError("Failed to save render-state cell " + new Vector2i(keyX(key), keyZ(key)), ex);
+            return false;
+        }
+    }
+
+    /**
+     * Writes the latest pending state of the cell to the storage (if there is any).<br>
+     * Writes for the same cell are serialized on the stripe's write-lock, so an older state can never overwrite a newer one.
+     */
+    private void writePending(long key) {
+        int x = keyX(key), z = keyZ(key);
+        synchronized (stripes[stripeIndex(x, z)].writeLock) {
+            byte[] data = pendingWrites.get(key);
+            if (data == null) return;
+
+            try (OutputStream out = storage.write(x, z)) {
+                out.write(data);
+            } catch (IOException ex) {
+                Logger.global.logError("Failed to save render-state cell " + new Vector2i(x, z), ex);
+            }
+
+            // only remove if no newer state got queued in the meantime
+            pendingWrites.remove(key, data);
         }
     }
 
+    private static int stripeIndex(int x, int z) {
+        int hash = x * 0x9E3779B1 + z * 0x85EBCA77;
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static long key(int x, int z) {
+        return (long) x << 32 | (z & 0xFFFFFFFFL);
+    }
+
+    private static int keyX(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int keyZ(long key) {
+        return (int) key;
+    }
+
     public interface Cell {
         boolean isModified();
     }
@@ -133,4 +229,53 @@ public interface Cell {
         void accept(Vector2i cellPos, T cell);
     }
 
+    /**
+     * A part of the cell-cache, guarded by its own monitor
+     */
+    private static class Stripe<T extends Cell> {
+
+        private final CellStorage<T> storage;
+        private final LinkedHashMap<Long, T> cells;
+        private final Object writeLock = new Object();
+
+        // the last accessed cell, to skip the map-lookup for consecutive accesses to the same cell
+        private long lastKey;
+        private @Nullable T lastCell;
+
+        Stripe(CellStorage<T> storage, int cacheSize) {
+            this.storage = storage;
+            this.cells = new LinkedHashMap<>(8, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, T> eldest) {
+                    if (this.size() <= cacheSize) return false;
+                    long key = eldest.getKey();
+                    if (storage.queueWrite(key, eldest.getValue()))
+                        BlueMap.THREAD_POOL.execute(() -> storage.writePending(key));
+                    return true;
+                }
+            };
+        }
+
+        T cell(int x, int z) {
+            long key = key(x, z);
+            if (lastCell != null && lastKey == key) return lastCell;
+
+            T cell = cells.get(key);
+            if (cell == null) {
+                cell = storage.loadCell(x, z);
+                cells.put(key, cell);
+            }
+
+            lastKey = key;
+            lastCell = cell;
+            return cell;
+        }
+
+        void clear() {
+            cells.clear();
+            lastCell = null;
+        }
+
+    }
+
 }
@@ -31,15 +31,25 @@ public class MapChunkState extends CellStorage<ChunkInfoRegion> {
     static final int SHIFT = 7;
 
     public MapChunkState(GridStorage storage) {
-        super(storage, ChunkInfoRegion.class);
+        this(storage, DEFAULT_CACHE_SIZE);
+    }
+
+    public MapChunkState(GridStorage storage, int cacheSize) {
+        super(storage, ChunkInfoRegion.class, cacheSize);
     }
 
     public int get(int x, int z) {
-        return cell(x >> SHIFT, z >> SHIFT).get(x, z);
+        int cellX = x >> SHIFT, cellZ = z >> SHIFT;
+        synchronized (lock(cellX, cellZ)) {
+            return cell(cellX, cellZ).get(x, z);
+        }
     }
 
-    public synchronized int set(int x, int z, int hash) {
-        return cell(x >> SHIFT, z >> SHIFT).set(x, z, hash);
+    public int set(int x, int z, int hash) {
+        int cellX = x >> SHIFT, cellZ = z >> SHIFT;
+        synchronized (lock(cellX, cellZ)) {
+            return cell(cellX, cellZ).set(x, z, hash);
+        }
     }
 
     @Override
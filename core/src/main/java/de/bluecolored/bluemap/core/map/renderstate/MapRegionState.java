@@ -33,19 +33,29 @@ public class MapRegionState extends CellStorage<RegionInfoRegion> {
     static final int SHIFT = 6;
 
     public MapRegionState(GridStorage storage) {
-        super(storage, RegionInfoRegion.class);
+        this(storage, DEFAULT_CACHE_SIZE);
+    }
+
+    public MapRegionState(GridStorage storage, int cacheSize) {
+        super(storage, RegionInfoRegion.class, cacheSize);
     }
 
     public int get(int x, int z) {
-        return cell(x >> SHIFT, z >> SHIFT).get(x, z);
+        int cellX = x >> SHIFT, cellZ = z >> SHIFT;
+        synchronized (lock(cellX, cellZ)) {
+            return cell(cellX, cellZ).get(x, z);
+        }
     }
 
-    public synchronized int set(int x, int z, int lastUpdateTime) {
-        return cell(x >> SHIFT, z >> SHIFT).set(x, z, lastUpdateTime);
+    public int set(int x, int z, int lastUpdateTime) {
+        int cellX = x >> SHIFT, cellZ = z >> SHIFT;
+        synchronized (lock(cellX, cellZ)) {
+            return cell(cellX, cellZ).set(x, z, lastUpdateTime);
+        }
     }
 
-    public synchronized int delete(int x, int z) {
-        return cell(x >> SHIFT, z >> SHIFT).set(x, z, 0);
+    public int delete(int x, int z) {
+        return set(x, z, 0);
     }
 
     public void forEach(RegionStateConsumer consumer) throws IOException {
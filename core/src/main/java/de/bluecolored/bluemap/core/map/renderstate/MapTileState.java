@@ -26,34 +26,94 @@
 
 import de.bluecolored.bluemap.core.storage.GridStorage;
 import de.bluecolored.bluemap.core.util.Grid;
-import lombok.Getter;
 
 public class MapTileState extends CellStorage<TileInfoRegion> {
 
     static final int SHIFT = 5;
     public static final Grid GRID = new Grid(1 << SHIFT);
 
-    @Getter private int lastRenderTime = -1;
+    private volatile int lastRenderTime = -1;
 
     public MapTileState(GridStorage storage) {
-        super(storage, TileInfoRegion.class);
+        this(storage, DEFAULT_CACHE_SIZE);
+    }
+
+    public MapTileState(GridStorage storage, int cacheSize) {
+        super(storage, TileInfoRegion.class, cacheSize);
     }
 
     public TileInfoRegion.TileInfo get(int x, int z) {
-        return cell(x >> SHIFT, z >> SHIFT).get(x, z);
+        int cellX = x >> SHIFT, cellZ = z >> SHIFT;
+        synchronized (lock(cellX, cellZ)) {
+            return cell(cellX, cellZ).get(x, z);
+        }
+    }
+
+    public int getRenderTime(int x, int z) {
+        int cellX = x >> SHIFT, cellZ = z >> SHIFT;
+        synchronized (lock(cellX, cellZ)) {
+            return cell(cellX, cellZ).getRenderTime(x, z);
+        }
     }
 
-    public synchronized TileInfoRegion.TileInfo set(int x, int z, TileInfoRegion.TileInfo info) {
-        TileInfoRegion.TileInfo old = cell(x >> SHIFT, z >> SHIFT).set(x, z, info);
+    public TileState getState(int x, int z) {
+        int cellX = x >> SHIFT, cellZ = z >> SHIFT;
+        synchronized (lock(cellX, cellZ)) {
+            return cell(cellX, cellZ).getState(x, z);
+        }
+    }
 
-        if (info.getRenderTime() > lastRenderTime)
-            lastRenderTime = info.getRenderTime();
+    public TileInfoRegion.TileInfo set(int x, int z, TileInfoRegion.TileInfo info) {
+        TileInfoRegion.TileInfo old;
+        int cellX = x >> SHIFT, cellZ = z >> SHIFT;
+        synchronized (lock(cellX, cellZ)) {
+            old = cell(cellX, cellZ).set(x, z, info);
+        }
 
+        updateLastRenderTime(info.getRenderTime());
         return old;
     }
 
+    public void set(int x, int z, int renderTime, TileState state) {
+        int cellX = x >> SHIFT, cellZ = z >> SHIFT;
+        synchronized (lock(cellX, cellZ)) {
+            cell(cellX, cellZ).set(x, z, renderTime, state);
+        }
+
+        updateLastRenderTime(renderTime);
+    }
+
+    /**
+     * Returns the fingerprint of the last rendered output of the tile, or 0 if it is unknown
+     */
+    public long getOutputFingerprint(int x, int z) {
+        int cellX = x >> SHIFT, cellZ = z >> SHIFT;
+        synchronized (lock(cellX, cellZ)) {
+            return cell(cellX, cellZ).getOutputFingerprint(x, z);
+        }
+    }
+
+    public void setOutputFingerprint(int x, int z, long fingerprint) {
+        int cellX = x >> SHIFT, cellZ = z >> SHIFT;
+        synchronized (lock(cellX, cellZ)) {
+            cell(cellX, cellZ).setOutputFingerprint(x, z, fingerprint);
+        }
+    }
+
+    public int getLastRenderTime() {
+        return lastRenderTime;
+    }
+
+    private void updateLastRenderTime(int renderTime) {
+        if (renderTime <= lastRenderTime) return;
+        synchronized (this) {
+            if (renderTime > lastRenderTime)
+                lastRenderTime = renderTime;
+        }
+    }
+
     @Override
-    protected synchronized TileInfoRegion createNewCell() {
+    protected TileInfoRegion createNewCell() {
         return TileInfoRegion.create();
     }
 
@@ -50,6 +50,9 @@ public class TileInfoRegion implements CellStorage.Cell {
     @NBTName("tile-states")
     private TileState[] tileStates;
 
+    @NBTName("output-fingerprints")
+    private long[] outputFingerprints;
+
     @Getter
     private transient boolean modified;
 
@@ -64,6 +67,9 @@ public void init() {
             tileStates = new TileState[TILES_PER_REGION];
             Arrays.fill(tileStates, TileState.UNKNOWN);
         }
+
+        if (outputFingerprints == null || outputFingerprints.length != TILES_PER_REGION)
+            outputFingerprints = new long[TILES_PER_REGION];
     }
 
     public TileInfo get(int x, int z) {
@@ -74,21 +80,40 @@ public TileInfo get(int x, int z) {
         );
     }
 
+    public int getRenderTime(int x, int z) {
+        return lastRenderTimes[index(x, z)];
+    }
+
+    public TileState getState(int x, int z) {
+        return tileStates[index(x, z)];
+    }
+
     public TileInfo set(int x, int z, TileInfo info) {
+        TileInfo previous = get(x, z);
+        set(x, z, info.getRenderTime(), info.getState());
+        return previous;
+    }
+
+    public void set(int x, int z, int renderTime, TileState state) {
         int index = index(x, z);
 
-        TileInfo previous = new TileInfo(
-                lastRenderTimes[index],
-                tileStates[index]
-        );
+        if (lastRenderTimes[index] != renderTime || tileStates[index] != Objects.requireNonNull(state))
+            this.modified = true;
 
-        lastRenderTimes[index] = info.getRenderTime();
-        tileStates[index] = Objects.requireNonNull(info.getState());
+        lastRenderTimes[index] = renderTime;
+        tileStates[index] = state;
+    }
 
-        if (!previous.equals(info))
-            this.modified = true;
+    public long getOutputFingerprint(int x, int z) {
+        return outputFingerprints[index(x, z)];
+    }
 
-        return previous;
+    public void setOutputFingerprint(int x, int z, long fingerprint) {
+        int index = index(x, z);
+        if (outputFingerprints[index] == fingerprint) return;
+
+        outputFingerprints[index] = fingerprint;
+        this.modified = true;
     }
 
     int findLatestRenderTime() {
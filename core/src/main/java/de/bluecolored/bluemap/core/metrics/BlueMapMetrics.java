@@ -0,0 +1,135 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.metrics;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import de.bluecolored.bluemap.core.util.MemoryBudget;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * The metrics BlueMap collects about itself, registered in the {@link MetricRegistry#global() global registry}.
+ */
+public class BlueMapMetrics {
+
+    public static final Counter TILES_RENDERED = registry().counter(
+            "bluemap_tiles_rendered_total",
+            "Number of hires-tiles rendered",
+            "map"
+    );
+
+    public static final Histogram TILE_RENDER_TIME = registry().histogram(
+            "bluemap_tile_render_seconds",
+            "Time it took to render a hires-tile (including all render-passes)",
+            Histogram.TIME_BUCKETS,
+            "map"
+    );
+
+    public static final Histogram RENDER_PASS_TIME = registry().histogram(
+            "bluemap_render_pass_seconds",
+            "Time a single render-pass took to render a hires-tile",
+            Histogram.TIME_BUCKETS,
+            "pass"
+    );
+
+    public static final Histogram CHUNK_LOAD_TIME = registry().histogram(
+            "bluemap_chunk_load_seconds",
+            "Time it took to load a single chunk from its region-file, including decoding",
+            Histogram.TIME_BUCKETS,
+            "loader"
+    );
+
+    public static final Histogram CHUNK_DECODE_TIME = registry().histogram(
+            "bluemap_chunk_decode_seconds",
+            "Time it took to decompress and decode chunk-data",
+            Histogram.TIME_BUCKETS,
+            "loader"
+    );
+
+    public static final Histogram STORAGE_READ_TIME = registry().histogram(
+            "bluemap_storage_read_seconds",
+            "Time it took to open a map-tile for reading from the storage",
+            Histogram.TIME_BUCKETS,
+            "item"
+    );
+
+    public static final Histogram STORAGE_WRITE_TIME = registry().histogram(
+            "bluemap_storage_write_seconds",
+            "Time it took to write a map-tile to the storage",
+            Histogram.TIME_BUCKETS,
+            "item"
+    );
+
+    public static final Histogram HTTP_REQUEST_TIME = registry().histogram(
+            "bluemap_http_request_seconds",
+            "Time it took the integrated webserver to handle a request (until the response-body starts streaming)",
+            Histogram.TIME_BUCKETS,
+            "status"
+    );
+
+    static {
+        registry().collected(
+                "bluemap_cache_hits_total",
+                "Number of cache-hits, per memory-budget pool",
+                MetricType.COUNTER,
+                samples -> collectCacheStats(samples, CacheStats::hitCount),
+                "cache"
+        );
+        registry().collected(
+                "bluemap_cache_misses_total",
+                "Number of cache-misses, per memory-budget pool",
+                MetricType.COUNTER,
+                samples -> collectCacheStats(samples, CacheStats::missCount),
+                "cache"
+        );
+        registry().collected(
+                "bluemap_cache_evictions_total",
+                "Number of cache-evictions, per memory-budget pool",
+                MetricType.COUNTER,
+                samples -> collectCacheStats(samples, CacheStats::evictionCount),
+                "cache"
+        );
+        registry().collected(
+                "bluemap_cache_memory_bytes",
+                "Estimated memory held by the caches, per memory-budget pool",
+                MetricType.GAUGE,
+                samples -> {
+                    for (MemoryBudget.Pool pool : MemoryBudget.global().getPools())
+                        samples.add(pool.getUsage(), pool.getName());
+                },
+                "cache"
+        );
+    }
+
+    public static MetricRegistry registry() {
+        return MetricRegistry.global();
+    }
+
+    private static void collectCacheStats(CollectedMetric.Samples samples, ToLongFunction<CacheStats> stat) {
+        for (MemoryBudget.Pool pool : MemoryBudget.global().getPools())
+            samples.add(stat.applyAsLong(pool.getStats()), pool.getName());
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.metrics;
+
+/**
+ * A metric whose samples are collected from elsewhere (e.g. cache-statistics) each time it is written.
+ */
+public class CollectedMetric extends Metric {
+
+    private final Collector collector;
+
+    CollectedMetric(String name, String help, MetricType type, Collector collector, String... labelNames) {
+        super(name, help, type, labelNames);
+        this.collector = collector;
+    }
+
+    @Override
+    protected void writeSamples(StringBuilder out) {
+        collector.collect((value, labelValues) -> writeSample(out, "", labelValues(labelValues), value));
+    }
+
+    @FunctionalInterface
+    public interface Collector {
+        void collect(Samples samples);
+    }
+
+    @FunctionalInterface
+    public interface Samples {
+        void add(double value, String... labelValues);
+    }
+
+}
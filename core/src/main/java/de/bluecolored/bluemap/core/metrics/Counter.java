@@ -0,0 +1,81 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count, e.g. of rendered tiles.
+ */
+public class Counter extends Metric {
+
+    private final Map<List<String>, Child> children = new ConcurrentHashMap<>();
+
+    Counter(String name, String help, String... labelNames) {
+        super(name, help, MetricType.COUNTER, labelNames);
+    }
+
+    /**
+     * Returns the counter for the given label-values.<br>
+     * Callers on hot paths should keep the returned child instead of looking it up each time.
+     */
+    public Child labels(String... labelValues) {
+        List<String> key = labelValues(labelValues);
+        Child child = children.get(key);
+        if (child != null) return child;
+        return children.computeIfAbsent(key, k -> new Child());
+    }
+
+    public void inc() {
+        labels().inc();
+    }
+
+    @Override
+    protected void writeSamples(StringBuilder out) {
+        children.forEach((labelValues, child) -> writeSample(out, "", labelValues, child.get()));
+    }
+
+    public static class Child {
+
+        private final LongAdder value = new LongAdder();
+
+        public void inc() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts observed values (e.g. durations) in buckets, together with their count and sum.
+ */
+public class Histogram extends Metric {
+
+    /**
+     * Bucket-bounds (in seconds) suitable for durations from ~0.1ms to ~10s
+     */
+    public static final double[] TIME_BUCKETS = {
+            0.0001, 0.00025, 0.0005,
+            0.001, 0.0025, 0.005,
+            0.01, 0.025, 0.05,
+            0.1, 0.25, 0.5,
+            1, 2.5, 5, 10
+    };
+
+    private final double[] buckets;
+    private final Map<List<String>, Child> children = new ConcurrentHashMap<>();
+
+    Histogram(String name, String help, double[] buckets, String... labelNames) {
+        super(name, help, MetricType.HISTOGRAM, labelNames);
+        this.buckets = buckets.clone();
+        Arrays.sort(this.buckets);
+    }
+
+    /**
+     * Returns the histogram for the given label-values.<br>
+     * Callers on hot paths should keep the returned child instead of looking it up each time.
+     */
+    public Child labels(String... labelValues) {
+        List<String> key = labelValues(labelValues);
+        Child child = children.get(key);
+        if (child != null) return child;
+        return children.computeIfAbsent(key, k -> new Child(buckets));
+    }
+
+    @Override
+    protected void writeSamples(StringBuilder out) {
+        children.forEach((labelValues, child) -> {
+            long cumulativeCount = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulativeCount += child.counts[i].sum();
+                StringBuilder bound = new StringBuilder();
+                appendValue(bound, buckets[i]);
+                writeSample(out, "_bucket", labelValues, "le", bound.toString(), cumulativeCount);
+            }
+            cumulativeCount += child.counts[buckets.length].sum();
+            writeSample(out, "_bucket", labelValues, "le", "+Inf", cumulativeCount);
+            writeSample(out, "_sum", labelValues, child.sum.sum());
+            writeSample(out, "_count", labelValues, cumulativeCount);
+        });
+    }
+
+    public static class Child {
+
+        private final double[] buckets;
+        private final LongAdder[] counts;
+        private final DoubleAdder sum = new DoubleAdder();
+
+        private Child(double[] buckets) {
+            this.buckets = buckets;
+            this.counts = new LongAdder[buckets.length + 1];
+            for (int i = 0; i < counts.length; i++)
+                counts[i] = new LongAdder();
+        }
+
+        public void observe(double value) {
+            int i = 0;
+            while (i < buckets.length && value > buckets[i]) i++;
+            counts[i].increment();
+            sum.add(value);
+        }
+
+        /**
+         * Observes a duration given in nanoseconds, in seconds
+         */
+        public void observeNanos(long nanos) {
+            observe(nanos / 1e9);
+        }
+
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.metrics;
+
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * A named metric with a fixed set of label-names, that can write all its samples in the prometheus text-format.
+ */
+@Getter
+public abstract class Metric {
+
+    private final String name;
+    private final String help;
+    private final MetricType type;
+    private final List<String> labelNames;
+
+    protected Metric(String name, String help, MetricType type, String... labelNames) {
+        this.name = name;
+        this.help = help;
+        this.type = type;
+        this.labelNames = List.of(labelNames);
+    }
+
+    public void write(StringBuilder out) {
+        out.append("# HELP ").append(name).append(' ')
+                .append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type.getId()).append('\n');
+        writeSamples(out);
+    }
+
+    protected abstract void writeSamples(StringBuilder out);
+
+    /**
+     * Checks that the given label-values match the label-names of this metric
+     */
+    protected List<String> labelValues(String... labelValues) {
+        if (labelValues.length != labelNames.size())
+            throw new IllegalArgumentException("Metric '%s' expects %d label-values, but got %d"
+                    .formatted(name, labelNames.size(), labelValues.length));
+        return List.of(labelValues);
+    }
+
+    protected void writeSample(StringBuilder out, String suffix, List<String> labelValues, double value) {
+        writeSample(out, suffix, labelValues, null, null, value);
+    }
+
+    protected void writeSample(
+            StringBuilder out, String suffix, List<String> labelValues,
+            @Nullable String extraLabelName, @Nullable String extraLabelValue,
+            double value
+    ) {
+        out.append(name).append(suffix);
+
+        if (!labelValues.isEmpty() || extraLabelName != null) {
+            out.append('{');
+            for (int i = 0; i < labelValues.size(); i++) {
+                if (i > 0) out.append(',');
+                appendLabel(out, labelNames.get(i), labelValues.get(i));
+            }
+            if (extraLabelName != null) {
+                if (!labelValues.isEmpty()) out.append(',');
+                appendLabel(out, extraLabelName, extraLabelValue);
+            }
+            out.append('}');
+        }
+
+        out.append(' ');
+        appendValue(out, value);
+        out.append('\n');
+    }
+
+    private static void appendLabel(StringBuilder out, String name, @Nullable String value) {
+        out.append(name).append("=\"");
+        if (value != null) {
+            out.append(value
+                    .replace("\\", "\\\\")
+                    .replace("\"", "\\\"")
+                    .replace("\n", "\\n")
+            );
+        }
+        out.append('"');
+    }
+
+    static void appendValue(StringBuilder out, double value) {
+        if (Double.isNaN(value)) out.append("NaN");
+        else if (value == Double.POSITIVE_INFINITY) out.append("+Inf");
+        else if (value == Double.NEGATIVE_INFINITY) out.append("-Inf");
+        else if (value == Math.rint(value) && Math.abs(value) < 1e15) out.append((long) value);
+        else out.append(value);
+    }
+
+}
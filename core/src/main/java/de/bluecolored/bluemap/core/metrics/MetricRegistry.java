@@ -0,0 +1,73 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A set of uniquely named {@link Metric}s that can be written together in the prometheus text-format.
+ */
+public class MetricRegistry {
+
+    private static final MetricRegistry GLOBAL = new MetricRegistry();
+
+    private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+    public Counter counter(String name, String help, String... labelNames) {
+        return register(new Counter(name, help, labelNames));
+    }
+
+    public Histogram histogram(String name, String help, double[] buckets, String... labelNames) {
+        return register(new Histogram(name, help, buckets, labelNames));
+    }
+
+    public CollectedMetric collected(String name, String help, MetricType type, CollectedMetric.Collector collector, String... labelNames) {
+        return register(new CollectedMetric(name, help, type, collector, labelNames));
+    }
+
+    public <M extends Metric> M register(M metric) {
+        if (metrics.putIfAbsent(metric.getName(), metric) != null)
+            throw new IllegalArgumentException("A metric with the name '" + metric.getName() + "' is already registered!");
+        return metric;
+    }
+
+    public void unregister(Metric metric) {
+        metrics.remove(metric.getName(), metric);
+    }
+
+    /**
+     * Writes all metrics of this registry in the prometheus text-format
+     */
+    public void write(StringBuilder out) {
+        for (Metric metric : metrics.values())
+            metric.write(out);
+    }
+
+    public static MetricRegistry global() {
+        return GLOBAL;
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.metrics.event;
+
+import de.bluecolored.bluemap.core.storage.compression.CompressedInputStream;
+import jdk.jfr.*;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+@Name("bluemap.StorageRead")
+@Label("Storage Read")
+@Description("Opening an item of a grid-storage (e.g. a map-tile) for reading")
+@Category({"BlueMap", "Storage"})
+@StackTrace(false)
+public class StorageReadEvent extends Event {
+
+    @Label("Storage")
+    public String storage;
+
+    @Label("X")
+    public int x;
+
+    @Label("Z")
+    public int z;
+
+    @Label("Found")
+    public boolean found;
+
+    @Label("Stored Bytes")
+    @Description("The (compressed) size of the item in the storage")
+    @DataAmount
+    public long bytes;
+
+    /**
+     * Ends this event and commits it, if it is enabled and exceeded its threshold.
+     * @param in the opened item or null if there is none, the stored bytes are the bytes {@link CompressedInputStream#available() available} on it
+     */
+    public void finish(String storage, int x, int z, @Nullable CompressedInputStream in) throws IOException {
+        end();
+        if (!shouldCommit()) return;
+
+        this.storage = storage;
+        this.x = x;
+        this.z = z;
+        this.found = in != null;
+        this.bytes = in != null ? in.available() : 0;
+        commit();
+    }
+
+}
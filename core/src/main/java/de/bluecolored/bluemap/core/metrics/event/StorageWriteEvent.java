@@ -0,0 +1,64 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.metrics.event;
+
+import jdk.jfr.*;
+
+@Name("bluemap.StorageWrite")
+@Label("Storage Write")
+@Description("Writing an item of a grid-storage (e.g. a map-tile), from opening until closing the stream")
+@Category({"BlueMap", "Storage"})
+@StackTrace(false)
+public class StorageWriteEvent extends Event {
+
+    @Label("Storage")
+    public String storage;
+
+    @Label("X")
+    public int x;
+
+    @Label("Z")
+    public int z;
+
+    @Label("Stored Bytes")
+    @Description("The (compressed) size of the item in the storage, or -1 if it is unknown")
+    @DataAmount
+    public long bytes;
+
+    /**
+     * Ends this event and commits it, if it is enabled and exceeded its threshold.
+     */
+    public void finish(String storage, int x, int z, long bytes) {
+        end();
+        if (!shouldCommit()) return;
+
+        this.storage = storage;
+        this.x = x;
+        this.z = z;
+        this.bytes = bytes;
+        commit();
+    }
+
+}
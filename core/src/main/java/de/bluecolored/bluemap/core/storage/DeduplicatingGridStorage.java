@@ -0,0 +1,440 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.storage;
+
+import de.bluecolored.bluemap.core.storage.compression.CompressedInputStream;
+import de.bluecolored.bluemap.core.storage.compression.Compression;
+import de.bluecolored.bluemap.core.util.stream.OnCloseOutputStream;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A {@link GridStorage} that stores each distinct item only once, identified by its SHA-256 hash.<br>
+ * Items are stored inline in the cells of the underlying {@link GridStorage} until a second cell gets the same item.
+ * Only then the item is also stored in a shared {@link GridStorage}, and all further cells with the same item only hold
+ * a reference to it.
+ * So unique items (the common case) cost no additional reads or writes except for the index-entry of their hash.<br>
+ * The index groups all hashes by their first two bytes into 256 x 256 index-cells, each holding the
+ * reference-count and the shared slot of its hashes.
+ * Shared items are deleted once no cell references them anymore.
+ */
+public class DeduplicatingGridStorage implements GridStorage {
+
+    private static final byte[] REFERENCE_MAGIC = { 'B', 'M', 'R', '2' };
+    private static final int HASH_LENGTH = 32;
+    private static final int REFERENCE_LENGTH = REFERENCE_MAGIC.length + HASH_LENGTH + 8;
+    private static final int INDEX_ENTRY_LENGTH = HASH_LENGTH + 4 + 4 + 1 + 4 + 4;
+    private static final int INDEX_SIZE = 256;
+
+    // a compressed reference is always smaller than this, so larger cells don't need to be decompressed to check for one
+    private static final int MAX_COMPRESSED_REFERENCE_LENGTH = 256;
+
+    // shared between all instances, since multiple instances can be created for the same storage.
+    // cell-locks are always acquired before index-locks, so they need to be separate to not deadlock
+    private static final Object[] CELL_LOCKS = createLocks(64);
+    private static final Object[] INDEX_LOCKS = createLocks(64);
+
+    private final GridStorage cells;
+    private final GridStorage sharedItems;
+    private final GridStorage index;
+
+    /**
+     * @param cells the storage holding the items (or references to shared items) of all cells
+     * @param sharedItems the storage holding the shared items
+     * @param index the storage holding the hash-index
+     */
+    public DeduplicatingGridStorage(GridStorage cells, GridStorage sharedItems, GridStorage index) {
+        this.cells = cells;
+        this.sharedItems = sharedItems;
+        this.index = index;
+    }
+
+    @Override
+    public OutputStream write(int x, int z) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        return new OnCloseOutputStream(buffer, () -> writeItem(x, z, buffer.toByteArray()));
+    }
+
+    @Override
+    public @Nullable CompressedInputStream read(int x, int z) throws IOException {
+        CompressedInputStream in = cells.read(x, z);
+        if (in == null) return null;
+
+        byte[] head;
+        try {
+            head = in.readNBytes(MAX_COMPRESSED_REFERENCE_LENGTH + 1);
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+
+        // too large for a reference, continue reading the same stream
+        if (head.length > MAX_COMPRESSED_REFERENCE_LENGTH)
+            return new CompressedInputStream(new SequenceInputStream(new ByteArrayInputStream(head), in), in.getCompression());
+
+        in.close();
+        Reference reference = parseReference(head, in.getCompression());
+        if (reference == null) return new CompressedInputStream(new ByteArrayInputStream(head), in.getCompression());
+
+        CompressedInputStream shared = sharedItems.read(reference.sharedX(), reference.sharedZ());
+        if (shared == null) return null;
+        return new SharedItemInputStream(shared, reference.hash());
+    }
+
+    @Override
+    public void delete(int x, int z) throws IOException {
+        synchronized (cellLock(x, z)) {
+            StoredItem previous = readStoredItem(x, z);
+            cells.delete(x, z);
+            if (previous != null) release(previous.hash(), x, z, previous.inline());
+        }
+    }
+
+    @Override
+    public boolean exists(int x, int z) throws IOException {
+        return cells.exists(x, z);
+    }
+
+    @Override
+    public ItemStorage cell(int x, int z) {
+        return new GridStorageCell(this, x, z);
+    }
+
+    @Override
+    public Stream<Cell> stream() throws IOException {
+        return cells.stream()
+                .map(cell -> new GridStorageCell(this, cell.getX(), cell.getZ()));
+    }
+
+    @Override
+    public boolean isClosed() {
+        return cells.isClosed();
+    }
+
+    private void writeItem(int x, int z, byte[] data) throws IOException {
+        byte[] hash = hash(new ByteArrayInputStream(data));
+
+        // the item of a cell can only be changed while holding its lock, so the reference-counts stay correct
+        synchronized (cellLock(x, z)) {
+            StoredItem previous = readStoredItem(x, z);
+
+            // the cell already holds the exact same data
+            if (previous != null && Arrays.equals(hash, previous.hash())) return;
+
+            Reference reference = acquire(hash, data, x, z);
+            try (OutputStream out = cells.write(x, z)) {
+                if (reference != null) {
+                    out.write(REFERENCE_MAGIC);
+                    out.write(hash);
+                    out.write(ByteBuffer.allocate(8).putInt(reference.sharedX()).putInt(reference.sharedZ()).array());
+                } else {
+                    out.write(data);
+                }
+            } catch (IOException | RuntimeException ex) {
+                // the cell has not been changed, so the reference that has just been acquired is released again
+                try {
+                    release(hash, x, z, reference == null);
+                } catch (IOException | RuntimeException releaseEx) {
+                    ex.addSuppressed(releaseEx);
+                }
+                throw ex;
+            }
+
+            if (previous != null) release(previous.hash(), x, z, previous.inline());
+        }
+    }
+
+    /**
+     * Returns the hash of the item that is currently stored in the cell at the given position,
+     * or null if the cell is empty.<br>
+     * For inline items, this needs to read and hash the whole item.
+     */
+    private @Nullable StoredItem readStoredItem(int x, int z) throws IOException {
+        CompressedInputStream in = cells.read(x, z);
+        if (in == null) return null;
+
+        try (in) {
+            byte[] head = in.readNBytes(MAX_COMPRESSED_REFERENCE_LENGTH + 1);
+            if (head.length <= MAX_COMPRESSED_REFERENCE_LENGTH) {
+                Reference reference = parseReference(head, in.getCompression());
+                if (reference != null) return new StoredItem(reference.hash(), false);
+            }
+
+            try (InputStream decompressed = in.getCompression().decompress(
+                    new SequenceInputStream(new ByteArrayInputStream(head), in)
+            )) {
+                return new StoredItem(hash(decompressed), true);
+            }
+        }
+    }
+
+    private static @Nullable Reference parseReference(byte[] compressed, Compression compression) throws IOException {
+        byte[] head;
+        try (InputStream decompressed = compression.decompress(new ByteArrayInputStream(compressed))) {
+            head = decompressed.readNBytes(REFERENCE_LENGTH + 1);
+        }
+
+        if (head.length != REFERENCE_LENGTH) return null;
+        if (!Arrays.equals(head, 0, REFERENCE_MAGIC.length, REFERENCE_MAGIC, 0, REFERENCE_MAGIC.length)) return null;
+
+        ByteBuffer buffer = ByteBuffer.wrap(head, REFERENCE_MAGIC.length + HASH_LENGTH, 8);
+        return new Reference(
+                Arrays.copyOfRange(head, REFERENCE_MAGIC.length, REFERENCE_MAGIC.length + HASH_LENGTH),
+                buffer.getInt(),
+                buffer.getInt()
+        );
+    }
+
+    /**
+     * Adds a reference to the item with the given hash.<br>
+     * The first cell with an item stores it inline, so this only registers the hash and returns null.
+     * For all further cells, the item is (if not already done) stored as a shared item and the reference to it is
+     * returned.
+     */
+    private @Nullable Reference acquire(byte[] hash, byte[] data, int x, int z) throws IOException {
+        int indexX = indexX(hash), indexZ = indexZ(hash);
+        synchronized (indexLock(indexX, indexZ)) {
+            List<IndexEntry> entries = readIndex(indexX, indexZ);
+            IndexEntry entry = findEntry(entries, hash);
+
+            if (entry == null) {
+                entries.add(new IndexEntry(hash, 1, -1, true, x, z));
+                writeIndex(indexX, indexZ, entries);
+                return null;
+            }
+
+            if (entry.slot < 0) {
+                entry.slot = freeSlot(entries);
+                try (OutputStream out = sharedItems.write(sharedX(indexX, entry.slot), indexZ)) {
+                    out.write(data);
+                }
+            }
+
+            entry.count++;
+            writeIndex(indexX, indexZ, entries);
+            return new Reference(hash, sharedX(indexX, entry.slot), indexZ);
+        }
+    }
+
+    /**
+     * Removes a reference to the item with the given hash and deletes the shared item if it is no longer referenced.
+     * @param inline whether the released cell stored the item inline, instead of a reference to it
+     */
+    private void release(byte[] hash, int x, int z, boolean inline) throws IOException {
+        int indexX = indexX(hash), indexZ = indexZ(hash);
+        synchronized (indexLock(indexX, indexZ)) {
+            List<IndexEntry> entries = readIndex(indexX, indexZ);
+            IndexEntry entry = findEntry(entries, hash);
+            if (entry == null) return;
+
+            // inline items are only counted for the cell that registered the hash,
+            // other cells with the same inline item (e.g. written before deduplication was enabled) are not counted
+            if (inline) {
+                if (!entry.owned || entry.ownerX != x || entry.ownerZ != z) return;
+                entry.owned = false;
+            }
+
+            if (--entry.count <= 0) {
+                if (entry.slot >= 0) sharedItems.delete(sharedX(indexX, entry.slot), indexZ);
+                entries.remove(entry);
+            }
+
+            writeIndex(indexX, indexZ, entries);
+        }
+    }
+
+    private List<IndexEntry> readIndex(int indexX, int indexZ) throws IOException {
+        CompressedInputStream in = index.read(indexX, indexZ);
+        if (in == null) return new ArrayList<>();
+
+        byte[] data;
+        try (in; InputStream decompressed = in.decompress()) {
+            data = decompressed.readAllBytes();
+        }
+
+        if (data.length % INDEX_ENTRY_LENGTH != 0)
+            throw new IOException("Invalid deduplication-index cell: " + indexX + ", " + indexZ);
+
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        List<IndexEntry> entries = new ArrayList<>(data.length / INDEX_ENTRY_LENGTH + 1);
+        while (buffer.hasRemaining()) {
+            byte[] hash = new byte[HASH_LENGTH];
+            buffer.get(hash);
+            entries.add(new IndexEntry(
+                    hash,
+                    buffer.getInt(),
+                    buffer.getInt(),
+                    buffer.get() != 0,
+                    buffer.getInt(),
+                    buffer.getInt()
+            ));
+        }
+        return entries;
+    }
+
+    private void writeIndex(int indexX, int indexZ, List<IndexEntry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            index.delete(indexX, indexZ);
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(entries.size() * INDEX_ENTRY_LENGTH);
+        for (IndexEntry entry : entries) {
+            buffer.put(entry.hash);
+            buffer.putInt(entry.count);
+            buffer.putInt(entry.slot);
+            buffer.put((byte) (entry.owned ? 1 : 0));
+            buffer.putInt(entry.ownerX);
+            buffer.putInt(entry.ownerZ);
+        }
+
+        try (OutputStream out = index.write(indexX, indexZ)) {
+            out.write(buffer.array());
+        }
+    }
+
+    private static @Nullable IndexEntry findEntry(List<IndexEntry> entries, byte[] hash) {
+        for (IndexEntry entry : entries) {
+            if (Arrays.equals(entry.hash, hash)) return entry;
+        }
+        return null;
+    }
+
+    private static int freeSlot(List<IndexEntry> entries) {
+        int slot = 0;
+        while (true) {
+            boolean taken = false;
+            for (IndexEntry entry : entries) {
+                if (entry.slot == slot) {
+                    taken = true;
+                    break;
+                }
+            }
+            if (!taken) return slot;
+            slot++;
+        }
+    }
+
+    private static int indexX(byte[] hash) {
+        return hash[0] & 0xFF;
+    }
+
+    private static int indexZ(byte[] hash) {
+        return hash[1] & 0xFF;
+    }
+
+    /**
+     * Shared items are stored next to their index-cell, slots of the same index-cell are placed in x-direction
+     */
+    private static int sharedX(int indexX, int slot) {
+        return indexX + slot * INDEX_SIZE;
+    }
+
+    private static Object cellLock(int x, int z) {
+        return CELL_LOCKS[Math.floorMod(x * 31 + z, CELL_LOCKS.length)];
+    }
+
+    private static Object indexLock(int indexX, int indexZ) {
+        return INDEX_LOCKS[Math.floorMod(indexX * 31 + indexZ, INDEX_LOCKS.length)];
+    }
+
+    private static Object[] createLocks(int count) {
+        Object[] locks = new Object[count];
+        for (int i = 0; i < count; i++) locks[i] = new Object();
+        return locks;
+    }
+
+    private static byte[] hash(InputStream in) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported on this platform!", ex);
+        }
+
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0)
+            digest.update(buffer, 0, read);
+        return digest.digest();
+    }
+
+    private record Reference(byte[] hash, int sharedX, int sharedZ) {}
+
+    private record StoredItem(byte[] hash, boolean inline) {}
+
+    private static class IndexEntry {
+
+        private final byte[] hash;
+        private int count;
+        private int slot;
+
+        // the cell that stores this item inline
+        private boolean owned;
+        private final int ownerX, ownerZ;
+
+        IndexEntry(byte[] hash, int count, int slot, boolean owned, int ownerX, int ownerZ) {
+            this.hash = hash;
+            this.count = count;
+            this.slot = slot;
+            this.owned = owned;
+            this.ownerX = ownerX;
+            this.ownerZ = ownerZ;
+        }
+
+    }
+
+    /**
+     * The data of a shared item, read through a referencing cell
+     */
+    public static class SharedItemInputStream extends CompressedInputStream {
+
+        private final byte[] hash;
+
+        private SharedItemInputStream(CompressedInputStream in, byte[] hash) {
+            super(in, in.getCompression());
+            this.hash = hash;
+        }
+
+        /**
+         * Returns the (hex-formatted) SHA-256 hash of the uncompressed item-data.<br>
+         * All cells with the same data return the same hash, so it can be used e.g. as an ETag.
+         */
+        public String getHash() {
+            return HexFormat.of().formatHex(hash);
+        }
+
+    }
+
+}
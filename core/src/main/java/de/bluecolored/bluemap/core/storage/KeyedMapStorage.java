@@ -26,12 +26,12 @@
 
 import de.bluecolored.bluemap.core.storage.compression.Compression;
 import de.bluecolored.bluemap.core.util.Key;
-import lombok.RequiredArgsConstructor;
 
-@RequiredArgsConstructor
 public abstract class KeyedMapStorage implements MapStorage {
 
     private static final Key HIRES_TILES_KEY = Key.bluemap("hires");
+    private static final Key HIRES_SHARED_TILES_KEY = Key.bluemap("hires/shared");
+    private static final Key HIRES_SHARED_TILES_INDEX_KEY = Key.bluemap("hires/shared/index");
     private static final Key TILE_STATE_KEY = Key.bluemap("tile-state");
     private static final Key CHUNK_STATE_KEY = Key.bluemap("chunk-state");
     private static final Key REGION_STATE_KEY = Key.bluemap("region-state");
@@ -41,10 +41,30 @@ public abstract class KeyedMapStorage implements MapStorage {
     private static final Key PLAYERS_KEY = Key.bluemap("players");
 
     private final Compression compression;
+    private final boolean deduplicateHiresTiles;
+
+    public KeyedMapStorage(Compression compression) {
+        this(compression, false);
+    }
+
+    /**
+     * @param deduplicateHiresTiles whether identical hires-tiles should only be stored once
+     *                              using a {@link DeduplicatingGridStorage}
+     */
+    public KeyedMapStorage(Compression compression, boolean deduplicateHiresTiles) {
+        this.compression = compression;
+        this.deduplicateHiresTiles = deduplicateHiresTiles;
+    }
 
     @Override
     public GridStorage hiresTiles() {
-        return grid(HIRES_TILES_KEY, compression);
+        GridStorage hiresTiles = grid(HIRES_TILES_KEY, compression);
+        if (!deduplicateHiresTiles) return hiresTiles;
+        return new DeduplicatingGridStorage(
+                hiresTiles,
+                grid(HIRES_SHARED_TILES_KEY, compression),
+                grid(HIRES_SHARED_TILES_INDEX_KEY, Compression.NONE)
+        );
     }
 
     @Override
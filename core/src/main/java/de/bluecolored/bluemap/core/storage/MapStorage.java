@@ -25,6 +25,8 @@
 package de.bluecolored.bluemap.core.storage;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 import java.util.function.DoublePredicate;
 
 public interface MapStorage {
@@ -95,6 +97,24 @@ default void delete() throws IOException {
      */
     void delete(DoublePredicate onProgress) throws IOException;
 
+    /**
+     * Splits the deletion of this map into independent steps of roughly similar size,
+     * which can be executed concurrently and in any order.<br>
+     * The steps do not need to delete everything, so after all steps have been executed,
+     * {@link #delete()} has to be called to delete the rest of the map.<br>
+     * Returns an empty collection if this storage can not split its deletion.
+     */
+    default Collection<DeletionStep> splitDeletion() throws IOException {
+        return List.of();
+    }
+
+    @FunctionalInterface
+    interface DeletionStep {
+
+        void delete() throws IOException;
+
+    }
+
     /**
      * Tests whether this map currently exists on the storage or not
      */
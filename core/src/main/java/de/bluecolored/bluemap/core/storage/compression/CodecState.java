@@ -0,0 +1,167 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.storage.compression;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Holds the (native) codec-state needed for (de)compression, so it can be reused by each thread
+ * instead of being recreated for every chunk or tile.<br>
+ * A state is acquired with {@link #acquire()} and must be {@link #release() released} after use.
+ * If the thread's pooled state is already in use (e.g. by a still open stream), a new unpooled state is handed out.
+ */
+class CodecState {
+
+    private static final ThreadLocal<CodecState> POOL = ThreadLocal.withInitial(() -> new CodecState(true));
+
+    private static final int MIN_BUFFER_SIZE = 1024;
+
+    private final boolean pooled;
+    private volatile boolean inUse;
+
+    private @Nullable Inflater rawInflater, zlibInflater;
+    private @Nullable Deflater rawDeflater, zlibDeflater;
+    private @Nullable CRC32 crc;
+
+    private CodecState(boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    public static CodecState acquire() {
+        CodecState state = POOL.get();
+        if (state.inUse) return new CodecState(false);
+        state.inUse = true;
+        return state;
+    }
+
+    public void release() {
+        if (pooled) {
+            if (rawInflater != null) rawInflater.reset();
+            if (zlibInflater != null) zlibInflater.reset();
+            if (rawDeflater != null) rawDeflater.reset();
+            if (zlibDeflater != null) zlibDeflater.reset();
+            if (crc != null) crc.reset();
+            inUse = false;
+        } else {
+            if (rawInflater != null) rawInflater.end();
+            if (zlibInflater != null) zlibInflater.end();
+            if (rawDeflater != null) rawDeflater.end();
+            if (zlibDeflater != null) zlibDeflater.end();
+        }
+    }
+
+    /**
+     * An inflater for raw deflate-data without zlib-header and -trailer (nowrap), as used by gzip
+     */
+    public Inflater rawInflater() {
+        if (rawInflater == null) rawInflater = new Inflater(true);
+        return rawInflater;
+    }
+
+    public Inflater zlibInflater() {
+        if (zlibInflater == null) zlibInflater = new Inflater();
+        return zlibInflater;
+    }
+
+    /**
+     * A deflater producing raw deflate-data without zlib-header and -trailer (nowrap), as used by gzip
+     */
+    public Deflater rawDeflater() {
+        if (rawDeflater == null) rawDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        return rawDeflater;
+    }
+
+    public Deflater zlibDeflater() {
+        if (zlibDeflater == null) zlibDeflater = new Deflater();
+        return zlibDeflater;
+    }
+
+    public CRC32 crc() {
+        if (crc == null) crc = new CRC32();
+        return crc;
+    }
+
+    /**
+     * Returns the cleared target-buffer, or a new heap-buffer if there is no usable target-buffer
+     */
+    static ByteBuffer prepare(@Nullable ByteBuffer target, int expectedSize) {
+        if (target == null || !target.hasArray() || target.isReadOnly())
+            return ByteBuffer.allocate(Math.max(expectedSize, MIN_BUFFER_SIZE));
+        return target.clear();
+    }
+
+    /**
+     * Returns a new buffer with at least double the capacity, containing the written data (up to the position) of the given buffer
+     */
+    static ByteBuffer grow(ByteBuffer buffer, int minAdditional) {
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + minAdditional);
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(capacity, MIN_BUFFER_SIZE));
+        return grown.put(buffer.flip());
+    }
+
+    static ByteBuffer ensureRemaining(ByteBuffer buffer, int remaining) {
+        if (buffer.remaining() >= remaining) return buffer;
+        return grow(buffer, remaining);
+    }
+
+    /**
+     * An OutputStream writing into a (growing) heap-buffer
+     */
+    static class BufferOutputStream extends OutputStream {
+
+        private ByteBuffer buffer;
+
+        public BufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer = ensureRemaining(buffer, 1);
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer = ensureRemaining(buffer, len);
+            buffer.put(b, off, len);
+        }
+
+        /**
+         * Returns the flipped buffer containing all written data
+         */
+        public ByteBuffer getBuffer() {
+            return buffer.flip();
+        }
+
+    }
+
+}
@@ -31,20 +31,19 @@
 import io.airlift.compress.zstd.ZstdOutputStream;
 import net.jpountz.lz4.LZ4BlockInputStream;
 import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
-import java.util.zip.InflaterInputStream;
+import java.nio.ByteBuffer;
 
 public interface Compression extends Keyed {
 
     Compression NONE = new NoCompression(Key.bluemap("none"), "none", "");
-    Compression GZIP = new BufferedCompression(Key.bluemap("gzip"), "gzip", ".gz", GZIPOutputStream::new, GZIPInputStream::new);
-    Compression DEFLATE = new BufferedCompression(Key.bluemap("deflate"), "deflate", ".deflate", DeflaterOutputStream::new, InflaterInputStream::new);
+    Compression GZIP = new DeflateCompression(Key.bluemap("gzip"), "gzip", ".gz", true);
+    Compression DEFLATE = new DeflateCompression(Key.bluemap("deflate"), "deflate", ".deflate", false);
     Compression ZSTD = new BufferedCompression(Key.bluemap("zstd"), "zstd", ".zst", ZstdOutputStream::new, ZstdInputStream::new);
     Compression LZ4 = new BufferedCompression(Key.bluemap("lz4"), "lz4", ".lz4", LZ4BlockOutputStream::new, LZ4BlockInputStream::new);
 
@@ -64,4 +63,37 @@ public interface Compression extends Keyed {
 
     InputStream decompress(InputStream in) throws IOException;
 
+    /**
+     * Compresses the given data into a heap-buffer.<br>
+     * The target-buffer is cleared and reused if possible, otherwise (or if it is too small) a new buffer is allocated.
+     * So callers can pool their buffers by passing the last returned buffer as the next target.
+     * @return the (flipped) buffer containing the compressed data
+     */
+    default ByteBuffer compress(byte[] data, int offset, int length, @Nullable ByteBuffer target) throws IOException {
+        CodecState.BufferOutputStream out = new CodecState.BufferOutputStream(CodecState.prepare(target, length / 2));
+        try (OutputStream compressedOut = compress(out)) {
+            compressedOut.write(data, offset, length);
+        }
+        return out.getBuffer();
+    }
+
+    /**
+     * Decompresses the given data into a heap-buffer.<br>
+     * The target-buffer is cleared and reused if possible, otherwise (or if it is too small) a new buffer is allocated.
+     * So callers can pool their buffers by passing the last returned buffer as the next target.
+     * @return the (flipped) buffer containing the decompressed data
+     */
+    default ByteBuffer decompress(byte[] data, int offset, int length, @Nullable ByteBuffer target) throws IOException {
+        ByteBuffer buffer = CodecState.prepare(target, length * 4);
+        try (InputStream in = decompress(new ByteArrayInputStream(data, offset, length))) {
+            int read;
+            do {
+                buffer = CodecState.ensureRemaining(buffer, 1);
+                read = in.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                if (read > 0) buffer.position(buffer.position() + read);
+            } while (read >= 0);
+        }
+        return buffer.flip();
+    }
+
 }
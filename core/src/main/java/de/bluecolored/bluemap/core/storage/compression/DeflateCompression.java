@@ -0,0 +1,318 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.storage.compression;
+
+import de.bluecolored.bluemap.core.util.Key;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.zip.*;
+
+/**
+ * Deflate-based compression in the gzip- or zlib-format.<br>
+ * Unlike a {@link BufferedCompression} with {@link GZIPOutputStream} and {@link GZIPInputStream}, this reuses
+ * the native {@link Deflater}/{@link Inflater} of the current thread instead of creating new ones for each stream.
+ */
+@RequiredArgsConstructor
+public class DeflateCompression implements Compression {
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final byte[] GZIP_HEADER = {
+            (byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED,
+            0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    private static final int FHCRC = 2, FEXTRA = 4, FNAME = 8, FCOMMENT = 16;
+
+    @Getter private final Key key;
+    @Getter private final String id;
+    @Getter private final String fileSuffix;
+    private final boolean gzip;
+
+    @Override
+    public OutputStream compress(OutputStream out) throws IOException {
+        return new BufferedOutputStream(new PooledDeflaterOutputStream(out, gzip));
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) throws IOException {
+        return new BufferedInputStream(new PooledInflaterInputStream(in, gzip));
+    }
+
+    @Override
+    public ByteBuffer compress(byte[] data, int offset, int length, @Nullable ByteBuffer target) throws IOException {
+        CodecState state = CodecState.acquire();
+        try {
+            Deflater deflater = gzip ? state.rawDeflater() : state.zlibDeflater();
+            deflater.setInput(data, offset, length);
+            deflater.finish();
+
+            ByteBuffer buffer = CodecState.prepare(target, length / 2);
+            if (gzip) buffer = CodecState.ensureRemaining(buffer, GZIP_HEADER.length).put(GZIP_HEADER);
+
+            while (!deflater.finished()) {
+                buffer = CodecState.ensureRemaining(buffer, 1);
+                deflater.deflate(buffer);
+            }
+
+            if (gzip) {
+                CRC32 crc = state.crc();
+                crc.update(data, offset, length);
+                buffer = CodecState.ensureRemaining(buffer, GZIP_TRAILER_SIZE);
+                putIntLE(buffer, (int) crc.getValue());
+                putIntLE(buffer, length);
+            }
+
+            return buffer.flip();
+        } finally {
+            state.release();
+        }
+    }
+
+    @Override
+    public ByteBuffer decompress(byte[] data, int offset, int length, @Nullable ByteBuffer target) throws IOException {
+        CodecState state = CodecState.acquire();
+        try {
+            int end = offset + length;
+            int start = gzip ? skipGzipHeader(data, offset, end) : offset;
+
+            Inflater inflater = gzip ? state.rawInflater() : state.zlibInflater();
+            inflater.setInput(data, start, end - start);
+
+            ByteBuffer buffer = CodecState.prepare(target, length * 4);
+            while (!inflater.finished()) {
+                buffer = CodecState.ensureRemaining(buffer, 1);
+                if (inflater.inflate(buffer) == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new EOFException("Unexpected end of compressed data");
+            }
+
+            if (gzip) {
+                int trailer = end - inflater.getRemaining();
+                if (trailer + GZIP_TRAILER_SIZE > end)
+                    throw new EOFException("Unexpected end of gzip data");
+
+                CRC32 crc = state.crc();
+                crc.update(buffer.array(), buffer.arrayOffset(), buffer.position());
+                if (getIntLE(data, trailer) != (int) crc.getValue() || getIntLE(data, trailer + 4) != (int) inflater.getBytesWritten())
+                    throw new ZipException("Corrupt gzip data (invalid trailer)");
+            }
+
+            return buffer.flip();
+        } catch (DataFormatException ex) {
+            throw new ZipException("Invalid compressed data: " + ex.getMessage());
+        } finally {
+            state.release();
+        }
+    }
+
+    /**
+     * Validates the gzip-header and returns the index of the first byte after it
+     */
+    private static int skipGzipHeader(byte[] data, int offset, int end) throws IOException {
+        if (end - offset < GZIP_HEADER.length || getShortLE(data, offset) != GZIP_MAGIC || data[offset + 2] != Deflater.DEFLATED)
+            throw new ZipException("Not in gzip format");
+
+        int flags = data[offset + 3] & 0xFF;
+        int i = offset + GZIP_HEADER.length;
+
+        try {
+            if ((flags & FEXTRA) != 0) i += getShortLE(data, i) + 2;
+            if ((flags & FNAME) != 0) while (data[i++] != 0);
+            if ((flags & FCOMMENT) != 0) while (data[i++] != 0);
+            if ((flags & FHCRC) != 0) i += 2;
+        } catch (IndexOutOfBoundsException ex) {
+            throw new EOFException("Unexpected end of gzip header");
+        }
+
+        if (i > end) throw new EOFException("Unexpected end of gzip header");
+        return i;
+    }
+
+    /**
+     * Reads and validates the gzip-header from the given stream
+     */
+    private static void readGzipHeader(InputStream in) throws IOException {
+        byte[] header = in.readNBytes(GZIP_HEADER.length);
+        if (header.length < GZIP_HEADER.length || getShortLE(header, 0) != GZIP_MAGIC || header[2] != Deflater.DEFLATED)
+            throw new ZipException("Not in gzip format");
+
+        int flags = header[3] & 0xFF;
+        if ((flags & FEXTRA) != 0) skipFully(in, readUnsignedByte(in) | readUnsignedByte(in) << 8);
+        if ((flags & FNAME) != 0) while (readUnsignedByte(in) != 0);
+        if ((flags & FCOMMENT) != 0) while (readUnsignedByte(in) != 0);
+        if ((flags & FHCRC) != 0) skipFully(in, 2);
+    }
+
+    private static int readUnsignedByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) throw new EOFException("Unexpected end of gzip header");
+        return b;
+    }
+
+    private static void skipFully(InputStream in, int n) throws IOException {
+        if (in.readNBytes(n).length < n) throw new EOFException("Unexpected end of gzip header");
+    }
+
+    private static int getShortLE(byte[] data, int i) {
+        return (data[i] & 0xFF) | (data[i + 1] & 0xFF) << 8;
+    }
+
+    private static int getIntLE(byte[] data, int i) {
+        return getShortLE(data, i) | getShortLE(data, i + 2) << 16;
+    }
+
+    private static void putIntLE(ByteBuffer buffer, int value) {
+        buffer.put((byte) value);
+        buffer.put((byte) (value >> 8));
+        buffer.put((byte) (value >> 16));
+        buffer.put((byte) (value >> 24));
+    }
+
+    private static class PooledDeflaterOutputStream extends DeflaterOutputStream {
+
+        private final CodecState state;
+        private final boolean gzip;
+        private boolean released;
+
+        public PooledDeflaterOutputStream(OutputStream out, boolean gzip) throws IOException {
+            this(out, CodecState.acquire(), gzip);
+        }
+
+        private PooledDeflaterOutputStream(OutputStream out, CodecState state, boolean gzip) throws IOException {
+            super(out, gzip ? state.rawDeflater() : state.zlibDeflater());
+            this.state = state;
+            this.gzip = gzip;
+
+            if (gzip) out.write(GZIP_HEADER);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            if (gzip) state.crc().update(b, off, len);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (def.finished()) return;
+            super.finish();
+
+            if (gzip) {
+                byte[] trailer = new byte[GZIP_TRAILER_SIZE];
+                ByteBuffer trailerBuffer = ByteBuffer.wrap(trailer);
+                putIntLE(trailerBuffer, (int) state.crc().getValue());
+                putIntLE(trailerBuffer, (int) def.getBytesRead());
+                out.write(trailer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!released) {
+                    released = true;
+                    state.release();
+                }
+            }
+        }
+
+    }
+
+    private static class PooledInflaterInputStream extends InflaterInputStream {
+
+        private final CodecState state;
+        private final boolean gzip;
+        private boolean released, trailerChecked;
+
+        public PooledInflaterInputStream(InputStream in, boolean gzip) throws IOException {
+            this(in, CodecState.acquire(), gzip);
+        }
+
+        private PooledInflaterInputStream(InputStream in, CodecState state, boolean gzip) throws IOException {
+            super(in, gzip ? state.rawInflater() : state.zlibInflater());
+            this.state = state;
+            this.gzip = gzip;
+
+            if (gzip) {
+                try {
+                    readGzipHeader(in);
+                } catch (IOException ex) {
+                    release();
+                    throw ex;
+                }
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (gzip) {
+                if (read > 0) state.crc().update(b, off, read);
+                else if (read < 0 && !trailerChecked) checkGzipTrailer();
+            }
+            return read;
+        }
+
+        /**
+         * Reads the gzip-trailer (partially still in the input-buffer) and validates the crc and size of the inflated data
+         */
+        private void checkGzipTrailer() throws IOException {
+            trailerChecked = true;
+
+            byte[] trailer = new byte[GZIP_TRAILER_SIZE];
+            int buffered = Math.min(inf.getRemaining(), GZIP_TRAILER_SIZE);
+            System.arraycopy(buf, len - inf.getRemaining(), trailer, 0, buffered);
+            if (in.readNBytes(trailer, buffered, GZIP_TRAILER_SIZE - buffered) < GZIP_TRAILER_SIZE - buffered)
+                throw new EOFException("Unexpected end of gzip data");
+
+            if (getIntLE(trailer, 0) != (int) state.crc().getValue() || getIntLE(trailer, 4) != (int) inf.getBytesWritten())
+                throw new ZipException("Corrupt gzip data (invalid trailer)");
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release();
+            }
+        }
+
+        private void release() {
+            if (!released) {
+                released = true;
+                state.release();
+            }
+        }
+
+    }
+
+}
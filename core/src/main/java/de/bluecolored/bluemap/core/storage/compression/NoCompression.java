@@ -27,8 +27,10 @@
 import de.bluecolored.bluemap.core.util.Key;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 
 @RequiredArgsConstructor
 public class NoCompression implements Compression {
@@ -47,4 +49,19 @@ public InputStream decompress(InputStream in) throws IOException {
         return new BufferedInputStream(in);
     }
 
+    @Override
+    public ByteBuffer compress(byte[] data, int offset, int length, @Nullable ByteBuffer target) {
+        return copy(data, offset, length, target);
+    }
+
+    @Override
+    public ByteBuffer decompress(byte[] data, int offset, int length, @Nullable ByteBuffer target) {
+        return copy(data, offset, length, target);
+    }
+
+    private static ByteBuffer copy(byte[] data, int offset, int length, @Nullable ByteBuffer target) {
+        ByteBuffer buffer = CodecState.ensureRemaining(CodecState.prepare(target, length), length);
+        return buffer.put(data, offset, length).flip();
+    }
+
 }
@@ -0,0 +1,412 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.storage.file;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import de.bluecolored.bluemap.core.metrics.event.StorageReadEvent;
+import de.bluecolored.bluemap.core.metrics.event.StorageWriteEvent;
+import de.bluecolored.bluemap.core.storage.GridStorage;
+import de.bluecolored.bluemap.core.storage.ItemStorage;
+import de.bluecolored.bluemap.core.storage.compression.CompressedInputStream;
+import de.bluecolored.bluemap.core.storage.compression.Compression;
+import de.bluecolored.bluemap.core.util.Caches;
+import de.bluecolored.bluemap.core.util.FileHelper;
+import de.bluecolored.bluemap.core.util.stream.OnCloseOutputStream;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A {@link GridStorage} that packs the items of {@value #ARCHIVE_SIZE}x{@value #ARCHIVE_SIZE} grid-cells
+ * into one archive-file.
+ * <p>
+ * An archive starts with a header: 4 magic-bytes followed by an index with one entry (8 byte offset, 4 byte length)
+ * for each cell of the archive. The item-data follows the header.<br>
+ * Written items are always appended to the end of the archive before their index-entry is updated.
+ * The space of overwritten or deleted items is reclaimed by compacting the archive once it makes up more than
+ * half of the archive.
+ */
+public class ArchiveGridStorage implements GridStorage {
+
+    private static final Pattern ARCHIVE_NAME_PATTERN = Pattern.compile("x(-?\\d+)z(-?\\d+)");
+
+    private static final int ARCHIVE_SIZE_SHIFT = 5;
+    private static final int ARCHIVE_SIZE = 1 << ARCHIVE_SIZE_SHIFT;
+    private static final int ARCHIVE_SIZE_MASK = ARCHIVE_SIZE - 1;
+    private static final int CELL_COUNT = ARCHIVE_SIZE * ARCHIVE_SIZE;
+
+    private static final int MAGIC = 0x424D4131; // "BMA1"
+    private static final int ENTRY_SIZE = 12;
+    private static final int HEADER_SIZE = 4 + CELL_COUNT * ENTRY_SIZE;
+
+    private static final long MIN_COMPACTION_GARBAGE = 1024 * 1024;
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path root;
+    private final String suffix;
+    private final Compression compression;
+    private final ReadWriteLock[] locks;
+
+    // the total length of all indexed items of recently written archives, updated with every write,
+    // so the index doesn't need to be read again to decide if the archive needs to be compacted
+    private final Cache<Path, Long> liveBytes = Caches.with()
+            .maximumSize(1024)
+            .build();
+
+    public ArchiveGridStorage(Path root, String suffix, Compression compression) {
+        this.root = root;
+        this.suffix = suffix;
+        this.compression = compression;
+
+        this.locks = new ReadWriteLock[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++)
+            locks[i] = new ReentrantReadWriteLock();
+    }
+
+    @Override
+    public OutputStream write(int x, int z) throws IOException {
+        StorageWriteEvent event = new StorageWriteEvent();
+        event.begin();
+        ItemBuffer buffer = new ItemBuffer();
+        return compression.compress(new OnCloseOutputStream(buffer, () -> {
+            writeItem(x, z, buffer.asByteBuffer());
+            event.finish("archive", x, z, buffer.size());
+        }));
+    }
+
+    @Override
+    public @Nullable CompressedInputStream read(int x, int z) throws IOException {
+        StorageReadEvent event = new StorageReadEvent();
+        event.begin();
+        CompressedInputStream in = readItem(x, z);
+        event.finish("archive", x, z, in);
+        return in;
+    }
+
+    private @Nullable CompressedInputStream readItem(int x, int z) throws IOException {
+        int ax = x >> ARCHIVE_SIZE_SHIFT, az = z >> ARCHIVE_SIZE_SHIFT;
+        Path archive = getArchivePath(ax, az);
+
+        Lock lock = lock(ax, az).readLock();
+        lock.lock();
+        try {
+            if (!Files.exists(archive)) return null;
+            try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+                if (channel.size() < HEADER_SIZE) return null;
+
+                ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+                readFully(channel, entry, entryPosition(x, z));
+                long offset = entry.getLong(0);
+                int length = entry.getInt(8);
+                if (length <= 0) return null;
+
+                // seek to the item and only read its data
+                ByteBuffer data = ByteBuffer.allocate(length);
+                readFully(channel, data, offset);
+                return new CompressedInputStream(new ByteArrayInputStream(data.array()), compression);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(int x, int z) throws IOException {
+        int ax = x >> ARCHIVE_SIZE_SHIFT, az = z >> ARCHIVE_SIZE_SHIFT;
+        Path archive = getArchivePath(ax, az);
+
+        Lock lock = lock(ax, az).writeLock();
+        lock.lock();
+        try {
+            if (!Files.exists(archive)) return;
+
+            boolean empty;
+            try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (channel.size() < HEADER_SIZE) return;
+                long live = liveBytes(archive, channel) - entryLength(channel, x, z);
+                writeFully(channel, ByteBuffer.allocate(ENTRY_SIZE), entryPosition(x, z));
+                liveBytes.put(archive, live);
+                empty = live == 0;
+            }
+
+            if (empty) {
+                Files.deleteIfExists(archive);
+                liveBytes.invalidate(archive);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean exists(int x, int z) throws IOException {
+        int ax = x >> ARCHIVE_SIZE_SHIFT, az = z >> ARCHIVE_SIZE_SHIFT;
+        Path archive = getArchivePath(ax, az);
+
+        Lock lock = lock(ax, az).readLock();
+        lock.lock();
+        try {
+            if (!Files.exists(archive)) return false;
+            try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+                if (channel.size() < HEADER_SIZE) return false;
+
+                ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+                readFully(channel, entry, entryPosition(x, z));
+                return entry.getInt(8) > 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public ItemStorage cell(int x, int z) {
+        return new GridStorageCell(this, x, z);
+    }
+
+    @Override
+    public Stream<Cell> stream() throws IOException {
+        if (!Files.exists(root)) return Stream.empty();
+
+        List<Path> archives;
+        try (Stream<Path> files = Files.list(root)) {
+            archives = files
+                    .filter(Files::isRegularFile)
+                    .toList();
+        }
+
+        return archives.stream()
+                .flatMap(archive -> {
+                    String name = archive.getFileName().toString();
+                    if (!name.endsWith(suffix)) return Stream.empty();
+                    name = name.substring(0, name.length() - suffix.length());
+
+                    Matcher matcher = ARCHIVE_NAME_PATTERN.matcher(name);
+                    if (!matcher.matches()) return Stream.empty();
+                    int ax = Integer.parseInt(matcher.group(1));
+                    int az = Integer.parseInt(matcher.group(2));
+
+                    ByteBuffer index = readIndex(ax, az);
+                    if (index == null) return Stream.empty();
+
+                    return IntStream.range(0, CELL_COUNT)
+                            .filter(i -> index.getInt(4 + i * ENTRY_SIZE + 8) > 0)
+                            .mapToObj(i -> new GridStorageCell(this,
+                                    (ax << ARCHIVE_SIZE_SHIFT) + (i & ARCHIVE_SIZE_MASK),
+                                    (az << ARCHIVE_SIZE_SHIFT) + (i >> ARCHIVE_SIZE_SHIFT)
+                            ));
+                });
+    }
+
+    @Override
+    public boolean isClosed() {
+        return false;
+    }
+
+    public Path getArchivePath(int ax, int az) {
+        return root.resolve("x" + ax + "z" + az + suffix);
+    }
+
+    private void writeItem(int x, int z, ByteBuffer data) throws IOException {
+        int ax = x >> ARCHIVE_SIZE_SHIFT, az = z >> ARCHIVE_SIZE_SHIFT;
+        Path archive = getArchivePath(ax, az);
+
+        Lock lock = lock(ax, az).writeLock();
+        lock.lock();
+        try {
+            boolean compact;
+
+            FileHelper.createDirectories(root);
+            try (FileChannel channel = FileChannel.open(archive,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+
+                // initialize new archives with an empty index
+                long size = channel.size();
+                long live;
+                if (size < HEADER_SIZE) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                    header.putInt(0, MAGIC);
+                    writeFully(channel, header, 0);
+                    size = HEADER_SIZE;
+                    live = 0;
+                } else {
+                    live = liveBytes(archive, channel) - entryLength(channel, x, z);
+                }
+
+                // append the data first, then point the index to it
+                int length = data.remaining();
+                writeFully(channel, data, size);
+
+                ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+                entry.putLong(0, length > 0 ? size : 0);
+                entry.putInt(8, length);
+                writeFully(channel, entry, entryPosition(x, z));
+
+                live += length;
+                liveBytes.put(archive, live);
+
+                long garbage = size + length - HEADER_SIZE - live;
+                compact = garbage > MIN_COMPACTION_GARBAGE && garbage > size + length - garbage;
+            }
+
+            if (compact) compact(archive);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites the archive with only the currently indexed items.
+     * Needs to be called while holding the write-lock of the archive.
+     */
+    private void compact(Path archive) throws IOException {
+        Path tempArchive = archive.resolveSibling(archive.getFileName() + ".filepart");
+
+        try (
+                FileChannel source = FileChannel.open(archive, StandardOpenOption.READ);
+                FileChannel target = FileChannel.open(tempArchive,
+                        StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)
+        ) {
+            ByteBuffer index = readIndex(source);
+            long position = HEADER_SIZE;
+            for (int i = 0; i < CELL_COUNT; i++) {
+                int entry = 4 + i * ENTRY_SIZE;
+                int length = index.getInt(entry + 8);
+                if (length <= 0) continue;
+
+                long offset = index.getLong(entry);
+                long transferred = 0;
+                while (transferred < length)
+                    transferred += source.transferTo(offset + transferred, length - transferred, target.position(position + transferred));
+
+                index.putLong(entry, position);
+                position += length;
+            }
+
+            writeFully(target, index, 0);
+        }
+
+        FileHelper.atomicMove(tempArchive, archive);
+    }
+
+    private @Nullable ByteBuffer readIndex(int ax, int az) {
+        Path archive = getArchivePath(ax, az);
+
+        Lock lock = lock(ax, az).readLock();
+        lock.lock();
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) return null;
+            return readIndex(channel);
+        } catch (IOException ex) {
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ByteBuffer readIndex(FileChannel channel) throws IOException {
+        ByteBuffer index = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, index, 0);
+        if (index.getInt(0) != MAGIC)
+            throw new IOException("Invalid archive-file: Wrong magic bytes");
+        return index;
+    }
+
+    /**
+     * Returns the total length of all indexed items of the archive, the index is only read if it is not known yet.
+     * Needs to be called while holding the write-lock of the archive.
+     */
+    private long liveBytes(Path archive, FileChannel channel) throws IOException {
+        Long live = liveBytes.getIfPresent(archive);
+        if (live != null) return live;
+        return liveBytes(readIndex(channel));
+    }
+
+    private static int entryLength(FileChannel channel, int x, int z) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+        readFully(channel, entry, entryPosition(x, z));
+        return entry.getInt(8);
+    }
+
+    private ReadWriteLock lock(int ax, int az) {
+        return locks[Math.floorMod(Objects.hash(ax, az), LOCK_STRIPES)];
+    }
+
+    private static long liveBytes(ByteBuffer index) {
+        long live = 0;
+        for (int i = 0; i < CELL_COUNT; i++)
+            live += index.getInt(4 + i * ENTRY_SIZE + 8);
+        return live;
+    }
+
+    private static long entryPosition(int x, int z) {
+        return 4 + (long) ((z & ARCHIVE_SIZE_MASK) * ARCHIVE_SIZE + (x & ARCHIVE_SIZE_MASK)) * ENTRY_SIZE;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) throw new EOFException("Unexpected end of archive-file");
+        }
+        buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    private static class ItemBuffer extends ByteArrayOutputStream {
+
+        private ItemBuffer() {
+            super(4096);
+        }
+
+        public synchronized ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+    }
+
+}
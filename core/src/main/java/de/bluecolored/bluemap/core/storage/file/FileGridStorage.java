@@ -24,11 +24,14 @@
  */
 package de.bluecolored.bluemap.core.storage.file;
 
+import de.bluecolored.bluemap.core.metrics.event.StorageReadEvent;
+import de.bluecolored.bluemap.core.metrics.event.StorageWriteEvent;
 import de.bluecolored.bluemap.core.storage.GridStorage;
 import de.bluecolored.bluemap.core.storage.ItemStorage;
 import de.bluecolored.bluemap.core.storage.compression.CompressedInputStream;
 import de.bluecolored.bluemap.core.storage.compression.Compression;
 import de.bluecolored.bluemap.core.util.FileHelper;
+import de.bluecolored.bluemap.core.util.stream.OnCloseOutputStream;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.Nullable;
@@ -55,12 +58,35 @@ public class FileGridStorage implements GridStorage {
 
     @Override
     public OutputStream write(int x, int z) throws IOException {
-        return cell(x, z).write();
+        StorageWriteEvent event = new StorageWriteEvent();
+        if (!event.isEnabled()) return cell(x, z).write();
+
+        event.begin();
+        Path itemPath = getItemPath(x, z);
+        return new OnCloseOutputStream(new FileItemStorage(itemPath, compression, atomic).write(),
+                () -> event.finish("file", x, z, storedSize(itemPath))
+        );
+    }
+
+    /**
+     * Returns the size of the written item for the {@link StorageWriteEvent}, or -1 if it can't be determined.<br>
+     * The item has already been written successfully at this point, so this must not fail the write.
+     */
+    private static long storedSize(Path itemPath) {
+        try {
+            return Files.size(itemPath);
+        } catch (IOException ex) {
+            return -1;
+        }
     }
 
     @Override
     public @Nullable CompressedInputStream read(int x, int z) throws IOException {
-        return cell(x, z).read();
+        StorageReadEvent event = new StorageReadEvent();
+        event.begin();
+        CompressedInputStream in = cell(x, z).read();
+        event.finish("file", x, z, in);
+        return in;
     }
 
     @Override
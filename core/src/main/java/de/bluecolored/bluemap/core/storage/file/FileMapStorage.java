@@ -25,6 +25,7 @@
 package de.bluecolored.bluemap.core.storage.file;
 
 import com.github.benmanes.caffeine.cache.LoadingCache;
+import de.bluecolored.bluemap.core.storage.DeduplicatingGridStorage;
 import de.bluecolored.bluemap.core.storage.GridStorage;
 import de.bluecolored.bluemap.core.storage.ItemStorage;
 import de.bluecolored.bluemap.core.storage.MapStorage;
@@ -36,7 +37,9 @@
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.function.DoublePredicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -46,10 +49,13 @@ public class FileMapStorage implements MapStorage {
     private static final String TILES_PATH = "tiles";
     private static final String RENDER_STATE_PATH = "rstate";
     private static final String LIVE_PATH = "live";
+    private static final String ARCHIVE_SUFFIX = ".pack";
+    private static final String SHARED_TILES_PATH = "shared";
 
     private final Path root;
     private final Compression compression;
     private final boolean atomic;
+    private final boolean packed;
 
     private final GridStorage hiresGridStorage;
     private final LoadingCache<Integer, GridStorage> lowresGridStorages;
@@ -58,39 +64,67 @@ public class FileMapStorage implements MapStorage {
     private final GridStorage regionStateStorage;
 
     public FileMapStorage(Path root, Compression compression, boolean atomic) {
+        this(root, compression, atomic, false);
+    }
+
+    /**
+     * @param packed whether the grid-items (tiles and render-state) should be packed into archive-files
+     *               using {@link ArchiveGridStorage}s, instead of storing them as one file each
+     */
+    public FileMapStorage(Path root, Compression compression, boolean atomic, boolean packed) {
+        this(root, compression, atomic, packed, false);
+    }
+
+    /**
+     * @param packed whether the grid-items (tiles and render-state) should be packed into archive-files
+     *               using {@link ArchiveGridStorage}s, instead of storing them as one file each
+     * @param deduplicate whether identical hires-tiles should only be stored once
+     *                    using a {@link DeduplicatingGridStorage}
+     */
+    public FileMapStorage(Path root, Compression compression, boolean atomic, boolean packed, boolean deduplicate) {
         this.root = root;
         this.compression = compression;
         this.atomic = atomic;
+        this.packed = packed;
 
-        this.hiresGridStorage = new FileGridStorage(
+        GridStorage hiresGridStorage = createGridStorage(
                 root.resolve(TILES_PATH).resolve("0"),
                 ".prbm" + compression.getFileSuffix(),
                 compression,
                 atomic
         );
+        if (deduplicate) {
+            Path sharedRoot = root.resolve(TILES_PATH).resolve(SHARED_TILES_PATH);
+            hiresGridStorage = new DeduplicatingGridStorage(
+                    hiresGridStorage,
+                    createGridStorage(sharedRoot, ".prbm" + compression.getFileSuffix(), compression, atomic),
+                    createGridStorage(sharedRoot, ".index", Compression.NONE, atomic)
+            );
+        }
+        this.hiresGridStorage = hiresGridStorage;
 
-        this.lowresGridStorages = Caches.build(lod -> new FileGridStorage(
+        this.lowresGridStorages = Caches.build(lod -> createGridStorage(
                 root.resolve(TILES_PATH).resolve(String.valueOf(lod)),
                 ".png",
                 Compression.NONE,
                 atomic
         ));
 
-        this.tileStateStorage = new FileGridStorage(
+        this.tileStateStorage = createGridStorage(
                 root.resolve(RENDER_STATE_PATH),
                 ".tiles.dat",
                 Compression.GZIP,
                 atomic
         );
 
-        this.chunkStateStorage = new FileGridStorage(
+        this.chunkStateStorage = createGridStorage(
                 root.resolve(RENDER_STATE_PATH),
                 ".chunks.dat",
                 Compression.GZIP,
                 atomic
         );
 
-        this.regionStateStorage = new FileGridStorage(
+        this.regionStateStorage = createGridStorage(
                 root.resolve(RENDER_STATE_PATH).resolve("regions"),
                 ".regions.dat",
                 Compression.GZIP,
@@ -99,6 +133,11 @@ public FileMapStorage(Path root, Compression compression, boolean atomic) {
 
     }
 
+    private GridStorage createGridStorage(Path root, String suffix, Compression compression, boolean atomic) {
+        if (packed) return new ArchiveGridStorage(root, suffix + ARCHIVE_SUFFIX, compression);
+        return new FileGridStorage(root, suffix, compression, atomic);
+    }
+
     @Override
     public GridStorage hiresTiles() {
         return hiresGridStorage;
@@ -188,6 +227,22 @@ public void delete(DoublePredicate onProgress) throws IOException {
             Files.walkFileTree(root, DeletingPathVisitor.INSTANCE);
     }
 
+    @Override
+    public Collection<DeletionStep> splitDeletion() throws IOException {
+        if (!Files.exists(root)) return List.of();
+
+        // one step for each sub-tree on the third level (e.g. a column of tiles)
+        try (Stream<Path> pathStream = FileHelper.walk(root, 3)) {
+            return pathStream
+                    .filter(path -> root.relativize(path).getNameCount() == 3)
+                    .<DeletionStep>map(path -> () -> {
+                        if (Files.exists(path))
+                            Files.walkFileTree(path, DeletingPathVisitor.INSTANCE);
+                    })
+                    .toList();
+        }
+    }
+
     @Override
     public boolean exists() throws IOException {
         return Files.exists(root);
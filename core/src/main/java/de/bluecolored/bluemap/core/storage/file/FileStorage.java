@@ -41,8 +41,26 @@ public class FileStorage implements Storage {
     private final LoadingCache<String, FileMapStorage> mapStorages;
 
     public FileStorage(Path root, Compression compression, boolean atomic) {
+        this(root, compression, atomic, false);
+    }
+
+    /**
+     * @param packed whether the tiles and render-state of the maps should be packed into archive-files
+     * @see ArchiveGridStorage
+     */
+    public FileStorage(Path root, Compression compression, boolean atomic, boolean packed) {
+        this(root, compression, atomic, packed, false);
+    }
+
+    /**
+     * @param packed whether the tiles and render-state of the maps should be packed into archive-files
+     * @param deduplicate whether identical hires-tiles should only be stored once
+     * @see ArchiveGridStorage
+     * @see de.bluecolored.bluemap.core.storage.DeduplicatingGridStorage
+     */
+    public FileStorage(Path root, Compression compression, boolean atomic, boolean packed, boolean deduplicate) {
         this.root = root;
-        mapStorages = Caches.build(id -> new FileMapStorage(root.resolve(id), compression, atomic));
+        mapStorages = Caches.build(id -> new FileMapStorage(root.resolve(id), compression, atomic, packed, deduplicate));
     }
 
     @Override
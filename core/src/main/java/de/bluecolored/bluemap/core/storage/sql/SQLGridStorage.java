@@ -24,6 +24,8 @@
  */
 package de.bluecolored.bluemap.core.storage.sql;
 
+import de.bluecolored.bluemap.core.metrics.event.StorageReadEvent;
+import de.bluecolored.bluemap.core.metrics.event.StorageWriteEvent;
 import de.bluecolored.bluemap.core.storage.ItemStorage;
 import de.bluecolored.bluemap.core.storage.compression.CompressedInputStream;
 import de.bluecolored.bluemap.core.storage.compression.Compression;
@@ -48,17 +50,24 @@ public class SQLGridStorage implements GridStorage {
 
     @Override
     public OutputStream write(int x, int z) throws IOException {
+        StorageWriteEvent event = new StorageWriteEvent();
+        event.begin();
         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        return new OnCloseOutputStream(compression.compress(bytes),
-                () -> sql.writeGridItem(map, storage, x, z, compression, bytes.toByteArray())
-        );
+        return new OnCloseOutputStream(compression.compress(bytes), () -> {
+            byte[] data = bytes.toByteArray();
+            sql.writeGridItem(map, storage, x, z, compression, data);
+            event.finish("sql", x, z, data.length);
+        });
     }
 
     @Override
     public @Nullable CompressedInputStream read(int x, int z) throws IOException {
+        StorageReadEvent event = new StorageReadEvent();
+        event.begin();
         byte[] data = sql.readGridItem(map, storage, x, z, compression);
-        if (data == null) return null;
-        return new CompressedInputStream(new ByteArrayInputStream(data), compression);
+        CompressedInputStream in = data != null ? new CompressedInputStream(new ByteArrayInputStream(data), compression) : null;
+        event.finish("sql", x, z, in);
+        return in;
     }
 
     @Override
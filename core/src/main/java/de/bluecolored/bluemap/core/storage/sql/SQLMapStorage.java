@@ -34,10 +34,15 @@
 import de.bluecolored.bluemap.core.util.Key;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.function.DoublePredicate;
 
 public class SQLMapStorage extends KeyedMapStorage {
 
+    private static final int PURGE_BATCH_SIZE = 20000;
+
     private final String mapId;
     private final CommandSet sql;
 
@@ -45,7 +50,11 @@ public class SQLMapStorage extends KeyedMapStorage {
     private final Cache<Key, GridStorage> gridStorages = Caches.build();
 
     public SQLMapStorage(String mapId, CommandSet sql, Compression compression) {
-        super(compression);
+        this(mapId, sql, compression, false);
+    }
+
+    public SQLMapStorage(String mapId, CommandSet sql, Compression compression, boolean deduplicateHiresTiles) {
+        super(compression, deduplicateHiresTiles);
 
         this.mapId = mapId;
         this.sql = sql;
@@ -70,13 +79,13 @@ public GridStorage grid(Key key, Compression compression) {
     @Override
     public void delete(DoublePredicate onProgress) throws IOException {
 
-        // delete tiles in 1000er steps to track progress
+        // delete tiles in batches to track progress
         int tileCount = sql.countMapGridsItems(mapId);
         if (tileCount > 0) {
             int totalDeleted = 0;
             int deleted = 0;
             do {
-                deleted = sql.purgeMapGrids(mapId, 1000);
+                deleted = sql.purgeMapGrids(mapId, PURGE_BATCH_SIZE);
                 totalDeleted += deleted;
 
                 if (!onProgress.test((double) totalDeleted / tileCount))
@@ -90,6 +99,25 @@ public void delete(DoublePredicate onProgress) throws IOException {
 
     }
 
+    @Override
+    public Collection<DeletionStep> splitDeletion() throws IOException {
+
+        // each step deletes a disjoint range of x-coordinates from one grid-storage in its own transaction,
+        // so steps running in parallel never compete for the same rows
+        List<DeletionStep> steps = new ArrayList<>();
+        for (CommandSet.GridStorageExtent extent : sql.listMapGridsExtents(mapId)) {
+            long width = (long) extent.maxX() - extent.minX() + 1;
+            long slices = Math.min(width, Math.ceilDiv(extent.count(), PURGE_BATCH_SIZE));
+            for (long i = 0; i < slices; i++) {
+                int minX = (int) (extent.minX() + width * i / slices);
+                int maxX = (int) (extent.minX() + width * (i + 1) / slices - 1);
+                steps.add(() -> sql.purgeMapGrids(mapId, extent.storage(), minX, maxX));
+            }
+        }
+
+        return steps;
+    }
+
     @Override
     public boolean exists() throws IOException {
         return sql.hasMap(mapId);
@@ -41,6 +41,7 @@ public class SQLStorage implements Storage {
 
     private final CommandSet sql;
     private final Compression compression;
+    private final boolean deduplicateHiresTiles;
     private final LoadingCache<String, SQLMapStorage> mapStorages = Caches.build(this::create);
 
     @Override
@@ -49,7 +50,7 @@ public void initialize() throws IOException {
     }
 
     private SQLMapStorage create(String mapId) {
-        return new SQLMapStorage(mapId, sql, compression);
+        return new SQLMapStorage(mapId, sql, compression, deduplicateHiresTiles);
     }
 
     @Override
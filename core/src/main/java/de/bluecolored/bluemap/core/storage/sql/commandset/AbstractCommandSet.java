@@ -310,6 +310,46 @@ public int purgeMapGrids(String mapId, int limit) throws IOException {
         });
     }
 
+    @Language("sql")
+    public abstract String gridStorageMapExtentsStatement();
+
+    @Override
+    public GridStorageExtent[] listMapGridsExtents(String mapId) throws IOException {
+        int mapKey = mapKey(mapId);
+        return db.run(connection -> {
+            ResultSet result = executeQuery(connection,
+                    gridStorageMapExtentsStatement(),
+                    mapKey
+            );
+
+            List<GridStorageExtent> extents = new ArrayList<>();
+            while (result.next()) {
+                extents.add(new GridStorageExtent(
+                        Key.parse(result.getString(1)),
+                        result.getInt(2),
+                        result.getInt(3),
+                        result.getInt(4)
+                ));
+            }
+            return extents.toArray(GridStorageExtent[]::new);
+        });
+    }
+
+    @Language("sql")
+    public abstract String gridStoragePurgeMapRangeStatement();
+
+    @Override
+    public int purgeMapGrids(String mapId, Key key, int minX, int maxX) throws IOException {
+        int mapKey = mapKey(mapId);
+        int storageKey = gridStorageKey(key);
+        return db.run(connection -> {
+            return executeUpdate(connection,
+                    gridStoragePurgeMapRangeStatement(),
+                    mapKey, storageKey, minX, maxX
+            );
+        });
+    }
+
     @Language("sql")
     public abstract String purgeMapStatement();
 
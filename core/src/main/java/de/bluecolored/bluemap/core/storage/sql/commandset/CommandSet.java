@@ -69,6 +69,10 @@ TilePosition[] listGridItems(
 
     int purgeMapGrids(String mapId, int limit) throws IOException;
 
+    GridStorageExtent[] listMapGridsExtents(String mapId) throws IOException;
+
+    int purgeMapGrids(String mapId, Key key, int minX, int maxX) throws IOException;
+
     void purgeMap(String mapId) throws IOException;
 
     boolean hasMap(String mapId) throws IOException;
@@ -79,4 +83,6 @@ TilePosition[] listGridItems(
 
     record TilePosition (int x, int z) {}
 
+    record GridStorageExtent (Key storage, int count, int minX, int maxX) {}
+
 }
@@ -287,6 +287,31 @@ public String gridStoragePurgeMapStatement() {
         """;
     }
 
+    @Override
+    @Language("mysql")
+    public String gridStorageMapExtentsStatement() {
+        return """
+        SELECT s.`key`, COUNT(*), MIN(d.`x`), MAX(d.`x`)
+        FROM `bluemap_grid_storage_data` d
+         INNER JOIN `bluemap_grid_storage` s
+          ON d.`storage` = s.`id`
+        WHERE d.`map` = ?
+        GROUP BY s.`key`
+        """;
+    }
+
+    @Override
+    @Language("mysql")
+    public String gridStoragePurgeMapRangeStatement() {
+        return """
+        DELETE
+        FROM `bluemap_grid_storage_data`
+        WHERE `map` = ?
+        AND `storage` = ?
+        AND `x` BETWEEN ? AND ?
+        """;
+    }
+
     @Override
     @Language("mysql")
     public String purgeMapStatement() {
@@ -0,0 +1,254 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import de.bluecolored.bluemap.core.BlueMap;
+import lombok.Getter;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A memory-budget (in estimated bytes) that is shared between multiple weighted caches.<br>
+ * Caches are registered in a {@link Pool}, which owns a fixed share of the budget.
+ * The share of a pool is split between its caches by their demand: the memory they currently hold plus the memory
+ * they had to load since the last rebalance. This way the caches that are actively used (e.g. the block-chunks
+ * of the world that is being rendered) get most of the share, while idle caches shrink down to a small minimum.<br>
+ * The pools are rebalanced whenever the budget changes, a cache is registered or {@link #rebalance()} is called.
+ * The global budget is rebalanced every few seconds, which also removes caches that have been garbage-collected.
+ */
+public class MemoryBudget {
+
+    private static final MemoryBudget GLOBAL = new MemoryBudget(Runtime.getRuntime().maxMemory() / 4);
+    static {
+        BlueMap.SCHEDULER.scheduleWithFixedDelay(GLOBAL::rebalance, 5, 5, TimeUnit.SECONDS);
+    }
+
+    // every cache gets at least this fraction of its even share, so idle caches don't thrash once they are used again
+    private static final int MINIMUM_SHARE_DIVISOR = 8;
+
+    private final List<Pool> pools = new CopyOnWriteArrayList<>();
+    @Getter private volatile long budget;
+
+    public MemoryBudget(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Creates a new {@link Pool} with the given share of this budget
+     * @param name the name of the pool, used for reporting
+     * @param share the share of this budget (0 - 1) the pool gets
+     */
+    public Pool pool(String name, double share) {
+        Pool pool = new Pool(name, share);
+        pools.add(pool);
+        return pool;
+    }
+
+    public void setBudget(long budget) {
+        if (this.budget == budget) return;
+        this.budget = budget;
+        rebalance();
+    }
+
+    /**
+     * Redistributes the share of all pools between their caches, based on the current demand of each cache
+     */
+    public void rebalance() {
+        pools.forEach(Pool::rebalance);
+    }
+
+    /**
+     * Returns the sum of the estimated bytes currently held by all caches of this budget
+     */
+    public long getUsage() {
+        long usage = 0;
+        for (Pool pool : pools)
+            usage += pool.getUsage();
+        return usage;
+    }
+
+    public List<Pool> getPools() {
+        return List.copyOf(pools);
+    }
+
+    public static MemoryBudget global() {
+        return GLOBAL;
+    }
+
+    public class Pool {
+
+        @Getter private final String name;
+        @Getter private final double share;
+        private final List<Registration> caches = new ArrayList<>();
+        private final ReferenceQueue<Cache<?, ?>> collectedCaches = new ReferenceQueue<>();
+
+        // the last known statistics of all caches that have been garbage-collected
+        private CacheStats collectedStats = CacheStats.empty();
+
+        private Pool(String name, double share) {
+            this.name = name;
+            this.share = share;
+        }
+
+        /**
+         * Registers the given cache in this pool.<br>
+         * The cache has to be built with a maximum-weight, a weigher that estimates the size of an entry in bytes
+         * and with stats recording enabled.
+         */
+        public synchronized <C extends Cache<?, ?>> C register(C cache) {
+            caches.add(new Registration(cache, collectedCaches));
+            rebalance();
+            return cache;
+        }
+
+        /**
+         * The maximum weight a newly built cache of this pool should start with
+         */
+        public synchronized long getMaximumWeight() {
+            return (long) (budget * share) / (caches.size() + 1);
+        }
+
+        public synchronized long getUsage() {
+            long usage = 0;
+            Iterator<Registration> iterator = caches.iterator();
+            while (iterator.hasNext()) {
+                Registration registration = iterator.next();
+                Cache<?, ?> cache = registration.get();
+                if (cache == null) {
+                    collectedStats = collectedStats.plus(registration.lastStats);
+                    iterator.remove();
+                    continue;
+                }
+
+                usage += weightedSize(cache);
+            }
+            return usage;
+        }
+
+        /**
+         * Returns the combined statistics of all caches that have been registered in this pool.<br>
+         * Caches that have been garbage-collected are still included with their last known statistics,
+         * so the counts never decrease.
+         */
+        public synchronized CacheStats getStats() {
+            CacheStats stats = collectedStats;
+            for (Registration registration : caches)
+                stats = stats.plus(registration.stats());
+            return stats;
+        }
+
+        synchronized void rebalance() {
+            // drop registrations of caches that have been garbage-collected
+            if (collectedCaches.poll() != null) {
+                //noinspection StatementWithEmptyBody
+                while (collectedCaches.poll() != null);
+                caches.removeIf(registration -> {
+                    if (registration.get() != null) return false;
+                    collectedStats = collectedStats.plus(registration.lastStats);
+                    return true;
+                });
+            }
+            if (caches.isEmpty()) return;
+
+            long poolBudget = (long) (budget * share);
+            long minimum = poolBudget / ((long) caches.size() * MINIMUM_SHARE_DIVISOR);
+            long distributable = poolBudget - minimum * caches.size();
+
+            long[] demands = new long[caches.size()];
+            long totalDemand = 0;
+            for (int i = 0; i < demands.length; i++) {
+                demands[i] = caches.get(i).demand();
+                totalDemand += demands[i];
+            }
+
+            for (int i = 0; i < demands.length; i++) {
+                Cache<?, ?> cache = caches.get(i).get();
+                if (cache == null) continue;
+
+                long maximumWeight = minimum + (totalDemand > 0 ?
+                        (long) ((double) distributable * demands[i] / totalDemand) :
+                        distributable / demands.length);
+                cache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maximumWeight));
+            }
+        }
+
+    }
+
+    private static class Registration extends WeakReference<Cache<?, ?>> {
+
+        private long lastLoadCount;
+        private CacheStats lastStats;
+
+        private Registration(Cache<?, ?> cache, ReferenceQueue<Cache<?, ?>> queue) {
+            super(cache, queue);
+            this.lastStats = cache.stats();
+            this.lastLoadCount = lastStats.loadCount();
+        }
+
+        /**
+         * The current statistics of the cache, or the last known statistics if it has been garbage-collected
+         */
+        private CacheStats stats() {
+            Cache<?, ?> cache = get();
+            if (cache != null) lastStats = cache.stats();
+            return lastStats;
+        }
+
+        /**
+         * The estimated bytes the cache holds right now plus the estimated bytes it loaded since the last call
+         */
+        private long demand() {
+            Cache<?, ?> cache = get();
+            if (cache == null) return 0;
+
+            long loadCount = stats().loadCount();
+            long loads = loadCount - lastLoadCount;
+            lastLoadCount = loadCount;
+
+            long weightedSize = weightedSize(cache);
+            long entries = cache.estimatedSize();
+            long averageWeight = entries > 0 ? weightedSize / entries : 0;
+            return weightedSize + loads * averageWeight;
+        }
+
+    }
+
+    private static long weightedSize(Cache<?, ?> cache) {
+        Optional<? extends Policy.Eviction<?, ?>> eviction = cache.policy().eviction();
+        if (eviction.isEmpty()) return 0;
+        return eviction.get().weightedSize().orElse(0);
+    }
+
+}
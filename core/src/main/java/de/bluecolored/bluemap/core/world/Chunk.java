@@ -29,19 +29,22 @@
 
 import java.util.function.Consumer;
 
-public interface Chunk {
+public interface Chunk extends ChunkStatus {
 
     Chunk EMPTY_CHUNK = new Chunk() {};
     Chunk ERRORED_CHUNK = new Chunk() {};
 
+    @Override
     default boolean isGenerated() {
         return false;
     }
 
+    @Override
     default boolean hasLightData() {
         return false;
     }
 
+    @Override
     default long getInhabitedTime() {
         return 0;
     }
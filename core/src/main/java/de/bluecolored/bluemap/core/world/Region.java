@@ -24,7 +24,10 @@
  */
 package de.bluecolored.bluemap.core.world;
 
+import com.flowpowered.math.vector.Vector2i;
+
 import java.io.IOException;
+import java.util.Collection;
 
 public interface Region<T> {
 
@@ -62,6 +65,21 @@ public void accept(int chunkX, int chunkZ, T chunk) {
      */
     void iterateAllChunks(ChunkConsumer<T> consumer) throws IOException;
 
+    /**
+     * Lists the given chunks (if they exist in this region) with their last-modified timestamp to the consumer,
+     * without loading them.<br>
+     * (implementations should consider overriding this method to only read the data of the requested chunks)
+     * @param chunks the chunk-positions to list
+     * @param consumer the consumer accepting the existing chunks and their timestamps
+     * @throws IOException if an IOException occurred trying to read the region
+     */
+    default void listChunks(Collection<Vector2i> chunks, ChunkConsumer.ListOnly<T> consumer) throws IOException {
+        iterateAllChunks((ChunkConsumer.ListOnly<T>) (chunkX, chunkZ, lastModified) -> {
+            if (chunks.contains(new Vector2i(chunkX, chunkZ)))
+                consumer.accept(chunkX, chunkZ, lastModified);
+        });
+    }
+
     T emptyChunk();
 
     boolean exists();
@@ -63,6 +63,15 @@ public interface World {
      */
     Chunk getChunk(int x, int z);
 
+    /**
+     * Returns the generation-status of the chunk at the given chunk-coordinates.<br>
+     * Implementations may read this without fully loading the chunk.
+     * For chunks that failed to load {@link Chunk#ERRORED_CHUNK} is returned.
+     */
+    default ChunkStatus getChunkStatus(int x, int z) {
+        return getChunk(x, z);
+    }
+
     /**
      * Returns the {@link Region} on the specified region-position
      */
@@ -105,6 +114,15 @@ default void preloadRegionChunks(int x, int z) {
      */
     void invalidateChunkCache(int x, int z);
 
+    /**
+     * Checks if there might be any entities with a type matching the given filter in the given area.<br>
+     * If this returns <code>false</code>, {@link #iterateEntities(int, int, int, int, Consumer)} would not yield any such entity for that area.
+     * Implementations that can't tell cheaply may always return <code>true</code>.
+     */
+    default boolean hasEntities(int minX, int minZ, int maxX, int maxZ, Predicate<Key> entityTypeFilter) {
+        return true;
+    }
+
     void iterateEntities(int minX, int minZ, int maxX, int maxZ, Consumer<Entity> entityConsumer);
 
     /**
@@ -0,0 +1,144 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.world.mca;
+
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * A concurrent cache for chunks (or regions), keyed by their packed long coordinates.<br>
+ * Every thread remembers its last hit, so repeated lookups of the same chunk (e.g. for every block of a column)
+ * don't need to go through the underlying {@link LoadingCache}.
+ */
+class ChunkCache<T> {
+
+    private final LoadingCache<Long, T> cache;
+    private final ThreadLocal<LastHit<T>> lastHit = ThreadLocal.withInitial(LastHit::new);
+
+    // incremented on every invalidation, to discard the last hits of all threads
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * @param cache the underlying cache, its loader receives the packed coordinates (see {@link #x(long)} and {@link #z(long)})
+     */
+    ChunkCache(LoadingCache<Long, T> cache) {
+        this.cache = cache;
+    }
+
+    public T get(int x, int z) {
+        long key = key(x, z);
+        int generation = this.generation.get();
+
+        LastHit<T> hit = lastHit.get();
+        if (hit.value != null && hit.key == key && hit.generation == generation)
+            return hit.value;
+
+        T value = cache.get(key);
+        hit.key = key;
+        hit.value = value;
+        hit.generation = generation;
+        return value;
+    }
+
+    public @Nullable T getIfPresent(int x, int z) {
+        long key = key(x, z);
+
+        LastHit<T> hit = lastHit.get();
+        if (hit.value != null && hit.key == key && hit.generation == generation.get())
+            return hit.value;
+
+        return cache.getIfPresent(key);
+    }
+
+    public void put(int x, int z, T value) {
+        cache.put(key(x, z), value);
+    }
+
+    /**
+     * Adds a value that has been loaded outside of this cache.<br>
+     * The value is only added if there is no cached value for the key yet and the cache has not been invalidated
+     * since the given {@link #getGeneration() generation}, because the value might be outdated in that case.
+     */
+    public void putIfAbsent(int x, int z, T value, int generation) {
+        if (this.generation.get() != generation) return;
+
+        long key = key(x, z);
+        if (cache.asMap().putIfAbsent(key, value) == null && this.generation.get() != generation)
+            cache.asMap().remove(key, value); // invalidated while adding
+    }
+
+    /**
+     * Returns the current generation of this cache, which changes with every invalidation
+     */
+    public int getGeneration() {
+        return generation.get();
+    }
+
+    public void invalidate(int x, int z) {
+        // incremented before invalidating, so concurrent putIfAbsent calls are rejected,
+        // and after invalidating, so last hits of values that have been read while invalidating are discarded
+        generation.incrementAndGet();
+        cache.invalidate(key(x, z));
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Replaces the cached value with the result of the given function, if there is a cached value.<br>
+     * Other than {@link #invalidate(int, int)}, this keeps the value cached, so it does not need to be loaded again.
+     */
+    public void computeIfPresent(int x, int z, UnaryOperator<T> update) {
+        generation.incrementAndGet();
+        cache.asMap().computeIfPresent(key(x, z), (key, value) -> update.apply(value));
+        generation.incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+        generation.incrementAndGet();
+    }
+
+    static long key(int x, int z) {
+        return (long) x << 32 | (z & 0xFFFFFFFFL);
+    }
+
+    static int x(long key) {
+        return (int) (key >> 32);
+    }
+
+    static int z(long key) {
+        return (int) key;
+    }
+
+    private static class LastHit<T> {
+        private long key;
+        private @Nullable T value;
+        private int generation;
+    }
+
+}
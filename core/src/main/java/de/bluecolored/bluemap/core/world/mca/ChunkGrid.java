@@ -25,16 +25,19 @@
 package de.bluecolored.bluemap.core.world.mca;
 
 import com.flowpowered.math.vector.Vector2i;
-import com.github.benmanes.caffeine.cache.LoadingCache;
 import de.bluecolored.bluemap.core.logger.Logger;
+import de.bluecolored.bluemap.core.metrics.BlueMapMetrics;
+import de.bluecolored.bluemap.core.metrics.Histogram;
+import de.bluecolored.bluemap.core.metrics.event.ChunkLoadEvent;
 import de.bluecolored.bluemap.core.util.Caches;
 import de.bluecolored.bluemap.core.util.Grid;
+import de.bluecolored.bluemap.core.util.MemoryBudget;
 import de.bluecolored.bluemap.core.util.Vector2iCache;
 import de.bluecolored.bluemap.core.util.WatchService;
 import de.bluecolored.bluemap.core.world.ChunkConsumer;
 import de.bluecolored.bluemap.core.world.Region;
 import de.bluecolored.bluemap.core.world.mca.region.RegionType;
-import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -47,7 +50,6 @@
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
-@RequiredArgsConstructor
 public class ChunkGrid<T> {
     private static final Grid CHUNK_GRID = new Grid(16);
     private static final Grid REGION_GRID = new Grid(32).multiply(CHUNK_GRID);
@@ -56,19 +58,39 @@
 
     private final ChunkLoader<T> chunkLoader;
     private final Path regionFolder;
+    private final String loaderName;
+    private final Histogram.Child loadTimer;
+    private volatile @Nullable ChunkOverride<T> chunkOverride;
 
-    private final LoadingCache<Vector2i, Region<T>> regionCache = Caches.with()
-            .softValues()
+    public static final MemoryBudget.Pool CHUNK_CACHE_BUDGET = MemoryBudget.global().pool("chunks", 0.75);
+
+    private final ChunkCache<Region<T>> regionCache = new ChunkCache<>(Caches.with()
             .maximumSize(32)
             .expireAfterWrite(10, TimeUnit.MINUTES)
             .expireAfterAccess(1, TimeUnit.MINUTES)
-            .build(this::loadRegion);
-    private final LoadingCache<Vector2i, T> chunkCache = Caches.with()
-            .softValues()
-            .maximumSize(10240) // 10 regions worth of chunks
+            .build(key -> loadRegion(ChunkCache.x(key), ChunkCache.z(key))));
+    private final ChunkCache<T> chunkCache = new ChunkCache<>(CHUNK_CACHE_BUDGET.register(Caches.with()
+            .maximumWeight(CHUNK_CACHE_BUDGET.getMaximumWeight())
+            .<Long, T>weigher((key, chunk) -> chunkLoader.estimateMemorySize(chunk))
             .expireAfterWrite(10, TimeUnit.MINUTES)
             .expireAfterAccess(1, TimeUnit.MINUTES)
-            .build(this::loadChunk);
+            .build(key -> loadChunk(ChunkCache.x(key), ChunkCache.z(key)))));
+
+    public ChunkGrid(ChunkLoader<T> chunkLoader, Path regionFolder) {
+        MeteredChunkLoader<T> meteredChunkLoader = new MeteredChunkLoader<>(chunkLoader);
+        this.chunkLoader = meteredChunkLoader;
+        this.regionFolder = regionFolder;
+        this.loaderName = meteredChunkLoader.getName();
+        this.loadTimer = BlueMapMetrics.CHUNK_LOAD_TIME.labels(loaderName);
+    }
+
+    /**
+     * Sets a {@link ChunkOverride} that is asked first whenever a chunk is loaded into this grid's cache
+     */
+    void setChunkOverride(@Nullable ChunkOverride<T> chunkOverride) {
+        this.chunkOverride = chunkOverride;
+        chunkCache.invalidateAll();
+    }
 
     public Grid getChunkGrid() {
         return CHUNK_GRID;
@@ -79,34 +101,41 @@ public Grid getRegionGrid() {
     }
 
     public T getChunk(int x, int z) {
-        return getChunk(VECTOR_2_I_CACHE.get(x, z));
+        return chunkCache.get(x, z);
     }
 
-    private T getChunk(Vector2i pos) {
-        return chunkCache.get(pos);
+    /**
+     * Returns the chunk if it is currently cached, without loading it
+     */
+    public @Nullable T getChunkIfCached(int x, int z) {
+        return chunkCache.getIfPresent(x, z);
     }
 
     public Region<T> getRegion(int x, int z) {
-        return getRegion(VECTOR_2_I_CACHE.get(x, z));
-    }
-
-    private Region<T> getRegion(Vector2i pos) {
-        return regionCache.get(pos);
+        return regionCache.get(x, z);
     }
 
     public void preloadRegionChunks(int x, int z, Predicate<Vector2i> chunkFilter) {
+        // preloading can run concurrently to invalidations, chunks that are invalidated meanwhile must not be added
+        int generation = chunkCache.getGeneration();
         try {
             getRegion(x, z).iterateAllChunks(new ChunkConsumer<>() {
                 @Override
                 public boolean filter(int chunkX, int chunkZ, int lastModified) {
+                    // cached chunks are up to date (changed chunks are invalidated), no need to read them again
+                    if (chunkCache.getIfPresent(chunkX, chunkZ) != null) return false;
+
+                    // chunks that are overridden must not be loaded from the region-file
+                    ChunkOverride<T> override = chunkOverride;
+                    if (override != null && override.isOverridden(chunkX, chunkZ)) return false;
+
                     Vector2i chunkPos = VECTOR_2_I_CACHE.get(chunkX, chunkZ);
                     return chunkFilter.test(chunkPos);
                 }
 
                 @Override
                 public void accept(int chunkX, int chunkZ, T chunk) {
-                    Vector2i chunkPos = VECTOR_2_I_CACHE.get(chunkX, chunkZ);
-                    chunkCache.put(chunkPos, chunk);
+                    chunkCache.putIfAbsent(chunkX, chunkZ, chunk, generation);
                 }
 
                 @Override
@@ -150,31 +179,42 @@ public void invalidateChunkCache() {
     }
 
     public void invalidateChunkCache(int x, int z) {
-        regionCache.invalidate(VECTOR_2_I_CACHE.get(x >> 5, z >> 5));
-        chunkCache.invalidate(VECTOR_2_I_CACHE.get(x, z));
-    }
-
-    private Region<T> loadRegion(Vector2i regionPos) {
-        return loadRegion(regionPos.getX(), regionPos.getY());
+        regionCache.invalidate(x >> 5, z >> 5);
+        chunkCache.invalidate(x, z);
     }
 
     private Region<T> loadRegion(int x, int z) {
         return RegionType.loadRegion(chunkLoader, regionFolder, x, z);
     }
 
-    private T loadChunk(Vector2i chunkPos) {
-        return loadChunk(chunkPos.getX(), chunkPos.getY());
-    }
-
     private T loadChunk(int x, int z) {
+        ChunkOverride<T> override = chunkOverride;
+        if (override != null) {
+            T chunk = override.loadChunk(x, z);
+            if (chunk != null) return chunk;
+        }
+
         final int tries = 3;
         final int tryInterval = 1000;
 
         Exception loadException = null;
         for (int i = 0; i < tries; i++) {
             try {
-                return getRegion(x >> 5, z >> 5)
-                        .loadChunk(x, z);
+                Region<T> region = getRegion(x >> 5, z >> 5);
+                ChunkLoadEvent event = new ChunkLoadEvent();
+                event.begin();
+                long start = System.nanoTime();
+                T chunk = region.loadChunk(x, z);
+                loadTimer.observeNanos(System.nanoTime() - start);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.regionFolder = regionFolder.toString();
+                    event.loader = loaderName;
+                    event.chunkX = x;
+                    event.chunkZ = z;
+                    event.commit();
+                }
+                return chunk;
             } catch (IOException | RuntimeException e) {
                 if (loadException != null && loadException != e)
                     e.addSuppressed(loadException);
@@ -196,4 +236,22 @@ private T loadChunk(int x, int z) {
         return chunkLoader.erroredChunk();
     }
 
+    /**
+     * Provides chunks from a different source than the region-files, e.g. from a running server
+     */
+    interface ChunkOverride<T> {
+
+        /**
+         * Returns true if this override provides the chunk at the given position
+         */
+        boolean isOverridden(int x, int z);
+
+        /**
+         * Loads the chunk at the given position or returns <code>null</code> if the chunk should be
+         * loaded from the region-files instead
+         */
+        @Nullable T loadChunk(int x, int z);
+
+    }
+
 }
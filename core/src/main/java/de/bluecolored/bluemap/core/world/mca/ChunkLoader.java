@@ -36,4 +36,12 @@
 
     T erroredChunk();
 
+    /**
+     * Estimates the amount of heap-memory (in bytes) that the given chunk occupies.<br>
+     * This is used to limit the chunk-caches by their size.
+     */
+    default int estimateMemorySize(T chunk) {
+        return 16 * 1024;
+    }
+
 }
@@ -0,0 +1,56 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.world.mca;
+
+import java.io.IOException;
+
+/**
+ * Provides snapshots of chunks that are currently loaded by a running server.<br>
+ * This allows rendering chunks directly from the servers memory, without waiting for them to be saved to the region-files.
+ */
+@FunctionalInterface
+public interface ChunkSnapshotProvider {
+
+    /**
+     * Creates snapshots of all chunks within the given chunk-bounds (inclusive) that are currently loaded and have
+     * changes that are not yet saved to disk, and passes their <b>uncompressed</b> nbt-data (in the same format
+     * it would be written into a region-file) to the consumer.<br>
+     * All chunks that are not passed to the consumer will be loaded from the region-files instead.<br>
+     * <br>
+     * <i>This method is called from BlueMap's render-threads, the implementation has to be thread-save!
+     * It is usually called once for a whole region, so implementations should create all snapshots at once instead of
+     * synchronizing with the server separately for each chunk.</i>
+     * @throws IOException if something went wrong trying to create the snapshots
+     */
+    void getChunkSnapshots(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ, SnapshotConsumer consumer) throws IOException;
+
+    @FunctionalInterface
+    interface SnapshotConsumer {
+
+        void accept(int chunkX, int chunkZ, byte[] snapshot);
+
+    }
+
+}
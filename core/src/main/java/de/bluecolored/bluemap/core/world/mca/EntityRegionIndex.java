@@ -0,0 +1,135 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.world.mca;
+
+import de.bluecolored.bluemap.core.logger.Logger;
+import de.bluecolored.bluemap.core.util.Key;
+import de.bluecolored.bluemap.core.world.ChunkConsumer;
+import de.bluecolored.bluemap.core.world.Entity;
+import de.bluecolored.bluemap.core.world.Region;
+import de.bluecolored.bluemap.core.world.mca.entity.chunk.MCAEntityChunk;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Remembers which entity-types are present in each chunk of an entity-region,
+ * so areas without any relevant entities can be skipped without loading their entity-chunks again.
+ */
+class EntityRegionIndex {
+
+    private static final Key[] NO_ENTITIES = new Key[0];
+
+    /**
+     * An index for a region that could not be read, it assumes that there might be entities everywhere.
+     */
+    static final EntityRegionIndex UNKNOWN = new EntityRegionIndex(0, 0, null);
+
+    private final int minChunkX, minChunkZ;
+    // a null-entry means that the entities of that chunk are unknown
+    private final Key @Nullable [][] chunkEntityTypes;
+
+    private EntityRegionIndex(int regionX, int regionZ, Key @Nullable [][] chunkEntityTypes) {
+        this.minChunkX = regionX << 5;
+        this.minChunkZ = regionZ << 5;
+        this.chunkEntityTypes = chunkEntityTypes;
+    }
+
+    /**
+     * Checks if any chunk of this region that is within the given chunk-bounds (inclusive)
+     * contains an entity whose type matches the given filter.
+     */
+    public boolean hasEntities(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ, Predicate<Key> entityTypeFilter) {
+        if (chunkEntityTypes == null) return true;
+
+        int minX = Math.max(minChunkX - this.minChunkX, 0), minZ = Math.max(minChunkZ - this.minChunkZ, 0);
+        int maxX = Math.min(maxChunkX - this.minChunkX, 31), maxZ = Math.min(maxChunkZ - this.minChunkZ, 31);
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                Key[] types = chunkEntityTypes[z << 5 | x];
+                if (types == null) return true; // chunk changed since the index was built
+                //noinspection ForLoopReplaceableByForEach
+                for (int i = 0; i < types.length; i++) {
+                    if (entityTypeFilter.test(types[i])) return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns a copy of this index where the entities of the given chunk are unknown,
+     * so that chunk is always assumed to possibly contain entities.
+     * Used if a single chunk changed, so the rest of the region does not need to be indexed again.
+     */
+    public EntityRegionIndex withChangedChunk(int chunkX, int chunkZ) {
+        if (chunkEntityTypes == null) return this;
+
+        Key[][] changed = chunkEntityTypes.clone();
+        changed[(chunkZ & 0x1F) << 5 | (chunkX & 0x1F)] = null;
+        return new EntityRegionIndex(minChunkX >> 5, minChunkZ >> 5, changed);
+    }
+
+    /**
+     * Builds the index for the given region. Only the chunks that are listed in the region-header are read.
+     */
+    public static EntityRegionIndex load(Region<MCAEntityChunk> region, int regionX, int regionZ) {
+        Key[][] chunkEntityTypes = new Key[1024][];
+        Arrays.fill(chunkEntityTypes, NO_ENTITIES);
+
+        try {
+            region.iterateAllChunks(new ChunkConsumer<>() {
+                private final Set<Key> types = new LinkedHashSet<>();
+
+                @Override
+                public void accept(int chunkX, int chunkZ, MCAEntityChunk chunk) {
+                    Entity[] entities = chunk.getEntities();
+                    if (entities.length == 0) return;
+
+                    types.clear();
+                    for (Entity entity : entities) {
+                        Key id = entity.getId();
+                        if (id != null) types.add(id);
+                    }
+
+                    chunkEntityTypes[(chunkZ & 0x1F) << 5 | (chunkX & 0x1F)] = types.toArray(NO_ENTITIES);
+                }
+            });
+        } catch (IOException ex) {
+            // if any chunk can't be read we can't tell which entities are in it, so we give up on the whole region
+            Logger.global.logDebug("Failed to index entities of region (x:%d, z:%d): %s".formatted(regionX, regionZ, ex));
+            return UNKNOWN;
+        }
+
+        return new EntityRegionIndex(regionX, regionZ, chunkEntityTypes);
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.world.mca;
+
+import com.flowpowered.math.vector.Vector2i;
+import de.bluecolored.bluemap.core.logger.Logger;
+import de.bluecolored.bluemap.core.storage.compression.Compression;
+import de.bluecolored.bluemap.core.util.Caches;
+import de.bluecolored.bluemap.core.util.Grid;
+import de.bluecolored.bluemap.core.util.Key;
+import de.bluecolored.bluemap.core.util.WatchService;
+import de.bluecolored.bluemap.core.world.*;
+import de.bluecolored.bluemap.core.world.mca.chunk.MCAChunkLoader;
+import lombok.Getter;
+import lombok.ToString;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A {@link World} that serves chunks from a {@link ChunkSnapshotProvider} (usually backed by the chunks that are currently
+ * loaded on the server) and falls back to the wrapped {@link MCAWorld} for all chunks that the provider can not provide.<br>
+ * Snapshots are requested once for a whole region and the chunks created from them are kept in the chunk-cache
+ * of the wrapped {@link MCAWorld}.
+ */
+@ToString
+public class LiveChunkWorld implements World, ChunkGrid.ChunkOverride<Chunk> {
+
+    @Getter private final MCAWorld world;
+    private final ChunkSnapshotProvider snapshotProvider;
+    private final MCAChunkLoader snapshotLoader;
+
+    @ToString.Exclude
+    private final ChunkCache<RegionSnapshots> regionSnapshotCache = new ChunkCache<>(ChunkGrid.CHUNK_CACHE_BUDGET.register(Caches.with()
+            .maximumWeight(ChunkGrid.CHUNK_CACHE_BUDGET.getMaximumWeight())
+            .<Long, RegionSnapshots>weigher((key, snapshots) -> snapshots.size)
+            .expireAfterWrite(30, TimeUnit.SECONDS)
+            .build(key -> loadRegionSnapshots(ChunkCache.x(key), ChunkCache.z(key)))));
+
+    public LiveChunkWorld(MCAWorld world, ChunkSnapshotProvider snapshotProvider) {
+        this.world = world;
+        this.snapshotProvider = snapshotProvider;
+        this.snapshotLoader = new MCAChunkLoader(world);
+
+        world.setChunkOverride(this);
+    }
+
+    @Override
+    public String getId() {
+        return world.getId();
+    }
+
+    public Path getWorldFolder() {
+        return world.getWorldFolder();
+    }
+
+    public Key getDimension() {
+        return world.getDimension();
+    }
+
+    public Path getDimensionFolder() {
+        return world.getDimensionFolder();
+    }
+
+    @Override
+    public DimensionType getDimensionType() {
+        return world.getDimensionType();
+    }
+
+    @Override
+    public Grid getChunkGrid() {
+        return world.getChunkGrid();
+    }
+
+    @Override
+    public Grid getRegionGrid() {
+        return world.getRegionGrid();
+    }
+
+    @Override
+    public Chunk getChunkAtBlock(int x, int z) {
+        return getChunk(x >> 4, z >> 4);
+    }
+
+    @Override
+    public Chunk getChunk(int x, int z) {
+        return world.getChunk(x, z);
+    }
+
+    @Override
+    public ChunkStatus getChunkStatus(int x, int z) {
+        // the status of a live chunk might not be saved to the region-file yet
+        if (isOverridden(x, z)) return getChunk(x, z);
+        return world.getChunkStatus(x, z);
+    }
+
+    @Override
+    public Region<Chunk> getRegion(int x, int z) {
+        return world.getRegion(x, z);
+    }
+
+    @Override
+    public Collection<Vector2i> listRegions() {
+        return world.listRegions();
+    }
+
+    @Override
+    public WatchService<Vector2i> createRegionWatchService() throws IOException {
+        return world.createRegionWatchService();
+    }
+
+    @Override
+    public void preloadRegionChunks(int x, int z, Predicate<Vector2i> chunkFilter) {
+        world.preloadRegionChunks(x, z, chunkFilter);
+    }
+
+    @Override
+    public void invalidateChunkCache() {
+        regionSnapshotCache.invalidateAll();
+        world.invalidateChunkCache();
+    }
+
+    @Override
+    public void invalidateChunkCache(int x, int z) {
+        regionSnapshotCache.invalidate(x >> 5, z >> 5);
+        world.invalidateChunkCache(x, z);
+    }
+
+    @Override
+    public boolean hasEntities(int minX, int minZ, int maxX, int maxZ, Predicate<Key> entityTypeFilter) {
+        return world.hasEntities(minX, minZ, maxX, maxZ, entityTypeFilter);
+    }
+
+    @Override
+    public void iterateEntities(int minX, int minZ, int maxX, int maxZ, Consumer<Entity> entityConsumer) {
+        world.iterateEntities(minX, minZ, maxX, maxZ, entityConsumer);
+    }
+
+    @Override
+    public boolean isOverridden(int x, int z) {
+        return regionSnapshotCache.get(x >> 5, z >> 5).get(x, z) != null;
+    }
+
+    @Override
+    public @Nullable Chunk loadChunk(int x, int z) {
+        byte[] snapshot = regionSnapshotCache.get(x >> 5, z >> 5).get(x, z);
+        if (snapshot == null) return null;
+
+        try {
+            return snapshotLoader.load(snapshot, 0, snapshot.length, Compression.NONE);
+        } catch (IOException | RuntimeException ex) {
+            Logger.global.logDebug("Failed to load chunk-snapshot ('%s' -> x:%d, z:%d), falling back to region-file: %s".formatted(world.getId(), x, z, ex));
+            return null;
+        }
+    }
+
+    private RegionSnapshots loadRegionSnapshots(int regionX, int regionZ) {
+        RegionSnapshots snapshots = new RegionSnapshots();
+        int minChunkX = regionX << 5, minChunkZ = regionZ << 5;
+        try {
+            snapshotProvider.getChunkSnapshots(minChunkX, minChunkZ, minChunkX + 31, minChunkZ + 31, snapshots::put);
+        } catch (IOException | RuntimeException ex) {
+            Logger.global.logDebug("Failed to create chunk-snapshots ('%s' -> region x:%d, z:%d), falling back to region-file: %s".formatted(world.getId(), regionX, regionZ, ex));
+        }
+        return snapshots;
+    }
+
+    /**
+     * The snapshots of all live chunks of one region
+     */
+    private static class RegionSnapshots {
+
+        private final Map<Long, byte[]> snapshots = new HashMap<>();
+        private int size;
+
+        private void put(int x, int z, byte[] snapshot) {
+            snapshots.put(ChunkCache.key(x, z), snapshot);
+            size += snapshot.length;
+        }
+
+        private byte @Nullable [] get(int x, int z) {
+            return snapshots.get(ChunkCache.key(x, z));
+        }
+
+    }
+
+}
@@ -28,6 +28,7 @@
 import com.flowpowered.math.vector.Vector2i;
 import com.flowpowered.math.vector.Vector3d;
 import com.flowpowered.math.vector.Vector3i;
+import de.bluecolored.bluemap.core.storage.compression.Compression;
 import de.bluecolored.bluemap.core.util.Key;
 import de.bluecolored.bluemap.core.world.BlockEntity;
 import de.bluecolored.bluemap.core.world.BlockState;
@@ -39,12 +40,20 @@
 import de.bluecolored.bluenbt.TypeToken;
 import org.jetbrains.annotations.Contract;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.UUID;
 
 public class MCAUtil {
 
     public static final BlueNBT BLUENBT = addCommonNbtSettings(new BlueNBT());
 
+    // buffers larger than this are not kept for reuse, so a single huge chunk does not permanently occupy memory
+    private static final int MAX_POOLED_BUFFER_SIZE = 4 * 1024 * 1024;
+    private static final ThreadLocal<ByteBuffer> CHUNK_BUFFER = new ThreadLocal<>();
+
     @Contract(value = "_ -> param1", mutates = "param1")
     public static BlueNBT addCommonNbtSettings(BlueNBT nbt) {
 
@@ -65,6 +74,16 @@ public static BlueNBT addCommonNbtSettings(BlueNBT nbt) {
         return nbt;
     }
 
+    /**
+     * Decompresses the given chunk-data into a buffer that is reused by the calling thread.<br>
+     * The returned InputStream reads the decompressed data and is only valid until the next call of this method on the same thread.
+     */
+    public static InputStream decompressChunk(byte[] data, int offset, int length, Compression compression) throws IOException {
+        ByteBuffer buffer = compression.decompress(data, offset, length, CHUNK_BUFFER.get());
+        CHUNK_BUFFER.set(buffer.capacity() <= MAX_POOLED_BUFFER_SIZE ? buffer : null);
+        return new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    }
+
     /**
      * Treating the long array "data" as a continuous stream of bits, returning the "valueIndex"-th value when each value has "bitsPerValue" bits.
      */
@@ -30,11 +30,13 @@
 import de.bluecolored.bluemap.core.logger.Logger;
 import de.bluecolored.bluemap.core.resources.pack.datapack.DataPack;
 import de.bluecolored.bluemap.core.storage.compression.Compression;
+import de.bluecolored.bluemap.core.util.Caches;
 import de.bluecolored.bluemap.core.util.Grid;
 import de.bluecolored.bluemap.core.util.Key;
 import de.bluecolored.bluemap.core.util.WatchService;
 import de.bluecolored.bluemap.core.world.*;
 import de.bluecolored.bluemap.core.world.mca.chunk.MCAChunkLoader;
+import de.bluecolored.bluemap.core.world.mca.chunk.MCAChunkStatusLoader;
 import de.bluecolored.bluemap.core.world.mca.data.DimensionSettings;
 import de.bluecolored.bluemap.core.world.mca.data.DimensionTypeDeserializer;
 import de.bluecolored.bluemap.core.world.mca.data.LevelData;
@@ -52,6 +54,7 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -68,7 +71,9 @@ public class MCAWorld implements World {
     private final Path dimensionFolder;
 
     private final ChunkGrid<Chunk> blockChunkGrid;
+    private final ChunkGrid<ChunkStatus> chunkStatusGrid;
     private final ChunkGrid<MCAEntityChunk> entityChunkGrid;
+    private final ChunkCache<EntityRegionIndex> entityRegionIndexCache;
 
     private MCAWorld(Path worldFolder, Key dimension, DimensionType dimensionType, Path dimensionFolder, DataPack dataPack) {
         this.id = World.id(worldFolder, dimension);
@@ -80,7 +85,12 @@ private MCAWorld(Path worldFolder, Key dimension, DimensionType dimensionType, P
 
 
         this.blockChunkGrid = new ChunkGrid<>(new MCAChunkLoader(this), dimensionFolder.resolve("region"));
+        this.chunkStatusGrid = new ChunkGrid<>(new MCAChunkStatusLoader(), dimensionFolder.resolve("region"));
         this.entityChunkGrid = new ChunkGrid<>(new MCAEntityChunkLoader(), dimensionFolder.resolve("entities"));
+        this.entityRegionIndexCache = new ChunkCache<>(Caches.with()
+                .maximumSize(1024)
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build(key -> loadEntityRegionIndex(ChunkCache.x(key), ChunkCache.z(key))));
 
     }
 
@@ -104,6 +114,23 @@ public Chunk getChunk(int x, int z) {
         return blockChunkGrid.getChunk(x, z);
     }
 
+    @Override
+    public ChunkStatus getChunkStatus(int x, int z) {
+        // if the chunk is already fully loaded, there is no need to read it again
+        Chunk chunk = blockChunkGrid.getChunkIfCached(x, z);
+        if (chunk != null) return chunk;
+
+        return chunkStatusGrid.getChunk(x, z);
+    }
+
+    /**
+     * Sets a {@link ChunkGrid.ChunkOverride} for the block-chunks of this world.<br>
+     * Overridden chunks are kept in the same (memory-budgeted) cache as the chunks loaded from the region-files.
+     */
+    void setChunkOverride(ChunkGrid.@Nullable ChunkOverride<Chunk> chunkOverride) {
+        blockChunkGrid.setChunkOverride(chunkOverride);
+    }
+
     @Override
     public Region<Chunk> getRegion(int x, int z) {
         return blockChunkGrid.getRegion(x, z);
@@ -128,13 +155,32 @@ public void preloadRegionChunks(int x, int z, Predicate<Vector2i> chunkFilter) {
     @Override
     public void invalidateChunkCache() {
         blockChunkGrid.invalidateChunkCache();
+        chunkStatusGrid.invalidateChunkCache();
         entityChunkGrid.invalidateChunkCache();
+        entityRegionIndexCache.invalidateAll();
     }
 
     @Override
     public void invalidateChunkCache(int x, int z) {
         blockChunkGrid.invalidateChunkCache(x, z);
+        chunkStatusGrid.invalidateChunkCache(x, z);
         entityChunkGrid.invalidateChunkCache(x, z);
+        entityRegionIndexCache.computeIfPresent(x >> 5, z >> 5, index -> index.withChangedChunk(x, z));
+    }
+
+    @Override
+    public boolean hasEntities(int minX, int minZ, int maxX, int maxZ, Predicate<Key> entityTypeFilter) {
+        int minChunkX = minX >> 4, minChunkZ = minZ >> 4;
+        int maxChunkX = maxX >> 4, maxChunkZ = maxZ >> 4;
+
+        for (int x = minChunkX >> 5; x <= maxChunkX >> 5; x++) {
+            for (int z = minChunkZ >> 5; z <= maxChunkZ >> 5; z++) {
+                if (entityRegionIndexCache.get(x, z).hasEntities(minChunkX, minChunkZ, maxChunkX, maxChunkZ, entityTypeFilter))
+                    return true;
+            }
+        }
+
+        return false;
     }
 
     @Override
@@ -163,6 +209,10 @@ public void iterateEntities(int minX, int minZ, int maxX, int maxZ, Consumer<Ent
         }
     }
 
+    private EntityRegionIndex loadEntityRegionIndex(int x, int z) {
+        return EntityRegionIndex.load(entityChunkGrid.getRegion(x, z), x, z);
+    }
+
     public static MCAWorld load(Path worldFolder, Key dimension, @Nullable Key dimensionTypeKey, DataPack dataPack) throws IOException, InterruptedException {
         DimensionType dimensionType = dimensionTypeKey == null ?
                 loadDimensionType(worldFolder, dimension, dataPack) :
@@ -0,0 +1,88 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.world.mca;
+
+import de.bluecolored.bluemap.core.metrics.BlueMapMetrics;
+import de.bluecolored.bluemap.core.metrics.Histogram;
+import de.bluecolored.bluemap.core.metrics.event.ChunkDecodeEvent;
+import de.bluecolored.bluemap.core.storage.compression.Compression;
+
+import java.io.IOException;
+
+/**
+ * A {@link ChunkLoader} that records the time the delegate takes to decode chunks,
+ * as metric and as {@link ChunkDecodeEvent}
+ */
+class MeteredChunkLoader<T> implements ChunkLoader<T> {
+
+    private final ChunkLoader<T> delegate;
+    private final String name;
+    private final Histogram.Child decodeTimer;
+
+    MeteredChunkLoader(ChunkLoader<T> delegate) {
+        this.delegate = delegate;
+        this.name = delegate.getClass().getSimpleName();
+        this.decodeTimer = BlueMapMetrics.CHUNK_DECODE_TIME.labels(name);
+    }
+
+    @Override
+    public T load(byte[] data, int offset, int length, Compression compression) throws IOException {
+        ChunkDecodeEvent event = new ChunkDecodeEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            return delegate.load(data, offset, length, compression);
+        } finally {
+            decodeTimer.observeNanos(System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.loader = name;
+                event.compression = compression.getKey().getFormatted();
+                event.bytes = length;
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public T emptyChunk() {
+        return delegate.emptyChunk();
+    }
+
+    @Override
+    public T erroredChunk() {
+        return delegate.erroredChunk();
+    }
+
+    @Override
+    public int estimateMemorySize(T chunk) {
+        return delegate.estimateMemorySize(chunk);
+    }
+
+    String getName() {
+        return name;
+    }
+
+}
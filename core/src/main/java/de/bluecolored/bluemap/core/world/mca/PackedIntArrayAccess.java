@@ -136,6 +136,10 @@ public int getCapacity() {
         return data.length * elementsPerLong;
     }
 
+    public int estimateMemorySize() {
+        return 64 + data.length * Long.BYTES;
+    }
+
     public boolean isCorrectSize(int expectedSize) {
         int capacity = getCapacity();
         return expectedSize <= capacity && expectedSize + elementsPerLong > capacity;
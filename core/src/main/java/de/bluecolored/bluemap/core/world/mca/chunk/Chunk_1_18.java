@@ -211,6 +211,20 @@ public void iterateBlockEntities(Consumer<BlockEntity> consumer) {
         blockEntities.values().forEach(consumer);
     }
 
+    @Override
+    public int estimateMemorySize() {
+        int size = 256 +
+                worldSurfaceHeights.estimateMemorySize() +
+                oceanFloorHeights.estimateMemorySize() +
+                blockEntities.size() * 256;
+
+        for (Section section : sections) {
+            if (section != null) size += section.estimateMemorySize();
+        }
+
+        return size;
+    }
+
     private @Nullable Section getSection(int y) {
         y -= sectionMin;
         if (y < 0 || y >= this.sections.length) return null;
@@ -289,6 +303,15 @@ public int getSectionY() {
             return sectionY;
         }
 
+        public int estimateMemorySize() {
+            return 64 +
+                    (blockPalette.length + biomePalette.length) * 8 +
+                    blocks.estimateMemorySize() +
+                    biomes.estimateMemorySize() +
+                    blockLight.length +
+                    skyLight.length;
+        }
+
     }
 
     @Getter
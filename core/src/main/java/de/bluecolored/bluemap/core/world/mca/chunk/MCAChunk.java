@@ -56,6 +56,13 @@ public MCAChunk(MCAWorld world, Data chunkData) {
         this.dataVersion = chunkData.getDataVersion();
     }
 
+    /**
+     * Estimates the amount of heap-memory (in bytes) that this chunk occupies
+     */
+    public int estimateMemorySize() {
+        return 64 * 1024;
+    }
+
     @SuppressWarnings("FieldMayBeFinal")
     @Getter
     public static class Data {
@@ -33,7 +33,6 @@
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
@@ -59,23 +58,18 @@ public MCAChunkLoader(MCAWorld world) {
 
     @Override
     public MCAChunk load(byte[] data, int offset, int length, Compression compression) throws IOException {
-        InputStream in = new ByteArrayInputStream(data, offset, length);
+        InputStream in = MCAUtil.decompressChunk(data, offset, length, compression);
         in.mark(-1);
 
         // try last used version
         ChunkVersionLoader<?> usedLoader = lastUsedLoader;
-        MCAChunk chunk;
-        try (InputStream decompressedIn = compression.decompress(in)) {
-            chunk = usedLoader.load(world, decompressedIn);
-        }
+        MCAChunk chunk = usedLoader.load(world, in);
 
         // check version and reload chunk if the wrong loader has been used and a better one has been found
         ChunkVersionLoader<?> actualLoader = findBestLoaderForVersion(chunk.getDataVersion());
         if (actualLoader != null && usedLoader != actualLoader) {
             in.reset(); // reset read position
-            try (InputStream decompressedIn = compression.decompress(in)) {
-                chunk = actualLoader.load(world, decompressedIn);
-            }
+            chunk = actualLoader.load(world, in);
             lastUsedLoader = actualLoader;
         }
 
@@ -92,6 +86,12 @@ public Chunk erroredChunk() {
         return Chunk.ERRORED_CHUNK;
     }
 
+    @Override
+    public int estimateMemorySize(Chunk chunk) {
+        if (chunk instanceof MCAChunk mcaChunk) return mcaChunk.estimateMemorySize();
+        return 64; // empty or errored chunk
+    }
+
     private @Nullable ChunkVersionLoader<?> findBestLoaderForVersion(int version) {
         for (ChunkVersionLoader<?> loader : CHUNK_VERSION_LOADERS) {
             if (loader.mightSupport(version)) return loader;
@@ -0,0 +1,145 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.world.mca.chunk;
+
+import de.bluecolored.bluemap.core.storage.compression.Compression;
+import de.bluecolored.bluemap.core.util.Key;
+import de.bluecolored.bluemap.core.world.Chunk;
+import de.bluecolored.bluemap.core.world.ChunkStatus;
+import de.bluecolored.bluemap.core.world.mca.ChunkLoader;
+import de.bluecolored.bluemap.core.world.mca.MCAUtil;
+import de.bluecolored.bluenbt.NBTName;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Loads only the {@link ChunkStatus} of a chunk.<br>
+ * All other chunk-data (sections, heightmaps, block-entities, ...) is skipped while parsing, so nothing of it is decoded.
+ */
+public class MCAChunkStatusLoader implements ChunkLoader<ChunkStatus> {
+
+    private static final Key STATUS_EMPTY = new Key("minecraft", "empty");
+    private static final Key STATUS_FULL = new Key("minecraft", "full");
+    private static final Key STATUS_FULLCHUNK = new Key("minecraft", "fullchunk");
+    private static final Key STATUS_POSTPROCESSED = new Key("minecraft", "postprocessed");
+
+    // chunks before this version have their data in a "Level" compound (see Chunk_1_18)
+    private static final int LEVEL_REMOVED_DATA_VERSION = 2844;
+
+    // chunks before this version can also have the statuses "fullchunk" and "postprocessed" (see Chunk_1_16)
+    private static final int LEGACY_STATUS_DATA_VERSION = 2500;
+
+    @Override
+    public ChunkStatus load(byte[] data, int offset, int length, Compression compression) throws IOException {
+        InputStream in = MCAUtil.decompressChunk(data, offset, length, compression);
+
+        Data chunkData;
+        try {
+            chunkData = MCAUtil.BLUENBT.read(in, Data.class);
+        } catch (Exception e) {
+            throw new IOException("Failed to parse chunk-status: " + e, e);
+        }
+
+        Key status;
+        long inhabitedTime;
+        if (chunkData.dataVersion < LEVEL_REMOVED_DATA_VERSION && chunkData.level != null) {
+            status = chunkData.level.status;
+            inhabitedTime = chunkData.level.inhabitedTime;
+        } else {
+            status = chunkData.status;
+            inhabitedTime = chunkData.inhabitedTime;
+        }
+
+        boolean generated = !STATUS_EMPTY.equals(status);
+        boolean hasLightData = STATUS_FULL.equals(status) || (
+                chunkData.dataVersion < LEGACY_STATUS_DATA_VERSION && (
+                        STATUS_FULLCHUNK.equals(status) ||
+                        STATUS_POSTPROCESSED.equals(status)
+                )
+        );
+
+        return new MCAChunkStatus(generated, hasLightData, inhabitedTime);
+    }
+
+    @Override
+    public ChunkStatus emptyChunk() {
+        return Chunk.EMPTY_CHUNK;
+    }
+
+    @Override
+    public ChunkStatus erroredChunk() {
+        return Chunk.ERRORED_CHUNK;
+    }
+
+    @Override
+    public int estimateMemorySize(ChunkStatus chunk) {
+        return 64;
+    }
+
+    private record MCAChunkStatus(boolean generated, boolean hasLightData, long inhabitedTime) implements ChunkStatus {
+
+        @Override
+        public boolean isGenerated() {
+            return generated;
+        }
+
+        @Override
+        public long getInhabitedTime() {
+            return inhabitedTime;
+        }
+
+    }
+
+    @SuppressWarnings("FieldMayBeFinal")
+    public static class Data {
+
+        @NBTName("DataVersion")
+        private int dataVersion = 0;
+
+        @NBTName("Status")
+        private Key status = STATUS_EMPTY;
+
+        @NBTName("InhabitedTime")
+        private long inhabitedTime = 0;
+
+        @NBTName("Level")
+        private @Nullable Level level = null;
+
+    }
+
+    @SuppressWarnings("FieldMayBeFinal")
+    public static class Level {
+
+        @NBTName("Status")
+        private Key status = STATUS_EMPTY;
+
+        @NBTName("InhabitedTime")
+        private long inhabitedTime = 0;
+
+    }
+
+}
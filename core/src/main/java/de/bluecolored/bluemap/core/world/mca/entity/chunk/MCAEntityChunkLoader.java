@@ -28,7 +28,6 @@
 import de.bluecolored.bluemap.core.world.mca.ChunkLoader;
 import de.bluecolored.bluemap.core.world.mca.MCAUtil;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -36,15 +35,11 @@ public class MCAEntityChunkLoader implements ChunkLoader<MCAEntityChunk> {
 
     @Override
     public MCAEntityChunk load(byte[] data, int offset, int length, Compression compression) throws IOException {
-        try (
-                InputStream in = new ByteArrayInputStream(data, offset, length);
-                InputStream decompressedIn = compression.decompress(in)
-        ) {
-            try {
-                return MCAUtil.BLUENBT.read(decompressedIn, MCAEntityChunk.class);
-            } catch (Exception e) {
-                throw new IOException("Failed to parse chunk-data (%s): %s".formatted(MCAEntityChunk.class.getSimpleName(), e), e);
-            }
+        InputStream in = MCAUtil.decompressChunk(data, offset, length, compression);
+        try {
+            return MCAUtil.BLUENBT.read(in, MCAEntityChunk.class);
+        } catch (Exception e) {
+            throw new IOException("Failed to parse chunk-data (%s): %s".formatted(MCAEntityChunk.class.getSimpleName(), e), e);
         }
     }
 
@@ -0,0 +1,245 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.world.mca.region;
+
+import com.flowpowered.math.vector.Vector2i;
+import com.github.benmanes.caffeine.cache.Cache;
+import de.bluecolored.bluemap.core.storage.compression.Compression;
+import de.bluecolored.bluemap.core.util.Caches;
+import de.bluecolored.bluemap.core.world.ChunkConsumer;
+import de.bluecolored.bluemap.core.world.Region;
+import de.bluecolored.bluemap.core.world.mca.ChunkGrid;
+import de.bluecolored.bluemap.core.world.mca.ChunkLoader;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * A region in the "linear" region-format (version 1).<br>
+ * The whole region is stored as one zstd-compressed blob, starting with a table of the size and timestamp of all
+ * 1024 chunks, followed by the (uncompressed) nbt-data of all chunks in order.
+ */
+@Getter
+public class LinearRegion<T> implements Region<T> {
+
+    public static final String FILE_SUFFIX = ".linear";
+    public static final Pattern FILE_PATTERN = Pattern.compile("^r\\.(-?\\d+)\\.(-?\\d+)\\.linear$");
+
+    private static final long SUPERBLOCK = -4323716122432332390L;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int FOOTER_SIZE = 8;
+    private static final int CHUNK_TABLE_SIZE = 1024 * 8;
+
+    // the decompressed regions are kept, since chunks are usually loaded one after another from the same region,
+    // they are shared by all grids reading the same region-file (e.g. the block- and the chunk-status-grid)
+    private static final Cache<Path, RegionData> REGION_DATA_CACHE = ChunkGrid.CHUNK_CACHE_BUDGET.register(Caches.with()
+            .maximumWeight(ChunkGrid.CHUNK_CACHE_BUDGET.getMaximumWeight())
+            .<Path, RegionData>weigher((path, data) -> data.estimateMemorySize())
+            .expireAfterAccess(1, TimeUnit.MINUTES)
+            .build());
+
+    private final Path regionFile;
+    private final ChunkLoader<T> chunkLoader;
+    private final Vector2i regionPos;
+
+    // the last-modified time of the region-file is only checked once, when this region is first read
+    @Getter(AccessLevel.NONE)
+    private volatile long lastModified = -1;
+
+    public LinearRegion(ChunkLoader<T> chunkLoader, Path regionFile) throws IllegalArgumentException {
+        this.chunkLoader = chunkLoader;
+        this.regionFile = regionFile;
+
+        String[] filenameParts = regionFile.getFileName().toString().split("\\.");
+        int rX = Integer.parseInt(filenameParts[1]);
+        int rZ = Integer.parseInt(filenameParts[2]);
+
+        this.regionPos = new Vector2i(rX, rZ);
+    }
+
+    @Override
+    public T loadChunk(int chunkX, int chunkZ) throws IOException {
+        RegionData data = loadRegionData();
+        if (data == null) return chunkLoader.emptyChunk();
+
+        int xzChunk = (chunkZ & 0b11111) << 5 | (chunkX & 0b11111);
+        if (data.sizes[xzChunk] <= 0) return chunkLoader.emptyChunk();
+
+        try {
+            return data.loadChunk(xzChunk, chunkLoader);
+        } catch (IOException | RuntimeException ex) {
+            throw new IOException("Exception trying to read chunk (%d,%d) from region '%s': %s".formatted(chunkX, chunkZ, regionFile, ex), ex);
+        }
+    }
+
+    @Override
+    public void iterateAllChunks(ChunkConsumer<T> consumer) throws IOException {
+        RegionData data = loadRegionData();
+        if (data == null) return;
+
+        int chunkStartX = regionPos.getX() * 32;
+        int chunkStartZ = regionPos.getY() * 32;
+
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                int xzChunk = (z & 0b11111) << 5 | (x & 0b11111);
+                if (data.sizes[xzChunk] <= 0) continue;
+
+                int chunkX = chunkStartX + x;
+                int chunkZ = chunkStartZ + z;
+
+                // load chunk only if consumers filter returns true
+                if (consumer.filter(chunkX, chunkZ, data.timestamps[xzChunk])) {
+                    try {
+                        T chunk = data.loadChunk(xzChunk, chunkLoader);
+                        consumer.accept(chunkX, chunkZ, chunk);
+                    } catch (IOException ex) {
+                        consumer.fail(chunkX, chunkZ, ex);
+                    } catch (Exception ex) {
+                        consumer.fail(chunkX, chunkZ, new IOException(ex));
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public T emptyChunk() {
+        return chunkLoader.emptyChunk();
+    }
+
+    @Override
+    public boolean exists() {
+        return Files.exists(regionFile);
+    }
+
+    private @Nullable RegionData loadRegionData() throws IOException {
+        try {
+            long lastModified = this.lastModified;
+            if (lastModified == -1) {
+                lastModified = Files.getLastModifiedTime(regionFile).toMillis();
+                this.lastModified = lastModified;
+            }
+
+            RegionData data = REGION_DATA_CACHE.getIfPresent(regionFile);
+            if (data != null && data.lastModified == lastModified) return data;
+
+            // computed atomically, so grids loading the same region at the same time only decompress it once
+            long expectedLastModified = lastModified;
+            return REGION_DATA_CACHE.asMap().compute(regionFile, (path, current) -> {
+                if (current != null && current.lastModified == expectedLastModified) return current;
+                try {
+                    byte[] fileData = Files.readAllBytes(regionFile);
+                    if (fileData.length == 0) return null;
+                    return readRegionData(fileData, expectedLastModified);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            if (ex.getCause() instanceof NoSuchFileException) return null;
+            throw new IOException("Exception trying to read region '%s': %s".formatted(regionFile, ex.getCause()), ex.getCause());
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException | RuntimeException ex) {
+            throw new IOException("Exception trying to read region '%s': %s".formatted(regionFile, ex), ex);
+        }
+    }
+
+    private static RegionData readRegionData(byte[] fileData, long lastModified) throws IOException {
+        if (fileData.length < HEADER_SIZE + FOOTER_SIZE)
+            throw new IOException("Invalid linear region-file: file too small");
+
+        ByteBuffer header = ByteBuffer.wrap(fileData, 0, HEADER_SIZE);
+        if (header.getLong() != SUPERBLOCK)
+            throw new IOException("Invalid linear region-file: superblock mismatch");
+
+        byte version = header.get();
+        if (version != VERSION)
+            throw new IOException("Unsupported linear region-file version: " + version);
+
+        header.getLong(); // newest timestamp
+        header.get(); // compression level
+        header.getShort(); // chunk count
+        int compressedLength = header.getInt();
+        header.getLong(); // reserved
+
+        if (compressedLength < 0 || HEADER_SIZE + compressedLength + FOOTER_SIZE > fileData.length)
+            throw new IOException("Invalid linear region-file: invalid compressed length");
+        if (ByteBuffer.wrap(fileData, HEADER_SIZE + compressedLength, FOOTER_SIZE).getLong() != SUPERBLOCK)
+            throw new IOException("Invalid linear region-file: footer superblock mismatch");
+
+        ByteBuffer data = Compression.ZSTD.decompress(fileData, HEADER_SIZE, compressedLength, null);
+        if (data.remaining() < CHUNK_TABLE_SIZE)
+            throw new IOException("Invalid linear region-file: missing chunk-table");
+
+        int[] offsets = new int[1024];
+        int[] sizes = new int[1024];
+        int[] timestamps = new int[1024];
+
+        int offset = data.arrayOffset() + data.position() + CHUNK_TABLE_SIZE;
+        int limit = data.arrayOffset() + data.limit();
+        for (int i = 0; i < 1024; i++) {
+            int size = data.getInt();
+            timestamps[i] = data.getInt();
+
+            if (size < 0 || offset + size > limit)
+                throw new IOException("Invalid linear region-file: chunk-data out of bounds");
+
+            offsets[i] = offset;
+            sizes[i] = size;
+            offset += size;
+        }
+
+        return new RegionData(lastModified, data.array(), offsets, sizes, timestamps);
+    }
+
+    public static String getRegionFileName(int regionX, int regionZ) {
+        return "r." + regionX + "." + regionZ + FILE_SUFFIX;
+    }
+
+    private record RegionData(long lastModified, byte[] data, int[] offsets, int[] sizes, int[] timestamps) {
+
+        public <T> T loadChunk(int xzChunk, ChunkLoader<T> chunkLoader) throws IOException {
+            return chunkLoader.load(data, offsets[xzChunk], sizes[xzChunk], Compression.NONE);
+        }
+
+        public int estimateMemorySize() {
+            return data.length + 3 * 4 * 1024 + 64;
+        }
+
+    }
+
+}
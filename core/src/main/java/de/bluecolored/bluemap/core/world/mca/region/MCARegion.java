@@ -38,6 +38,7 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Collection;
 import java.util.regex.Pattern;
 
 @Getter
@@ -55,6 +56,9 @@
         CHUNK_COMPRESSION_MAP[4] = Compression.LZ4;
     }
 
+    // reused by each thread for reading single chunks, chunk-data is never larger than 255 sectors (~1MB)
+    private static final ThreadLocal<byte[]> CHUNK_DATA_BUFFER = ThreadLocal.withInitial(() -> new byte[64 * 1024]);
+
     private final Path regionFile;
     private final ChunkLoader<T> chunkLoader;
     private final Vector2i regionPos;
@@ -92,7 +96,11 @@ public T loadChunk(int chunkX, int chunkZ) throws IOException {
 
             if (size <= 0) return chunkLoader.emptyChunk();
 
-            byte[] chunkDataBuffer = new byte[size];
+            byte[] chunkDataBuffer = CHUNK_DATA_BUFFER.get();
+            if (chunkDataBuffer.length < size) {
+                chunkDataBuffer = new byte[size];
+                CHUNK_DATA_BUFFER.set(chunkDataBuffer);
+            }
 
             channel.position(offset);
             readFully(channel, chunkDataBuffer, 0, size);
@@ -168,6 +176,46 @@ public void iterateAllChunks(ChunkConsumer<T> consumer) throws IOException {
         }
     }
 
+    @Override
+    public void listChunks(Collection<Vector2i> chunks, ChunkConsumer.ListOnly<T> consumer) throws IOException {
+        // with many chunks reading the whole header at once is faster
+        if (chunks.size() > 64) {
+            Region.super.listChunks(chunks, consumer);
+            return;
+        }
+
+        if (Files.notExists(regionFile)) return;
+
+        long fileLength = Files.size(regionFile);
+        if (fileLength == 0) return;
+
+        try (FileChannel channel = FileChannel.open(regionFile, StandardOpenOption.READ)) {
+            byte[] entry = new byte[4];
+
+            for (Vector2i chunk : chunks) {
+                int chunkX = chunk.getX(), chunkZ = chunk.getY();
+                if (chunkX >> 5 != regionPos.getX() || chunkZ >> 5 != regionPos.getY()) continue;
+                int xzChunk = (chunkZ & 0b11111) << 5 | (chunkX & 0b11111);
+
+                // only list chunks that exist
+                channel.position(xzChunk * 4);
+                readFully(channel, entry, 0, 4);
+                if (entry[3] == 0) continue;
+
+                channel.position(xzChunk * 4 + 4096);
+                readFully(channel, entry, 0, 4);
+                int timestamp = entry[0] << 24;
+                timestamp |= (entry[1] & 0xFF) << 16;
+                timestamp |= (entry[2] & 0xFF) << 8;
+                timestamp |= entry[3] & 0xFF;
+
+                consumer.accept(chunkX, chunkZ, timestamp);
+            }
+        } catch (IOException | RuntimeException ex) {
+            throw new IOException("Exception trying to list chunks in region '%s': %s".formatted(regionFile, ex), ex);
+        }
+    }
+
     @Override
     public T emptyChunk() {
         return chunkLoader.emptyChunk();
@@ -181,7 +229,10 @@ public boolean exists() {
     private T loadChunk(int chunkX, int chunkZ, byte[] data, int size) throws IOException {
         int compressionTypeId = Byte.toUnsignedInt(data[4]);
         int offset = 5;
-        size -= 5;
+
+        // the exact length (including the compression-type byte), so the padding of the last sector is not decompressed
+        int length = (data[0] & 0xFF) << 24 | (data[1] & 0xFF) << 16 | (data[2] & 0xFF) << 8 | data[3] & 0xFF;
+        size = length > 0 ? Math.min(length - 1, size - 5) : size - 5;
 
         //oversized chunks
         if (compressionTypeId > 127) {
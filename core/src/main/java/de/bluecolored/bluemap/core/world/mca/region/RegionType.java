@@ -42,10 +42,12 @@
 public interface RegionType extends Keyed {
 
     RegionType MCA = new Impl(Key.bluemap("mca"), MCARegion::new, MCARegion::getRegionFileName, MCARegion.FILE_PATTERN);
+    RegionType LINEAR = new Impl(Key.bluemap("linear"), LinearRegion::new, LinearRegion::getRegionFileName, LinearRegion.FILE_PATTERN);
 
     RegionType DEFAULT = MCA;
     Registry<RegionType> REGISTRY = new Registry<>(
-            MCA
+            MCA,
+            LINEAR
     );
 
     /**
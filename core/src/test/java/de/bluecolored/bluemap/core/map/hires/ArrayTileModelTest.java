@@ -0,0 +1,152 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.map.hires;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static de.bluecolored.bluemap.core.map.hires.ArrayTileModel.*;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ArrayTileModelTest {
+
+    @Test
+    public void testSortDenseMaterialIndices() {
+        testSort(10000, 0, 50, 1);
+    }
+
+    @Test
+    public void testSortNegativeMaterialIndices() {
+        testSort(1000, -20, 20, 2);
+    }
+
+    @Test
+    public void testSortSparseMaterialIndices() {
+        // range is too large for the counting-sort, so this tests the fallback
+        testSort(5000, -1000000, 1000000, 3);
+    }
+
+    @Test
+    public void testSortAlreadySorted() {
+        ArrayTileModel model = createModel(100, 0, 10, 4);
+        model.sort();
+        float[] position = Arrays.copyOf(model.position, model.size * FI_POSITION);
+        model.sort();
+        assertArrayEquals(position, Arrays.copyOf(model.position, model.size * FI_POSITION));
+    }
+
+    @Test
+    public void testSortAfterGrowing() {
+        ArrayTileModel model = createModel(100, 0, 10, 5);
+        model.sort();
+
+        // growing the model re-creates the scratch-buffers on the next sort
+        Random random = new Random(6);
+        int start = model.add(1000);
+        for (int face = start; face < model.size; face++)
+            fillFace(model, face, random.nextInt(10));
+
+        assertSorted(model);
+    }
+
+    private void testSort(int size, int minMaterial, int maxMaterial, long seed) {
+        assertSorted(createModel(size, minMaterial, maxMaterial, seed));
+    }
+
+    /**
+     * Sorts the model and checks the result against a stable sort of the face-indices using the
+     * old comparator-based ordering.
+     */
+    private void assertSorted(ArrayTileModel model) {
+        int size = model.size;
+        ArrayTileModel expected = new ArrayTileModel(size);
+        expected.add(size);
+        for (int face = 0; face < size; face++)
+            copyFace(model, face, expected, face);
+
+        Integer[] order = IntStream.range(0, size).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingInt(face -> expected.materialIndex[face]));
+
+        model.sort();
+
+        assertEquals(size, model.size);
+        for (int face = 0; face < size; face++) {
+            int from = order[face];
+            assertArrayEquals(slice(expected.position, from, FI_POSITION), slice(model.position, face, FI_POSITION));
+            assertArrayEquals(slice(expected.uv, from, FI_UV), slice(model.uv, face, FI_UV));
+            assertArrayEquals(slice(expected.ao, from, FI_AO), slice(model.ao, face, FI_AO));
+            assertArrayEquals(slice(expected.color, from, FI_COLOR), slice(model.color, face, FI_COLOR));
+            assertEquals(expected.sunlight[from], model.sunlight[face]);
+            assertEquals(expected.blocklight[from], model.blocklight[face]);
+            assertEquals(expected.materialIndex[from], model.materialIndex[face]);
+        }
+
+        int[] sortedMaterials = Arrays.copyOf(expected.materialIndex, size);
+        Arrays.sort(sortedMaterials);
+        assertArrayEquals(sortedMaterials, Arrays.copyOf(model.materialIndex, size));
+    }
+
+    private ArrayTileModel createModel(int size, int minMaterial, int maxMaterial, long seed) {
+        Random random = new Random(seed);
+        ArrayTileModel model = new ArrayTileModel(10);
+        model.add(size);
+        for (int face = 0; face < size; face++)
+            fillFace(model, face, minMaterial + random.nextInt(maxMaterial - minMaterial + 1));
+        return model;
+    }
+
+    /**
+     * Fills all attributes with values unique to the face, so moved faces can be identified.
+     */
+    private void fillFace(ArrayTileModel model, int face, int materialIndex) {
+        for (int i = 0; i < FI_POSITION; i++) model.position[face * FI_POSITION + i] = face * 100 + i;
+        for (int i = 0; i < FI_UV; i++) model.uv[face * FI_UV + i] = face * 0.5f + i;
+        for (int i = 0; i < FI_AO; i++) model.ao[face * FI_AO + i] = face * 0.25f + i;
+        for (int i = 0; i < FI_COLOR; i++) model.color[face * FI_COLOR + i] = -face - i;
+        model.sunlight[face] = (byte) face;
+        model.blocklight[face] = (byte) (face >> 8);
+        model.materialIndex[face] = materialIndex;
+    }
+
+    private void copyFace(ArrayTileModel source, int from, ArrayTileModel target, int to) {
+        System.arraycopy(source.position, from * FI_POSITION, target.position, to * FI_POSITION, FI_POSITION);
+        System.arraycopy(source.uv, from * FI_UV, target.uv, to * FI_UV, FI_UV);
+        System.arraycopy(source.ao, from * FI_AO, target.ao, to * FI_AO, FI_AO);
+        System.arraycopy(source.color, from * FI_COLOR, target.color, to * FI_COLOR, FI_COLOR);
+        target.sunlight[to] = source.sunlight[from];
+        target.blocklight[to] = source.blocklight[from];
+        target.materialIndex[to] = source.materialIndex[from];
+    }
+
+    private float[] slice(float[] array, int face, int stride) {
+        return Arrays.copyOfRange(array, face * stride, face * stride + stride);
+    }
+
+}
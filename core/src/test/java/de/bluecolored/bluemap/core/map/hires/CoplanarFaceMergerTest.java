@@ -0,0 +1,206 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.map.hires;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static de.bluecolored.bluemap.core.map.hires.ArrayTileModel.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CoplanarFaceMergerTest {
+
+    // sample-points inside each block-face, not on any edge of the (merged) triangles
+    private static final float[][] SAMPLES = { {0.3f, 0.6f}, {0.7f, 0.2f}, {0.15f, 0.35f}, {0.85f, 0.9f} };
+
+    @Test
+    public void testMergedTileEqualsUnmergedGeometry() {
+        ArrayTileModel unmerged = createTile();
+        ArrayTileModel merged = createTile();
+        new CoplanarFaceMerger().merge(merged);
+
+        assertTrue(merged.size < unmerged.size, "nothing was merged");
+        assertEquals(sample(unmerged), sample(merged));
+        assertEquals(nonAxisAlignedFaces(unmerged), nonAxisAlignedFaces(merged));
+    }
+
+    @Test
+    public void testMergerCanBeReused() {
+        CoplanarFaceMerger merger = new CoplanarFaceMerger();
+        ArrayTileModel first = createTile();
+        merger.merge(first);
+
+        ArrayTileModel second = createTile();
+        merger.merge(second);
+
+        assertEquals(first.size, second.size);
+        assertEquals(sample(first), sample(second));
+    }
+
+    /**
+     * A known tile with:
+     * a 4x4 floor, a 3x2 wall with rotated uvs and a different material, a floor-face with a different color,
+     * a half-block face, a sloped face and a back-facing ceiling next to the floor.
+     */
+    private ArrayTileModel createTile() {
+        ArrayTileModel model = new ArrayTileModel(10);
+
+        for (int x = 0; x < 4; x++)
+            for (int z = 0; z < 4; z++)
+                addQuad(model, 1, 1, z, x, 1, false, false, 0, 1f);
+
+        for (int x = 0; x < 3; x++)
+            for (int y = 1; y < 3; y++)
+                addQuad(model, 2, 5, x, y, 1, true, true, 1, 1f);
+
+        addQuad(model, 1, 1, 4, 0, 1, false, false, 0, 0.5f);
+        addQuad(model, 1, 1, 5, 0, 0.5f, false, false, 0, 1f);
+
+        for (int z = 0; z < 2; z++)
+            addQuad(model, 1, 3, z, 0, -1, false, false, 0, 1f);
+
+        int face = model.add(1);
+        model.setPositions(face, 0, 0, 0, 1, 1, 0, 0, 1, 1);
+        model.setUvs(face, 0, 0, 1, 0, 1, 1);
+        model.setColor(face, 1, 1, 1);
+        model.setAOs(face, 1, 1, 1);
+
+        return model;
+    }
+
+    /**
+     * Adds a quad covering one block-face on the given axis, with the corners (b, c) to (b + size, c + size)
+     */
+    private void addQuad(
+            ArrayTileModel model, int axis, float plane, int b, int c, float size,
+            boolean swapUv, boolean invertU, int material, float color
+    ) {
+        int face = model.add(2);
+        float[][] corners = { {0, 0}, {1, 0}, {1, 1}, {0, 0}, {1, 1}, {0, 1} };
+        for (int i = 0; i < 6; i++) {
+            float[] corner = corners[size < 0 ? (i / 3) * 3 + (3 - i % 3) % 3 : i];
+            int f = face + i / 3, pi = f * FI_POSITION + (i % 3) * 3, uvi = f * FI_UV + (i % 3) * 2;
+
+            model.position[pi + axis] = plane;
+            model.position[pi + (axis + 1) % 3] = b + corner[0] * Math.abs(size);
+            model.position[pi + (axis + 2) % 3] = c + corner[1] * Math.abs(size);
+
+            float u = swapUv ? corner[1] : corner[0], v = swapUv ? corner[0] : corner[1];
+            model.uv[uvi] = invertU ? 1 - u : u;
+            model.uv[uvi + 1] = v;
+        }
+
+        for (int f = face; f < face + 2; f++) {
+            model.setColor(f, color, 1, 1);
+            model.setAOs(f, 0.8f, 0.8f, 0.8f);
+            model.setSunlight(f, 15);
+            model.setBlocklight(f, 2);
+            model.setMaterialIndex(f, material);
+        }
+    }
+
+    /**
+     * Samples all axis-aligned triangles of the model at a few points inside each block-face they cover and
+     * returns the attributes and the (repeated) texture-coordinates at each point.
+     */
+    private Map<String, String> sample(ArrayTileModel model) {
+        Map<String, String> samples = new TreeMap<>();
+        for (int face = 0; face < model.size; face++) {
+            int axis = alignedAxis(model, face);
+            if (axis == -1) continue;
+
+            int pi = face * FI_POSITION;
+            int axisB = (axis + 1) % 3, axisC = (axis + 2) % 3;
+            float[] b = new float[3], c = new float[3];
+            for (int v = 0; v < 3; v++) {
+                b[v] = model.position[pi + v * 3 + axisB];
+                c[v] = model.position[pi + v * 3 + axisC];
+            }
+
+            float area = (b[1] - b[0]) * (c[2] - c[0]) - (c[1] - c[0]) * (b[2] - b[0]);
+            for (int cellB = (int) Math.floor(min(b)); cellB < max(b); cellB++) {
+                for (int cellC = (int) Math.floor(min(c)); cellC < max(c); cellC++) {
+                    for (float[] sample : SAMPLES) {
+                        float sb = cellB + sample[0], sc = cellC + sample[1];
+
+                        // barycentric coordinates of the sample-point
+                        float w1 = ((b[2] - b[1]) * (sc - c[1]) - (c[2] - c[1]) * (sb - b[1])) / area;
+                        float w2 = ((b[0] - b[2]) * (sc - c[2]) - (c[0] - c[2]) * (sb - b[2])) / area;
+                        float w3 = 1 - w1 - w2;
+                        if (w1 < 0 || w2 < 0 || w3 < 0) continue;
+
+                        int uvi = face * FI_UV;
+                        float u = w1 * model.uv[uvi] + w2 * model.uv[uvi + 2] + w3 * model.uv[uvi + 4];
+                        float v = w1 * model.uv[uvi + 1] + w2 * model.uv[uvi + 3] + w3 * model.uv[uvi + 5];
+
+                        String key = "%d %s %.2f %.2f".formatted(axis, model.position[pi + axis], sb, sc);
+                        String value = "facing=%s material=%d color=%s ao=%s light=%d/%d uv=%.3f/%.3f".formatted(
+                                Math.signum(area), model.materialIndex[face],
+                                Arrays.toString(Arrays.copyOfRange(model.color, face * FI_COLOR, face * FI_COLOR + FI_COLOR)),
+                                Arrays.toString(Arrays.copyOfRange(model.ao, face * FI_AO, face * FI_AO + FI_AO)),
+                                model.sunlight[face], model.blocklight[face],
+                                u - Math.floor(u), v - Math.floor(v)
+                        );
+
+                        String previous = samples.put(key, value);
+                        assertTrue(previous == null, "point sampled twice: " + key);
+                    }
+                }
+            }
+        }
+        return samples;
+    }
+
+    private List<String> nonAxisAlignedFaces(ArrayTileModel model) {
+        List<String> faces = new ArrayList<>();
+        for (int face = 0; face < model.size; face++) {
+            if (alignedAxis(model, face) != -1) continue;
+            faces.add(Arrays.toString(Arrays.copyOfRange(model.position, face * FI_POSITION, face * FI_POSITION + FI_POSITION)));
+        }
+        return faces;
+    }
+
+    private int alignedAxis(ArrayTileModel model, int face) {
+        int pi = face * FI_POSITION;
+        for (int axis = 0; axis < 3; axis++) {
+            if (
+                    model.position[pi + axis] == model.position[pi + 3 + axis] &&
+                    model.position[pi + axis] == model.position[pi + 6 + axis]
+            ) return axis;
+        }
+        return -1;
+    }
+
+    private static float min(float[] values) {
+        return Math.min(values[0], Math.min(values[1], values[2]));
+    }
+
+    private static float max(float[] values) {
+        return Math.max(values[0], Math.max(values[1], values[2]));
+    }
+
+}
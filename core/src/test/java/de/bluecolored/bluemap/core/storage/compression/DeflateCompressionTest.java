@@ -0,0 +1,180 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.storage.compression;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeflateCompressionTest {
+
+    private static final int[] SIZES = { 0, 1, 100, 70000 };
+
+    @Test
+    public void testGzipCompressReadableByGZIPInputStream() throws IOException {
+        for (int size : SIZES) {
+            byte[] data = testData(size);
+
+            byte[] compressed = toArray(Compression.GZIP.compress(data, 0, data.length, null));
+            assertArrayEquals(data, gunzip(compressed));
+            assertGzipTrailer(data, compressed);
+
+            compressed = compressStream(Compression.GZIP, data);
+            assertArrayEquals(data, gunzip(compressed));
+            assertGzipTrailer(data, compressed);
+        }
+    }
+
+    @Test
+    public void testGzipDecompressGZIPOutputStream() throws IOException {
+        for (int size : SIZES) {
+            byte[] data = testData(size);
+            byte[] compressed = gzip(data);
+
+            assertArrayEquals(data, toArray(Compression.GZIP.decompress(compressed, 0, compressed.length, null)));
+            assertArrayEquals(data, decompressStream(Compression.GZIP, compressed));
+        }
+    }
+
+    @Test
+    public void testGzipOptionalHeaderFields() throws IOException {
+        byte[] data = testData(1000);
+        byte[] compressed = gzip(data);
+
+        // add FEXTRA (2 bytes), FNAME and FCOMMENT after the fixed 10-byte header
+        byte[] fields = { 2, 0, 'x', 'y', 'n', 'a', 'm', 'e', 0, 'c', 0 };
+        byte[] withFields = new byte[compressed.length + fields.length];
+        System.arraycopy(compressed, 0, withFields, 0, 10);
+        System.arraycopy(fields, 0, withFields, 10, fields.length);
+        System.arraycopy(compressed, 10, withFields, 10 + fields.length, compressed.length - 10);
+        withFields[3] = 4 | 8 | 16;
+
+        assertArrayEquals(data, gunzip(withFields));
+        assertArrayEquals(data, toArray(Compression.GZIP.decompress(withFields, 0, withFields.length, null)));
+        assertArrayEquals(data, decompressStream(Compression.GZIP, withFields));
+    }
+
+    @Test
+    public void testGzipInvalidTrailer() throws IOException {
+        byte[] data = testData(1000);
+
+        // corrupt crc
+        byte[] compressed = gzip(data);
+        compressed[compressed.length - 8] ^= 1;
+        assertInvalid(compressed);
+
+        // corrupt size
+        compressed = gzip(data);
+        compressed[compressed.length - 4] ^= 1;
+        assertInvalid(compressed);
+
+        // missing trailer
+        compressed = gzip(data);
+        assertInvalid(Arrays.copyOf(compressed, compressed.length - 4));
+    }
+
+    @Test
+    public void testDeflateRoundTrip() throws IOException {
+        for (int size : SIZES) {
+            byte[] data = testData(size);
+
+            byte[] compressed = toArray(Compression.DEFLATE.compress(data, 0, data.length, null));
+            assertArrayEquals(data, new InflaterInputStream(new ByteArrayInputStream(compressed)).readAllBytes());
+            assertArrayEquals(data, decompressStream(Compression.DEFLATE, compressed));
+
+            compressed = compressStream(Compression.DEFLATE, data);
+            assertArrayEquals(data, toArray(Compression.DEFLATE.decompress(compressed, 0, compressed.length, null)));
+        }
+    }
+
+    private static void assertInvalid(byte[] compressed) {
+        assertThrows(IOException.class, () -> Compression.GZIP.decompress(compressed, 0, compressed.length, null));
+        assertThrows(IOException.class, () -> decompressStream(Compression.GZIP, compressed));
+    }
+
+    private static void assertGzipTrailer(byte[] data, byte[] compressed) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        ByteBuffer trailer = ByteBuffer.wrap(compressed, compressed.length - 8, 8).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals((int) crc.getValue(), trailer.getInt());
+        assertEquals(data.length, trailer.getInt());
+    }
+
+    private static byte[] testData(int size) {
+        // somewhat compressible data
+        Random random = new Random(size);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++)
+            data[i] = (byte) (random.nextInt(16) + (i / 100));
+        return data;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] compressStream(Compression compression, byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream compressedOut = compression.compress(out)) {
+            compressedOut.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decompressStream(Compression compression, byte[] compressed) throws IOException {
+        try (InputStream in = compression.decompress(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] array = new byte[buffer.remaining()];
+        buffer.get(array);
+        return array;
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.core.util.math;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HilbertCurveTest {
+
+    // hires-tiles of 32 blocks with an offset of 2 (the defaults), rendering a tile reads 2 blocks beyond its borders
+    private static final int TILE_SIZE = 32, TILE_OFFSET = 2, TILE_BORDER = 2;
+    private static final int REGION_SIZE = 512;
+
+    @Test
+    public void testOrder() {
+        assertEquals(1, HilbertCurve.order(1));
+        assertEquals(1, HilbertCurve.order(2));
+        assertEquals(2, HilbertCurve.order(3));
+        assertEquals(2, HilbertCurve.order(4));
+        assertEquals(5, HilbertCurve.order(17));
+        assertEquals(5, HilbertCurve.order(32));
+    }
+
+    @Test
+    public void testCurveIsContinuous() {
+        for (int order = 1; order <= 6; order++) {
+            int n = 1 << order;
+            int[][] positions = new int[n * n][];
+            for (int x = 0; x < n; x++) {
+                for (int y = 0; y < n; y++) {
+                    int index = (int) HilbertCurve.index(x, y, order);
+                    assertEquals(null, positions[index], "index " + index + " is used twice");
+                    positions[index] = new int[] { x, y };
+                }
+            }
+
+            for (int i = 1; i < positions.length; i++) {
+                int distance = Math.abs(positions[i][0] - positions[i - 1][0]) + Math.abs(positions[i][1] - positions[i - 1][1]);
+                assertEquals(1, distance, "index " + (i - 1) + " and " + i + " are not next to each other");
+            }
+        }
+    }
+
+    /**
+     * Simulates a LRU chunk-cache while the tiles of one region are rendered by the given amount of threads
+     * and checks that the tiles in hilbert-order read less chunks from the region-file than in row-major order.<br>
+     * Caches that hold about three rows of tiles worth of chunks (~128) are not tested,
+     * with those the row-major order already reads every chunk only once.
+     */
+    @Test
+    public void testTileOrderReadsLessChunks() {
+        for (int threads : new int[] { 1, 4, 8 }) {
+            for (int cacheSize : new int[] { 24, 32, 64, 96 }) {
+                long rowReads = simulateChunkReads(rowOrder(), cacheSize, threads);
+                long hilbertReads = simulateChunkReads(hilbertOrder(), cacheSize, threads);
+                assertTrue(hilbertReads < rowReads,
+                        "threads: %d, cache: %d, row-reads: %d, hilbert-reads: %d"
+                                .formatted(threads, cacheSize, rowReads, hilbertReads));
+            }
+        }
+    }
+
+    private static int tileMin() {
+        return Math.floorDiv(-TILE_OFFSET, TILE_SIZE);
+    }
+
+    private static int tileCount() {
+        return Math.floorDiv(REGION_SIZE - 1 - TILE_OFFSET, TILE_SIZE) - tileMin() + 1;
+    }
+
+    private static List<int[]> rowOrder() {
+        List<int[]> order = new ArrayList<>();
+        for (int z = 0; z < tileCount(); z++)
+            for (int x = 0; x < tileCount(); x++)
+                order.add(new int[] { x, z });
+        return order;
+    }
+
+    private static List<int[]> hilbertOrder() {
+        int curveOrder = HilbertCurve.order(tileCount());
+        List<int[]> order = rowOrder();
+        order.sort(Comparator.comparingLong(tile -> HilbertCurve.index(tile[0], tile[1], curveOrder)));
+        return order;
+    }
+
+    /**
+     * Returns the chunks that rendering the given tile (relative to the region's first tile) reads
+     */
+    private static List<Long> tileChunks(int[] tile) {
+        int minX = (tileMin() + tile[0]) * TILE_SIZE + TILE_OFFSET - TILE_BORDER;
+        int minZ = (tileMin() + tile[1]) * TILE_SIZE + TILE_OFFSET - TILE_BORDER;
+        int maxX = minX + TILE_SIZE - 1 + TILE_BORDER * 2;
+        int maxZ = minZ + TILE_SIZE - 1 + TILE_BORDER * 2;
+
+        List<Long> chunks = new ArrayList<>();
+        for (int x = minX >> 4; x <= maxX >> 4; x++)
+            for (int z = minZ >> 4; z <= maxZ >> 4; z++)
+                chunks.add((long) x << 32 | z & 0xFFFFFFFFL);
+        return chunks;
+    }
+
+    private static long simulateChunkReads(List<int[]> order, int cacheSize, int threads) {
+        LinkedHashMap<Long, Boolean> cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > cacheSize;
+            }
+        };
+
+        // the threads take the next tile of the order when they are done, their chunk-reads interleave
+        long reads = 0;
+        Deque<Deque<Long>> working = new ArrayDeque<>();
+        int next = 0;
+        while (next < order.size() || !working.isEmpty()) {
+            while (working.size() < threads && next < order.size())
+                working.add(new ArrayDeque<>(tileChunks(order.get(next++))));
+
+            Deque<Long> tile = working.poll();
+            Long chunk = tile.poll();
+            if (cache.get(chunk) == null) {
+                reads++;
+                cache.put(chunk, Boolean.TRUE);
+            }
+            if (!tile.isEmpty()) working.add(tile);
+        }
+
+        return reads;
+    }
+
+}
@@ -35,7 +35,9 @@
 import de.bluecolored.bluemap.common.live.LiveMarkersDataSupplier;
 import de.bluecolored.bluemap.common.metrics.Metrics;
 import de.bluecolored.bluemap.common.plugin.MapUpdateService;
+import de.bluecolored.bluemap.common.plugin.WorldUpdateService;
 import de.bluecolored.bluemap.common.rendermanager.MapUpdatePreparationTask;
+import de.bluecolored.bluemap.common.rendermanager.MultiMapUpdatePreparationTask;
 import de.bluecolored.bluemap.common.rendermanager.RenderManager;
 import de.bluecolored.bluemap.common.rendermanager.RenderTask;
 import de.bluecolored.bluemap.common.rendermanager.TileUpdateStrategy;
@@ -45,6 +47,7 @@
 import de.bluecolored.bluemap.core.BlueMap;
 import de.bluecolored.bluemap.core.logger.Logger;
 import de.bluecolored.bluemap.core.map.BmMap;
+import de.bluecolored.bluemap.core.metrics.BlueMapMetrics;
 import de.bluecolored.bluemap.core.storage.MapStorage;
 import de.bluecolored.bluemap.core.util.FileHelper;
 import org.apache.commons.cli.*;
@@ -69,6 +72,7 @@
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class BlueMapCLI {
 
@@ -101,15 +105,29 @@ public void renderMaps(BlueMapService blueMap, boolean watch, TileUpdateStrategy
 
         //watcher
         List<MapUpdateService> mapUpdateServices = new ArrayList<>();
+        Map<String, WorldUpdateService> worldUpdateServices = new HashMap<>();
         if (watch) {
             for (BmMap map : maps.values()) {
                 try {
+                    WorldUpdateService worldUpdateService = worldUpdateServices.get(map.getWorld().getId());
+                    if (worldUpdateService == null) {
+                        worldUpdateService = new WorldUpdateService(
+                                renderManager,
+                                map.getWorld(),
+                                blueMap.getConfig().getCoreConfig().getUpdateCooldown(),
+                                true,
+                                blueMap.getConfig().getCoreConfig().isRenderMapsTogether(),
+                                true
+                        );
+                        worldUpdateService.start();
+                        worldUpdateServices.put(map.getWorld().getId(), worldUpdateService);
+                    }
+
                     MapUpdateService watcher = new MapUpdateService(
-                            renderManager,
                             map,
+                            worldUpdateService,
                             Instant.now(),
                             blueMap.getConfig().getCoreConfig().getFullUpdateInterval(),
-                            blueMap.getConfig().getCoreConfig().getUpdateCooldown(),
                             true
                     );
                     watcher.start();
@@ -125,14 +143,29 @@ public void renderMaps(BlueMapService blueMap, boolean watch, TileUpdateStrategy
         }
 
         //update all maps
+        boolean renderMapsTogether = blueMap.getConfig().getCoreConfig().isRenderMapsTogether();
         maps.values().stream()
                 .sorted(Comparator.comparing(bmMap -> bmMap.getMapSettings().getSorting()))
-                .forEach(map -> {
-                    renderManager.scheduleRenderTask(MapUpdatePreparationTask.builder()
-                            .map(map)
-                            .force(force)
-                            .taskConsumer(renderManager::scheduleRenderTaskNext)
-                            .build());
+                .collect(Collectors.groupingBy(
+                        map -> renderMapsTogether ? map.getWorld().getId() : map.getId(),
+                        LinkedHashMap::new,
+                        Collectors.toList()
+                ))
+                .values()
+                .forEach(mapGroup -> {
+                    if (mapGroup.size() == 1) {
+                        renderManager.scheduleRenderTask(MapUpdatePreparationTask.builder()
+                                .map(mapGroup.getFirst())
+                                .force(force)
+                                .taskConsumer(renderManager::scheduleRenderTaskNext)
+                                .build());
+                    } else {
+                        renderManager.scheduleRenderTask(MultiMapUpdatePreparationTask.builder()
+                                .maps(mapGroup)
+                                .force(force)
+                                .taskConsumer(renderManager::scheduleRenderTaskNext)
+                                .build());
+                    }
                 });
 
         // enable api
@@ -195,6 +228,8 @@ public void run() {
 
             mapUpdateServices.forEach(MapUpdateService::close);
             mapUpdateServices.clear();
+            worldUpdateServices.values().forEach(WorldUpdateService::close);
+            worldUpdateServices.clear();
 
             renderManager.removeAllRenderTasks();
             try {
@@ -284,6 +319,10 @@ public void startWebserver(BlueMapService blueMap, boolean verbose) throws IOExc
         // default route
         routingRequestHandler.register(".*", new FileRequestHandler(config.getWebroot()));
 
+        // metrics route
+        if (config.isMetricsEnabled())
+            routingRequestHandler.register("metrics", new MetricsRequestHandler(BlueMapMetrics.registry()));
+
         // map route
         for (var mapConfigEntry : blueMap.getConfig().getMapConfigs().entrySet()) {
             MapStorage storage = blueMap.getOrLoadStorage(mapConfigEntry.getValue().getStorage())
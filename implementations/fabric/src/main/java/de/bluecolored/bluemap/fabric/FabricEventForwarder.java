@@ -25,24 +25,36 @@
 package de.bluecolored.bluemap.fabric;
 
 import de.bluecolored.bluemap.common.serverinterface.ServerEventListener;
+import de.bluecolored.bluemap.common.serverinterface.ServerWorld;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.core.BlockPos;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
-import java.util.ArrayList;
+import org.jetbrains.annotations.Nullable;
+
 import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class FabricEventForwarder {
 
+    private static @Nullable FabricEventForwarder instance;
+
     private final FabricMod mod;
     private final Collection<ServerEventListener> eventListeners;
+    private volatile Set<ServerWorld> liveChunkWorlds;
 
     public FabricEventForwarder(FabricMod mod) {
         this.mod = mod;
-        this.eventListeners = new ArrayList<>(1);
+        this.eventListeners = new CopyOnWriteArrayList<>();
+        this.liveChunkWorlds = Set.of();
     }
 
     public void init() {
+        instance = this;
+
         ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
             this.onPlayerJoin(server, handler.getPlayer());
         });
@@ -58,6 +70,11 @@ public synchronized void addEventListener(ServerEventListener listener) {
 
     public synchronized void removeAllListeners() {
         this.eventListeners.clear();
+        this.liveChunkWorlds = Set.of();
+    }
+
+    public void setLiveChunkWorlds(Collection<ServerWorld> worlds) {
+        this.liveChunkWorlds = Set.copyOf(worlds);
     }
 
     public synchronized void onPlayerJoin(MinecraftServer server, ServerPlayer player) {
@@ -74,4 +91,26 @@ public synchronized void onPlayerLeave(MinecraftServer server, ServerPlayer play
         for (ServerEventListener listener : eventListeners) listener.onPlayerLeave(uuid);
     }
 
+    // called on the server-thread for every block-change, so this is not synchronized and returns early for all worlds
+    // that are not rendered from live chunk-snapshots
+    public void onChunkChanged(ServerLevel level, int chunkX, int chunkZ) {
+        Set<ServerWorld> liveChunkWorlds = this.liveChunkWorlds;
+        if (liveChunkWorlds.isEmpty()) return;
+        if (this.mod.getServer() != level.getServer()) return;
+
+        ServerWorld world = mod.getServerWorld(level);
+        if (!liveChunkWorlds.contains(world)) return;
+        for (ServerEventListener listener : eventListeners) listener.onChunkChanged(world, chunkX, chunkZ);
+    }
+
+    /**
+     * Called by {@link de.bluecolored.bluemap.fabric.mixin.ServerLevelMixin} whenever a block changed on the server
+     */
+    public static void onBlockChange(ServerLevel level, BlockPos pos) {
+        FabricEventForwarder forwarder = instance;
+        if (forwarder == null) return;
+
+        forwarder.onChunkChanged(level, pos.getX() >> 4, pos.getZ() >> 4);
+    }
+
 }
@@ -46,6 +46,7 @@
 import net.minecraft.resources.Identifier;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.level.Level;
 import org.apache.logging.log4j.LogManager;
@@ -62,7 +63,7 @@ public class FabricMod implements ModInitializer, Server {
 
     private final FabricEventForwarder eventForwarder;
 
-    private final LoadingCache<net.minecraft.server.level.ServerLevel, ServerWorld> worlds;
+    private final LoadingCache<ServerLevel, ServerWorld> worlds;
 
     private int playerUpdateIndex = 0;
     private final Map<UUID, Player> onlinePlayerMap;
@@ -142,6 +143,12 @@ public String getMinecraftVersion() {
         return SharedConstants.getCurrentVersion().id();
     }
 
+    @Override
+    public OptionalDouble getAverageTickTime() {
+        if (serverInstance == null) return OptionalDouble.empty();
+        return OptionalDouble.of(serverInstance.getAverageTickTimeNanos() / 1_000_000.0);
+    }
+
     @Override
     public void registerListener(ServerEventListener listener) {
         eventForwarder.addEventListener(listener);
@@ -152,10 +159,15 @@ public void unregisterAllListeners() {
         eventForwarder.removeAllListeners();
     }
 
+    @Override
+    public void setLiveChunkWorlds(Collection<ServerWorld> worlds) {
+        eventForwarder.setLiveChunkWorlds(worlds);
+    }
+
     @Override
     public Collection<ServerWorld> getLoadedServerWorlds() {
         Collection<ServerWorld> loadedWorlds = new ArrayList<>(3);
-        for (net.minecraft.server.level.ServerLevel serverWorld : serverInstance.getAllLevels()) {
+        for (ServerLevel serverWorld : serverInstance.getAllLevels()) {
             loadedWorlds.add(worlds.get(serverWorld));
         }
         return loadedWorlds;
@@ -176,13 +188,13 @@ public Optional<ServerWorld> getServerWorld(Object world) {
             } catch (ClassCastException ignored) {}
         }
 
-        if (world instanceof net.minecraft.server.level.ServerLevel)
-            return Optional.of(getServerWorld((net.minecraft.server.level.ServerLevel) world));
+        if (world instanceof ServerLevel)
+            return Optional.of(getServerWorld((ServerLevel) world));
 
         return Optional.empty();
     }
 
-    public ServerWorld getServerWorld(net.minecraft.server.level.ServerLevel serverWorld) {
+    public ServerWorld getServerWorld(ServerLevel serverWorld) {
         return worlds.get(Objects.requireNonNull(serverWorld));
     }
 
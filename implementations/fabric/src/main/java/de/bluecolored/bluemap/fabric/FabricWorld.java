@@ -24,26 +24,36 @@
  */
 package de.bluecolored.bluemap.fabric;
 
+import de.bluecolored.bluemap.common.serverinterface.ServerThreadChunkSnapshotProvider;
 import de.bluecolored.bluemap.common.serverinterface.ServerWorld;
 import de.bluecolored.bluemap.core.util.Key;
+import de.bluecolored.bluemap.core.world.mca.ChunkSnapshotProvider;
+import net.minecraft.nbt.NbtIo;
 import net.minecraft.resources.Identifier;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.storage.SerializableChunkData;
 import net.minecraft.world.level.storage.LevelResource;
+import org.jetbrains.annotations.Nullable;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.nio.file.Path;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 public class FabricWorld implements ServerWorld {
 
-    private final WeakReference<net.minecraft.server.level.ServerLevel> delegate;
+    private final WeakReference<ServerLevel> delegate;
     private final Path worldFolder;
     private final Key dimension;
 
-    public FabricWorld(net.minecraft.server.level.ServerLevel delegate) {
+    public FabricWorld(ServerLevel delegate) {
         this.delegate = new WeakReference<>(delegate);
 
         MinecraftServer server = Objects.requireNonNull(delegate.getServer());
@@ -55,7 +65,7 @@ public FabricWorld(net.minecraft.server.level.ServerLevel delegate) {
 
     @Override
     public boolean persistWorldChanges() throws IOException {
-        net.minecraft.server.level.ServerLevel world = delegate.get();
+        ServerLevel world = delegate.get();
         if (world == null) return false;
 
         var taskResult = CompletableFuture.supplyAsync(() -> {
@@ -80,6 +90,11 @@ public boolean persistWorldChanges() throws IOException {
         }
     }
 
+    @Override
+    public Optional<ChunkSnapshotProvider> getChunkSnapshotProvider() {
+        return Optional.of(new ChunkSnapshots());
+    }
+
     @Override
     public Path getWorldFolder() {
         return worldFolder;
@@ -106,4 +121,35 @@ public int hashCode() {
         return world != null ? world.hashCode() : 0;
     }
 
+    private class ChunkSnapshots extends ServerThreadChunkSnapshotProvider<SerializableChunkData> {
+
+        @Override
+        protected @Nullable Executor getServerThread() {
+            ServerLevel world = delegate.get();
+            return world != null ? world.getServer() : null;
+        }
+
+        @Override
+        protected boolean isChunkLoaded(int chunkX, int chunkZ) {
+            ServerLevel world = delegate.get();
+            return world != null && world.getChunkSource().hasChunk(chunkX, chunkZ);
+        }
+
+        @Override
+        protected @Nullable SerializableChunkData copyChunk(int chunkX, int chunkZ) {
+            ServerLevel world = delegate.get();
+            if (world == null) return null;
+
+            LevelChunk chunk = world.getChunkSource().getChunkNow(chunkX, chunkZ);
+            if (chunk == null || !chunk.isUnsaved()) return null;
+            return SerializableChunkData.copyOf(world, chunk);
+        }
+
+        @Override
+        protected void writeChunk(SerializableChunkData chunk, DataOutputStream out) throws IOException {
+            NbtIo.write(chunk.write(), out);
+        }
+
+    }
+
 }
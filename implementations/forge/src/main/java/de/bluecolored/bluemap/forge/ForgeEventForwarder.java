@@ -25,20 +25,31 @@
 package de.bluecolored.bluemap.forge;
 
 import de.bluecolored.bluemap.common.serverinterface.ServerEventListener;
+import de.bluecolored.bluemap.common.serverinterface.ServerWorld;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraftforge.event.entity.player.PlayerEvent.PlayerLoggedInEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent.PlayerLoggedOutEvent;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.event.level.ChunkDataEvent;
 import net.minecraftforge.eventbus.api.listener.SubscribeEvent;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class ForgeEventForwarder  {
 
+    private final ForgeMod mod;
     private final Collection<ServerEventListener> eventListeners;
+    private volatile Set<ServerWorld> liveChunkWorlds;
 
-    public ForgeEventForwarder() {
-        this.eventListeners = new ArrayList<>(1);
+    public ForgeEventForwarder(ForgeMod mod) {
+        this.mod = mod;
+        this.eventListeners = new CopyOnWriteArrayList<>();
+        this.liveChunkWorlds = Set.of();
     }
 
     public synchronized void addEventListener(ServerEventListener listener) {
@@ -47,6 +58,11 @@ public synchronized void addEventListener(ServerEventListener listener) {
 
     public synchronized void removeAllListeners() {
         this.eventListeners.clear();
+        this.liveChunkWorlds = Set.of();
+    }
+
+    public void setLiveChunkWorlds(Collection<ServerWorld> worlds) {
+        this.liveChunkWorlds = Set.copyOf(worlds);
     }
 
     @SubscribeEvent
@@ -61,4 +77,30 @@ public synchronized void onPlayerLeave(PlayerLoggedOutEvent evt) {
         for (ServerEventListener listener : eventListeners) listener.onPlayerLeave(uuid);
     }
 
+    @SubscribeEvent
+    public synchronized void onChunkSave(ChunkDataEvent.Save evt) {
+        if (eventListeners.isEmpty()) return;
+        if (!(evt.getLevel() instanceof ServerLevel level)) return;
+
+        ServerWorld world = mod.getServerWorld(level);
+        ChunkPos pos = evt.getChunk().getPos();
+        int chunkX = pos.getMinBlockX() >> 4, chunkZ = pos.getMinBlockZ() >> 4;
+        for (ServerEventListener listener : eventListeners) listener.onChunkSaved(world, chunkX, chunkZ);
+    }
+
+    // fired on the server-thread for every block-change, so this is not synchronized and returns early for all worlds
+    // that are not rendered from live chunk-snapshots
+    @SubscribeEvent
+    public void onBlockChange(BlockEvent.NeighborNotifyEvent evt) {
+        Set<ServerWorld> liveChunkWorlds = this.liveChunkWorlds;
+        if (liveChunkWorlds.isEmpty()) return;
+        if (!(evt.getLevel() instanceof ServerLevel level)) return;
+
+        ServerWorld world = mod.getServerWorld(level);
+        if (!liveChunkWorlds.contains(world)) return;
+        BlockPos pos = evt.getPos();
+        int chunkX = pos.getX() >> 4, chunkZ = pos.getZ() >> 4;
+        for (ServerEventListener listener : eventListeners) listener.onChunkChanged(world, chunkX, chunkZ);
+    }
+
 }
@@ -82,7 +82,7 @@ public ForgeMod() {
 
         this.pluginInstance = new Plugin("neoforge", this);
 
-        this.eventForwarder = new ForgeEventForwarder();
+        this.eventForwarder = new ForgeEventForwarder(this);
         this.worlds = Caches.with()
                 .weakKeys()
                 .maximumSize(1000)
@@ -145,6 +145,17 @@ public String getMinecraftVersion() {
         return SharedConstants.getCurrentVersion().id();
     }
 
+    @Override
+    public boolean isChunkSaveEventSupported() {
+        return true;
+    }
+
+    @Override
+    public OptionalDouble getAverageTickTime() {
+        if (serverInstance == null) return OptionalDouble.empty();
+        return OptionalDouble.of(serverInstance.getAverageTickTimeNanos() / 1_000_000.0);
+    }
+
     @Override
     public void registerListener(ServerEventListener listener) {
         eventForwarder.addEventListener(listener);
@@ -155,6 +166,11 @@ public void unregisterAllListeners() {
         eventForwarder.removeAllListeners();
     }
 
+    @Override
+    public void setLiveChunkWorlds(Collection<ServerWorld> worlds) {
+        eventForwarder.setLiveChunkWorlds(worlds);
+    }
+
     @Override
     public Collection<ServerWorld> getLoadedServerWorlds() {
         Collection<ServerWorld> loadedWorlds = new ArrayList<>(3);
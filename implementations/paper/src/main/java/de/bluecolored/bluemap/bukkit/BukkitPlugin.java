@@ -164,6 +164,11 @@ public String getMinecraftVersion() {
         return ServerBuildInfo.buildInfo().minecraftVersionId();
     }
 
+    @Override
+    public OptionalDouble getAverageTickTime() {
+        return OptionalDouble.of(Bukkit.getAverageTickTime());
+    }
+
     @Override
     public void registerListener(ServerEventListener listener) {
         eventForwarder.addListener(listener);
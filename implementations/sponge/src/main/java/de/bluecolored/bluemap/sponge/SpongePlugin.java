@@ -191,6 +191,11 @@ public String getMinecraftVersion() {
         return Sponge.platform().minecraftVersion().name();
     }
 
+    @Override
+    public OptionalDouble getAverageTickTime() {
+        return OptionalDouble.of(Sponge.server().averageTickTime());
+    }
+
     @Override
     public void registerListener(ServerEventListener listener) {
         Sponge.eventManager().registerListeners(this.pluginContainer, new EventForwarder(listener), MethodHandles.lookup());